@@ -2,6 +2,8 @@ package vishal.mysore.cricket;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
+import vishal.mysore.schema.SchemaIndexInitializer;
 
 @SpringBootApplication(scanBasePackages = {
     "vishal.mysore.cricket.config",
@@ -10,6 +12,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
     "vishal.mysore.cricket.model",
     "vishal.mysore.cricket.util"
 })
+@Import(SchemaIndexInitializer.class)
 public class Application {
     public static void main(String[] args) {
         SpringApplication.run(Application.class, args);
@@ -3,8 +3,11 @@ package vishal.mysore.fd;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Import;
+import vishal.mysore.schema.SchemaIndexInitializer;
 
 @SpringBootApplication
+@Import(SchemaIndexInitializer.class)
 public class FraudDetectionApplication {
     public static void main(String[] args) {
         ConfigurableApplicationContext context = SpringApplication.run(FraudDetectionApplication.class, args);
@@ -0,0 +1,16 @@
+package vishal.mysore.fd.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import vishal.mysore.fd.util.CycleIdGenerator;
+
+/**
+ * Sets this instance's node id for cycle ids; each instance sharing a database needs its own
+ */
+@Configuration
+public class CycleIdConfig {
+
+    public CycleIdConfig(@Value("${fd.cycle-id.node-id:0}") int nodeId) {
+        CycleIdGenerator.configure(nodeId);
+    }
+}
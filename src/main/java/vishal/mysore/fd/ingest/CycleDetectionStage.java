@@ -0,0 +1,37 @@
+package vishal.mysore.fd.ingest;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import vishal.mysore.fd.service.IncrementalCycleDetectionService;
+
+import java.util.List;
+
+/**
+ * Pipeline stage feeding transfers into the in-memory incremental cycle detector,
+ * in parallel with the graph writes. The loops a batch closes are saved together at its end; when a batch
+ * is retried, events already fed in are skipped so no transfer is added to the detector twice.
+ */
+@Component
+public class CycleDetectionStage implements TransferEventHandler {
+
+    private final IncrementalCycleDetectionService incrementalCycleDetectionService;
+    private long applied = -1;
+
+    @Autowired
+    public CycleDetectionStage(IncrementalCycleDetectionService incrementalCycleDetectionService) {
+        this.incrementalCycleDetectionService = incrementalCycleDetectionService;
+    }
+
+    @Override
+    public void onBatch(List<TransferEvent> events) {
+        for (TransferEvent event : events) {
+            if (event.getSequence() <= applied) {
+                continue;
+            }
+            incrementalCycleDetectionService.onTransfer(
+                    event.getFromAccount(), event.getToAccount(), event.getAmount());
+            applied = event.getSequence();
+        }
+        incrementalCycleDetectionService.flush();
+    }
+}
@@ -0,0 +1,47 @@
+package vishal.mysore.fd.ingest;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pipeline stage writing transfers to the graph, one UNWIND statement per batch
+ */
+@Component
+public class Neo4jTransferWriter implements TransferEventHandler {
+
+    private static final String WRITE_TRANSFERS =
+            "UNWIND $rows AS row " +
+            "MERGE (a1:Account {id: row.fromAccount}) " +
+            "MERGE (a2:Account {id: row.toAccount}) " +
+            "CREATE (a1)-[:TRANSFER {amount: row.amount, timestamp: datetime({epochMillis: row.timestamp})}]->(a2)";
+
+    private final Neo4jClient neo4jClient;
+
+    @Autowired
+    public Neo4jTransferWriter(Neo4jClient neo4jClient) {
+        this.neo4jClient = neo4jClient;
+    }
+
+    @Override
+    public void onBatch(List<TransferEvent> events) {
+        List<Map<String, Object>> rows = new ArrayList<>(events.size());
+        for (TransferEvent event : events) {
+            Map<String, Object> row = new HashMap<>(8);
+            row.put("fromAccount", event.getFromAccount());
+            row.put("toAccount", event.getToAccount());
+            row.put("amount", event.getAmount());
+            row.put("timestamp", event.getTimestamp());
+            rows.add(row);
+        }
+
+        neo4jClient.query(WRITE_TRANSFERS)
+                .bind(rows).to("rows")
+                .run();
+    }
+}
@@ -0,0 +1,25 @@
+package vishal.mysore.fd.ingest;
+
+import lombok.Getter;
+
+/**
+ * A transfer between two accounts as it moves through the ingest pipeline.
+ * Instances are ring buffer slots: they are allocated once and overwritten for every lap of the ring,
+ * so a handler must copy what it needs before its batch call returns.
+ */
+@Getter
+public class TransferEvent {
+    private long sequence;
+    private String fromAccount;
+    private String toAccount;
+    private double amount;
+    private long timestamp; // epoch milliseconds
+
+    void set(long sequence, String fromAccount, String toAccount, double amount, long timestamp) {
+        this.sequence = sequence;
+        this.fromAccount = fromAccount;
+        this.toAccount = toAccount;
+        this.amount = amount;
+        this.timestamp = timestamp;
+    }
+}
@@ -0,0 +1,17 @@
+package vishal.mysore.fd.ingest;
+
+import java.util.List;
+
+/**
+ * A consumer stage of the ingest pipeline. Every stage sees every event, in sequence order,
+ * on its own thread; stages run in parallel with each other.
+ */
+public interface TransferEventHandler {
+
+    /**
+     * Process a batch of consecutive events. The events are ring buffer slots and are only valid
+     * until this call returns. If this throws, the same batch is handed over again, so a handler must
+     * not apply an event twice.
+     */
+    void onBatch(List<TransferEvent> events);
+}
@@ -0,0 +1,275 @@
+package vishal.mysore.fd.ingest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import vishal.mysore.fd.service.IncrementalCycleDetectionService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * In-process transfer ingest: producers publish into a {@link TransferRingBuffer}, and each stage
+ * (graph writer, cycle detector) drains it on its own thread in batches of up to {@code batchSize}
+ * events. A partial batch is held for at most {@code lingerMs} waiting for more events.
+ * Producers block (or {@link #tryPublish} fails) when the slowest stage is a full ring behind.
+ * The pipeline starts after the incremental cycle detector has loaded the stored transfers.
+ * A failed batch is retried with exponential backoff and its slots are only released once it succeeds; a
+ * stage that still fails after {@code retryAttempts} stops, and the pipeline then rejects new events rather
+ * than let the graph and the detector drift apart.
+ */
+@Component
+public class TransferIngestPipeline implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(TransferIngestPipeline.class);
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final TransferRingBuffer ringBuffer;
+    private final List<TransferEventHandler> handlers;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final int retryAttempts;
+    private final long retryBackoffMs;
+    private final List<Thread> stageThreads = new ArrayList<>();
+    // Publish calls past the accepting check; stop() waits for them so every claimed event gets published
+    private final AtomicInteger publishing = new AtomicInteger();
+    private volatile boolean accepting;
+    private volatile boolean running;
+    private volatile boolean failed;
+
+    @Autowired
+    public TransferIngestPipeline(Neo4jTransferWriter neo4jTransferWriter,
+                                  CycleDetectionStage cycleDetectionStage,
+                                  @Value("${fd.ingest.ring-size:65536}") int ringSize,
+                                  @Value("${fd.ingest.batch-size:1000}") int batchSize,
+                                  @Value("${fd.ingest.linger-ms:5}") long lingerMs,
+                                  @Value("${fd.ingest.retry-attempts:5}") int retryAttempts,
+                                  @Value("${fd.ingest.retry-backoff-ms:100}") long retryBackoffMs) {
+        this(List.of(neo4jTransferWriter, cycleDetectionStage), ringSize, batchSize, lingerMs,
+                retryAttempts, retryBackoffMs);
+    }
+
+    TransferIngestPipeline(List<TransferEventHandler> handlers, int ringSize, int batchSize, long lingerMs,
+                           int retryAttempts, long retryBackoffMs) {
+        if (batchSize < 1 || batchSize > ringSize) {
+            throw new IllegalArgumentException("Batch size must be between 1 and the ring size: " + batchSize);
+        }
+        if (retryAttempts < 1) {
+            throw new IllegalArgumentException("At least one attempt per batch is required: " + retryAttempts);
+        }
+        this.handlers = List.copyOf(handlers);
+        this.ringBuffer = new TransferRingBuffer(ringSize, this.handlers.size());
+        this.batchSize = batchSize;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMs);
+        this.retryAttempts = retryAttempts;
+        this.retryBackoffMs = retryBackoffMs;
+    }
+
+    /**
+     * Publish a transfer, waiting while the pipeline is a full ring behind
+     * @return the event's sequence number
+     */
+    public long publish(String fromAccount, String toAccount, double amount, long timestamp) {
+        enterPublish();
+        try {
+            return ringBuffer.publish(fromAccount, toAccount, amount, timestamp);
+        } finally {
+            publishing.decrementAndGet();
+        }
+    }
+
+    /**
+     * Publish a transfer unless the pipeline is a full ring behind
+     * @return false if the transfer was rejected for backpressure
+     */
+    public boolean tryPublish(String fromAccount, String toAccount, double amount, long timestamp) {
+        enterPublish();
+        try {
+            return ringBuffer.tryPublish(fromAccount, toAccount, amount, timestamp);
+        } finally {
+            publishing.decrementAndGet();
+        }
+    }
+
+    /**
+     * Events published but not yet processed by every stage
+     */
+    public long backlog() {
+        return ringBuffer.backlog();
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        for (int stage = 0; stage < handlers.size(); stage++) {
+            TransferEventHandler handler = handlers.get(stage);
+            Thread thread = new Thread(new StageRunner(stage, handler),
+                    "fd-ingest-" + handler.getClass().getSimpleName());
+            thread.setDaemon(true);
+            thread.start();
+            stageThreads.add(thread);
+        }
+        accepting = true;
+    }
+
+    /**
+     * Whether a stage gave up on a batch; the pipeline then accepts no more events
+     */
+    public boolean isFailed() {
+        return failed;
+    }
+
+    /**
+     * Stop accepting events, let every stage drain every event claimed so far, then stop the stages
+     */
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        accepting = false;
+        // Producers waiting on a failed stage are released by the closed ring, so every publish call returns
+        while (publishing.get() > 0) {
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+        running = false;
+        for (Thread thread : stageThreads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        stageThreads.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return IncrementalCycleDetectionService.PHASE + 1;
+    }
+
+    private void enterPublish() {
+        publishing.incrementAndGet();
+        if (!accepting) {
+            publishing.decrementAndGet();
+            throw new IllegalStateException(failed
+                    ? "Transfer ingest pipeline stopped after a stage failed"
+                    : "Transfer ingest pipeline is not running");
+        }
+    }
+
+    /**
+     * Consumer loop of one stage: wait for a full batch or the linger deadline, hand the batch over,
+     * then release its slots. Once the pipeline stops, the loop drains up to the last claimed event.
+     */
+    private class StageRunner implements Runnable {
+        private final int stage;
+        private final TransferEventHandler handler;
+        private final List<TransferEvent> batch = new ArrayList<>(batchSize);
+
+        StageRunner(int stage, TransferEventHandler handler) {
+            this.stage = stage;
+            this.handler = handler;
+        }
+
+        @Override
+        public void run() {
+            boolean drained = false;
+            try {
+                drained = drain();
+            } finally {
+                if (!drained) {
+                    failed = true;
+                    accepting = false;
+                }
+                // A stopped stage never frees another slot, so producers waiting for one would never return
+                ringBuffer.close();
+            }
+        }
+
+        /**
+         * @return false if the stage gave up on a batch
+         */
+        private boolean drain() {
+            long next = 0;
+            long lingerDeadline = 0;
+            while (true) {
+                long available = ringBuffer.highestPublished(next);
+                if (available < next) {
+                    // After a failure, claimed events may never be published, so there is nothing left to wait for
+                    if (!running && (next > ringBuffer.claimed() || failed)) {
+                        return true;
+                    }
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    continue;
+                }
+
+                long pending = available - next + 1;
+                if (pending < batchSize && running) {
+                    long now = System.nanoTime();
+                    if (lingerDeadline == 0) {
+                        lingerDeadline = now + lingerNanos;
+                    }
+                    if (now < lingerDeadline) {
+                        LockSupport.parkNanos(Math.min(IDLE_PARK_NANOS, lingerDeadline - now));
+                        continue;
+                    }
+                }
+
+                long end = Math.min(available, next + batchSize - 1);
+                batch.clear();
+                for (long sequence = next; sequence <= end; sequence++) {
+                    batch.add(ringBuffer.get(sequence));
+                }
+                if (!handle(next, end)) {
+                    // The slots stay claimed, so no event past the failed batch is lost or skipped
+                    return false;
+                }
+                ringBuffer.markConsumed(stage, end);
+                next = end + 1;
+                lingerDeadline = 0;
+            }
+        }
+
+        /**
+         * Hand the batch over, retrying with exponential backoff
+         * @return false if every attempt failed
+         */
+        private boolean handle(long first, long last) {
+            String name = handler.getClass().getSimpleName();
+            long backoffMs = retryBackoffMs;
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    handler.onBatch(batch);
+                    return true;
+                } catch (RuntimeException e) {
+                    if (attempt == retryAttempts) {
+                        log.error("Ingest stage {} failed on events {}..{} after {} attempts; stopping it",
+                                name, first, last, attempt, e);
+                        return false;
+                    }
+                    log.warn("Ingest stage {} failed on events {}..{} (attempt {} of {}), retrying in {} ms",
+                            name, first, last, attempt, retryAttempts, backoffMs, e);
+                }
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(backoffMs));
+                backoffMs *= 2;
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package vishal.mysore.fd.ingest;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded lock-free multi-producer ring buffer of transfer events, in the style of the LMAX Disruptor.
+ * Producers claim a sequence with a single atomic increment, fill the pre-allocated slot and mark it
+ * published. Each consumer stage tracks its own consumed sequence; a slot is only reused once every
+ * stage has moved past it, so a slow stage (e.g. Neo4j falling behind) applies backpressure to producers.
+ */
+public class TransferRingBuffer {
+
+    private static final long PRODUCER_PARK_NANOS = 1_000;
+
+    private final TransferEvent[] slots;
+    private final int mask;
+    private final int indexShift;
+    private final AtomicLong claimed = new AtomicLong(-1);
+    // Lap number of the event last published into each slot; lets consumers see gaps left by slower producers
+    private final AtomicIntegerArray published;
+    private final AtomicLong[] consumed;
+    private volatile boolean closed;
+
+    public TransferRingBuffer(int size, int stages) {
+        if (size < 2 || Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("Ring size must be a power of two: " + size);
+        }
+        if (stages < 1) {
+            throw new IllegalArgumentException("At least one consumer stage is required");
+        }
+        this.slots = new TransferEvent[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new TransferEvent();
+        }
+        this.mask = size - 1;
+        this.indexShift = Integer.numberOfTrailingZeros(size);
+        this.published = new AtomicIntegerArray(size);
+        for (int i = 0; i < size; i++) {
+            published.set(i, -1);
+        }
+        this.consumed = new AtomicLong[stages];
+        for (int i = 0; i < stages; i++) {
+            consumed[i] = new AtomicLong(-1);
+        }
+    }
+
+    /**
+     * Publish an event, waiting while the ring is full
+     * @throws IllegalStateException if the ring is closed while waiting; the claimed sequence is never published
+     */
+    public long publish(String fromAccount, String toAccount, double amount, long timestamp) {
+        long sequence = claimed.incrementAndGet();
+        long wrapPoint = sequence - slots.length;
+        while (wrapPoint > minimumConsumed()) {
+            if (closed) {
+                throw new IllegalStateException("Transfer ring buffer closed while waiting for a free slot");
+            }
+            LockSupport.parkNanos(PRODUCER_PARK_NANOS);
+        }
+        write(sequence, fromAccount, toAccount, amount, timestamp);
+        return sequence;
+    }
+
+    /**
+     * Publish an event unless the ring is full
+     * @return false if every slot is still waiting for a consumer stage
+     */
+    public boolean tryPublish(String fromAccount, String toAccount, double amount, long timestamp) {
+        long current;
+        long sequence;
+        do {
+            current = claimed.get();
+            sequence = current + 1;
+            if (sequence - slots.length > minimumConsumed()) {
+                return false;
+            }
+        } while (!claimed.compareAndSet(current, sequence));
+        write(sequence, fromAccount, toAccount, amount, timestamp);
+        return true;
+    }
+
+    /**
+     * Highest sequence such that every event in [from, that sequence] is published, or from - 1 if none is
+     */
+    public long highestPublished(long from) {
+        long last = claimed.get();
+        for (long sequence = from; sequence <= last; sequence++) {
+            if (published.get((int) sequence & mask) != (int) (sequence >>> indexShift)) {
+                return sequence - 1;
+            }
+        }
+        return last;
+    }
+
+    /**
+     * Highest sequence claimed by a producer; it may not be published yet
+     */
+    public long claimed() {
+        return claimed.get();
+    }
+
+    public TransferEvent get(long sequence) {
+        return slots[(int) sequence & mask];
+    }
+
+    /**
+     * Release every slot up to and including {@code sequence} on behalf of one stage
+     */
+    public void markConsumed(int stage, long sequence) {
+        consumed[stage].lazySet(sequence);
+    }
+
+    /**
+     * Release producers waiting for a slot that a stopped stage will never free
+     */
+    public void close() {
+        closed = true;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public int size() {
+        return slots.length;
+    }
+
+    /**
+     * Events claimed by producers but not yet released by the slowest stage
+     */
+    public long backlog() {
+        return claimed.get() - minimumConsumed();
+    }
+
+    private void write(long sequence, String fromAccount, String toAccount, double amount, long timestamp) {
+        int index = (int) sequence & mask;
+        slots[index].set(sequence, fromAccount, toAccount, amount, timestamp);
+        // Ordered store: the slot contents become visible before the lap number that publishes them
+        published.lazySet(index, (int) (sequence >>> indexShift));
+    }
+
+    private long minimumConsumed() {
+        long minimum = Long.MAX_VALUE;
+        for (AtomicLong stage : consumed) {
+            minimum = Math.min(minimum, stage.get());
+        }
+        return minimum;
+    }
+}
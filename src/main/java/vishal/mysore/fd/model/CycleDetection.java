@@ -6,6 +6,8 @@ import org.springframework.data.neo4j.core.schema.GeneratedValue;
 import org.springframework.data.neo4j.core.schema.Id;
 import org.springframework.data.neo4j.core.schema.Node;
 import org.springframework.data.neo4j.core.schema.Relationship;
+import vishal.mysore.fd.util.CycleIdGenerator;
+import vishal.mysore.schema.Unique;
 
 import java.time.LocalDateTime;
 import java.util.HashSet;
@@ -24,7 +26,7 @@ public class CycleDetection {
     @GeneratedValue
     private Long id;
 
-    private String cycleId;
+    private String cycleId; // Time-ordered, see CycleIdGenerator
     private String fraudPattern; // CIRCULAR_MONEY_FLOW, CREDIT_CARD_LOOP, IDENTITY_THEFT_LOOP, etc.
     private String description;
     private Integer cycleLength; // Number of nodes in the cycle
@@ -34,6 +36,8 @@ public class CycleDetection {
     private LocalDateTime detectedAt;
     private String status; // DETECTED, INVESTIGATING, CONFIRMED, RESOLVED
     private String affectedAccounts; // Comma-separated list or JSON
+    @Unique
+    private Long fingerprint; // Rotation-invariant hash of the cycle, so each loop is stored once
 
     @Relationship(type = "INDICATES", direction = Relationship.Direction.OUTGOING)
     private Set<FraudType> fraudTypes = new HashSet<>();
@@ -62,7 +66,7 @@ public class CycleDetection {
     }
 
     private String generateCycleId() {
-        return "CYCLE_" + System.currentTimeMillis() + "_" + (int)(Math.random() * 10000);
+        return CycleIdGenerator.shared().nextCycleId();
     }
 
     public boolean isHighRisk() {
@@ -4,8 +4,11 @@ import org.springframework.data.neo4j.repository.Neo4jRepository;
 import org.springframework.data.neo4j.repository.query.Query;
 import org.springframework.stereotype.Repository;
 import vishal.mysore.fd.model.CycleDetection;
+import vishal.mysore.fd.util.CycleIdGenerator;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Repository for CycleDetection entities.
@@ -69,10 +72,40 @@ public interface CycleDetectionRepository extends Neo4jRepository<CycleDetection
     List<CycleDetection> findByLinkedFraudType(String fraudTypeName);
 
     /**
-     * Find recent cycles detected in last N hours
+     * Find cycles involving an account, most risky first (an index seek on the account, then its INVOLVES relationships)
      */
-    @Query("MATCH (c:CycleDetection) WHERE c.detectedAt > datetime() - duration('PT' + $hours + 'H') RETURN c ORDER BY c.detectedAt DESC")
-    List<CycleDetection> findRecentCycles(Integer hours);
+    @Query("MATCH (:Account {id: $accountId})<-[:INVOLVES]-(c:CycleDetection) RETURN c ORDER BY c.riskScore DESC")
+    List<CycleDetection> findByInvolvedAccount(String accountId);
+
+    /**
+     * Find recent cycles detected in last N hours, newest first, measured by the database clock.
+     * Cycles with time-ordered ids are an id range scan; ones stored before those ids existed
+     * ({@code CYCLE_<millis>_<n>}, which sort outside every range) are found by detection time.
+     */
+    default List<CycleDetection> findRecentCycles(Integer hours) {
+        long since = currentDatabaseTimeMillis() - TimeUnit.HOURS.toMillis(hours);
+        List<CycleDetection> recent = new ArrayList<>(
+                findByCycleIdRange(CycleIdGenerator.lowerBound(since), CycleIdGenerator.MAX_CYCLE_ID));
+        // Legacy cycles all predate the time-ordered ones, so appending keeps newest first
+        recent.addAll(findRecentLegacyCycles(hours));
+        return recent;
+    }
+
+    /**
+     * Find cycles with legacy {@code CYCLE_<millis>_<n>} ids detected in the last N hours, newest first
+     */
+    @Query("MATCH (c:CycleDetection) WHERE c.cycleId STARTS WITH 'CYCLE_' " +
+            "AND c.detectedAt > localdatetime() - duration({hours: $hours}) RETURN c ORDER BY c.detectedAt DESC")
+    List<CycleDetection> findRecentLegacyCycles(Integer hours);
+
+    @Query("RETURN timestamp()")
+    Long currentDatabaseTimeMillis();
+
+    /**
+     * Find cycles whose id lies in a range, newest first; cycle ids sort by detection time
+     */
+    @Query("MATCH (c:CycleDetection) WHERE c.cycleId >= $from AND c.cycleId <= $to RETURN c ORDER BY c.cycleId DESC")
+    List<CycleDetection> findByCycleIdRange(String from, String to);
 
     /**
      * Count cycles by fraud pattern
@@ -0,0 +1,78 @@
+package vishal.mysore.fd.scoring;
+
+/**
+ * A batch of cycles stored column-wise: node ids, one primitive column per {@link CycleFeature}, and the
+ * risk score and severity each cycle had when it was read. Rows are appended until the batch is full, scored
+ * together by {@link RiskRules}, then the batch is cleared and reused.
+ */
+public class CycleColumns {
+
+    private final long[] ids;
+    private final double[][] features;
+    private final double[] riskScores;
+    private final byte[] severities;
+    private int size;
+
+    public CycleColumns(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.ids = new long[capacity];
+        this.features = new double[CycleFeature.values().length][capacity];
+        this.riskScores = new double[capacity];
+        this.severities = new byte[capacity];
+    }
+
+    /**
+     * Append a row; feature values are in {@link CycleFeature} order
+     * @param riskScore the stored score, NaN if none
+     * @param severity the stored severity, {@link RiskRules#NO_SEVERITY} if none
+     */
+    public void add(long id, double[] featureValues, double riskScore, byte severity) {
+        if (isFull()) {
+            throw new IllegalStateException("Batch is full");
+        }
+        ids[size] = id;
+        for (int feature = 0; feature < features.length; feature++) {
+            features[feature][size] = featureValues[feature];
+        }
+        riskScores[size] = riskScore;
+        severities[size] = severity;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return ids.length;
+    }
+
+    public boolean isFull() {
+        return size == ids.length;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public long id(int row) {
+        return ids[row];
+    }
+
+    /**
+     * The whole column of a feature; only the first {@link #size()} entries are rows of this batch
+     */
+    public double[] column(CycleFeature feature) {
+        return features[feature.ordinal()];
+    }
+
+    public double riskScore(int row) {
+        return riskScores[row];
+    }
+
+    public byte severity(int row) {
+        return severities[row];
+    }
+}
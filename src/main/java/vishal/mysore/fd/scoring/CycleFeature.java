@@ -0,0 +1,48 @@
+package vishal.mysore.fd.scoring;
+
+import vishal.mysore.fd.model.CycleDetection;
+
+/**
+ * Numeric properties of a cycle that risk rules can use; each is one column of a {@link CycleColumns} batch
+ */
+public enum CycleFeature {
+
+    CYCLE_LENGTH("cycleLength"),
+    TOTAL_AMOUNT("totalAmount");
+
+    private final String property;
+
+    CycleFeature(String property) {
+        this.property = property;
+    }
+
+    /**
+     * Name of the feature in rule specs, which is also its CycleDetection node property
+     */
+    public String getProperty() {
+        return property;
+    }
+
+    /**
+     * The feature's value for a cycle, or NaN if the cycle does not have it
+     */
+    public double valueOf(CycleDetection cycle) {
+        // Not a ternary: mixing Integer and Double there would unbox the missing value
+        Number value;
+        if (this == CYCLE_LENGTH) {
+            value = cycle.getCycleLength();
+        } else {
+            value = cycle.getTotalAmount();
+        }
+        return value != null ? value.doubleValue() : Double.NaN;
+    }
+
+    public static CycleFeature forProperty(String property) {
+        for (CycleFeature feature : values()) {
+            if (feature.property.equals(property)) {
+                return feature;
+            }
+        }
+        throw new IllegalArgumentException("Unknown feature: " + property);
+    }
+}
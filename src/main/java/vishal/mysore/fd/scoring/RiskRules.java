@@ -0,0 +1,261 @@
+package vishal.mysore.fd.scoring;
+
+import vishal.mysore.fd.model.CycleDetection;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A fraud pattern's risk score and severity rules, compiled from a spec such as
+ * <pre>
+ * weights=cycleLength/10*0.4 + totalAmount/500000*0.6; high=cycleLength>=5 | totalAmount>100000;
+ * medium=cycleLength>=3 | totalAmount>50000
+ * </pre>
+ * The risk score is {@code base} plus, for each weight term, {@code min(feature / scale, 1) * weight}. The
+ * severity is the highest level whose conditions any feature meets, or {@code severity} (LOW unless given)
+ * when none does. Sections are separated by {@code ;}, terms by {@code +} and conditions by {@code |}.
+ * <p>
+ * Parsing flattens the rules into parallel primitive arrays, so scoring a {@link CycleColumns} batch is one
+ * branch-free loop over a column per term and one loop per condition.
+ */
+public class RiskRules {
+
+    public static final byte NO_SEVERITY = -1;
+    public static final byte LOW = 0;
+    public static final byte MEDIUM = 1;
+    public static final byte HIGH = 2;
+
+    private static final String[] SEVERITY_NAMES = {"LOW", "MEDIUM", "HIGH"};
+    private static final String NUMBER = "(\\d+(?:\\.\\d+)?)";
+    private static final Pattern TERM = Pattern.compile("(\\w+)\\s*/\\s*" + NUMBER + "\\s*\\*\\s*" + NUMBER);
+    private static final Pattern CONDITION = Pattern.compile("(\\w+)\\s*(>=|>)\\s*" + NUMBER);
+
+    private final String spec;
+    private final double base;
+    private final byte defaultSeverity;
+    private final CycleFeature[] termFeatures;
+    private final double[] termScales;
+    private final double[] termWeights;
+    private final CycleFeature[] conditionFeatures;
+    private final double[] conditionThresholds;
+    private final boolean[] conditionInclusive;
+    private final byte[] conditionLevels;
+    private final Set<CycleFeature> features;
+
+    private RiskRules(String spec, double base, byte defaultSeverity, List<Term> terms, List<Condition> conditions) {
+        this.spec = spec;
+        this.base = base;
+        this.defaultSeverity = defaultSeverity;
+        this.termFeatures = new CycleFeature[terms.size()];
+        this.termScales = new double[terms.size()];
+        this.termWeights = new double[terms.size()];
+        for (int t = 0; t < terms.size(); t++) {
+            termFeatures[t] = terms.get(t).feature;
+            termScales[t] = terms.get(t).scale;
+            termWeights[t] = terms.get(t).weight;
+        }
+        this.conditionFeatures = new CycleFeature[conditions.size()];
+        this.conditionThresholds = new double[conditions.size()];
+        this.conditionInclusive = new boolean[conditions.size()];
+        this.conditionLevels = new byte[conditions.size()];
+        for (int c = 0; c < conditions.size(); c++) {
+            conditionFeatures[c] = conditions.get(c).feature;
+            conditionThresholds[c] = conditions.get(c).threshold;
+            conditionInclusive[c] = conditions.get(c).inclusive;
+            conditionLevels[c] = conditions.get(c).level;
+        }
+        EnumSet<CycleFeature> used = EnumSet.noneOf(CycleFeature.class);
+        used.addAll(Arrays.asList(termFeatures));
+        used.addAll(Arrays.asList(conditionFeatures));
+        this.features = Collections.unmodifiableSet(used);
+    }
+
+    /**
+     * Compile a spec
+     * @throws IllegalArgumentException if the spec is malformed
+     */
+    public static RiskRules parse(String spec) {
+        double base = 0.0;
+        byte defaultSeverity = LOW;
+        List<Term> terms = new ArrayList<>();
+        List<Condition> conditions = new ArrayList<>();
+
+        for (String section : spec.split(";")) {
+            if (section.isBlank()) {
+                continue;
+            }
+            int equals = section.indexOf('=');
+            if (equals < 0) {
+                throw new IllegalArgumentException("Expected key=value in risk rules: " + section.trim());
+            }
+            String key = section.substring(0, equals).trim();
+            String value = section.substring(equals + 1).trim();
+            switch (key) {
+                case "base":
+                    base = parseNumber(value);
+                    break;
+                case "severity":
+                    defaultSeverity = severityCode(value);
+                    if (defaultSeverity == NO_SEVERITY) {
+                        throw new IllegalArgumentException("Unknown severity: " + value);
+                    }
+                    break;
+                case "weights":
+                    for (String term : value.split("\\+")) {
+                        Matcher matcher = TERM.matcher(term.trim());
+                        if (!matcher.matches()) {
+                            throw new IllegalArgumentException("Expected feature/scale*weight: " + term.trim());
+                        }
+                        double scale = Double.parseDouble(matcher.group(2));
+                        if (scale <= 0) {
+                            throw new IllegalArgumentException("Scale must be positive: " + term.trim());
+                        }
+                        terms.add(new Term(CycleFeature.forProperty(matcher.group(1)), scale,
+                                Double.parseDouble(matcher.group(3))));
+                    }
+                    break;
+                case "high":
+                case "medium":
+                    for (String condition : value.split("\\|")) {
+                        Matcher matcher = CONDITION.matcher(condition.trim());
+                        if (!matcher.matches()) {
+                            throw new IllegalArgumentException("Expected feature>=threshold or feature>threshold: " +
+                                    condition.trim());
+                        }
+                        conditions.add(new Condition(CycleFeature.forProperty(matcher.group(1)),
+                                Double.parseDouble(matcher.group(3)), ">=".equals(matcher.group(2)),
+                                "high".equals(key) ? HIGH : MEDIUM));
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown risk rules section: " + key);
+            }
+        }
+        return new RiskRules(spec.trim(), base, defaultSeverity, terms, conditions);
+    }
+
+    public String getSpec() {
+        return spec;
+    }
+
+    /**
+     * Features a cycle needs for these rules to score it
+     */
+    public Set<CycleFeature> getFeatures() {
+        return features;
+    }
+
+    /**
+     * Score every row of a batch; rows must have all of {@link #getFeatures()}
+     */
+    public void score(CycleColumns batch, double[] scores, byte[] severities) {
+        int rows = batch.size();
+        Arrays.fill(scores, 0, rows, base);
+        for (int t = 0; t < termFeatures.length; t++) {
+            double[] column = batch.column(termFeatures[t]);
+            double scale = termScales[t];
+            double weight = termWeights[t];
+            for (int row = 0; row < rows; row++) {
+                scores[row] += Math.min(column[row] / scale, 1.0) * weight;
+            }
+        }
+
+        Arrays.fill(severities, 0, rows, defaultSeverity);
+        for (int c = 0; c < conditionFeatures.length; c++) {
+            double[] column = batch.column(conditionFeatures[c]);
+            double threshold = conditionThresholds[c];
+            byte level = conditionLevels[c];
+            if (conditionInclusive[c]) {
+                for (int row = 0; row < rows; row++) {
+                    severities[row] = column[row] >= threshold && level > severities[row] ? level : severities[row];
+                }
+            } else {
+                for (int row = 0; row < rows; row++) {
+                    severities[row] = column[row] > threshold && level > severities[row] ? level : severities[row];
+                }
+            }
+        }
+    }
+
+    /**
+     * Set a single cycle's risk score and severity, with the same arithmetic as the batch path
+     * @return false, leaving the cycle unchanged, if it lacks a feature the rules use
+     */
+    public boolean apply(CycleDetection cycle) {
+        double[] values = new double[CycleFeature.values().length];
+        for (CycleFeature feature : features) {
+            values[feature.ordinal()] = feature.valueOf(cycle);
+            if (Double.isNaN(values[feature.ordinal()])) {
+                return false;
+            }
+        }
+
+        double score = base;
+        for (int t = 0; t < termFeatures.length; t++) {
+            score += Math.min(values[termFeatures[t].ordinal()] / termScales[t], 1.0) * termWeights[t];
+        }
+        byte severity = defaultSeverity;
+        for (int c = 0; c < conditionFeatures.length; c++) {
+            double value = values[conditionFeatures[c].ordinal()];
+            boolean met = conditionInclusive[c] ? value >= conditionThresholds[c] : value > conditionThresholds[c];
+            if (met && conditionLevels[c] > severity) {
+                severity = conditionLevels[c];
+            }
+        }
+
+        cycle.setRiskScore(score);
+        cycle.setSeverity(severityName(severity));
+        return true;
+    }
+
+    public static String severityName(byte severity) {
+        return severity == NO_SEVERITY ? null : SEVERITY_NAMES[severity];
+    }
+
+    /**
+     * The code of a severity name, {@link #NO_SEVERITY} for null or an unknown name
+     */
+    public static byte severityCode(String severity) {
+        for (byte code = LOW; code <= HIGH; code++) {
+            if (SEVERITY_NAMES[code].equals(severity)) {
+                return code;
+            }
+        }
+        return NO_SEVERITY;
+    }
+
+    private static final class Term {
+        private final CycleFeature feature;
+        private final double scale;
+        private final double weight;
+
+        Term(CycleFeature feature, double scale, double weight) {
+            this.feature = feature;
+            this.scale = scale;
+            this.weight = weight;
+        }
+    }
+
+    private static final class Condition {
+        private final CycleFeature feature;
+        private final double threshold;
+        private final boolean inclusive;
+        private final byte level;
+
+        Condition(CycleFeature feature, double threshold, boolean inclusive, byte level) {
+            this.feature = feature;
+            this.threshold = threshold;
+            this.inclusive = inclusive;
+            this.level = level;
+        }
+    }
+
+    private static double parseNumber(String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Expected a number: " + value);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package vishal.mysore.fd.service;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Risk figures over the stored cycles one account is involved in
+ */
+@Getter
+public class AccountRiskRollup {
+
+    private final String accountId;
+    private final long cycles;
+    private final long highRiskCycles;
+    private final long confirmedCycles;
+    private final double maxRiskScore;
+    private final double averageRiskScore;
+    private final double totalAmount;
+    private final List<String> fraudPatterns;
+
+    public AccountRiskRollup(String accountId, long cycles, long highRiskCycles, long confirmedCycles,
+                             double maxRiskScore, double averageRiskScore, double totalAmount,
+                             List<String> fraudPatterns) {
+        this.accountId = accountId;
+        this.cycles = cycles;
+        this.highRiskCycles = highRiskCycles;
+        this.confirmedCycles = confirmedCycles;
+        this.maxRiskScore = maxRiskScore;
+        this.averageRiskScore = averageRiskScore;
+        this.totalAmount = totalAmount;
+        this.fraudPatterns = fraudPatterns;
+    }
+}
@@ -0,0 +1,202 @@
+package vishal.mysore.fd.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.stereotype.Service;
+import vishal.mysore.fd.model.CycleDetection;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulk writer for new {@link CycleDetection} nodes.
+ * Cycles are written in parameterized UNWIND batches instead of one repository save (and one
+ * mapping pass) per cycle. Only node properties are written: detection results have no
+ * relationships yet when they are created. Cycles with a fingerprint are merged on it, so a loop
+ * found again by a later run keeps its existing node (and investigation status); only cycles that
+ * were actually created are counted in the {@link CycleMetricsStore}. The fingerprint's uniqueness
+ * constraint is what keeps concurrent runs merging the same loop from both creating it.
+ * <p>
+ * Each cycle is also linked with INVOLVES relationships to the accounts (or, for credit card loops, the
+ * cards) listed in its {@code affectedAccounts}, so "which cycles involve account X" is an index seek on
+ * the account followed by its relationships rather than a string scan over every cycle. Members are only
+ * matched, never created: an id with no Account or CreditCard node is left unlinked.
+ */
+@Service
+public class CycleDetectionBatchWriter {
+
+    // Links c to its members that exist in the graph; a row lists either accounts or cards.
+    // Ids with no matching node are skipped rather than merged, so stray ids never become fake members.
+    private static final String LINK_MEMBERS =
+            "WITH index, row, c, created " +
+            "OPTIONAL MATCH (a:Account) WHERE a.id IN row.accounts " +
+            "WITH index, row, c, created, collect(a) AS accounts " +
+            "OPTIONAL MATCH (card:CreditCard) WHERE card.id IN row.cards " +
+            "WITH index, c, created, accounts + collect(card) AS members " +
+            "FOREACH (member IN members | MERGE (c)-[:INVOLVES]->(member)) ";
+
+    private static final String CREATE_CYCLES =
+            "UNWIND range(0, size($rows) - 1) AS index " +
+            "WITH index, $rows[index] AS row " +
+            "CREATE (c:CycleDetection) " +
+            "SET c = row.properties " +
+            "WITH index, row, c, true AS created " +
+            LINK_MEMBERS +
+            "RETURN index, id(c) AS id, created";
+
+    private static final String MERGE_CYCLES =
+            "UNWIND range(0, size($rows) - 1) AS index " +
+            "WITH index, $rows[index] AS row " +
+            "MERGE (c:CycleDetection {fingerprint: row.properties.fingerprint}) " +
+            "ON CREATE SET c = row.properties, c.created = true " +
+            "WITH index, row, c, coalesce(c.created, false) AS created " +
+            "REMOVE c.created " +
+            LINK_MEMBERS +
+            "RETURN index, id(c) AS id, created";
+
+    // Keyset-paged over node ids, so every stored cycle is visited once whatever its members
+    private static final String BACKFILL_MEMBERS =
+            "MATCH (c:CycleDetection) WHERE id(c) > $after " +
+            "WITH c ORDER BY id(c) LIMIT $batchSize " +
+            "WITH c, [member IN split(replace(replace(coalesce(c.affectedAccounts, ''), '[', ''), ']', ''), ',') " +
+            "| trim(member)] AS members " +
+            "WITH c, [member IN members WHERE member <> ''] AS members " +
+            "WITH c, CASE WHEN c.fraudPattern = 'CREDIT_CARD_LOOP' THEN [] ELSE members END AS accounts, " +
+            "CASE WHEN c.fraudPattern = 'CREDIT_CARD_LOOP' THEN members ELSE [] END AS cards " +
+            "OPTIONAL MATCH (a:Account) WHERE a.id IN accounts " +
+            "WITH c, cards, collect(a) AS linkedAccounts " +
+            "OPTIONAL MATCH (card:CreditCard) WHERE card.id IN cards " +
+            "WITH c, linkedAccounts + collect(card) AS members " +
+            "FOREACH (member IN members | MERGE (c)-[:INVOLVES]->(member)) " +
+            "RETURN max(id(c)) AS last, count(c) AS cycles";
+
+    private final Neo4jClient neo4jClient;
+    private final CycleMetricsStore cycleMetricsStore;
+    private final RiskScoringService riskScoringService;
+    private final int batchSize;
+
+    @Autowired
+    public CycleDetectionBatchWriter(Neo4jClient neo4jClient,
+                                     CycleMetricsStore cycleMetricsStore,
+                                     RiskScoringService riskScoringService,
+                                     @Value("${fd.persistence.batch-size:1000}") int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        this.neo4jClient = neo4jClient;
+        this.cycleMetricsStore = cycleMetricsStore;
+        this.riskScoringService = riskScoringService;
+        this.batchSize = batchSize;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Score every cycle with its pattern's risk rules, then create it (or find the stored one with the same
+     * fingerprint) and set its id
+     * @return the same cycles, with ids
+     */
+    public List<CycleDetection> saveAll(List<CycleDetection> cycles) {
+        riskScoringService.scoreAll(cycles);
+        List<CycleDetection> fingerprinted = new ArrayList<>();
+        List<CycleDetection> plain = new ArrayList<>();
+        for (CycleDetection cycle : cycles) {
+            (cycle.getFingerprint() != null ? fingerprinted : plain).add(cycle);
+        }
+        write(MERGE_CYCLES, fingerprinted);
+        write(CREATE_CYCLES, plain);
+        return cycles;
+    }
+
+    private void write(String statement, List<CycleDetection> cycles) {
+        for (int from = 0; from < cycles.size(); from += batchSize) {
+            List<CycleDetection> batch = cycles.subList(from, Math.min(from + batchSize, cycles.size()));
+            List<Map<String, Object>> rows = new ArrayList<>(batch.size());
+            for (CycleDetection cycle : batch) {
+                Map<String, Object> row = new HashMap<>(4);
+                List<String> members = memberIds(cycle.getAffectedAccounts());
+                boolean cards = "CREDIT_CARD_LOOP".equals(cycle.getFraudPattern());
+                row.put("properties", toProperties(cycle));
+                row.put("accounts", cards ? List.of() : members);
+                row.put("cards", cards ? members : List.of());
+                rows.add(row);
+            }
+
+            neo4jClient.query(statement)
+                    .bind(rows).to("rows")
+                    .fetch()
+                    .all()
+                    .forEach(record -> {
+                        CycleDetection cycle = batch.get(((Number) record.get("index")).intValue());
+                        cycle.setId(((Number) record.get("id")).longValue());
+                        if (Boolean.TRUE.equals(record.get("created"))) {
+                            cycleMetricsStore.recordCreated(cycle);
+                        }
+                    });
+        }
+    }
+
+    /**
+     * Link cycles stored before membership was modelled, from their {@code affectedAccounts} strings.
+     * Runs one short transaction per batch; linking is idempotent, so it can be rerun or interrupted.
+     * @return number of cycles visited
+     */
+    public long backfillMemberships() {
+        long visited = 0;
+        long after = -1;
+        while (true) {
+            Map<String, Object> page = neo4jClient.query(BACKFILL_MEMBERS)
+                    .bind(after).to("after")
+                    .bind(batchSize).to("batchSize")
+                    .fetch()
+                    .one()
+                    .orElseThrow();
+            if (page.get("last") == null) {
+                return visited;
+            }
+            visited += ((Number) page.get("cycles")).longValue();
+            after = ((Number) page.get("last")).longValue();
+        }
+    }
+
+    /**
+     * Member ids listed in {@code affectedAccounts}, which is comma-separated or a list's {@code toString()}
+     */
+    static List<String> memberIds(String affectedAccounts) {
+        if (affectedAccounts == null) {
+            return List.of();
+        }
+        List<String> members = new ArrayList<>();
+        for (String member : affectedAccounts.replace("[", "").replace("]", "").split(",")) {
+            String trimmed = member.trim();
+            if (!trimmed.isEmpty() && !members.contains(trimmed)) {
+                members.add(trimmed);
+            }
+        }
+        return members;
+    }
+
+    /**
+     * Node properties of a cycle, named as the entity mapping stores them (null values are skipped by SET)
+     */
+    private static Map<String, Object> toProperties(CycleDetection cycle) {
+        Map<String, Object> row = new HashMap<>(16);
+        row.put("cycleId", cycle.getCycleId());
+        row.put("fraudPattern", cycle.getFraudPattern());
+        row.put("description", cycle.getDescription());
+        row.put("cycleLength", cycle.getCycleLength());
+        row.put("totalAmount", cycle.getTotalAmount());
+        row.put("severity", cycle.getSeverity());
+        row.put("riskScore", cycle.getRiskScore());
+        row.put("detectedAt", cycle.getDetectedAt());
+        row.put("status", cycle.getStatus());
+        row.put("affectedAccounts", cycle.getAffectedAccounts());
+        row.put("fingerprint", cycle.getFingerprint());
+        return row;
+    }
+}
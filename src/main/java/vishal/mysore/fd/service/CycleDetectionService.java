@@ -1,15 +1,38 @@
 package vishal.mysore.fd.service;
 
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Result;
+import org.neo4j.driver.Value;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.data.neo4j.core.ReactiveNeo4jClient;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 import vishal.mysore.fd.model.CycleDetection;
 import vishal.mysore.fd.model.FraudType;
 import vishal.mysore.fd.repository.CycleDetectionRepository;
+import vishal.mysore.fd.util.CycleDetectionAlgorithm.CompactGraph;
+import vishal.mysore.fd.util.CycleDetectionAlgorithm.CycleDeduplicator;
+import vishal.mysore.fd.util.CycleDetectionAlgorithm.ElementaryCycleEnumerator;
+import vishal.mysore.fd.util.CycleDetectionAlgorithm.HeavyHitter;
+import vishal.mysore.fd.util.CycleDetectionAlgorithm.MinimumMeanCycleDetector;
+import vishal.mysore.fd.util.CycleDetectionAlgorithm.ParallelSCCDetector;
+import vishal.mysore.fd.util.CycleDetectionAlgorithm.StreamingCycleAnalyzer;
+import vishal.mysore.fd.util.TemporalCycleDetector;
+import vishal.mysore.fd.util.TransferGraphSnapshot;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
 import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -23,55 +46,289 @@ import java.util.stream.Collectors;
 @Service
 public class CycleDetectionService {
 
+    // Counters kept when ranking suspicious accounts; bounds memory regardless of the number of cycles
+    private static final int SUSPICIOUS_ACCOUNT_COUNTERS = 1024;
+
+    // Transfer loops anchored at their smallest account id, so each is matched from one start only
+    private static final String CIRCULAR_MONEY_FLOW_QUERY =
+            "MATCH p=(a1)-[t:TRANSFER|TRANSACTION*2..10]->(a1) " +
+            "WHERE all(n IN nodes(p)[1..-1] WHERE a1.id < n.id) " +
+            "RETURN [n IN nodes(p)[0..-1] | n.id] as accountIds, " +
+            "reduce(sum=0, rel in t | sum + rel.amount) as totalAmount";
+
+    // Each use and location of a card counted once, however many conflicting pairs it is part of
+    private static final String CARD_LOOP_TOTALS =
+            "UNWIND [t1, t2] AS use " +
+            "WITH cc, collect(DISTINCT use) AS uses, collect(DISTINCT endNode(use)) AS locations " +
+            "RETURN cc.id as cardId, size(locations) as locationCount, " +
+            "reduce(total = 0.0, use IN uses | total + coalesce(use.amount, 0.0)) as totalAmount, " +
+            "[use IN uses | id(use)] as useIds";
+
+    // Credit card transactions in rapid succession across locations
+    private static final String CREDIT_CARD_LOOP_QUERY =
+            "MATCH (cc:CreditCard)-[t1:USED_IN]->(l1:Location)," +
+            "(cc)-[t2:USED_IN]->(l2:Location) " +
+            "WHERE t1.timestamp < t2.timestamp AND " +
+            "duration.between(t1.timestamp, t2.timestamp) < duration('PT1H') AND " +
+            "l1 <> l2 " +
+            CARD_LOOP_TOTALS;
+
+    // Same identity information used across multiple accounts
+    private static final String IDENTITY_THEFT_LOOP_QUERY =
+            "MATCH (id:IdentityInfo)-[:USED_IN]->(a1:Account)," +
+            "(id)-[:USED_IN]->(a2:Account)," +
+            "(a1)-[rel:HAS_RELATIONSHIP*1..5]->(a2) " +
+            "WHERE a1 <> a2 " +
+            "RETURN id.identifier as identityId, count(distinct a1) as accountCount, " +
+            "collect(distinct a1.id) as accountIds";
+
+    // Edges whose timestamps drive each pattern's watermark, always bound as t
+    private static final String TRANSFER_EDGES = "()-[t:TRANSFER|TRANSACTION]->()";
+    private static final String CARD_USE_EDGES = "(:CreditCard)-[t:USED_IN]->(:Location)";
+    private static final String IDENTITY_USE_EDGES = "(:IdentityInfo)-[t:USED_IN]->(:Account)";
+
+    // Loops closed by a transfer newer than the watermark: the new transfer a->b plus a path back from b to a
+    private static final String NEW_CIRCULAR_MONEY_FLOW_QUERY =
+            "MATCH (a1)-[t0:TRANSFER|TRANSACTION]->(b) " +
+            "WHERE t0.timestamp > $watermark AND t0.timestamp <= $highMark " +
+            "MATCH p=(b)-[t:TRANSFER|TRANSACTION*1..9]->(a1) " +
+            "WHERE none(n IN nodes(p)[0..-1] WHERE n = a1) " +
+            "RETURN [a1.id] + [n IN nodes(p)[0..-1] | n.id] as accountIds, " +
+            "reduce(sum=t0.amount, rel in t | sum + rel.amount) as totalAmount";
+
+    // Card uses paired with a newer use; a pair with any new use has a new later use, so seeding t2 covers all
+    private static final String NEW_CREDIT_CARD_LOOP_QUERY =
+            "MATCH (cc:CreditCard)-[t2:USED_IN]->(l2:Location) " +
+            "WHERE t2.timestamp > $watermark AND t2.timestamp <= $highMark " +
+            "MATCH (cc)-[t1:USED_IN]->(l1:Location) " +
+            "WHERE t1.timestamp < t2.timestamp AND " +
+            "duration.between(t1.timestamp, t2.timestamp) < duration('PT1H') AND " +
+            "l1 <> l2 " +
+            CARD_LOOP_TOTALS;
+
+    // Identities with a new use are re-evaluated as a whole
+    private static final String NEW_IDENTITY_THEFT_LOOP_QUERY =
+            "MATCH (id:IdentityInfo)-[t:USED_IN]->(:Account) " +
+            "WHERE t.timestamp > $watermark AND t.timestamp <= $highMark " +
+            "WITH DISTINCT id " +
+            "MATCH (id)-[:USED_IN]->(a1:Account)," +
+            "(id)-[:USED_IN]->(a2:Account)," +
+            "(a1)-[rel:HAS_RELATIONSHIP*1..5]->(a2) " +
+            "WHERE a1 <> a2 " +
+            "RETURN id.identifier as identityId, count(distinct a1) as accountCount, " +
+            "collect(distinct a1.id) as accountIds";
+
+    // Bulk workflow statements; each returns the cycle's properties before the change for the metrics store
+    private static final String SET_STATUS =
+            "WITH c, properties(c) AS before " +
+            "SET c.status = $status " +
+            "RETURN before";
+
+    private static final String BULK_UPDATE_STATUS =
+            "UNWIND $ids AS cycleId " +
+            "MATCH (c:CycleDetection) WHERE id(c) = cycleId " +
+            SET_STATUS;
+
+    // Leaves cycles that have moved on (e.g. an analyst's CONFIRMED or FALSE_POSITIVE) untouched
+    private static final String BULK_ADVANCE_STATUS =
+            "UNWIND $ids AS cycleId " +
+            "MATCH (c:CycleDetection) WHERE id(c) = cycleId AND c.status = $fromStatus " +
+            SET_STATUS;
+
+    private static final String BULK_SET_SCORES =
+            "UNWIND $rows AS row " +
+            "MATCH (c:CycleDetection) WHERE id(c) = row.id " +
+            "SET c.riskScore = row.riskScore, c.severity = row.severity";
+
+    private static final String BULK_LINK_FRAUD_TYPE =
+            "MATCH (f:FraudType) WHERE id(f) = $fraudTypeId " +
+            "UNWIND $ids AS cycleId " +
+            "MATCH (c:CycleDetection) WHERE id(c) = cycleId " +
+            "MERGE (c)-[:INDICATES]->(f) " +
+            "RETURN count(c) AS linked";
+
+    // Same risk bands as the repository's high-risk query
+    private static final String ACCOUNT_RISK_ROLLUP =
+            "MATCH (:Account {id: $accountId})<-[:INVOLVES]-(c:CycleDetection) " +
+            "RETURN count(c) AS cycles, " +
+            "count(CASE WHEN c.riskScore >= 0.8 OR c.severity = 'HIGH' THEN 1 END) AS highRisk, " +
+            "count(CASE WHEN c.status = 'CONFIRMED' THEN 1 END) AS confirmed, " +
+            "coalesce(max(c.riskScore), 0.0) AS maxRiskScore, coalesce(avg(c.riskScore), 0.0) AS averageRiskScore, " +
+            "sum(coalesce(c.totalAmount, 0.0)) AS totalAmount, collect(DISTINCT c.fraudPattern) AS fraudPatterns";
+
+    // Only cycles with the inputs of calculateRiskScore and the default risk rules can be re-analyzed
+    private static final String SCORABLE_CYCLE =
+            "c.cycleLength IS NOT NULL AND c.totalAmount IS NOT NULL " +
+            "RETURN id(c) AS id, properties(c) AS cycle";
+
     private final CycleDetectionRepository cycleDetectionRepository;
     private final Neo4jClient neo4jClient;
+    private final ReactiveNeo4jClient reactiveNeo4jClient;
     private final FraudTypeService fraudTypeService;
+    private final CycleDetectionBatchWriter cycleDetectionBatchWriter;
+    private final TransferGraphLoader transferGraphLoader;
+    private final CycleDetectionStatistics cycleDetectionStatistics;
+    private final CycleMetricsStore cycleMetricsStore;
+    private final DetectionWatermarkStore detectionWatermarkStore;
+    private final ImpossibleTravelService impossibleTravelService;
+    private final IdentityClusterService identityClusterService;
+    private final RiskScoringService riskScoringService;
 
     @Autowired
     public CycleDetectionService(CycleDetectionRepository cycleDetectionRepository,
                                 Neo4jClient neo4jClient,
-                                FraudTypeService fraudTypeService) {
+                                ReactiveNeo4jClient reactiveNeo4jClient,
+                                FraudTypeService fraudTypeService,
+                                CycleDetectionBatchWriter cycleDetectionBatchWriter,
+                                TransferGraphLoader transferGraphLoader,
+                                CycleDetectionStatistics cycleDetectionStatistics,
+                                CycleMetricsStore cycleMetricsStore,
+                                DetectionWatermarkStore detectionWatermarkStore,
+                                ImpossibleTravelService impossibleTravelService,
+                                IdentityClusterService identityClusterService,
+                                RiskScoringService riskScoringService) {
         this.cycleDetectionRepository = cycleDetectionRepository;
         this.neo4jClient = neo4jClient;
+        this.reactiveNeo4jClient = reactiveNeo4jClient;
         this.fraudTypeService = fraudTypeService;
+        this.cycleDetectionBatchWriter = cycleDetectionBatchWriter;
+        this.transferGraphLoader = transferGraphLoader;
+        this.cycleDetectionStatistics = cycleDetectionStatistics;
+        this.cycleMetricsStore = cycleMetricsStore;
+        this.detectionWatermarkStore = detectionWatermarkStore;
+        this.impossibleTravelService = impossibleTravelService;
+        this.identityClusterService = identityClusterService;
+        this.riskScoringService = riskScoringService;
     }
 
     /**
      * Detect circular money flows in transaction network using DFS algorithm
-     * Finds cycles where money flows from one account back to itself through multiple intermediaries
+     * Finds cycles where money flows from one account back to itself through multiple intermediaries.
+     * Each loop is matched only from its smallest account id and deduplicated by fingerprint,
+     * so it is reported once rather than once per account on it.
+     * Runs on the configured {@link DetectionEngine}.
      */
     @Transactional
     public List<CycleDetection> detectCircularMoneyFlows() {
-        List<CycleDetection> detectedCycles = new ArrayList<>();
+        return detectCircularMoneyFlows(transferGraphLoader.getDefaultEngine());
+    }
 
-        // Query to find all transactions/transfers relationships in the graph
-        String query = "MATCH (a1)-[t:TRANSFER|TRANSACTION*2..10]->(a1) " +
-                      "RETURN a1.id as accountId, length(t) as cycleLength, " +
-                      "reduce(sum=0, rel in t | sum + rel.amount) as totalAmount";
+    /**
+     * Detect only the circular money flows closed by transfers newer than the pattern's watermark,
+     * so the cost follows the new transfers rather than the history. The first run is a full detection.
+     */
+    @Transactional
+    public List<CycleDetection> detectNewCircularMoneyFlows() {
+        CycleDeduplicator deduplicator = new CycleDeduplicator();
+        return detectSinceWatermark("CIRCULAR_MONEY_FLOW", TRANSFER_EDGES, NEW_CIRCULAR_MONEY_FLOW_QUERY,
+                this::detectCircularMoneyFlows, record -> toCircularMoneyFlow(record, deduplicator));
+    }
 
-        neo4jClient.query(query)
+    /**
+     * Detect circular money flows on the given engine (AUTO picks one by transfer count)
+     */
+    @Transactional
+    public List<CycleDetection> detectCircularMoneyFlows(DetectionEngine engine) {
+        if (transferGraphLoader.resolve(engine) == DetectionEngine.IN_JVM) {
+            return detectCircularMoneyFlowsInJvm();
+        }
+
+        List<CycleDetection> detectedCycles = new ArrayList<>();
+        CycleDeduplicator deduplicator = new CycleDeduplicator();
+
+        neo4jClient.query(CIRCULAR_MONEY_FLOW_QUERY)
                 .fetch()
                 .all()
                 .forEach(record -> {
-                    String accountId = (String) record.get("accountId");
-                    Integer cycleLength = ((Number) record.get("cycleLength")).intValue();
-                    Double totalAmount = ((Number) record.get("totalAmount")).doubleValue();
+                    CycleDetection cycle = toCircularMoneyFlow(record, deduplicator);
+                    if (cycle != null) {
+                        detectedCycles.add(cycle);
+                    }
+                });
 
-                    CycleDetection cycle = new CycleDetection(
-                            "CIRCULAR_MONEY_FLOW",
-                            "Circular money flow detected: Money transferred from account and eventually returned",
-                            cycleLength,
-                            totalAmount,
-                            calculateSeverity(cycleLength, totalAmount),
-                            calculateRiskScore(cycleLength, totalAmount)
-                    );
+        return cycleDetectionBatchWriter.saveAll(detectedCycles);
+    }
 
-                    cycle.setAffectedAccounts(accountId);
-                    cycle = cycleDetectionRepository.save(cycle);
-                    detectedCycles.add(cycle);
-                });
+    /**
+     * Streaming variant of {@link #detectCircularMoneyFlows()} on the Cypher engine.
+     * Records are mapped and persisted in batches while the query is still producing them,
+     * so memory stays flat however many cycles are found.
+     */
+    public Flux<CycleDetection> streamCircularMoneyFlows() {
+        return persist(Flux.defer(() -> {
+            CycleDeduplicator deduplicator = new CycleDeduplicator();
+            return reactiveNeo4jClient.query(CIRCULAR_MONEY_FLOW_QUERY)
+                    .fetch()
+                    .all()
+                    .mapNotNull(record -> toCircularMoneyFlow(record, deduplicator));
+        }));
+    }
+
+    /**
+     * In-JVM circular money flow detection: project the transfer graph once, split it into strongly
+     * connected components and enumerate elementary cycles of 2..10 transfers inside each one.
+     * Fingerprints match the Cypher engine's, so either engine merges onto the same stored loops.
+     */
+    private List<CycleDetection> detectCircularMoneyFlowsInJvm() {
+        List<CycleDetection> detectedCycles = new ArrayList<>();
+        CycleDeduplicator deduplicator = new CycleDeduplicator();
+        TransferGraphSnapshot snapshot = transferGraphLoader.loadSnapshot();
 
-        return detectedCycles;
+        for (CompactGraph component : new ParallelSCCDetector(snapshot.graph()).nonTrivialSubgraphs()) {
+            new ElementaryCycleEnumerator(component, ElementaryCycleEnumerator.DEFAULT_MIN_LENGTH,
+                    ElementaryCycleEnumerator.DEFAULT_MAX_LENGTH).enumerate((nodes, edges, length) -> {
+                List<String> accountIds = component.names(nodes, length);
+                long fingerprint = circularMoneyFlowFingerprint(accountIds);
+                // Parallel transfers between the same accounts are one loop
+                if (!deduplicator.add(fingerprint)) {
+                    return;
+                }
+                double totalAmount = 0.0;
+                for (int i = 0; i < length; i++) {
+                    totalAmount += component.weight(edges[i]);
+                }
+                detectedCycles.add(createCircularMoneyFlow(accountIds, fingerprint, totalAmount));
+            });
+        }
+
+        return cycleDetectionBatchWriter.saveAll(detectedCycles);
+    }
+
+    /**
+     * @return the cycle for a circular money flow record, or null if a rotation of it was already seen
+     */
+    private CycleDetection toCircularMoneyFlow(Map<String, Object> record, CycleDeduplicator deduplicator) {
+        List<String> accountIds = toStrings(record.get("accountIds"));
+        long fingerprint = circularMoneyFlowFingerprint(accountIds);
+        if (!deduplicator.add(fingerprint)) {
+            return null;
+        }
+        return createCircularMoneyFlow(accountIds, fingerprint, ((Number) record.get("totalAmount")).doubleValue());
+    }
+
+    /**
+     * Fingerprint of a circular money flow by its accounts alone: the incremental detector does not know
+     * transfer ids, so this is what lets it and the batch detectors merge onto the same stored loop
+     */
+    static long circularMoneyFlowFingerprint(List<String> accountIds) {
+        return CycleDeduplicator.fingerprint("CIRCULAR_MONEY_FLOW", accountIds, null);
+    }
+
+    private CycleDetection createCircularMoneyFlow(List<String> accountIds, long fingerprint, Double totalAmount) {
+        Integer cycleLength = accountIds.size();
+        CycleDetection cycle = new CycleDetection(
+                "CIRCULAR_MONEY_FLOW",
+                "Circular money flow detected: Money transferred from account and eventually returned",
+                cycleLength,
+                totalAmount,
+                // Scored by the pattern's risk rules when the batch writer saves it
+                null,
+                null
+        );
+
+        cycle.setAffectedAccounts(String.join(",", accountIds));
+        cycle.setFingerprint(fingerprint);
+        return cycle;
     }
 
     /**
@@ -80,40 +337,81 @@ public class CycleDetectionService {
      */
     @Transactional
     public List<CycleDetection> detectCreditCardFraudLoops() {
+        return detectCreditCardFraudLoops(impossibleTravelService.getDefaultEngine());
+    }
+
+    /**
+     * Detect credit card fraud loops with the pairwise Cypher join (CYPHER) or by replaying every card use
+     * in time order through the per-card sliding windows of {@link ImpossibleTravelService} (IN_JVM). The
+     * replay is linear in card uses but applies a speed limit and a per-card use cap the query does not, so
+     * it is opt-in: AUTO resolves to {@code fd.card-travel.engine}, which defaults to CYPHER.
+     */
+    @Transactional
+    public List<CycleDetection> detectCreditCardFraudLoops(DetectionEngine engine) {
+        if (impossibleTravelService.resolve(engine) == DetectionEngine.IN_JVM) {
+            return impossibleTravelService.replayCardUses();
+        }
+
         List<CycleDetection> detectedLoops = new ArrayList<>();
 
-        // Query to find credit card transactions in rapid succession across locations
-        String query = "MATCH (cc:CreditCard)-[t1:USED_IN]->(l1:Location)," +
-                      "(cc)-[t2:USED_IN]->(l2:Location) " +
-                      "WHERE t1.timestamp < t2.timestamp AND " +
-                      "duration.between(t1.timestamp, t2.timestamp) < duration('PT1H') AND " +
-                      "l1 <> l2 " +
-                      "RETURN cc.id as cardId, count(distinct l1) as locationCount, " +
-                      "sum(t1.amount + t2.amount) as totalAmount";
+        neo4jClient.query(CREDIT_CARD_LOOP_QUERY)
+                .fetch()
+                .all()
+                .forEach(record -> detectedLoops.add(toCreditCardFraudLoop(record)));
 
-        neo4jClient.query(query)
+        return cycleDetectionBatchWriter.saveAll(detectedLoops);
+    }
+
+    /**
+     * Detect credit card loops involving a card use newer than the pattern's watermark, on the same engine
+     * as {@link #detectCreditCardFraudLoops()}
+     */
+    @Transactional
+    public List<CycleDetection> detectNewCreditCardFraudLoops() {
+        DetectionEngine engine = impossibleTravelService.getDefaultEngine();
+        if (engine == DetectionEngine.IN_JVM) {
+            return detectSinceWatermark("CREDIT_CARD_LOOP", CARD_USE_EDGES,
+                    impossibleTravelService::replayCardUsesSince, () -> detectCreditCardFraudLoops(engine));
+        }
+        return detectSinceWatermark("CREDIT_CARD_LOOP", CARD_USE_EDGES, NEW_CREDIT_CARD_LOOP_QUERY,
+                () -> detectCreditCardFraudLoops(engine), this::toCreditCardFraudLoop);
+    }
+
+    /**
+     * Streaming variant of {@link #detectCreditCardFraudLoops()}
+     */
+    public Flux<CycleDetection> streamCreditCardFraudLoops() {
+        return persist(reactiveNeo4jClient.query(CREDIT_CARD_LOOP_QUERY)
                 .fetch()
                 .all()
-                .forEach(record -> {
-                    String cardId = (String) record.get("cardId");
-                    Integer locationCount = ((Number) record.get("locationCount")).intValue();
-                    Double totalAmount = ((Number) record.get("totalAmount")).doubleValue();
-
-                    CycleDetection loop = new CycleDetection(
-                            "CREDIT_CARD_LOOP",
-                            "Credit card fraud pattern: Impossible travel scenario - card used in multiple locations within impossible timeframe",
-                            locationCount,
-                            totalAmount,
-                            "HIGH",
-                            0.9
-                    );
+                .map(this::toCreditCardFraudLoop));
+    }
 
-                    loop.setAffectedAccounts(cardId);
-                    loop = cycleDetectionRepository.save(loop);
-                    detectedLoops.add(loop);
-                });
+    private CycleDetection toCreditCardFraudLoop(Map<String, Object> record) {
+        String cardId = (String) record.get("cardId");
+        Integer locationCount = ((Number) record.get("locationCount")).intValue();
+        Double totalAmount = ((Number) record.get("totalAmount")).doubleValue();
+        return createCreditCardFraudLoop(cardId, locationCount, totalAmount, toStrings(record.get("useIds")));
+    }
+
+    /**
+     * A credit card loop, fingerprinted by the card and the uses involved so a re-detection is merged
+     */
+    static CycleDetection createCreditCardFraudLoop(String cardId, Integer locationCount, Double totalAmount,
+                                                    Collection<String> useIds) {
+        CycleDetection loop = new CycleDetection(
+                "CREDIT_CARD_LOOP",
+                "Credit card fraud pattern: Impossible travel scenario - card used in multiple locations within impossible timeframe",
+                locationCount,
+                totalAmount,
+                // Scored by the pattern's risk rules when the batch writer saves it
+                null,
+                null
+        );
 
-        return detectedLoops;
+        loop.setAffectedAccounts(cardId);
+        loop.setFingerprint(memberFingerprint("CREDIT_CARD_LOOP", cardId, useIds));
+        return loop;
     }
 
     /**
@@ -122,77 +420,345 @@ public class CycleDetectionService {
      */
     @Transactional
     public List<CycleDetection> detectIdentityTheftLoops() {
+        return detectIdentityTheftLoops(identityClusterService.getDefaultEngine());
+    }
+
+    /**
+     * Detect identity theft loops with the pairwise path query (CYPHER) or by clustering accounts in
+     * {@link IdentityClusterService} (IN_JVM). Clusters follow links of any length in either direction, so
+     * they report a superset of the query's directed paths of up to five hops; the clustering is opt-in and
+     * AUTO resolves to {@code fd.identity-clusters.engine}, which defaults to CYPHER.
+     */
+    @Transactional
+    public List<CycleDetection> detectIdentityTheftLoops(DetectionEngine engine) {
+        if (identityClusterService.resolve(engine) == DetectionEngine.IN_JVM) {
+            return identityClusterService.detectClusters();
+        }
+
         List<CycleDetection> detectedLoops = new ArrayList<>();
 
-        // Query to find same identity information used across multiple accounts
-        String query = "MATCH (id:IdentityInfo)-[:USED_IN]->(a1:Account)," +
-                      "(id)-[:USED_IN]->(a2:Account)," +
-                      "(a1)-[rel:HAS_RELATIONSHIP*1..5]->(a2) " +
-                      "WHERE a1 <> a2 " +
-                      "RETURN id.identifier as identityId, count(distinct a1) as accountCount, " +
-                      "collect(distinct a1.id) as accountIds";
+        neo4jClient.query(IDENTITY_THEFT_LOOP_QUERY)
+                .fetch()
+                .all()
+                .forEach(record -> detectedLoops.add(toIdentityTheftLoop(record)));
 
-        neo4jClient.query(query)
+        return cycleDetectionBatchWriter.saveAll(detectedLoops);
+    }
+
+    /**
+     * Detect identity theft loops for identities used since the pattern's watermark, on the same engine as
+     * {@link #detectIdentityTheftLoops()}
+     */
+    @Transactional
+    public List<CycleDetection> detectNewIdentityTheftLoops() {
+        DetectionEngine engine = identityClusterService.getDefaultEngine();
+        if (engine == DetectionEngine.IN_JVM) {
+            return detectSinceWatermark("IDENTITY_THEFT_LOOP", IDENTITY_USE_EDGES,
+                    identityClusterService::detectClustersSince, () -> detectIdentityTheftLoops(engine));
+        }
+        return detectSinceWatermark("IDENTITY_THEFT_LOOP", IDENTITY_USE_EDGES, NEW_IDENTITY_THEFT_LOOP_QUERY,
+                () -> detectIdentityTheftLoops(engine), this::toIdentityTheftLoop);
+    }
+
+    /**
+     * Streaming variant of {@link #detectIdentityTheftLoops()}
+     */
+    public Flux<CycleDetection> streamIdentityTheftLoops() {
+        return persist(reactiveNeo4jClient.query(IDENTITY_THEFT_LOOP_QUERY)
                 .fetch()
                 .all()
-                .forEach(record -> {
-                    String identityId = (String) record.get("identityId");
-                    Integer accountCount = ((Number) record.get("accountCount")).intValue();
-                    Object accountIdsObj = record.get("accountIds");
-                    String accountIds = accountIdsObj != null ? accountIdsObj.toString() : "";
-
-                    CycleDetection loop = new CycleDetection(
-                            "IDENTITY_THEFT_LOOP",
-                            "Identity theft pattern detected: Same identity information used across multiple accounts with suspicious relationships",
-                            accountCount,
-                            0.0,
-                            "HIGH",
-                            0.85
-                    );
+                .map(this::toIdentityTheftLoop));
+    }
 
-                    loop.setAffectedAccounts(accountIds);
-                    loop = cycleDetectionRepository.save(loop);
-                    detectedLoops.add(loop);
-                });
+    private CycleDetection toIdentityTheftLoop(Map<String, Object> record) {
+        Integer accountCount = ((Number) record.get("accountCount")).intValue();
+        List<String> accountIds = record.get("accountIds") != null ? toStrings(record.get("accountIds")) : List.of();
+        return createIdentityTheftLoop(String.valueOf(record.get("identityId")), accountCount, accountIds);
+    }
 
-        return detectedLoops;
+    /**
+     * An identity theft loop, fingerprinted by the identity and its accounts so a re-detection is merged
+     */
+    static CycleDetection createIdentityTheftLoop(String identityId, Integer accountCount, List<String> accountIds) {
+        CycleDetection loop = new CycleDetection(
+                "IDENTITY_THEFT_LOOP",
+                "Identity theft pattern detected: Same identity information used across multiple accounts with suspicious relationships",
+                accountCount,
+                0.0,
+                // Scored by the pattern's risk rules when the batch writer saves it
+                null,
+                null
+        );
+
+        loop.setAffectedAccounts(String.join(",", accountIds));
+        loop.setFingerprint(memberFingerprint("IDENTITY_THEFT_LOOP", identityId, accountIds));
+        return loop;
+    }
+
+    /**
+     * Fingerprint of a loop that is a set of members around one key rather than a sequence of transfers
+     */
+    private static long memberFingerprint(String pattern, String key, Collection<String> members) {
+        List<String> nodes = new ArrayList<>(members.size() + 2);
+        nodes.add(pattern);
+        nodes.add(key);
+        members.stream().sorted().forEach(nodes::add);
+        return CycleDeduplicator.fingerprint(nodes, null);
     }
 
     /**
      * Generic cycle detection using depth-first search algorithm
-     * Can detect any type of cycle in the transaction graph
+     * Can detect any type of cycle in the transaction graph; each loop is reported once
      */
     @Transactional
     public List<CycleDetection> detectAllCycles(String relationshipType) {
         List<CycleDetection> allCycles = new ArrayList<>();
+        CycleDeduplicator deduplicator = new CycleDeduplicator();
 
-        String query = String.format(
-                "MATCH p=()-[r:%s*2..10]->() " +
-                "WHERE nodes(p)[0] = nodes(p)[last(nodes(p))] " +
-                "RETURN nodes(p) as nodes, relationships(p) as relationships, length(p) as pathLength",
+        neo4jClient.query(allCyclesQuery(relationshipType))
+                .fetch()
+                .all()
+                .forEach(record -> {
+                    CycleDetection cycle = toGenericCycle(record, relationshipType, deduplicator);
+                    if (cycle != null) {
+                        allCycles.add(cycle);
+                    }
+                });
+
+        return cycleDetectionBatchWriter.saveAll(allCycles);
+    }
+
+    /**
+     * Streaming variant of {@link #detectAllCycles(String)}
+     */
+    public Flux<CycleDetection> streamAllCycles(String relationshipType) {
+        return persist(Flux.defer(() -> {
+            CycleDeduplicator deduplicator = new CycleDeduplicator();
+            return reactiveNeo4jClient.query(allCyclesQuery(relationshipType))
+                    .fetch()
+                    .all()
+                    .mapNotNull(record -> toGenericCycle(record, relationshipType, deduplicator));
+        }));
+    }
+
+    private static String allCyclesQuery(String relationshipType) {
+        return String.format(
+                "MATCH p=(a)-[r:%s*2..10]->(a) " +
+                "WHERE all(n IN nodes(p)[1..-1] WHERE id(a) < id(n)) " +
+                "RETURN [n IN nodes(p)[0..-1] | id(n)] as nodeIds, [rel IN r | id(rel)] as relationshipIds, " +
+                "length(p) as pathLength",
                 relationshipType
         );
+    }
+
+    /**
+     * @return the cycle for a generic cycle record, or null if a rotation of it was already seen
+     */
+    private CycleDetection toGenericCycle(Map<String, Object> record, String relationshipType,
+                                          CycleDeduplicator deduplicator) {
+        long fingerprint = CycleDeduplicator.fingerprint(
+                toStrings(record.get("nodeIds")), toLongs(record.get("relationshipIds")));
+        if (!deduplicator.add(fingerprint)) {
+            return null;
+        }
+        Integer pathLength = ((Number) record.get("pathLength")).intValue();
+
+        CycleDetection cycle = new CycleDetection(
+                "GENERIC_CYCLE",
+                "Generic cycle detected in " + relationshipType + " relationships",
+                pathLength,
+                0.0,
+                // Scored by the pattern's risk rules when the batch writer saves it
+                null,
+                null
+        );
 
+        cycle.setFingerprint(fingerprint);
+        return cycle;
+    }
+
+    /**
+     * Persist a stream of detections in writer-sized batches. concatMap requests one batch at a time,
+     * so a slow database holds back the query instead of letting results pile up in memory.
+     */
+    private Flux<CycleDetection> persist(Flux<CycleDetection> cycles) {
+        return cycles.buffer(cycleDetectionBatchWriter.getBatchSize())
+                .concatMap(batch -> Mono.fromCallable(() -> cycleDetectionBatchWriter.saveAll(batch))
+                        .subscribeOn(Schedulers.boundedElastic()))
+                .flatMapIterable(batch -> batch);
+    }
+
+    /**
+     * Detect arbitrage-style loops using the minimum mean cycle of every strongly connected group
+     * of accounts. Edge rates are log-transformed, so a negative mean means value grows on each
+     * round trip; loops are ranked from the most extreme one downwards.
+     */
+    @Transactional
+    public List<CycleDetection> detectMinimumMeanCycles() {
+        List<CycleDetection> detectedCycles = new ArrayList<>();
+
+        // Query to load every rated transfer once; cycles are computed in the JVM
+        String query = "MATCH (a1)-[t:TRANSFER|TRANSACTION]->(a2) " +
+                      "WHERE t.rate > 0 " +
+                      "RETURN a1.id as fromAccount, a2.id as toAccount, t.rate as rate";
+
+        CompactGraph.Builder builder = new CompactGraph.Builder();
         neo4jClient.query(query)
                 .fetch()
                 .all()
-                .forEach(record -> {
-                    Integer pathLength = ((Number) record.get("pathLength")).intValue();
+                .forEach(record -> builder.addEdge(
+                        (String) record.get("fromAccount"),
+                        (String) record.get("toAccount"),
+                        ((Number) record.get("rate")).doubleValue()));
+
+        CompactGraph graph = MinimumMeanCycleDetector.logTransform(builder.build());
+        new MinimumMeanCycleDetector(graph)
+                .findPerComponent(MinimumMeanCycleDetector.Mode.HOWARD)
+                .stream()
+                .filter(meanCycle -> meanCycle.mean < 0)
+                .forEach(meanCycle -> {
+                    int cycleLength = meanCycle.nodes.length;
+                    // Relative gain of one trip around the loop
+                    double gain = Math.expm1(-meanCycle.mean * cycleLength);
 
                     CycleDetection cycle = new CycleDetection(
-                            "GENERIC_CYCLE",
-                            "Generic cycle detected in " + relationshipType + " relationships",
-                            pathLength,
+                            "MINIMUM_MEAN_CYCLE",
+                            String.format("Arbitrage-style loop detected: value grows by %.4f%% per round trip", gain * 100),
+                            cycleLength,
                             0.0,
-                            calculateSeverityByLength(pathLength),
-                            calculateRiskScoreByLength(pathLength)
+                            calculateSeverityByGain(gain),
+                            calculateRiskScoreByGain(gain)
                     );
 
-                    cycle = cycleDetectionRepository.save(cycle);
-                    allCycles.add(cycle);
+                    List<String> accountIds = graph.names(meanCycle.nodes);
+                    cycle.setAffectedAccounts(String.join(",", accountIds));
+                    cycle.setFingerprint(CycleDeduplicator.fingerprint("MINIMUM_MEAN_CYCLE", accountIds, null));
+                    detectedCycles.add(cycle);
                 });
 
-        return allCycles;
+        return cycleDetectionBatchWriter.saveAll(detectedCycles);
+    }
+
+    /**
+     * Detect temporal cycles: money loops whose transfers happen in strictly increasing time order
+     * and close within the given window. Transfers are streamed in time order record by record,
+     * so memory is bounded by the window rather than by the transaction history.
+     */
+    @Transactional
+    public List<CycleDetection> detectTemporalCycles(Duration window) {
+        List<CycleDetection> detectedCycles = new ArrayList<>();
+        TemporalCycleDetector detector = new TemporalCycleDetector(
+                window.toMillis(), ElementaryCycleEnumerator.DEFAULT_MAX_LENGTH);
+
+        String query = "MATCH (a1)-[t:TRANSFER|TRANSACTION]->(a2) " +
+                      "WHERE t.timestamp IS NOT NULL " +
+                      "RETURN a1.id as fromAccount, a2.id as toAccount, t.amount as amount, t.timestamp as timestamp " +
+                      "ORDER BY t.timestamp";
+
+        neo4jClient.delegateTo(runner -> {
+            Result result = runner.run(query);
+            while (result.hasNext()) {
+                Record record = result.next();
+                Value amount = record.get("amount");
+                detector.addEdge(
+                        record.get("fromAccount").asString(),
+                        record.get("toAccount").asString(),
+                        toEpochMillis(record.get("timestamp")),
+                        amount.isNull() ? 0.0 : amount.asDouble(),
+                        edges -> detectedCycles.add(createTemporalCycle(edges)));
+            }
+            return Optional.empty();
+        }).run();
+
+        // Saved after the stream is drained so the open result is never buffered by another query
+        return cycleDetectionBatchWriter.saveAll(detectedCycles);
+    }
+
+    private CycleDetection createTemporalCycle(List<TemporalCycleDetector.TemporalEdge> edges) {
+        Integer cycleLength = edges.size();
+        Double totalAmount = edges.stream().mapToDouble(edge -> edge.amount).sum();
+        Duration span = Duration.ofMillis(edges.get(edges.size() - 1).timestamp - edges.get(0).timestamp);
+
+        CycleDetection cycle = new CycleDetection(
+                "TEMPORAL_CYCLE",
+                "Temporal money loop detected: funds returned to the origin through time-ordered transfers within " + span,
+                cycleLength,
+                totalAmount,
+                // Scored by the pattern's risk rules when the batch writer saves it
+                null,
+                null
+        );
+
+        List<String> accountIds = new ArrayList<>(edges.size());
+        // No transfer ids in the stream; the timestamps tell loops over the same accounts apart
+        long[] timestamps = new long[edges.size()];
+        for (int i = 0; i < edges.size(); i++) {
+            accountIds.add(edges.get(i).from);
+            timestamps[i] = edges.get(i).timestamp;
+        }
+        cycle.setAffectedAccounts(String.join(",", accountIds));
+        cycle.setFingerprint(CycleDeduplicator.fingerprint("TEMPORAL_CYCLE", accountIds, timestamps));
+        return cycle;
+    }
+
+    /**
+     * Delta detection: fix the newest edge timestamp now as this run's high mark, seed the search only from
+     * edges between the rescan start and it, then advance the watermark in the same transaction. The rescan
+     * starts a lookback before the stored watermark (see {@link DetectionWatermarkStore#rescanFrom}), so an
+     * edge arriving after the watermark passed its timestamp is still seen if it is within the lookback;
+     * the loops found again in that window carry the same fingerprint and are merged, not duplicated.
+     * Edges arriving during the run are newer than the high mark and left to the next run.
+     */
+    private List<CycleDetection> detectSinceWatermark(String pattern, String edges, String deltaQuery,
+                                                      Supplier<List<CycleDetection>> fullDetection,
+                                                      Function<Map<String, Object>, CycleDetection> mapper) {
+        return detectSinceWatermark(pattern, edges, (watermark, highMark) -> {
+            List<CycleDetection> cycles = new ArrayList<>();
+            neo4jClient.query(deltaQuery)
+                    .bind(watermark).to("watermark")
+                    .bind(highMark).to("highMark")
+                    .fetch()
+                    .all()
+                    .forEach(record -> {
+                        CycleDetection cycle = mapper.apply(record);
+                        if (cycle != null) {
+                            cycles.add(cycle);
+                        }
+                    });
+            return cycleDetectionBatchWriter.saveAll(cycles);
+        }, fullDetection);
+    }
+
+    /**
+     * Delta detection with a detector of its own, given the rescan start and high mark, that saves what it finds
+     */
+    private List<CycleDetection> detectSinceWatermark(String pattern, String edges,
+                                                      BiFunction<Object, Object, List<CycleDetection>> deltaDetection,
+                                                      Supplier<List<CycleDetection>> fullDetection) {
+        Optional<Object> watermark = detectionWatermarkStore.get(pattern);
+        Optional<Object> rescanFrom = watermark.map(detectionWatermarkStore::rescanFrom);
+        Optional<Object> highMark = neo4jClient.query("MATCH " + edges + " " +
+                        (rescanFrom.isPresent() ? "WHERE t.timestamp > $since " : "") +
+                        "RETURN max(t.timestamp) AS highMark")
+                .bind(rescanFrom.orElse(null)).to("since")
+                .fetch()
+                .one()
+                .map(record -> record.get("highMark"));
+        if (watermark.isEmpty()) {
+            // First run: everything is new (and without timestamps there is nothing to keep a watermark on)
+            List<CycleDetection> detected = fullDetection.get();
+            highMark.ifPresent(mark -> detectionWatermarkStore.advance(pattern, mark));
+            return detected;
+        }
+        if (highMark.isEmpty()) {
+            // Nothing new since the last run
+            return new ArrayList<>();
+        }
+
+        List<CycleDetection> detected = deltaDetection.apply(rescanFrom.get(), highMark.get());
+        // A run that only found late edges has a high mark below the watermark, which then stays put
+        detectionWatermarkStore.advance(pattern, highMark.get());
+        return detected;
     }
 
     /**
@@ -202,15 +768,14 @@ public class CycleDetectionService {
     public CycleDetection analyzeCycle(Long cycleId) {
         return cycleDetectionRepository.findById(cycleId)
                 .map(cycle -> {
-                    // Update risk score based on current analysis
-                    Double updatedRiskScore = calculateRiskScore(cycle.getCycleLength(), cycle.getTotalAmount());
-                    cycle.setRiskScore(updatedRiskScore);
+                    CycleMetricsStore.Contribution before = CycleMetricsStore.Contribution.of(cycle);
 
-                    // Update severity
-                    String updatedSeverity = calculateSeverity(cycle.getCycleLength(), cycle.getTotalAmount());
-                    cycle.setSeverity(updatedSeverity);
+                    // Update risk score and severity based on current analysis
+                    score(cycle);
 
-                    return cycleDetectionRepository.save(cycle);
+                    CycleDetection saved = cycleDetectionRepository.save(cycle);
+                    cycleMetricsStore.recordChanged(before, saved);
+                    return saved;
                 })
                 .orElse(null);
     }
@@ -222,12 +787,182 @@ public class CycleDetectionService {
     public CycleDetection updateCycleStatus(Long cycleId, String status) {
         return cycleDetectionRepository.findById(cycleId)
                 .map(cycle -> {
+                    CycleMetricsStore.Contribution before = CycleMetricsStore.Contribution.of(cycle);
                     cycle.setStatus(status);
-                    return cycleDetectionRepository.save(cycle);
+                    CycleDetection saved = cycleDetectionRepository.save(cycle);
+                    cycleMetricsStore.recordChanged(before, saved);
+                    return saved;
                 })
                 .orElse(null);
     }
 
+    /**
+     * Set the status of many cycles in one UNWIND statement per batch instead of a find and save per cycle
+     * @return number of cycles updated
+     */
+    @Transactional
+    public int bulkUpdateStatus(Collection<Long> cycleIds, String status) {
+        return bulkUpdateStatus(cycleIds, null, status);
+    }
+
+    /**
+     * Set the status of the given cycles that are still in {@code fromStatus}, so workflows re-finding a stored
+     * loop do not overwrite a later decision; a null {@code fromStatus} updates every cycle
+     * @return number of cycles updated
+     */
+    @Transactional
+    public int bulkUpdateStatus(Collection<Long> cycleIds, String fromStatus, String status) {
+        String statement = fromStatus == null ? BULK_UPDATE_STATUS : BULK_ADVANCE_STATUS;
+        Map<String, Object> guard = fromStatus == null ? Map.of() : Map.of("fromStatus", fromStatus);
+        int updated = 0;
+        for (List<Long> batch : batches(cycleIds)) {
+            for (Map<String, Object> record : neo4jClient.query(statement)
+                    .bind(batch).to("ids")
+                    .bind(status).to("status")
+                    .bindAll(guard)
+                    .fetch()
+                    .all()) {
+                CycleDetection cycle = toStoredCycle(asMap(record.get("before")));
+                CycleMetricsStore.Contribution before = CycleMetricsStore.Contribution.of(cycle);
+                cycle.setStatus(status);
+                cycleMetricsStore.recordChanged(before, cycle);
+                updated++;
+            }
+        }
+        return updated;
+    }
+
+    /**
+     * Re-analyze the given cycles, as {@link #analyzeCycle} does one at a time
+     * @return number of cycles analyzed
+     */
+    @Transactional
+    public int bulkReanalyze(Collection<Long> cycleIds) {
+        List<Map<String, Object>> cycles = new ArrayList<>();
+        for (List<Long> batch : batches(cycleIds)) {
+            cycles.addAll(neo4jClient.query("UNWIND $ids AS cycleId " +
+                            "MATCH (c:CycleDetection) WHERE id(c) = cycleId AND " + SCORABLE_CYCLE)
+                    .bind(batch).to("ids")
+                    .fetch()
+                    .all());
+        }
+        return reanalyze(cycles);
+    }
+
+    /**
+     * Re-analyze every cycle of a fraud pattern: one read, then UNWIND writes for the scores that changed.
+     * Patterns with risk rules are rescored column-wise by {@link RiskScoringService}.
+     * @return number of cycles analyzed
+     */
+    @Transactional
+    public int bulkReanalyze(String fraudPattern) {
+        if (riskScoringService.getRules(fraudPattern).isPresent()) {
+            return (int) riskScoringService.rescore(fraudPattern);
+        }
+        return reanalyze(neo4jClient.query("MATCH (c:CycleDetection) WHERE c.fraudPattern = $fraudPattern AND " +
+                        SCORABLE_CYCLE)
+                .bind(fraudPattern).to("fraudPattern")
+                .fetch()
+                .all());
+    }
+
+    /**
+     * Link many cycles to a fraud type with one MERGE per cycle, batched
+     * @return number of cycles linked (including ones that already were)
+     */
+    @Transactional
+    public int bulkLinkFraudType(Collection<Long> cycleIds, FraudType fraudType) {
+        int linked = 0;
+        for (List<Long> batch : batches(cycleIds)) {
+            linked += neo4jClient.query(BULK_LINK_FRAUD_TYPE)
+                    .bind(fraudType.getId()).to("fraudTypeId")
+                    .bind(batch).to("ids")
+                    .fetchAs(Long.class)
+                    .one()
+                    .orElse(0L)
+                    .intValue();
+        }
+        return linked;
+    }
+
+    /**
+     * Recompute scores in the JVM (so the rules stay in one place) and write back only the changed ones
+     */
+    private int reanalyze(Collection<Map<String, Object>> records) {
+        List<Map<String, Object>> changed = new ArrayList<>();
+        for (Map<String, Object> record : records) {
+            CycleDetection cycle = toStoredCycle(asMap(record.get("cycle")));
+            CycleMetricsStore.Contribution before = CycleMetricsStore.Contribution.of(cycle);
+            Double storedRiskScore = cycle.getRiskScore();
+            String storedSeverity = cycle.getSeverity();
+            score(cycle);
+            Double riskScore = cycle.getRiskScore();
+            String severity = cycle.getSeverity();
+            if (riskScore.equals(storedRiskScore) && severity.equals(storedSeverity)) {
+                continue;
+            }
+
+            cycleMetricsStore.recordChanged(before, cycle);
+
+            Map<String, Object> row = new HashMap<>(4);
+            row.put("id", record.get("id"));
+            row.put("riskScore", riskScore);
+            row.put("severity", severity);
+            changed.add(row);
+        }
+
+        for (List<Map<String, Object>> batch : batches(changed)) {
+            neo4jClient.query(BULK_SET_SCORES).bind(batch).to("rows").run();
+        }
+        return records.size();
+    }
+
+    /**
+     * Score a cycle with its pattern's risk rules, or with the built-in formulas if there are none
+     */
+    private void score(CycleDetection cycle) {
+        if (!riskScoringService.apply(cycle)) {
+            cycle.setRiskScore(calculateRiskScore(cycle.getCycleLength(), cycle.getTotalAmount()));
+            cycle.setSeverity(calculateSeverity(cycle.getCycleLength(), cycle.getTotalAmount()));
+        }
+    }
+
+    private <T> List<List<T>> batches(Collection<T> items) {
+        List<T> list = items instanceof List ? (List<T>) items : new ArrayList<>(items);
+        int batchSize = cycleDetectionBatchWriter.getBatchSize();
+        List<List<T>> batches = new ArrayList<>();
+        for (int from = 0; from < list.size(); from += batchSize) {
+            batches.add(list.subList(from, Math.min(from + batchSize, list.size())));
+        }
+        return batches;
+    }
+
+    /**
+     * A detached CycleDetection holding the node properties of a stored cycle
+     */
+    private static CycleDetection toStoredCycle(Map<String, Object> properties) {
+        CycleDetection cycle = new CycleDetection();
+        cycle.setCycleId((String) properties.get("cycleId"));
+        cycle.setFraudPattern((String) properties.get("fraudPattern"));
+        cycle.setDescription((String) properties.get("description"));
+        cycle.setCycleLength(properties.get("cycleLength") == null ? null :
+                ((Number) properties.get("cycleLength")).intValue());
+        cycle.setTotalAmount(properties.get("totalAmount") == null ? null :
+                ((Number) properties.get("totalAmount")).doubleValue());
+        cycle.setSeverity((String) properties.get("severity"));
+        cycle.setRiskScore(properties.get("riskScore") == null ? null :
+                ((Number) properties.get("riskScore")).doubleValue());
+        cycle.setDetectedAt((LocalDateTime) properties.get("detectedAt"));
+        cycle.setStatus((String) properties.get("status"));
+        cycle.setAffectedAccounts((String) properties.get("affectedAccounts"));
+        return cycle;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asMap(Object value) {
+        return (Map<String, Object>) value;
+    }
+
     /**
      * Get all high-risk cycles requiring immediate attention
      */
@@ -263,51 +998,133 @@ public class CycleDetectionService {
         return cycleDetectionRepository.findAllCycles();
     }
 
+    /**
+     * Stored cycles an account is involved in, most risky first
+     */
+    public List<CycleDetection> getCyclesInvolvingAccount(String accountId) {
+        return cycleDetectionRepository.findByInvolvedAccount(accountId);
+    }
+
+    /**
+     * Cycle count, risk and amounts over the cycles an account is involved in, aggregated by Neo4j
+     */
+    public AccountRiskRollup getAccountRiskRollup(String accountId) {
+        Map<String, Object> rollup = neo4jClient.query(ACCOUNT_RISK_ROLLUP)
+                .bind(accountId).to("accountId")
+                .fetch()
+                .one()
+                .orElseThrow();
+        return new AccountRiskRollup(
+                accountId,
+                ((Number) rollup.get("cycles")).longValue(),
+                ((Number) rollup.get("highRisk")).longValue(),
+                ((Number) rollup.get("confirmed")).longValue(),
+                ((Number) rollup.get("maxRiskScore")).doubleValue(),
+                ((Number) rollup.get("averageRiskScore")).doubleValue(),
+                ((Number) rollup.get("totalAmount")).doubleValue(),
+                toStrings(rollup.get("fraudPatterns")));
+    }
+
+    /**
+     * Link cycles stored before INVOLVES relationships existed to their accounts
+     * @return number of cycles visited
+     */
+    public long backfillAccountInvolvements() {
+        return cycleDetectionBatchWriter.backfillMemberships();
+    }
+
+    /**
+     * Rank the accounts that appear in the most transfer cycles of up to {@code maxLength} hops.
+     * Cycles are enumerated in the JVM and counted as they stream past, so none is retained;
+     * each count over-estimates the true one by at most the entry's {@code error}.
+     */
+    public List<HeavyHitter> getMostSuspiciousAccounts(int topN, int maxLength) {
+        CompactGraph graph = transferGraphLoader.loadSnapshot().graph();
+        StreamingCycleAnalyzer analyzer = new StreamingCycleAnalyzer(
+                graph, Math.max(topN * 4, SUSPICIOUS_ACCOUNT_COUNTERS));
+        new ElementaryCycleEnumerator(graph, ElementaryCycleEnumerator.DEFAULT_MIN_LENGTH, maxLength)
+                .enumerate(analyzer);
+        return analyzer.getHeavyHitters(topN);
+    }
+
+    /**
+     * Aggregate figures over all stored cycles, computed by Neo4j in one query
+     */
+    public CycleDetectionSummary getCycleSummary() {
+        return cycleDetectionStatistics.summarize();
+    }
+
+    /**
+     * The same figures as {@link #getCycleSummary()}, read from the in-memory metrics without a query
+     */
+    public CycleDetectionSummary getLiveCycleSummary() {
+        return cycleMetricsStore.snapshot();
+    }
+
+    /**
+     * Detections of the last {@code hours} hours from the in-memory metrics, at one-hour resolution
+     */
+    public CycleMetricsStore.RecentActivity getRecentActivity(int hours) {
+        return cycleMetricsStore.recent(hours);
+    }
+
+    /**
+     * Longest window {@link #getRecentActivity(int)} covers
+     */
+    public int getRecentActivityHours() {
+        return cycleMetricsStore.getRecentHours();
+    }
+
     /**
      * Generate fraud detection report
      */
     public Map<String, Object> generateFraudDetectionReport() {
         Map<String, Object> report = new LinkedHashMap<>();
 
-        List<CycleDetection> allCycles = getAllCycles();
-        report.put("totalCyclesDetected", allCycles.size());
+        CycleDetectionSummary summary = getCycleSummary();
+        report.put("totalCyclesDetected", summary.getTotalCycles());
         report.put("detectionTime", LocalDateTime.now());
-
-        List<CycleDetection> highRiskCycles = getHighRiskCycles();
-        report.put("highRiskCycles", highRiskCycles.size());
-
-        Map<String, Integer> patternCounts = allCycles.stream()
-                .collect(Collectors.groupingBy(
-                        CycleDetection::getFraudPattern,
-                        Collectors.collectingAndThen(
-                                Collectors.toList(),
-                                List::size
-                        )
-                ));
-        report.put("fraudPatternDistribution", patternCounts);
-
-        Double totalAmountAtRisk = allCycles.stream()
-                .mapToDouble(CycleDetection::getTotalAmount)
-                .sum();
-        report.put("totalAmountAtRisk", totalAmountAtRisk);
-
-        Map<String, Integer> statusDistribution = allCycles.stream()
-                .collect(Collectors.groupingBy(
-                        CycleDetection::getStatus,
-                        Collectors.collectingAndThen(
-                                Collectors.toList(),
-                                List::size
-                        )
-                ));
-        report.put("statusDistribution", statusDistribution);
+        report.put("highRiskCycles", summary.getHighRiskCycles());
+        report.put("fraudPatternDistribution", summary.getCountsByPattern());
+        report.put("totalAmountAtRisk", summary.getTotalAmount());
+        report.put("statusDistribution", summary.getCountsByStatus());
 
         return report;
     }
 
+    private static List<String> toStrings(Object list) {
+        return ((Collection<?>) list).stream()
+                .map(String::valueOf)
+                .collect(Collectors.toList());
+    }
+
+    private static long[] toLongs(Object list) {
+        return ((Collection<?>) list).stream()
+                .mapToLong(value -> ((Number) value).longValue())
+                .toArray();
+    }
+
+    /**
+     * Convert a Neo4j temporal or numeric timestamp to epoch milliseconds (local date-times are taken as UTC)
+     */
+    static long toEpochMillis(Value value) {
+        Object timestamp = value.asObject();
+        if (timestamp instanceof Number) {
+            return ((Number) timestamp).longValue();
+        } else if (timestamp instanceof ZonedDateTime) {
+            return ((ZonedDateTime) timestamp).toInstant().toEpochMilli();
+        } else if (timestamp instanceof OffsetDateTime) {
+            return ((OffsetDateTime) timestamp).toInstant().toEpochMilli();
+        } else if (timestamp instanceof LocalDateTime) {
+            return ((LocalDateTime) timestamp).toInstant(ZoneOffset.UTC).toEpochMilli();
+        }
+        throw new IllegalArgumentException("Unsupported timestamp value: " + timestamp);
+    }
+
     /**
      * Calculate severity based on cycle characteristics
      */
-    private String calculateSeverity(Integer cycleLength, Double totalAmount) {
+    private static String calculateSeverity(Integer cycleLength, Double totalAmount) {
         if (cycleLength >= 5 || totalAmount > 100000) {
             return "HIGH";
         } else if (cycleLength >= 3 || totalAmount > 50000) {
@@ -320,19 +1137,19 @@ public class CycleDetectionService {
     /**
      * Calculate risk score (0.0 to 1.0)
      */
-    private Double calculateRiskScore(Integer cycleLength, Double totalAmount) {
+    private static Double calculateRiskScore(Integer cycleLength, Double totalAmount) {
         Double lengthScore = Math.min(cycleLength / 10.0, 1.0);
         Double amountScore = Math.min(totalAmount / 500000.0, 1.0);
         return (lengthScore * 0.4) + (amountScore * 0.6);
     }
 
     /**
-     * Calculate severity by cycle length only
+     * Calculate severity by relative gain of one trip around a loop
      */
-    private String calculateSeverityByLength(Integer cycleLength) {
-        if (cycleLength >= 5) {
+    private String calculateSeverityByGain(double gain) {
+        if (gain >= 0.05) {
             return "HIGH";
-        } else if (cycleLength >= 3) {
+        } else if (gain >= 0.01) {
             return "MEDIUM";
         } else {
             return "LOW";
@@ -340,10 +1157,11 @@ public class CycleDetectionService {
     }
 
     /**
-     * Calculate risk score by cycle length only
+     * Calculate risk score by relative gain (a 10% gain per trip saturates the score)
      */
-    private Double calculateRiskScoreByLength(Integer cycleLength) {
-        return Math.min(cycleLength / 10.0, 1.0);
+    private Double calculateRiskScoreByGain(double gain) {
+        return Math.min(gain * 10.0, 1.0);
     }
+
 }
 
@@ -0,0 +1,73 @@
+package vishal.mysore.fd.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Report figures aggregated inside Neo4j.
+ * One scan over the CycleDetection nodes groups them by (pattern, status) and returns one small row per
+ * group, so report latency depends on the number of distinct patterns and statuses, not on stored cycles.
+ */
+@Service
+public class CycleDetectionStatistics {
+
+    private static final String SUMMARY_QUERY =
+            "MATCH (c:CycleDetection) " +
+            "WITH coalesce(c.fraudPattern, 'UNKNOWN') AS pattern, coalesce(c.status, 'UNKNOWN') AS status, c " +
+            "RETURN pattern, status, count(c) AS cycles, " +
+            "sum(coalesce(c.totalAmount, 0.0)) AS amount, count(c.totalAmount) AS amountCount, " +
+            "sum(coalesce(c.riskScore, 0.0)) AS riskScoreSum, count(c.riskScore) AS riskScoreCount, " +
+            "sum(coalesce(c.cycleLength, 0)) AS cycleLengthSum, count(c.cycleLength) AS cycleLengthCount, " +
+            "count(CASE WHEN c.riskScore >= 0.8 OR c.severity = 'HIGH' THEN 1 END) AS highRisk, " +
+            "count(CASE WHEN c.riskScore >= 0.5 AND c.riskScore < 0.8 THEN 1 END) AS mediumRisk, " +
+            "count(CASE WHEN c.riskScore < 0.5 THEN 1 END) AS lowRisk";
+
+    private final Neo4jClient neo4jClient;
+
+    @Autowired
+    public CycleDetectionStatistics(Neo4jClient neo4jClient) {
+        this.neo4jClient = neo4jClient;
+    }
+
+    /**
+     * Counts, sums, averages, risk bands and pattern/status distributions of all stored cycles, in one call
+     */
+    public CycleDetectionSummary summarize() {
+        CycleDetectionSummary summary = new CycleDetectionSummary();
+        for (Map<String, Object> group : fetchGroups()) {
+            summary.addGroup(
+                    (String) group.get("pattern"),
+                    (String) group.get("status"),
+                    toLong(group.get("cycles")),
+                    toDouble(group.get("amount")),
+                    toLong(group.get("amountCount")),
+                    toDouble(group.get("riskScoreSum")),
+                    toLong(group.get("riskScoreCount")),
+                    toDouble(group.get("cycleLengthSum")),
+                    toLong(group.get("cycleLengthCount")),
+                    toLong(group.get("highRisk")),
+                    toLong(group.get("mediumRisk")),
+                    toLong(group.get("lowRisk")));
+        }
+        return summary;
+    }
+
+    /**
+     * The raw (pattern, status) groups behind {@link #summarize()}
+     */
+    Collection<Map<String, Object>> fetchGroups() {
+        return neo4jClient.query(SUMMARY_QUERY).fetch().all();
+    }
+
+    static long toLong(Object value) {
+        return ((Number) value).longValue();
+    }
+
+    static double toDouble(Object value) {
+        return ((Number) value).doubleValue();
+    }
+}
@@ -0,0 +1,94 @@
+package vishal.mysore.fd.service;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Aggregate figures over every stored {@link vishal.mysore.fd.model.CycleDetection}, as computed by
+ * {@link CycleDetectionStatistics#summarize()}. Risk bands follow the repository's high/medium risk queries.
+ */
+@Getter
+public class CycleDetectionSummary {
+
+    private long totalCycles;
+    private double totalAmount;
+    private double averageAmount;
+    private double averageRiskScore;
+    private double averageCycleLength;
+    private long highRiskCycles;
+    private long mediumRiskCycles;
+    private long lowRiskCycles;
+    private long confirmedCycles;
+    private double confirmedAmount;
+    private final Map<String, Long> countsByPattern = new LinkedHashMap<>();
+    private final Map<String, Long> countsByStatus = new LinkedHashMap<>();
+
+    // Running sums behind the averages, which skip cycles without the property
+    @Getter(AccessLevel.NONE)
+    private long amountCount;
+    @Getter(AccessLevel.NONE)
+    private double riskScoreSum;
+    @Getter(AccessLevel.NONE)
+    private long riskScoreCount;
+    @Getter(AccessLevel.NONE)
+    private double cycleLengthSum;
+    @Getter(AccessLevel.NONE)
+    private long cycleLengthCount;
+
+    public Map<String, Long> getCountsByPattern() {
+        return Collections.unmodifiableMap(countsByPattern);
+    }
+
+    public Map<String, Long> getCountsByStatus() {
+        return Collections.unmodifiableMap(countsByStatus);
+    }
+
+    /**
+     * Share of all cycles that have been confirmed as fraud, 0.0 when there are none
+     */
+    public double getConfirmedRate() {
+        return totalCycles == 0 ? 0.0 : (double) confirmedCycles / totalCycles;
+    }
+
+    /**
+     * Most frequent fraud pattern, or NONE when no cycles are stored
+     */
+    public String getMostCommonPattern() {
+        return countsByPattern.entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .map(Map.Entry::getKey)
+                .orElse("NONE");
+    }
+
+    /**
+     * Fold in one (pattern, status) group of the aggregation query
+     */
+    void addGroup(String pattern, String status, long cycles, double amount, long amountCount,
+                  double riskScoreSum, long riskScoreCount, double cycleLengthSum, long cycleLengthCount,
+                  long highRisk, long mediumRisk, long lowRisk) {
+        totalCycles += cycles;
+        totalAmount += amount;
+        this.amountCount += amountCount;
+        this.riskScoreSum += riskScoreSum;
+        this.riskScoreCount += riskScoreCount;
+        this.cycleLengthSum += cycleLengthSum;
+        this.cycleLengthCount += cycleLengthCount;
+        highRiskCycles += highRisk;
+        mediumRiskCycles += mediumRisk;
+        lowRiskCycles += lowRisk;
+        if ("CONFIRMED".equals(status)) {
+            confirmedCycles += cycles;
+            confirmedAmount += amount;
+        }
+        countsByPattern.merge(pattern, cycles, Long::sum);
+        countsByStatus.merge(status, cycles, Long::sum);
+
+        averageAmount = this.amountCount == 0 ? 0.0 : totalAmount / this.amountCount;
+        averageRiskScore = this.riskScoreCount == 0 ? 0.0 : this.riskScoreSum / this.riskScoreCount;
+        averageCycleLength = this.cycleLengthCount == 0 ? 0.0 : this.cycleLengthSum / this.cycleLengthCount;
+    }
+}
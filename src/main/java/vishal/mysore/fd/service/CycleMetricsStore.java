@@ -0,0 +1,458 @@
+package vishal.mysore.fd.service;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import vishal.mysore.fd.model.CycleDetection;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Report figures kept up to date in memory as cycles are created, re-analyzed and moved through the workflow,
+ * so dashboards read them without touching the database.
+ * <p>
+ * Counters are LongAdder/DoubleAdder cells grouped by (pattern, status), the same shape as
+ * {@link CycleDetectionStatistics}, which seeds them with one aggregation at startup. Recent activity is kept
+ * in hourly buckets for the last {@code fd.metrics.recent-hours} hours. Changes made inside a transaction are
+ * applied after it commits. The figures are periodically checkpointed to a {@code FraudMetrics} node for
+ * readers outside this JVM; the checkpoint is not read back, since it misses whatever changed after it was written.
+ */
+@Service
+public class CycleMetricsStore implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(CycleMetricsStore.class);
+
+    private static final String UNKNOWN = "UNKNOWN";
+    private static final long SECONDS_PER_HOUR = 3600;
+
+    private static final String RECENT_GROUPS_QUERY =
+            "MATCH (c:CycleDetection) WHERE c.detectedAt >= $since " +
+            "WITH localdatetime.truncate('hour', c.detectedAt) AS hour, " +
+            "coalesce(c.fraudPattern, 'UNKNOWN') AS pattern, coalesce(c.severity, 'UNKNOWN') AS severity, c " +
+            "RETURN hour, pattern, severity, count(c) AS cycles, sum(coalesce(c.totalAmount, 0.0)) AS amount";
+
+    private static final String RECENT_ACCOUNTS_QUERY =
+            "MATCH (c:CycleDetection) WHERE c.detectedAt >= $since AND c.affectedAccounts IS NOT NULL " +
+            "UNWIND split(c.affectedAccounts, ',') AS account " +
+            "WITH localdatetime.truncate('hour', c.detectedAt) AS hour, trim(account) AS account " +
+            "RETURN hour, account, count(*) AS cycles";
+
+    private static final String CHECKPOINT_QUERY =
+            "MERGE (m:FraudMetrics {name: 'cycle-detections'}) " +
+            "SET m += $metrics, m.checkpointedAt = localdatetime()";
+
+    private final CycleDetectionStatistics cycleDetectionStatistics;
+    private final Neo4jClient neo4jClient;
+    private final int recentHours;
+    private final long checkpointIntervalMs;
+
+    private final ConcurrentHashMap<String, GroupCounters> groups = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<HourBucket> hours;
+    private ScheduledExecutorService checkpointer;
+    private volatile boolean running;
+
+    @Autowired
+    public CycleMetricsStore(CycleDetectionStatistics cycleDetectionStatistics,
+                             Neo4jClient neo4jClient,
+                             @Value("${fd.metrics.recent-hours:168}") int recentHours,
+                             @Value("${fd.metrics.checkpoint-interval-ms:60000}") long checkpointIntervalMs) {
+        if (recentHours < 1) {
+            throw new IllegalArgumentException("Recent hours must be positive: " + recentHours);
+        }
+        this.cycleDetectionStatistics = cycleDetectionStatistics;
+        this.neo4jClient = neo4jClient;
+        this.recentHours = recentHours;
+        this.checkpointIntervalMs = checkpointIntervalMs;
+        // One extra slot so the current, partial hour never evicts the oldest full one
+        this.hours = new AtomicReferenceArray<>(recentHours + 1);
+    }
+
+    /**
+     * How many hours of recent activity {@link #recent(int)} can answer from memory
+     */
+    public int getRecentHours() {
+        return recentHours;
+    }
+
+    /**
+     * Count a newly stored cycle
+     */
+    public void recordCreated(CycleDetection cycle) {
+        Contribution created = Contribution.of(cycle);
+        afterCommit(() -> apply(created, 1));
+    }
+
+    /**
+     * Move a stored cycle's contribution from its state before an update to its state after it
+     */
+    public void recordChanged(Contribution before, CycleDetection after) {
+        Contribution updated = Contribution.of(after);
+        afterCommit(() -> {
+            apply(updated, 1);
+            apply(before, -1);
+        });
+    }
+
+    /**
+     * Current figures over all stored cycles; exact once concurrent updates have settled
+     */
+    public CycleDetectionSummary snapshot() {
+        CycleDetectionSummary summary = new CycleDetectionSummary();
+        for (GroupCounters group : groups.values()) {
+            if (group.cycles.sum() == 0) {
+                // Every cycle of this pattern and status has moved on to another status
+                continue;
+            }
+            summary.addGroup(group.pattern, group.status, group.cycles.sum(), group.amount.sum(),
+                    group.amountCount.sum(), group.riskScoreSum.sum(), group.riskScoreCount.sum(),
+                    group.cycleLengthSum.sum(), group.cycleLengthCount.sum(),
+                    group.highRisk.sum(), group.mediumRisk.sum(), group.lowRisk.sum());
+        }
+        return summary;
+    }
+
+    /**
+     * Cycles detected in the current hour and the {@code hoursBack} whole hours before it
+     * (so up to one hour more than asked for). {@code hoursBack} is capped at {@link #getRecentHours()}.
+     */
+    public RecentActivity recent(int hoursBack) {
+        long now = epochHour(LocalDateTime.now());
+        long oldest = now - Math.min(hoursBack, recentHours);
+        RecentActivity activity = new RecentActivity();
+        for (int slot = 0; slot < hours.length(); slot++) {
+            HourBucket bucket = hours.get(slot);
+            if (bucket != null && bucket.hour >= oldest && bucket.hour <= now) {
+                activity.add(bucket);
+            }
+        }
+        return activity;
+    }
+
+    /**
+     * Write the current figures to the FraudMetrics node
+     */
+    public void checkpoint() {
+        CycleDetectionSummary summary = snapshot();
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("totalCycles", summary.getTotalCycles());
+        metrics.put("totalAmount", summary.getTotalAmount());
+        metrics.put("averageRiskScore", summary.getAverageRiskScore());
+        metrics.put("highRiskCycles", summary.getHighRiskCycles());
+        metrics.put("mediumRiskCycles", summary.getMediumRiskCycles());
+        metrics.put("lowRiskCycles", summary.getLowRiskCycles());
+        metrics.put("confirmedCycles", summary.getConfirmedCycles());
+        metrics.put("confirmedAmount", summary.getConfirmedAmount());
+        metrics.put("confirmedRate", summary.getConfirmedRate());
+        // Node properties cannot hold maps, so distributions are stored as parallel key and count lists
+        metrics.put("patterns", new ArrayList<>(summary.getCountsByPattern().keySet()));
+        metrics.put("patternCounts", new ArrayList<>(summary.getCountsByPattern().values()));
+        metrics.put("statuses", new ArrayList<>(summary.getCountsByStatus().keySet()));
+        metrics.put("statusCounts", new ArrayList<>(summary.getCountsByStatus().values()));
+
+        neo4jClient.query(CHECKPOINT_QUERY).bind(metrics).to("metrics").run();
+    }
+
+    /**
+     * Rebuild every figure from the database, after bulk rewrites that bypass {@link #recordChanged}.
+     * Updates committed while it runs may be counted twice or not at all, so run it when writes are quiet.
+     */
+    public synchronized void reseed() {
+        groups.clear();
+        for (int slot = 0; slot < hours.length(); slot++) {
+            hours.set(slot, null);
+        }
+        seed();
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        seed();
+        checkpointer = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "fd-metrics-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checkpointer.scheduleWithFixedDelay(this::checkpointQuietly,
+                checkpointIntervalMs, checkpointIntervalMs, TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        checkpointer.shutdownNow();
+        checkpointQuietly();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void seed() {
+        for (Map<String, Object> row : cycleDetectionStatistics.fetchGroups()) {
+            GroupCounters group = group((String) row.get("pattern"), (String) row.get("status"));
+            group.cycles.add(CycleDetectionStatistics.toLong(row.get("cycles")));
+            group.amount.add(CycleDetectionStatistics.toDouble(row.get("amount")));
+            group.amountCount.add(CycleDetectionStatistics.toLong(row.get("amountCount")));
+            group.riskScoreSum.add(CycleDetectionStatistics.toDouble(row.get("riskScoreSum")));
+            group.riskScoreCount.add(CycleDetectionStatistics.toLong(row.get("riskScoreCount")));
+            group.cycleLengthSum.add(CycleDetectionStatistics.toDouble(row.get("cycleLengthSum")));
+            group.cycleLengthCount.add(CycleDetectionStatistics.toLong(row.get("cycleLengthCount")));
+            group.highRisk.add(CycleDetectionStatistics.toLong(row.get("highRisk")));
+            group.mediumRisk.add(CycleDetectionStatistics.toLong(row.get("mediumRisk")));
+            group.lowRisk.add(CycleDetectionStatistics.toLong(row.get("lowRisk")));
+        }
+
+        LocalDateTime since = LocalDateTime.ofEpochSecond(
+                (epochHour(LocalDateTime.now()) - recentHours) * SECONDS_PER_HOUR, 0, ZoneOffset.UTC);
+        neo4jClient.query(RECENT_GROUPS_QUERY).bind(since).to("since").fetch().all().forEach(row -> {
+            HourBucket bucket = bucket(epochHour((LocalDateTime) row.get("hour")), true);
+            if (bucket != null) {
+                long cycles = CycleDetectionStatistics.toLong(row.get("cycles"));
+                bucket.cycles.add(cycles);
+                bucket.amount.add(CycleDetectionStatistics.toDouble(row.get("amount")));
+                increment(bucket.byPattern, (String) row.get("pattern"), cycles);
+                increment(bucket.bySeverity, (String) row.get("severity"), cycles);
+            }
+        });
+        neo4jClient.query(RECENT_ACCOUNTS_QUERY).bind(since).to("since").fetch().all().forEach(row -> {
+            HourBucket bucket = bucket(epochHour((LocalDateTime) row.get("hour")), true);
+            if (bucket != null) {
+                increment(bucket.byAccount, (String) row.get("account"),
+                        CycleDetectionStatistics.toLong(row.get("cycles")));
+            }
+        });
+    }
+
+    private void checkpointQuietly() {
+        try {
+            checkpoint();
+        } catch (RuntimeException e) {
+            log.warn("Fraud metrics checkpoint failed", e);
+        }
+    }
+
+    private void apply(Contribution cycle, long sign) {
+        GroupCounters group = group(cycle.pattern, cycle.status);
+        group.cycles.add(sign);
+        if (cycle.amount != null) {
+            group.amount.add(sign * cycle.amount);
+            group.amountCount.add(sign);
+        }
+        if (cycle.riskScore != null) {
+            group.riskScoreSum.add(sign * cycle.riskScore);
+            group.riskScoreCount.add(sign);
+        }
+        if (cycle.cycleLength != null) {
+            group.cycleLengthSum.add(sign * cycle.cycleLength);
+            group.cycleLengthCount.add(sign);
+        }
+        // Same bands as CycleDetectionStatistics and the repository's risk queries
+        if ((cycle.riskScore != null && cycle.riskScore >= 0.8) || "HIGH".equals(cycle.severity)) {
+            group.highRisk.add(sign);
+        }
+        if (cycle.riskScore != null && cycle.riskScore >= 0.5 && cycle.riskScore < 0.8) {
+            group.mediumRisk.add(sign);
+        }
+        if (cycle.riskScore != null && cycle.riskScore < 0.5) {
+            group.lowRisk.add(sign);
+        }
+
+        if (cycle.detectedAt == null) {
+            return;
+        }
+        // Only count into a bucket that still exists; an expired hour has nothing left to correct
+        HourBucket bucket = bucket(epochHour(cycle.detectedAt), sign > 0);
+        if (bucket != null) {
+            bucket.cycles.add(sign);
+            if (cycle.amount != null) {
+                bucket.amount.add(sign * cycle.amount);
+            }
+            increment(bucket.byPattern, cycle.pattern, sign);
+            increment(bucket.bySeverity, cycle.severity, sign);
+            for (String account : cycle.accounts) {
+                increment(bucket.byAccount, account, sign);
+            }
+        }
+    }
+
+    private GroupCounters group(String pattern, String status) {
+        return groups.computeIfAbsent(pattern + '\n' + status, key -> new GroupCounters(pattern, status));
+    }
+
+    /**
+     * The bucket for an hour, replacing the older hour that last used its slot if {@code create} is set.
+     * Returns null for hours outside the retained window.
+     */
+    private HourBucket bucket(long hour, boolean create) {
+        if (hour < epochHour(LocalDateTime.now()) - recentHours) {
+            return null;
+        }
+        int slot = (int) Math.floorMod(hour, (long) hours.length());
+        while (true) {
+            HourBucket current = hours.get(slot);
+            if (current != null && current.hour == hour) {
+                return current;
+            }
+            if (!create || (current != null && current.hour > hour)) {
+                return null;
+            }
+            HourBucket fresh = new HourBucket(hour);
+            if (hours.compareAndSet(slot, current, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    private static void increment(ConcurrentHashMap<String, LongAdder> counts, String key, long delta) {
+        counts.computeIfAbsent(key, k -> new LongAdder()).add(delta);
+    }
+
+    private static long epochHour(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), SECONDS_PER_HOUR);
+    }
+
+    private static void afterCommit(Runnable update) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update.run();
+                }
+            });
+        } else {
+            update.run();
+        }
+    }
+
+    /**
+     * The fields of a cycle the metrics depend on, captured so an update can retract the old values
+     */
+    public static final class Contribution {
+        private final String pattern;
+        private final String status;
+        private final String severity;
+        private final Double amount;
+        private final Double riskScore;
+        private final Integer cycleLength;
+        private final LocalDateTime detectedAt;
+        private final List<String> accounts;
+
+        private Contribution(CycleDetection cycle) {
+            this.pattern = cycle.getFraudPattern() != null ? cycle.getFraudPattern() : UNKNOWN;
+            this.status = cycle.getStatus() != null ? cycle.getStatus() : UNKNOWN;
+            this.severity = cycle.getSeverity() != null ? cycle.getSeverity() : UNKNOWN;
+            this.amount = cycle.getTotalAmount();
+            this.riskScore = cycle.getRiskScore();
+            this.cycleLength = cycle.getCycleLength();
+            this.detectedAt = cycle.getDetectedAt();
+            this.accounts = cycle.getAffectedAccounts() == null ? List.of() :
+                    Arrays.stream(cycle.getAffectedAccounts().split(","))
+                            .map(String::trim)
+                            .collect(Collectors.toList());
+        }
+
+        public static Contribution of(CycleDetection cycle) {
+            return new Contribution(cycle);
+        }
+    }
+
+    /**
+     * Recent detections, summed over the hourly buckets of a window
+     */
+    @Getter
+    public static class RecentActivity {
+        private long totalCycles;
+        private double totalAmount;
+        private final Map<String, Long> countsByPattern = new LinkedHashMap<>();
+        private final Map<String, Long> countsBySeverity = new LinkedHashMap<>();
+        @Getter(AccessLevel.NONE)
+        private final Map<String, Long> countsByAccount = new HashMap<>();
+
+        /**
+         * Accounts appearing in the most recent cycles, most frequent first
+         */
+        public List<String> getTopAccounts(int limit) {
+            return countsByAccount.entrySet().stream()
+                    .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                    .limit(limit)
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+        }
+
+        private void add(HourBucket bucket) {
+            totalCycles += bucket.cycles.sum();
+            totalAmount += bucket.amount.sum();
+            addCounts(countsByPattern, bucket.byPattern);
+            addCounts(countsBySeverity, bucket.bySeverity);
+            addCounts(countsByAccount, bucket.byAccount);
+        }
+
+        private static void addCounts(Map<String, Long> into, ConcurrentHashMap<String, LongAdder> counts) {
+            counts.forEach((key, count) -> {
+                long value = count.sum();
+                if (value != 0) {
+                    into.merge(key, value, Long::sum);
+                }
+            });
+        }
+    }
+
+    private static final class GroupCounters {
+        final String pattern;
+        final String status;
+        final LongAdder cycles = new LongAdder();
+        final DoubleAdder amount = new DoubleAdder();
+        final LongAdder amountCount = new LongAdder();
+        final DoubleAdder riskScoreSum = new DoubleAdder();
+        final LongAdder riskScoreCount = new LongAdder();
+        final DoubleAdder cycleLengthSum = new DoubleAdder();
+        final LongAdder cycleLengthCount = new LongAdder();
+        final LongAdder highRisk = new LongAdder();
+        final LongAdder mediumRisk = new LongAdder();
+        final LongAdder lowRisk = new LongAdder();
+
+        GroupCounters(String pattern, String status) {
+            this.pattern = pattern;
+            this.status = status;
+        }
+    }
+
+    private static final class HourBucket {
+        final long hour;
+        final LongAdder cycles = new LongAdder();
+        final DoubleAdder amount = new DoubleAdder();
+        final ConcurrentHashMap<String, LongAdder> byPattern = new ConcurrentHashMap<>();
+        final ConcurrentHashMap<String, LongAdder> bySeverity = new ConcurrentHashMap<>();
+        final ConcurrentHashMap<String, LongAdder> byAccount = new ConcurrentHashMap<>();
+
+        HourBucket(long hour) {
+            this.hour = hour;
+        }
+    }
+}
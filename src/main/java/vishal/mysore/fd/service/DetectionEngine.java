@@ -0,0 +1,19 @@
+package vishal.mysore.fd.service;
+
+/**
+ * Where cycle detection runs
+ */
+public enum DetectionEngine {
+    /**
+     * Variable-length path expansion inside Neo4j; cheapest for small graphs
+     */
+    CYPHER,
+    /**
+     * Pull the transfer graph once and run the algorithms from CycleDetectionAlgorithm in the JVM
+     */
+    IN_JVM,
+    /**
+     * Choose by transfer count
+     */
+    AUTO
+}
@@ -0,0 +1,113 @@
+package vishal.mysore.fd.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.stereotype.Service;
+import vishal.mysore.schema.SchemaContributor;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Per-pattern detection watermarks, persisted as {@code (:DetectionWatermark {pattern, watermark})} nodes.
+ * A watermark is the newest edge timestamp a detection run has covered, stored as the same Neo4j value type
+ * as the timestamps themselves so it compares directly against them. Edge timestamps are business times,
+ * so a transfer can arrive after the watermark has passed its timestamp; incremental runs therefore re-scan
+ * {@code fd.detection.watermark-lookback} before the watermark. The schema it contributes makes "edges newer
+ * than a timestamp" a range seek rather than a scan.
+ */
+@Service
+public class DetectionWatermarkStore implements SchemaContributor {
+
+    private static final List<String> SCHEMA = List.of(
+            "CREATE CONSTRAINT uniq_detectionwatermark_pattern IF NOT EXISTS " +
+                    "FOR (w:DetectionWatermark) REQUIRE w.pattern IS UNIQUE",
+            "CREATE INDEX idx_transfer_timestamp IF NOT EXISTS FOR ()-[t:TRANSFER]-() ON (t.timestamp)",
+            "CREATE INDEX idx_transaction_timestamp IF NOT EXISTS FOR ()-[t:TRANSACTION]-() ON (t.timestamp)",
+            "CREATE INDEX idx_used_in_timestamp IF NOT EXISTS FOR ()-[t:USED_IN]-() ON (t.timestamp)");
+
+    private static final String GET_WATERMARK =
+            "MATCH (w:DetectionWatermark {pattern: $pattern}) RETURN w.watermark AS watermark";
+
+    // Never moves a watermark backwards
+    private static final String ADVANCE_WATERMARK =
+            "MERGE (w:DetectionWatermark {pattern: $pattern}) " +
+            "SET w.watermark = CASE WHEN w.watermark IS NULL OR w.watermark < $watermark " +
+            "THEN $watermark ELSE w.watermark END, " +
+            "w.updatedAt = localdatetime()";
+
+    private final Neo4jClient neo4jClient;
+    private final Duration lookback;
+
+    @Autowired
+    public DetectionWatermarkStore(Neo4jClient neo4jClient,
+                                   @Value("${fd.detection.watermark-lookback:PT1H}") Duration lookback) {
+        if (lookback.isNegative()) {
+            throw new IllegalArgumentException("Watermark lookback must not be negative: " + lookback);
+        }
+        this.neo4jClient = neo4jClient;
+        this.lookback = lookback;
+    }
+
+    @Override
+    public List<String> schemaStatements() {
+        return SCHEMA;
+    }
+
+    /**
+     * The watermark of a pattern, empty if it has never been detected incrementally
+     */
+    public Optional<Object> get(String pattern) {
+        return neo4jClient.query(GET_WATERMARK)
+                .bind(pattern).to("pattern")
+                .fetch()
+                .one()
+                .map(record -> record.get("watermark"));
+    }
+
+    /**
+     * Where an incremental run starts scanning: the lookback before the watermark, in the watermark's type
+     */
+    public Object rescanFrom(Object watermark) {
+        return minus(watermark, lookback);
+    }
+
+    /**
+     * A stored timestamp moved back by a duration, in the timestamp's own type, so it compares with the
+     * stored values in Cypher without conversion
+     */
+    static Object minus(Object timestamp, Duration amount) {
+        if (timestamp instanceof ZonedDateTime) {
+            return ((ZonedDateTime) timestamp).minus(amount);
+        } else if (timestamp instanceof OffsetDateTime) {
+            return ((OffsetDateTime) timestamp).minus(amount);
+        } else if (timestamp instanceof LocalDateTime) {
+            return ((LocalDateTime) timestamp).minus(amount);
+        } else if (timestamp instanceof Number) {
+            // Epoch millisecond timestamps
+            return ((Number) timestamp).longValue() - amount.toMillis();
+        }
+        throw new IllegalArgumentException("Unsupported timestamp value: " + timestamp);
+    }
+
+    public void advance(String pattern, Object watermark) {
+        neo4jClient.query(ADVANCE_WATERMARK)
+                .bind(pattern).to("pattern")
+                .bind(watermark).to("watermark")
+                .run();
+    }
+
+    /**
+     * Forget a pattern's watermark, so its next incremental run scans the whole graph
+     */
+    public void reset(String pattern) {
+        neo4jClient.query("MATCH (w:DetectionWatermark {pattern: $pattern}) DELETE w")
+                .bind(pattern).to("pattern")
+                .run();
+    }
+}
@@ -0,0 +1,131 @@
+package vishal.mysore.fd.service;
+
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Result;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.stereotype.Service;
+import vishal.mysore.fd.model.CycleDetection;
+import vishal.mysore.fd.util.IdentityClusterIndex;
+import vishal.mysore.fd.util.IdentityClusterIndex.IdentityCluster;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Identity theft detection by clustering accounts instead of matching paths between every pair of accounts
+ * sharing an identity. {@code HAS_RELATIONSHIP} links and {@code (IdentityInfo)-[:USED_IN]->(Account)} uses
+ * are streamed into an {@link IdentityClusterIndex}; an identity whose accounts share a cluster is reported.
+ * Clusters follow links of any length in either direction, a superset of the pairwise query's directed paths
+ * of up to five hops, so this engine is opt-in through {@code fd.identity-clusters.engine=IN_JVM}.
+ */
+@Service
+public class IdentityClusterService {
+
+    private static final String ACCOUNT_LINKS_QUERY =
+            "MATCH (a1:Account)-[:HAS_RELATIONSHIP]->(a2:Account) " +
+            "WHERE a1.id IS NOT NULL AND a2.id IS NOT NULL " +
+            "RETURN toString(a1.id) AS fromAccount, toString(a2.id) AS toAccount";
+
+    private static final String IDENTITY_USES_QUERY =
+            "MATCH (id:IdentityInfo)-[:USED_IN]->(a:Account) " +
+            "WHERE id.identifier IS NOT NULL AND a.id IS NOT NULL " +
+            "RETURN toString(id.identifier) AS identityId, toString(a.id) AS accountId";
+
+    private static final String IDENTITIES_USED_SINCE_QUERY =
+            "MATCH (id:IdentityInfo)-[t:USED_IN]->(:Account) " +
+            "WHERE t.timestamp > $since AND t.timestamp <= $highMark AND id.identifier IS NOT NULL " +
+            "RETURN DISTINCT toString(id.identifier) AS identityId";
+
+    private final Neo4jClient neo4jClient;
+    private final CycleDetectionBatchWriter cycleDetectionBatchWriter;
+    private final DetectionEngine defaultEngine;
+
+    @Autowired
+    public IdentityClusterService(Neo4jClient neo4jClient,
+                                  CycleDetectionBatchWriter cycleDetectionBatchWriter,
+                                  @Value("${fd.identity-clusters.engine:CYPHER}") DetectionEngine defaultEngine) {
+        if (defaultEngine == DetectionEngine.AUTO) {
+            throw new IllegalArgumentException("fd.identity-clusters.engine must be CYPHER or IN_JVM");
+        }
+        this.neo4jClient = neo4jClient;
+        this.cycleDetectionBatchWriter = cycleDetectionBatchWriter;
+        this.defaultEngine = defaultEngine;
+    }
+
+    /**
+     * Engine identity theft detection uses when none is requested: CYPHER unless configured otherwise
+     */
+    public DetectionEngine getDefaultEngine() {
+        return defaultEngine;
+    }
+
+    /**
+     * Resolve AUTO to the configured engine
+     */
+    public DetectionEngine resolve(DetectionEngine requested) {
+        return requested == DetectionEngine.AUTO ? defaultEngine : requested;
+    }
+
+    /**
+     * Cluster the whole graph afresh and save one loop per suspicious identity
+     */
+    public List<CycleDetection> detectClusters() {
+        return save(load().suspiciousIdentities(), identityId -> true);
+    }
+
+    /**
+     * Cluster the whole graph afresh and save one loop per suspicious identity used after {@code since} and
+     * up to {@code highMark}; the delta counterpart of {@link #detectClusters()}, re-evaluating each such
+     * identity as a whole as the pairwise delta query does
+     */
+    public List<CycleDetection> detectClustersSince(Object since, Object highMark) {
+        Set<String> identities = new HashSet<>();
+        neo4jClient.query(IDENTITIES_USED_SINCE_QUERY)
+                .bind(since).to("since")
+                .bind(highMark).to("highMark")
+                .fetchAs(String.class)
+                .all()
+                .forEach(identities::add);
+        if (identities.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return save(load().suspiciousIdentities(), identities::contains);
+    }
+
+    private List<CycleDetection> save(List<IdentityCluster> clusters, Predicate<String> identities) {
+        List<CycleDetection> loops = new ArrayList<>();
+        for (IdentityCluster cluster : clusters) {
+            if (identities.test(cluster.identityId)) {
+                loops.add(CycleDetectionService.createIdentityTheftLoop(
+                        cluster.identityId, cluster.accountIds.size(), cluster.accountIds));
+            }
+        }
+        return cycleDetectionBatchWriter.saveAll(loops);
+    }
+
+    private IdentityClusterIndex load() {
+        IdentityClusterIndex loaded = new IdentityClusterIndex();
+        stream(ACCOUNT_LINKS_QUERY, record ->
+                loaded.link(record.get("fromAccount").asString(), record.get("toAccount").asString()));
+        stream(IDENTITY_USES_QUERY, record ->
+                loaded.addUse(record.get("identityId").asString(), record.get("accountId").asString()));
+        return loaded;
+    }
+
+    private void stream(String query, Consumer<Record> consumer) {
+        neo4jClient.delegateTo(runner -> {
+            Result result = runner.run(query);
+            while (result.hasNext()) {
+                consumer.accept(result.next());
+            }
+            return Optional.empty();
+        }).run();
+    }
+}
@@ -0,0 +1,186 @@
+package vishal.mysore.fd.service;
+
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Result;
+import org.neo4j.driver.Values;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.stereotype.Service;
+import vishal.mysore.fd.model.CycleDetection;
+import vishal.mysore.fd.util.ImpossibleTravelDetector;
+import vishal.mysore.fd.util.ImpossibleTravelDetector.CardUse;
+import vishal.mysore.fd.util.ImpossibleTravelDetector.ImpossibleTravel;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Credit card loop detection over a time-ordered stream of card uses.
+ * Each use is checked against the card's recent uses in an {@link ImpossibleTravelDetector}, so detection is
+ * linear in the number of uses rather than quadratic in the uses of each card. Locations with
+ * {@code latitude}/{@code longitude} properties conflict only when travelling between them is faster than the
+ * configured speed; locations without coordinates conflict whenever they differ, as in the Cypher query.
+ * Only the newest {@code fd.card-travel.uses-per-card} uses of a card are kept in its window, so this engine
+ * differs from the pairwise query and is opt-in through {@code fd.card-travel.engine=IN_JVM}.
+ */
+@Service
+public class ImpossibleTravelService {
+
+    private static final String CARD_USES_QUERY =
+            "MATCH (cc:CreditCard)-[t:USED_IN]->(l:Location) " +
+            "WHERE t.timestamp IS NOT NULL " +
+            "RETURN id(t) AS useId, cc.id AS cardId, toString(coalesce(l.id, id(l))) AS locationId, " +
+            "t.timestamp AS timestamp, coalesce(t.amount, 0.0) AS amount, " +
+            "l.latitude AS latitude, l.longitude AS longitude " +
+            "ORDER BY t.timestamp";
+
+    // Every use of the cards used in (since, highMark], from one window before since so earlier conflicts are seen;
+    // that window start is computed by the caller in the timestamps' own type
+    private static final String CARD_USES_SINCE_QUERY =
+            "MATCH (cc:CreditCard)-[n:USED_IN]->(:Location) " +
+            "WHERE n.timestamp > $since AND n.timestamp <= $highMark " +
+            "WITH DISTINCT cc " +
+            "MATCH (cc)-[t:USED_IN]->(l:Location) " +
+            "WHERE t.timestamp > $windowStart AND t.timestamp <= $highMark " +
+            "RETURN id(t) AS useId, cc.id AS cardId, toString(coalesce(l.id, id(l))) AS locationId, " +
+            "t.timestamp AS timestamp, coalesce(t.amount, 0.0) AS amount, " +
+            "l.latitude AS latitude, l.longitude AS longitude " +
+            "ORDER BY t.timestamp";
+
+    private final Neo4jClient neo4jClient;
+    private final CycleDetectionBatchWriter cycleDetectionBatchWriter;
+    private final long windowMillis;
+    private final int usesPerCard;
+    private final double maxSpeedKmh;
+    private final DetectionEngine defaultEngine;
+
+    @Autowired
+    public ImpossibleTravelService(Neo4jClient neo4jClient,
+                                   CycleDetectionBatchWriter cycleDetectionBatchWriter,
+                                   @Value("${fd.card-travel.window-ms:3600000}") long windowMillis,
+                                   @Value("${fd.card-travel.uses-per-card:32}") int usesPerCard,
+                                   @Value("${fd.card-travel.max-speed-kmh:900}") double maxSpeedKmh,
+                                   @Value("${fd.card-travel.engine:CYPHER}") DetectionEngine defaultEngine) {
+        if (defaultEngine == DetectionEngine.AUTO) {
+            throw new IllegalArgumentException("fd.card-travel.engine must be CYPHER or IN_JVM");
+        }
+        this.neo4jClient = neo4jClient;
+        this.cycleDetectionBatchWriter = cycleDetectionBatchWriter;
+        this.windowMillis = windowMillis;
+        this.usesPerCard = usesPerCard;
+        this.maxSpeedKmh = maxSpeedKmh;
+        this.defaultEngine = defaultEngine;
+    }
+
+    /**
+     * Engine credit card loop detection uses when none is requested: CYPHER unless configured otherwise
+     */
+    public DetectionEngine getDefaultEngine() {
+        return defaultEngine;
+    }
+
+    /**
+     * Resolve AUTO to the configured engine
+     */
+    public DetectionEngine resolve(DetectionEngine requested) {
+        return requested == DetectionEngine.AUTO ? defaultEngine : requested;
+    }
+
+    /**
+     * Replay every card use in the graph in time order and save one loop per card that travelled impossibly,
+     * covering all locations and amounts involved in any of its conflicts
+     */
+    public List<CycleDetection> replayCardUses() {
+        return replay(CARD_USES_QUERY, Map.of(), Long.MIN_VALUE);
+    }
+
+    /**
+     * Replay the uses of every card used after {@code since} and up to {@code highMark}, and save one loop per
+     * card whose use after {@code since} travelled impossibly from an earlier one; the delta counterpart of
+     * {@link #replayCardUses()}, as the pairwise delta query seeds on the newer use
+     */
+    public List<CycleDetection> replayCardUsesSince(Object since, Object highMark) {
+        long sinceMillis = CycleDetectionService.toEpochMillis(Values.value(since));
+        return replay(CARD_USES_SINCE_QUERY,
+                Map.of("since", since, "highMark", highMark,
+                        "windowStart", DetectionWatermarkStore.minus(since, Duration.ofMillis(windowMillis))),
+                sinceMillis);
+    }
+
+    private List<CycleDetection> replay(String query, Map<String, Object> parameters, long reportAfter) {
+        ImpossibleTravelDetector replay = new ImpossibleTravelDetector(windowMillis, usesPerCard, maxSpeedKmh);
+        Map<String, CardConflicts> conflictsByCard = new LinkedHashMap<>();
+
+        neo4jClient.delegateTo(runner -> {
+            Result result = runner.run(query, parameters);
+            while (result.hasNext()) {
+                ImpossibleTravel travel = replay.accept(toCardUse(result.next()));
+                if (travel != null && travel.use.timestamp > reportAfter) {
+                    conflictsByCard.computeIfAbsent(travel.use.cardId, card -> new CardConflicts()).add(travel);
+                }
+            }
+            return Optional.empty();
+        }).run();
+
+        List<CycleDetection> loops = new ArrayList<>();
+        conflictsByCard.forEach((cardId, conflicts) -> loops.add(
+                CycleDetectionService.createCreditCardFraudLoop(cardId, conflicts.locations.size(), conflicts.total(),
+                        conflicts.useIds())));
+        return cycleDetectionBatchWriter.saveAll(loops);
+    }
+
+    private static CardUse toCardUse(Record record) {
+        return new CardUse(
+                record.get("useId").asLong(),
+                record.get("cardId").asString(),
+                record.get("locationId").asString(),
+                CycleDetectionService.toEpochMillis(record.get("timestamp")),
+                record.get("amount").asDouble(),
+                coordinate(record.get("latitude")),
+                coordinate(record.get("longitude")));
+    }
+
+    private static double coordinate(org.neo4j.driver.Value value) {
+        return value.isNull() ? Double.NaN : value.asDouble();
+    }
+
+    /**
+     * Locations and uses of one card that took part in a conflict
+     */
+    private static final class CardConflicts {
+        private final Set<String> locations = new HashSet<>();
+        private final Map<Long, Double> amountsByUse = new HashMap<>();
+
+        void add(ImpossibleTravel travel) {
+            addUse(travel.use);
+            travel.conflicting.forEach(this::addUse);
+        }
+
+        private void addUse(CardUse use) {
+            locations.add(use.locationId);
+            amountsByUse.put(use.useId, use.amount);
+        }
+
+        List<String> useIds() {
+            List<String> useIds = new ArrayList<>();
+            amountsByUse.keySet().forEach(useId -> useIds.add(String.valueOf(useId)));
+            return useIds;
+        }
+
+        double total() {
+            double total = 0.0;
+            for (double amount : amountsByUse.values()) {
+                total += amount;
+            }
+            return total;
+        }
+    }
+}
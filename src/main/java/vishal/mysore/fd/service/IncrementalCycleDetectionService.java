@@ -0,0 +1,147 @@
+package vishal.mysore.fd.service;
+
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Result;
+import org.neo4j.driver.Value;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.stereotype.Service;
+import vishal.mysore.fd.model.CycleDetection;
+import vishal.mysore.fd.util.IncrementalCycleDetector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Online cycle detection for a live payment stream.
+ * Keeps one in-memory {@link IncrementalCycleDetector} over the transfer graph, so each new transfer
+ * is checked against the region of the graph it affects instead of re-querying the whole graph.
+ * A loop is saved as a {@link CycleDetection} as soon as the transfer closing it arrives.
+ * The detector is loaded with the stored transfers at startup, in a lifecycle phase before the transfer
+ * ingest pipeline starts, so no transfer is both loaded from the graph and fed in by the pipeline.
+ */
+@Service
+public class IncrementalCycleDetectionService implements SmartLifecycle {
+
+    /**
+     * Lifecycle phase of the warm-up; the ingest pipeline starts in a later one
+     */
+    public static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 1;
+
+    private static final Logger log = LoggerFactory.getLogger(IncrementalCycleDetectionService.class);
+
+    private final CycleDetectionBatchWriter cycleDetectionBatchWriter;
+    private final Neo4jClient neo4jClient;
+    private IncrementalCycleDetector detector = new IncrementalCycleDetector();
+    private final List<CycleDetection> unsaved = new ArrayList<>();
+    private volatile boolean running;
+
+    @Autowired
+    public IncrementalCycleDetectionService(CycleDetectionBatchWriter cycleDetectionBatchWriter,
+                                            Neo4jClient neo4jClient) {
+        this.cycleDetectionBatchWriter = cycleDetectionBatchWriter;
+        this.neo4jClient = neo4jClient;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        log.info("Loaded {} stored transfers into the incremental cycle detector", warmUp());
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    /**
+     * Load the transfers already in the graph into a fresh detector.
+     * Loops closed by historical transfers are left to the batch detectors in {@link CycleDetectionService}.
+     * @return number of transfers loaded
+     */
+    private synchronized int warmUp() {
+        IncrementalCycleDetector loadedDetector = new IncrementalCycleDetector();
+        String query = "MATCH (a1)-[t:TRANSFER|TRANSACTION]->(a2) " +
+                      "RETURN a1.id as fromAccount, a2.id as toAccount, t.amount as amount";
+
+        int[] loaded = new int[1];
+        neo4jClient.delegateTo(runner -> {
+            Result result = runner.run(query);
+            while (result.hasNext()) {
+                Record record = result.next();
+                Value amount = record.get("amount");
+                loadedDetector.addEdge(
+                        record.get("fromAccount").asString(),
+                        record.get("toAccount").asString(),
+                        amount.isNull() ? 0.0 : amount.asDouble());
+                loaded[0]++;
+            }
+            return Optional.empty();
+        }).run();
+        detector = loadedDetector;
+        return loaded[0];
+    }
+
+    /**
+     * Feed one new transfer into the detector. A loop it closes is queued and saved by the next {@link #flush()}.
+     * Not transactional: most transfers close no loop and never touch the database.
+     * @return the queued detection if this transfer closed a loop
+     */
+    public synchronized Optional<CycleDetection> onTransfer(String fromAccount, String toAccount, Double amount) {
+        IncrementalCycleDetector.ClosedCycle closed =
+                detector.addEdge(fromAccount, toAccount, amount == null ? 0.0 : amount);
+        if (closed == null) {
+            return Optional.empty();
+        }
+
+        Integer cycleLength = closed.accounts.size();
+        Double totalAmount = closed.totalAmount;
+        CycleDetection cycle = new CycleDetection(
+                "CIRCULAR_MONEY_FLOW",
+                "Circular money flow detected: transfer from " + fromAccount + " to " + toAccount +
+                        " closed a loop back to the sending account",
+                cycleLength,
+                totalAmount,
+                // Scored by the pattern's risk rules when the batch writer saves it
+                null,
+                null
+        );
+
+        cycle.setAffectedAccounts(String.join(",", closed.accounts));
+        // Same key as the batch detectors, so a loop they find again is merged rather than duplicated
+        cycle.setFingerprint(CycleDetectionService.circularMoneyFlowFingerprint(closed.accounts));
+        unsaved.add(cycle);
+        return Optional.of(cycle);
+    }
+
+    /**
+     * Save the loops queued by {@link #onTransfer}; if saving fails they stay queued for the next flush
+     * @return the saved detections
+     */
+    public synchronized List<CycleDetection> flush() {
+        if (unsaved.isEmpty()) {
+            return List.of();
+        }
+        // The batch writer also links the accounts and counts the cycles in the metrics
+        List<CycleDetection> saved = cycleDetectionBatchWriter.saveAll(new ArrayList<>(unsaved));
+        unsaved.clear();
+        return saved;
+    }
+}
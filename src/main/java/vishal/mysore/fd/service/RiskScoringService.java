@@ -0,0 +1,311 @@
+package vishal.mysore.fd.service;
+
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Result;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.stereotype.Service;
+import vishal.mysore.fd.model.CycleDetection;
+import vishal.mysore.fd.scoring.CycleColumns;
+import vishal.mysore.fd.scoring.CycleFeature;
+import vishal.mysore.fd.scoring.RiskRules;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Risk scores and severities from configurable per-pattern {@link RiskRules}.
+ * Each pattern's rules come from {@code fd.scoring.rules.<PATTERN>}, falling back to specs reproducing the
+ * original formulas, and are compiled once. New detections are scored column-wise before they are written;
+ * {@link #rescore} streams a pattern's stored cycles through the same columns and writes back only the
+ * changed scores, as parallel id/score/severity lists in one UNWIND statement per batch. Patterns without
+ * rules keep the scores their detector assigned.
+ */
+@Service
+public class RiskScoringService {
+
+    private static final String AMOUNT_AND_LENGTH_RULES =
+            "weights=cycleLength/10*0.4 + totalAmount/500000*0.6; " +
+            "high=cycleLength>=5 | totalAmount>100000; medium=cycleLength>=3 | totalAmount>50000";
+
+    static final Map<String, String> DEFAULT_RULES = Map.of(
+            "CIRCULAR_MONEY_FLOW", AMOUNT_AND_LENGTH_RULES,
+            "TEMPORAL_CYCLE", AMOUNT_AND_LENGTH_RULES,
+            "GENERIC_CYCLE", "weights=cycleLength/10*1.0; high=cycleLength>=5; medium=cycleLength>=3",
+            "CREDIT_CARD_LOOP", "base=0.9; severity=HIGH",
+            "IDENTITY_THEFT_LOOP", "base=0.85; severity=HIGH");
+
+    private static final String STORED_SCORES_QUERY =
+            "MATCH (c:CycleDetection) " +
+            "WHERE c.fraudPattern = $fraudPattern AND all(feature IN $features WHERE c[feature] IS NOT NULL) " +
+            "RETURN id(c) AS id, toFloat(c.cycleLength) AS cycleLength, toFloat(c.totalAmount) AS totalAmount, " +
+            "c.riskScore AS riskScore, c.severity AS severity";
+
+    private static final String SET_SCORES =
+            "UNWIND range(0, size($ids) - 1) AS i " +
+            "MATCH (c:CycleDetection) WHERE id(c) = $ids[i] " +
+            "SET c.riskScore = $riskScores[i], c.severity = $severities[i]";
+
+    private final Neo4jClient neo4jClient;
+    private final CycleMetricsStore cycleMetricsStore;
+    private final int chunkSize;
+    private final int writeBatchSize;
+    private final Map<String, RiskRules> rules = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RiskScoringService(Neo4jClient neo4jClient,
+                              CycleMetricsStore cycleMetricsStore,
+                              Environment environment,
+                              @Value("${fd.scoring.chunk-size:65536}") int chunkSize,
+                              @Value("${fd.scoring.write-batch-size:10000}") int writeBatchSize) {
+        if (chunkSize < 1 || writeBatchSize < 1) {
+            throw new IllegalArgumentException("Scoring chunk and write batch sizes must be positive");
+        }
+        this.neo4jClient = neo4jClient;
+        this.cycleMetricsStore = cycleMetricsStore;
+        this.chunkSize = chunkSize;
+        this.writeBatchSize = writeBatchSize;
+        DEFAULT_RULES.forEach((pattern, spec) ->
+                rules.put(pattern, RiskRules.parse(environment.getProperty("fd.scoring.rules." + pattern, spec))));
+    }
+
+    public Optional<RiskRules> getRules(String fraudPattern) {
+        return fraudPattern == null ? Optional.empty() : Optional.ofNullable(rules.get(fraudPattern));
+    }
+
+    /**
+     * The spec in force for each pattern
+     */
+    public Map<String, String> getRuleSpecs() {
+        Map<String, String> specs = new TreeMap<>();
+        rules.forEach((pattern, patternRules) -> specs.put(pattern, patternRules.getSpec()));
+        return specs;
+    }
+
+    /**
+     * Score one cycle with its pattern's rules
+     * @return false, leaving the cycle unchanged, if its pattern has no rules or it lacks a feature they use
+     */
+    public boolean apply(CycleDetection cycle) {
+        return getRules(cycle.getFraudPattern()).map(patternRules -> patternRules.apply(cycle)).orElse(false);
+    }
+
+    /**
+     * Score new detections in place, a column batch per pattern
+     */
+    public void scoreAll(List<CycleDetection> cycles) {
+        Map<String, List<CycleDetection>> byPattern = new HashMap<>();
+        for (CycleDetection cycle : cycles) {
+            if (cycle.getFraudPattern() != null && rules.containsKey(cycle.getFraudPattern())) {
+                byPattern.computeIfAbsent(cycle.getFraudPattern(), pattern -> new ArrayList<>()).add(cycle);
+            }
+        }
+
+        byPattern.forEach((pattern, patternCycles) -> {
+            RiskRules patternRules = rules.get(pattern);
+            CycleColumns batch = new CycleColumns(Math.min(patternCycles.size(), chunkSize));
+            double[] values = new double[CycleFeature.values().length];
+            List<CycleDetection> rows = new ArrayList<>(batch.capacity());
+            for (CycleDetection cycle : patternCycles) {
+                if (!readFeatures(cycle, patternRules, values)) {
+                    continue;
+                }
+                // New cycles have no node id yet, so the row's position in the list stands in for it
+                batch.add(rows.size(), values, Double.NaN, RiskRules.NO_SEVERITY);
+                rows.add(cycle);
+                if (batch.isFull()) {
+                    scoreInto(patternRules, batch, rows);
+                }
+            }
+            scoreInto(patternRules, batch, rows);
+        });
+    }
+
+    /**
+     * Replace a pattern's rules and rescore its stored cycles with them
+     * @return number of stored cycles scored
+     * @throws IllegalArgumentException if the spec is malformed; the old rules then stay in force
+     */
+    public long updateRules(String fraudPattern, String spec) {
+        rules.put(fraudPattern, RiskRules.parse(spec));
+        return rescore(fraudPattern);
+    }
+
+    /**
+     * Rescore every stored cycle of every pattern that has rules
+     * @return number of stored cycles scored
+     */
+    public long rescoreAll() {
+        long scored = 0;
+        for (String pattern : new TreeSet<>(rules.keySet())) {
+            scored += rescore(pattern, false);
+        }
+        cycleMetricsStore.reseed();
+        return scored;
+    }
+
+    /**
+     * Rescore a pattern's stored cycles: one streaming read into column batches, then batched writes of the
+     * scores that changed, then a reseed of the fraud metrics
+     * @return number of stored cycles scored
+     */
+    public long rescore(String fraudPattern) {
+        return rescore(fraudPattern, true);
+    }
+
+    private long rescore(String fraudPattern, boolean reseed) {
+        RiskRules patternRules = rules.get(fraudPattern);
+        if (patternRules == null) {
+            return 0;
+        }
+        List<String> features = new ArrayList<>();
+        patternRules.getFeatures().forEach(feature -> features.add(feature.getProperty()));
+
+        CycleColumns batch = new CycleColumns(chunkSize);
+        double[] scores = new double[chunkSize];
+        byte[] severities = new byte[chunkSize];
+        double[] values = new double[CycleFeature.values().length];
+        ScoreChanges changes = new ScoreChanges();
+        long[] scored = {0};
+
+        // Changes are only collected here: writing inside the read would make the driver buffer the whole result
+        neo4jClient.delegateTo(runner -> {
+            Result result = runner.run(STORED_SCORES_QUERY,
+                    Map.of("fraudPattern", fraudPattern, "features", features));
+            while (result.hasNext()) {
+                Record record = result.next();
+                for (CycleFeature feature : CycleFeature.values()) {
+                    org.neo4j.driver.Value value = record.get(feature.getProperty());
+                    values[feature.ordinal()] = value.isNull() ? Double.NaN : value.asDouble();
+                }
+                org.neo4j.driver.Value riskScore = record.get("riskScore");
+                org.neo4j.driver.Value severity = record.get("severity");
+                batch.add(record.get("id").asLong(), values,
+                        riskScore.isNull() ? Double.NaN : riskScore.asDouble(),
+                        RiskRules.severityCode(severity.isNull() ? null : severity.asString()));
+                if (batch.isFull()) {
+                    scored[0] += collectChanges(patternRules, batch, scores, severities, changes);
+                }
+            }
+            scored[0] += collectChanges(patternRules, batch, scores, severities, changes);
+            return Optional.empty();
+        }).run();
+
+        for (int from = 0; from < changes.size; from += writeBatchSize) {
+            int to = Math.min(from + writeBatchSize, changes.size);
+            neo4jClient.query(SET_SCORES)
+                    .bind(changes.ids(from, to)).to("ids")
+                    .bind(changes.riskScores(from, to)).to("riskScores")
+                    .bind(changes.severities(from, to)).to("severities")
+                    .run();
+        }
+        if (reseed && changes.size > 0) {
+            cycleMetricsStore.reseed();
+        }
+        return scored[0];
+    }
+
+    private static int collectChanges(RiskRules patternRules, CycleColumns batch, double[] scores, byte[] severities,
+                                      ScoreChanges changes) {
+        int rows = batch.size();
+        patternRules.score(batch, scores, severities);
+        for (int row = 0; row < rows; row++) {
+            if (scores[row] != batch.riskScore(row) || severities[row] != batch.severity(row)) {
+                changes.add(batch.id(row), scores[row], severities[row]);
+            }
+        }
+        batch.clear();
+        return rows;
+    }
+
+    private static void scoreInto(RiskRules patternRules, CycleColumns batch, List<CycleDetection> rows) {
+        double[] scores = new double[batch.size()];
+        byte[] severities = new byte[batch.size()];
+        patternRules.score(batch, scores, severities);
+        for (int row = 0; row < batch.size(); row++) {
+            CycleDetection cycle = rows.get((int) batch.id(row));
+            cycle.setRiskScore(scores[row]);
+            cycle.setSeverity(RiskRules.severityName(severities[row]));
+        }
+        batch.clear();
+        rows.clear();
+    }
+
+    private static boolean readFeatures(CycleDetection cycle, RiskRules patternRules, double[] values) {
+        for (CycleFeature feature : CycleFeature.values()) {
+            values[feature.ordinal()] = feature.valueOf(cycle);
+        }
+        for (CycleFeature feature : patternRules.getFeatures()) {
+            if (Double.isNaN(values[feature.ordinal()])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Growable parallel arrays of changed scores, exposed to the driver as list views without copying
+     */
+    private static final class ScoreChanges {
+        private long[] ids = new long[1024];
+        private double[] riskScores = new double[1024];
+        private byte[] severities = new byte[1024];
+        private int size;
+
+        void add(long id, double riskScore, byte severity) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                riskScores = Arrays.copyOf(riskScores, size * 2);
+                severities = Arrays.copyOf(severities, size * 2);
+            }
+            ids[size] = id;
+            riskScores[size] = riskScore;
+            severities[size] = severity;
+            size++;
+        }
+
+        List<Long> ids(int from, int to) {
+            return new AbstractList<>() {
+                @Override
+                public Long get(int index) {
+                    return ids[from + index];
+                }
+
+                @Override
+                public int size() {
+                    return to - from;
+                }
+            };
+        }
+
+        List<Double> riskScores(int from, int to) {
+            return new AbstractList<>() {
+                @Override
+                public Double get(int index) {
+                    return riskScores[from + index];
+                }
+
+                @Override
+                public int size() {
+                    return to - from;
+                }
+            };
+        }
+
+        List<String> severities(int from, int to) {
+            return new AbstractList<>() {
+                @Override
+                public String get(int index) {
+                    return RiskRules.severityName(severities[from + index]);
+                }
+
+                @Override
+                public int size() {
+                    return to - from;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package vishal.mysore.fd.service;
+
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Result;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.stereotype.Service;
+import vishal.mysore.fd.util.TransferGraphSnapshot;
+
+import java.util.Optional;
+
+/**
+ * Loads the transfer graph into the JVM and decides which {@link DetectionEngine} a detection run uses.
+ * Variable-length expansion in Cypher grows exponentially with account degree, while the in-JVM engine
+ * pays one linear projection query up front, so large graphs go to the JVM.
+ */
+@Service
+public class TransferGraphLoader {
+
+    private final Neo4jClient neo4jClient;
+    private final DetectionEngine defaultEngine;
+    private final long inJvmTransferThreshold;
+
+    @Autowired
+    public TransferGraphLoader(Neo4jClient neo4jClient,
+                               @Value("${fd.detection.engine:AUTO}") DetectionEngine defaultEngine,
+                               @Value("${fd.detection.in-jvm-threshold:10000}") long inJvmTransferThreshold) {
+        this.neo4jClient = neo4jClient;
+        this.defaultEngine = defaultEngine;
+        this.inJvmTransferThreshold = inJvmTransferThreshold;
+    }
+
+    public DetectionEngine getDefaultEngine() {
+        return defaultEngine;
+    }
+
+    /**
+     * Resolve AUTO to a concrete engine: in-JVM once the graph holds at least the configured number of transfers
+     */
+    public DetectionEngine resolve(DetectionEngine requested) {
+        if (requested != DetectionEngine.AUTO) {
+            return requested;
+        }
+        return countTransfers() >= inJvmTransferThreshold ? DetectionEngine.IN_JVM : DetectionEngine.CYPHER;
+    }
+
+    public long countTransfers() {
+        return neo4jClient.query("MATCH ()-[t:TRANSFER|TRANSACTION]->() RETURN count(t) as transfers")
+                .fetchAs(Long.class)
+                .one()
+                .orElse(0L);
+    }
+
+    /**
+     * Stream every transfer once, record by record, into an in-memory snapshot
+     */
+    public TransferGraphSnapshot loadSnapshot() {
+        String query = "MATCH (a1)-[t:TRANSFER|TRANSACTION]->(a2) " +
+                      "RETURN id(t) as transferId, a1.id as fromAccount, a2.id as toAccount, " +
+                      "t.amount as amount, t.timestamp as timestamp";
+
+        TransferGraphSnapshot.Builder builder = new TransferGraphSnapshot.Builder();
+        neo4jClient.delegateTo(runner -> {
+            Result result = runner.run(query);
+            while (result.hasNext()) {
+                Record record = result.next();
+                org.neo4j.driver.Value amount = record.get("amount");
+                org.neo4j.driver.Value timestamp = record.get("timestamp");
+                builder.addTransfer(
+                        record.get("transferId").asLong(),
+                        record.get("fromAccount").asString(),
+                        record.get("toAccount").asString(),
+                        amount.isNull() ? 0.0 : amount.asDouble(),
+                        timestamp.isNull() ? TransferGraphSnapshot.NO_TIMESTAMP : CycleDetectionService.toEpochMillis(timestamp));
+            }
+            return Optional.empty();
+        }).run();
+        return builder.build();
+    }
+}
@@ -0,0 +1,156 @@
+package vishal.mysore.fd.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free disjoint sets over dense int elements, safe for concurrent {@link #add}, {@link #union},
+ * {@link #find} and {@link #sameSet}.
+ * <p>
+ * Parents live in fixed-size segments allocated on demand, so the structure grows without copying and an
+ * element never moves. Roots are linked by a fixed pseudo-random priority with a single CAS, and finds halve
+ * paths with CAS as they go; a failed CAS only means another thread changed the tree first, so operations
+ * retry instead of blocking. Together these give near-constant amortised cost per operation.
+ */
+public class ConcurrentUnionFind {
+
+    private static final int SEGMENT_BITS = 16;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+    private static final int MAX_SEGMENTS = 1 << (31 - SEGMENT_BITS);
+
+    // Each slot holds parent + 1, so a freshly allocated (zeroed) segment is all roots
+    private final AtomicReferenceArray<AtomicIntegerArray> segments = new AtomicReferenceArray<>(MAX_SEGMENTS);
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicInteger sets = new AtomicInteger();
+
+    /**
+     * Add a new singleton set
+     * @return its element
+     */
+    public int add() {
+        int element = size.getAndIncrement();
+        if (element < 0) {
+            size.decrementAndGet();
+            throw new IllegalStateException("Union-find is full");
+        }
+        segment(element);
+        sets.incrementAndGet();
+        return element;
+    }
+
+    /**
+     * Number of elements added
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Number of disjoint sets; exact once concurrent unions have finished
+     */
+    public int setCount() {
+        return sets.get();
+    }
+
+    /**
+     * The root of the element's set. Roots may change while other threads are merging sets.
+     */
+    public int find(int element) {
+        checkElement(element);
+        int current = element;
+        while (true) {
+            int parent = parent(current);
+            if (parent == current) {
+                return current;
+            }
+            int grandparent = parent(parent);
+            if (grandparent != parent) {
+                // Path halving; losing the race is harmless since the other thread also moved it rootwards
+                segment(current).compareAndSet(current & SEGMENT_MASK, parent + 1, grandparent + 1);
+            }
+            current = grandparent;
+        }
+    }
+
+    /**
+     * Merge the sets of two elements
+     * @return whether they were in different sets
+     */
+    public boolean union(int a, int b) {
+        checkElement(a);
+        checkElement(b);
+        while (true) {
+            int rootA = find(a);
+            int rootB = find(b);
+            if (rootA == rootB) {
+                return false;
+            }
+            // The lower-priority root goes under the other; the CAS fails if it stopped being a root meanwhile
+            if (outranks(rootA, rootB)) {
+                int swap = rootA;
+                rootA = rootB;
+                rootB = swap;
+            }
+            if (segment(rootA).compareAndSet(rootA & SEGMENT_MASK, 0, rootB + 1)) {
+                sets.decrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Whether two elements are in the same set, consistent with the unions completed before the call
+     */
+    public boolean sameSet(int a, int b) {
+        checkElement(a);
+        checkElement(b);
+        while (true) {
+            int rootA = find(a);
+            int rootB = find(b);
+            if (rootA == rootB) {
+                return true;
+            }
+            // Only a root that is still a root proves the sets were apart at some point during the call
+            if (parent(rootA) == rootA) {
+                return false;
+            }
+        }
+    }
+
+    private int parent(int element) {
+        int stored = segment(element).get(element & SEGMENT_MASK);
+        return stored == 0 ? element : stored - 1;
+    }
+
+    private AtomicIntegerArray segment(int element) {
+        int index = element >>> SEGMENT_BITS;
+        AtomicIntegerArray segment = segments.get(index);
+        if (segment == null) {
+            segments.compareAndSet(index, null, new AtomicIntegerArray(SEGMENT_SIZE));
+            segment = segments.get(index);
+        }
+        return segment;
+    }
+
+    private void checkElement(int element) {
+        if (element < 0 || element >= size.get()) {
+            throw new IllegalArgumentException("Unknown element: " + element);
+        }
+    }
+
+    /**
+     * Fixed random-looking total order on elements, so linking does not depend on insertion order
+     */
+    private static boolean outranks(int a, int b) {
+        int priorityA = mix(a);
+        int priorityB = mix(b);
+        return priorityA != priorityB ? priorityA > priorityB : a > b;
+    }
+
+    private static int mix(int element) {
+        int h = element * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -1,7 +1,14 @@
 package vishal.mysore.fd.util;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.DoubleUnaryOperator;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Utility class for cycle detection algorithms.
@@ -9,20 +16,336 @@ import java.util.stream.Collectors;
  */
 public class CycleDetectionAlgorithm {
 
+    /**
+     * Compressed sparse row (CSR) representation of a directed, weighted graph.
+     * Node names are interned once to dense int ids and the adjacency is kept in flat
+     * primitive arrays, so detectors can walk edges without hashing or boxing.
+     * Edges of node {@code u} occupy the index range {@code [firstEdge(u), endEdge(u))}.
+     */
+    public static class CompactGraph {
+        private final String[] names;
+        private final int[] offsets;
+        private final int[] targets;
+        private final double[] weights;
+        private final int[] edgeOrder;
+        private final int[] parentNodes;
+        private volatile Map<String, Integer> ids;
+
+        private CompactGraph(String[] names, Map<String, Integer> ids, int[] offsets,
+                             int[] targets, double[] weights, int[] edgeOrder, int[] parentNodes) {
+            this.names = names;
+            this.ids = ids;
+            this.offsets = offsets;
+            this.targets = targets;
+            this.weights = weights;
+            this.edgeOrder = edgeOrder;
+            this.parentNodes = parentNodes;
+        }
+
+        /**
+         * Build from an adjacency map; every edge gets weight 1.0
+         */
+        public static CompactGraph fromAdjacency(Map<String, List<String>> graph) {
+            Builder builder = new Builder();
+            // Intern keys first so node ids follow the map's iteration order
+            graph.keySet().forEach(builder::addNode);
+            graph.forEach((from, neighbors) -> {
+                for (String to : neighbors) {
+                    builder.addEdge(from, to, 1.0);
+                }
+            });
+            return builder.build();
+        }
+
+        /**
+         * Build from a node list and an edge list; node ids follow the order of {@code nodes}
+         */
+        public static CompactGraph fromEdges(List<String> nodes, List<Edge> edges) {
+            Builder builder = new Builder();
+            nodes.forEach(builder::addNode);
+            edges.forEach(edge -> builder.addEdge(edge.from, edge.to, edge.weight));
+            return builder.build();
+        }
+
+        public int nodeCount() {
+            return names.length;
+        }
+
+        public int edgeCount() {
+            return targets.length;
+        }
+
+        public int firstEdge(int node) {
+            return offsets[node];
+        }
+
+        public int endEdge(int node) {
+            return offsets[node + 1];
+        }
+
+        public int outDegree(int node) {
+            return offsets[node + 1] - offsets[node];
+        }
+
+        public int target(int edge) {
+            return targets[edge];
+        }
+
+        public double weight(int edge) {
+            return weights[edge];
+        }
+
+        /**
+         * Position of the edge in the order it was added to the builder,
+         * so callers can keep per-edge attributes in their own parallel arrays
+         */
+        public int sourceEdge(int edge) {
+            return edgeOrder[edge];
+        }
+
+        public String name(int node) {
+            return names[node];
+        }
+
+        /**
+         * Dense id of a node name, or -1 when the node is unknown
+         */
+        public int id(String name) {
+            Map<String, Integer> lookup = ids;
+            if (lookup == null) {
+                // Subgraphs only build their name index when a caller actually needs it
+                lookup = new HashMap<>(names.length * 2);
+                for (int i = 0; i < names.length; i++) {
+                    lookup.put(names[i], i);
+                }
+                ids = lookup;
+            }
+            Integer id = lookup.get(name);
+            return id != null ? id : -1;
+        }
+
+        /**
+         * Id of the node in the graph this subgraph was cut from (the id itself for a root graph)
+         */
+        public int parentNode(int node) {
+            return parentNodes != null ? parentNodes[node] : node;
+        }
+
+        public List<String> names(int[] nodes) {
+            return names(nodes, nodes.length);
+        }
+
+        public List<String> names(int[] nodes, int length) {
+            List<String> result = new ArrayList<>(length);
+            for (int i = 0; i < length; i++) {
+                result.add(names[nodes[i]]);
+            }
+            return result;
+        }
+
+        /**
+         * Same structure with every edge weight passed through {@code mapper}
+         */
+        public CompactGraph mapWeights(DoubleUnaryOperator mapper) {
+            double[] mapped = new double[weights.length];
+            for (int e = 0; e < weights.length; e++) {
+                mapped[e] = mapper.applyAsDouble(weights[e]);
+            }
+            return new CompactGraph(names, ids, offsets, targets, mapped, edgeOrder, parentNodes);
+        }
+
+        /**
+         * Graph with every edge reversed; node ids and names are shared with this graph
+         * and {@link #sourceEdge(int)} still refers to the original insertion order
+         */
+        public CompactGraph transpose() {
+            int n = nodeCount();
+            int[] reverseOffsets = new int[n + 1];
+            for (int e = 0; e < targets.length; e++) {
+                reverseOffsets[targets[e] + 1]++;
+            }
+            for (int i = 0; i < n; i++) {
+                reverseOffsets[i + 1] += reverseOffsets[i];
+            }
+
+            int[] cursor = Arrays.copyOf(reverseOffsets, n);
+            int[] reverseTargets = new int[targets.length];
+            double[] reverseWeights = new double[targets.length];
+            int[] reverseOrder = new int[targets.length];
+            for (int u = 0; u < n; u++) {
+                for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                    int slot = cursor[targets[e]]++;
+                    reverseTargets[slot] = u;
+                    reverseWeights[slot] = weights[e];
+                    reverseOrder[slot] = edgeOrder[e];
+                }
+            }
+            return new CompactGraph(names, ids, reverseOffsets, reverseTargets, reverseWeights,
+                    reverseOrder, parentNodes);
+        }
+
+        /**
+         * Induced subgraph over the given node ids; node {@code i} of the result is {@code members[i]}
+         */
+        public CompactGraph subgraph(int[] members) {
+            return subgraphs(Collections.singletonList(members)).get(0);
+        }
+
+        /**
+         * Induced subgraphs for disjoint node sets, e.g. the components returned by an SCC detector.
+         * Only edges with both endpoints inside the same set are kept.
+         */
+        public List<CompactGraph> subgraphs(List<int[]> memberSets) {
+            int[] localId = new int[nodeCount()];
+            Arrays.fill(localId, -1);
+            List<CompactGraph> result = new ArrayList<>(memberSets.size());
+
+            for (int[] members : memberSets) {
+                for (int i = 0; i < members.length; i++) {
+                    localId[members[i]] = i;
+                }
+
+                int[] subOffsets = new int[members.length + 1];
+                for (int i = 0; i < members.length; i++) {
+                    int u = members[i];
+                    int kept = 0;
+                    for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                        if (localId[targets[e]] >= 0) {
+                            kept++;
+                        }
+                    }
+                    subOffsets[i + 1] = subOffsets[i] + kept;
+                }
+
+                int m = subOffsets[members.length];
+                int[] subTargets = new int[m];
+                double[] subWeights = new double[m];
+                int[] subOrder = new int[m];
+                String[] subNames = new String[members.length];
+                int[] subParents = new int[members.length];
+                int slot = 0;
+                for (int i = 0; i < members.length; i++) {
+                    int u = members[i];
+                    subNames[i] = names[u];
+                    subParents[i] = parentNode(u);
+                    for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                        int v = localId[targets[e]];
+                        if (v >= 0) {
+                            subTargets[slot] = v;
+                            subWeights[slot] = weights[e];
+                            subOrder[slot] = edgeOrder[e];
+                            slot++;
+                        }
+                    }
+                }
+
+                for (int member : members) {
+                    localId[member] = -1;
+                }
+                result.add(new CompactGraph(subNames, null, subOffsets, subTargets, subWeights,
+                        subOrder, subParents));
+            }
+            return result;
+        }
+
+        /**
+         * Incrementally collects nodes and edges, then lays them out in CSR form
+         */
+        public static class Builder {
+            private final Map<String, Integer> ids = new HashMap<>();
+            private final List<String> names = new ArrayList<>();
+            private int[] from = new int[16];
+            private int[] to = new int[16];
+            private double[] weight = new double[16];
+            private int edgeCount;
+
+            /**
+             * Intern a node name and return its dense id
+             */
+            public int addNode(String name) {
+                Integer id = ids.get(name);
+                if (id == null) {
+                    id = names.size();
+                    ids.put(name, id);
+                    names.add(name);
+                }
+                return id;
+            }
+
+            public Builder addEdge(String from, String to, double weight) {
+                return addEdge(addNode(from), addNode(to), weight);
+            }
+
+            /**
+             * Add an edge between already interned node ids
+             */
+            public Builder addEdge(int from, int to, double weight) {
+                if (edgeCount == this.from.length) {
+                    int capacity = edgeCount * 2;
+                    this.from = Arrays.copyOf(this.from, capacity);
+                    this.to = Arrays.copyOf(this.to, capacity);
+                    this.weight = Arrays.copyOf(this.weight, capacity);
+                }
+                this.from[edgeCount] = from;
+                this.to[edgeCount] = to;
+                this.weight[edgeCount] = weight;
+                edgeCount++;
+                return this;
+            }
+
+            public CompactGraph build() {
+                int n = names.size();
+                int[] offsets = new int[n + 1];
+                for (int e = 0; e < edgeCount; e++) {
+                    offsets[from[e] + 1]++;
+                }
+                for (int i = 0; i < n; i++) {
+                    offsets[i + 1] += offsets[i];
+                }
+
+                // Counting sort by source node keeps insertion order within each adjacency list
+                int[] cursor = Arrays.copyOf(offsets, n);
+                int[] targets = new int[edgeCount];
+                double[] weights = new double[edgeCount];
+                int[] edgeOrder = new int[edgeCount];
+                for (int e = 0; e < edgeCount; e++) {
+                    int slot = cursor[from[e]]++;
+                    targets[slot] = to[e];
+                    weights[slot] = weight[e];
+                    edgeOrder[slot] = e;
+                }
+
+                return new CompactGraph(names.toArray(new String[0]), new HashMap<>(ids),
+                        offsets, targets, weights, edgeOrder, null);
+            }
+        }
+    }
+
     /**
      * Depth-First Search (DFS) based cycle detection
      * Time Complexity: O(V + E) where V = vertices, E = edges
      */
     public static class DFSCycleDetector {
-        private Map<String, List<String>> adjacencyList;
-        private Set<String> visited;
-        private Set<String> recursionStack;
-        private List<List<String>> cycleList;
+        private final CompactGraph graph;
+        private final boolean[] visited;
+        private final boolean[] onStack;
+        private final int[] pathPosition;
+        private final int[] path;
+        private final int[] edgeCursor;
+        private final List<List<String>> cycleList;
 
         public DFSCycleDetector(Map<String, List<String>> graph) {
-            this.adjacencyList = graph;
-            this.visited = new HashSet<>();
-            this.recursionStack = new HashSet<>();
+            this(CompactGraph.fromAdjacency(graph));
+        }
+
+        public DFSCycleDetector(CompactGraph graph) {
+            int n = graph.nodeCount();
+            this.graph = graph;
+            this.visited = new boolean[n];
+            this.onStack = new boolean[n];
+            this.pathPosition = new int[n];
+            this.path = new int[n];
+            this.edgeCursor = new int[n];
             this.cycleList = new ArrayList<>();
         }
 
@@ -30,34 +353,48 @@ public class CycleDetectionAlgorithm {
          * Detect all cycles in the graph using DFS
          */
         public List<List<String>> detectAllCycles() {
-            for (String node : adjacencyList.keySet()) {
-                if (!visited.contains(node)) {
-                    dfs(node, new ArrayList<>());
+            for (int node = 0; node < graph.nodeCount(); node++) {
+                if (!visited[node]) {
+                    dfs(node);
                 }
             }
             return cycleList;
         }
 
-        private void dfs(String node, List<String> path) {
-            visited.add(node);
-            recursionStack.add(node);
-            path.add(node);
-
-            for (String neighbor : adjacencyList.getOrDefault(node, new ArrayList<>())) {
-                if (!visited.contains(neighbor)) {
-                    dfs(neighbor, new ArrayList<>(path));
-                } else if (recursionStack.contains(neighbor)) {
-                    // Cycle found - extract the cycle
-                    int cycleStartIndex = path.indexOf(neighbor);
-                    if (cycleStartIndex != -1) {
-                        List<String> cycle = new ArrayList<>(path.subList(cycleStartIndex, path.size()));
-                        cycle.add(neighbor); // Complete the cycle
+        /**
+         * Iterative DFS; the explicit path doubles as the recursion stack
+         */
+        private void dfs(int root) {
+            int top = 0;
+            enter(root, top);
+
+            while (top >= 0) {
+                int node = path[top];
+                if (edgeCursor[top] < graph.endEdge(node)) {
+                    int neighbor = graph.target(edgeCursor[top]++);
+                    if (!visited[neighbor]) {
+                        enter(neighbor, ++top);
+                    } else if (onStack[neighbor]) {
+                        // Cycle found - extract the cycle
+                        int cycleStartIndex = pathPosition[neighbor];
+                        List<String> cycle = graph.names(
+                                Arrays.copyOfRange(path, cycleStartIndex, top + 1));
+                        cycle.add(graph.name(neighbor)); // Complete the cycle
                         cycleList.add(cycle);
                     }
+                } else {
+                    onStack[node] = false;
+                    top--;
                 }
             }
+        }
 
-            recursionStack.remove(node);
+        private void enter(int node, int depth) {
+            visited[node] = true;
+            onStack[node] = true;
+            pathPosition[node] = depth;
+            path[depth] = node;
+            edgeCursor[depth] = graph.firstEdge(node);
         }
 
         /**
@@ -68,6 +405,161 @@ public class CycleDetectionAlgorithm {
         }
     }
 
+    /**
+     * Receives cycles pushed by an enumerator.
+     * Both arrays are reused between calls, so implementations must copy whatever they keep:
+     * {@code nodes[0..length)} are the cycle's node ids starting at its smallest id and
+     * {@code edges[i]} is the CSR edge index leading from {@code nodes[i]} to the next node.
+     */
+    @FunctionalInterface
+    public interface CycleVisitor {
+        void visit(int[] nodes, int[] edges, int length);
+    }
+
+    /**
+     * Johnson-style enumeration of elementary cycles with a hop bound
+     * Each cycle is reported exactly once, rooted at its smallest node id, and pushed to a
+     * visitor instead of being collected, so memory stays O(V + maxLength) however many
+     * cycles exist. Johnson's blocking lists are not sound once paths are length-bounded,
+     * so fruitless branches are pruned with a per-root reverse BFS (hops back to the root)
+     * instead. Parallel edges yield one cycle per distinct edge sequence, like Cypher paths.
+     */
+    public static class ElementaryCycleEnumerator {
+        // Same bounds as the *2..10 pattern used by CycleDetectionService
+        public static final int DEFAULT_MIN_LENGTH = 2;
+        public static final int DEFAULT_MAX_LENGTH = 10;
+
+        private final CompactGraph graph;
+        private final CompactGraph reverse;
+        private final int minLength;
+        private final int maxLength;
+        private final int[] hopsToRoot;
+        private final int[] touched;
+        private final boolean[] onPath;
+        private final int[] pathNodes;
+        private final int[] pathEdges;
+        private final int[] edgeCursor;
+
+        public ElementaryCycleEnumerator(CompactGraph graph) {
+            this(graph, DEFAULT_MIN_LENGTH, DEFAULT_MAX_LENGTH);
+        }
+
+        public ElementaryCycleEnumerator(CompactGraph graph, int minLength, int maxLength) {
+            if (minLength < 1 || maxLength < minLength) {
+                throw new IllegalArgumentException("Invalid cycle length bounds: " + minLength + ".." + maxLength);
+            }
+            int n = graph.nodeCount();
+            this.graph = graph;
+            this.reverse = graph.transpose();
+            this.minLength = minLength;
+            this.maxLength = maxLength;
+            this.hopsToRoot = new int[n];
+            this.touched = new int[n];
+            this.onPath = new boolean[n];
+            this.pathNodes = new int[maxLength];
+            this.pathEdges = new int[maxLength];
+            this.edgeCursor = new int[maxLength];
+            Arrays.fill(hopsToRoot, -1);
+        }
+
+        /**
+         * Enumerate every elementary cycle within the length bounds
+         * @return number of cycles pushed to the visitor
+         */
+        public long enumerate(CycleVisitor visitor) {
+            long count = 0;
+            for (int root = 0; root < graph.nodeCount(); root++) {
+                count += enumerateFrom(root, visitor);
+            }
+            return count;
+        }
+
+        /**
+         * Convenience variant handing each cycle's node ids to the consumer as a fresh array
+         */
+        public long enumerate(Consumer<int[]> consumer) {
+            return enumerate((nodes, edges, length) -> consumer.accept(Arrays.copyOf(nodes, length)));
+        }
+
+        /**
+         * Enumerate the cycles whose smallest node id is {@code root}
+         */
+        public long enumerateFrom(int root, CycleVisitor visitor) {
+            int reached = markHopsToRoot(root);
+            long count = 0;
+            // Nothing leads back to the root unless a self-loop counts as a cycle
+            if (reached > 1 || minLength == 1) {
+                count = search(root, visitor);
+            }
+            for (int i = 0; i < reached; i++) {
+                hopsToRoot[touched[i]] = -1;
+            }
+            return count;
+        }
+
+        /**
+         * Reverse BFS from the root over nodes with larger ids, bounded by the hop limit
+         * @return number of nodes marked (including the root)
+         */
+        private int markHopsToRoot(int root) {
+            int head = 0;
+            int tail = 0;
+            hopsToRoot[root] = 0;
+            touched[tail++] = root;
+            while (head < tail) {
+                int node = touched[head++];
+                int hops = hopsToRoot[node];
+                if (hops + 1 >= maxLength) {
+                    continue;
+                }
+                for (int e = reverse.firstEdge(node); e < reverse.endEdge(node); e++) {
+                    int predecessor = reverse.target(e);
+                    if (predecessor > root && hopsToRoot[predecessor] == -1) {
+                        hopsToRoot[predecessor] = hops + 1;
+                        touched[tail++] = predecessor;
+                    }
+                }
+            }
+            return tail;
+        }
+
+        private long search(int root, CycleVisitor visitor) {
+            long count = 0;
+            int depth = 0;
+            pathNodes[0] = root;
+            edgeCursor[0] = graph.firstEdge(root);
+            onPath[root] = true;
+
+            while (depth >= 0) {
+                int node = pathNodes[depth];
+                if (edgeCursor[depth] == graph.endEdge(node)) {
+                    onPath[node] = false;
+                    depth--;
+                    continue;
+                }
+
+                int edge = edgeCursor[depth]++;
+                int next = graph.target(edge);
+                int length = depth + 1;
+                if (next == root) {
+                    if (length >= minLength) {
+                        pathEdges[depth] = edge;
+                        visitor.visit(pathNodes, pathEdges, length);
+                        count++;
+                    }
+                } else if (next > root && !onPath[next] && hopsToRoot[next] > 0
+                        && length + hopsToRoot[next] <= maxLength) {
+                    pathEdges[depth] = edge;
+                    depth++;
+                    pathNodes[depth] = next;
+                    edgeCursor[depth] = graph.firstEdge(next);
+                    onPath[next] = true;
+                }
+            }
+            return count;
+        }
+    }
+
     /**
      * Floyd-Warshall based cycle detection
      * Useful for finding shortest cycles and all-pairs reachability
@@ -78,32 +570,34 @@ public class CycleDetectionAlgorithm {
         private int n;
 
         public FloydWarshallCycleDetector(List<String> nodes, List<Edge> edges) {
-            this.n = nodes.size();
-            initializeMatrices(nodes, edges);
+            this(CompactGraph.fromEdges(nodes, edges));
+        }
+
+        public FloydWarshallCycleDetector(CompactGraph graph) {
+            this.n = graph.nodeCount();
+            initializeMatrices(graph);
         }
 
-        private void initializeMatrices(List<String> nodes, List<Edge> edges) {
+        private void initializeMatrices(CompactGraph graph) {
             distanceMatrix = new double[n][n];
             nextNode = new int[n][n];
 
             // Initialize with infinity
             for (int i = 0; i < n; i++) {
-                for (int j = 0; j < n; j++) {
-                    if (i == j) {
-                        distanceMatrix[i][j] = 0;
-                    } else {
-                        distanceMatrix[i][j] = Double.POSITIVE_INFINITY;
-                    }
-                    nextNode[i][j] = -1;
-                }
+                Arrays.fill(distanceMatrix[i], Double.POSITIVE_INFINITY);
+                Arrays.fill(nextNode[i], -1);
+                distanceMatrix[i][i] = 0;
             }
 
-            // Add edges
-            for (Edge edge : edges) {
-                int u = nodes.indexOf(edge.from);
-                int v = nodes.indexOf(edge.to);
-                distanceMatrix[u][v] = edge.weight;
-                nextNode[u][v] = v;
+            // Add edges straight from the CSR rows; parallel edges keep the cheapest weight
+            for (int u = 0; u < n; u++) {
+                for (int e = graph.firstEdge(u); e < graph.endEdge(u); e++) {
+                    int v = graph.target(e);
+                    if (graph.weight(e) < distanceMatrix[u][v] || nextNode[u][v] == -1) {
+                        distanceMatrix[u][v] = Math.min(distanceMatrix[u][v], graph.weight(e));
+                        nextNode[u][v] = v;
+                    }
+                }
             }
         }
 
@@ -150,142 +644,1613 @@ public class CycleDetectionAlgorithm {
     }
 
     /**
-     * Tarjan's Algorithm for finding Strongly Connected Components (SCCs)
-     * Useful for identifying groups of accounts in circular transactions
+     * Cache-blocked, parallel Floyd-Warshall over flat row-major arrays
+     * The matrix is processed in square tiles: per round the diagonal tile is closed first,
+     * then its row and column tiles, then all remaining tiles in parallel on the ForkJoinPool.
+     * Memory is 12 bytes per node pair, so it is meant for SCC-sized subgraphs (a 10k-node
+     * SCC needs ~1.2 GB). Successor pointers allow reconstructing paths and negative cycles.
      */
-    public static class TarjanSCCDetector {
-        private Map<String, List<String>> graph;
-        private Map<String, Integer> index;
-        private Map<String, Integer> lowLink;
-        private Set<String> onStack;
-        private Stack<String> stack;
-        private int indexCounter;
-        private List<List<String>> stronglyConnectedComponents;
+    public static class BlockedFloydWarshall {
+        public static final int DEFAULT_BLOCK_SIZE = 64;
 
-        public TarjanSCCDetector(Map<String, List<String>> graph) {
-            this.graph = graph;
-            this.index = new HashMap<>();
-            this.lowLink = new HashMap<>();
-            this.onStack = new HashSet<>();
-            this.stack = new Stack<>();
-            this.indexCounter = 0;
-            this.stronglyConnectedComponents = new ArrayList<>();
+        private final CompactGraph graph;
+        private final ForkJoinPool pool;
+        private final int n;
+        private final int blockSize;
+        private final int blocks;
+        private final double[] distance;
+        private final int[] next;
+
+        public BlockedFloydWarshall(CompactGraph graph) {
+            this(graph, ForkJoinPool.commonPool(), DEFAULT_BLOCK_SIZE);
         }
 
         /**
-         * Find all strongly connected components
+         * @throws IllegalArgumentException if the block size is not positive or the graph has more node pairs
+         *         than an array can hold
          */
-        public List<List<String>> findSCCs() {
-            for (String node : graph.keySet()) {
-                if (!index.containsKey(node)) {
-                    strongConnect(node);
+        public BlockedFloydWarshall(CompactGraph graph, ForkJoinPool pool, int blockSize) {
+            if (blockSize < 1) {
+                throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+            }
+            long cells = (long) graph.nodeCount() * graph.nodeCount();
+            if (cells > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("Too many nodes for an all-pairs matrix: " + graph.nodeCount() +
+                        " nodes need " + cells + " cells; run it per strongly connected component instead");
+            }
+            this.graph = graph;
+            this.pool = pool;
+            this.n = graph.nodeCount();
+            this.blockSize = blockSize;
+            this.blocks = (n + blockSize - 1) / blockSize;
+            this.distance = new double[n * n];
+            this.next = new int[n * n];
+
+            Arrays.fill(distance, Double.POSITIVE_INFINITY);
+            Arrays.fill(next, -1);
+            for (int u = 0; u < n; u++) {
+                distance[u * n + u] = 0;
+                // Parallel edges keep the cheapest weight
+                for (int e = graph.firstEdge(u); e < graph.endEdge(u); e++) {
+                    int cell = u * n + graph.target(e);
+                    if (graph.weight(e) < distance[cell] || next[cell] == -1) {
+                        distance[cell] = Math.min(distance[cell], graph.weight(e));
+                        next[cell] = graph.target(e);
+                    }
                 }
             }
-            return stronglyConnectedComponents;
         }
 
-        private void strongConnect(String node) {
-            index.put(node, indexCounter);
-            lowLink.put(node, indexCounter);
-            indexCounter++;
-            stack.push(node);
-            onStack.add(node);
+        /**
+         * Run the blocked Floyd-Warshall rounds
+         */
+        public void computeShortestPaths() {
+            for (int kb = 0; kb < blocks; kb++) {
+                int pivot = kb;
+                updateTile(pivot, pivot, pivot);
 
-            for (String neighbor : graph.getOrDefault(node, new ArrayList<>())) {
-                if (!index.containsKey(neighbor)) {
-                    strongConnect(neighbor);
-                    lowLink.put(node, Math.min(lowLink.get(node), lowLink.get(neighbor)));
-                } else if (onStack.contains(neighbor)) {
-                    lowLink.put(node, Math.min(lowLink.get(node), index.get(neighbor)));
-                }
+                // Row and column tiles of the pivot only depend on the finished diagonal tile
+                pool.submit(() -> IntStream.range(0, 2 * blocks).parallel().forEach(t -> {
+                    int other = t % blocks;
+                    if (other == pivot) {
+                        return;
+                    }
+                    if (t < blocks) {
+                        updateTile(pivot, other, pivot);
+                    } else {
+                        updateTile(other, pivot, pivot);
+                    }
+                })).join();
+
+                pool.submit(() -> IntStream.range(0, blocks * blocks).parallel().forEach(t -> {
+                    int ib = t / blocks;
+                    int jb = t % blocks;
+                    if (ib != pivot && jb != pivot) {
+                        updateTile(ib, jb, pivot);
+                    }
+                })).join();
             }
+        }
 
-            if (lowLink.get(node).equals(index.get(node))) {
-                List<String> component = new ArrayList<>();
-                String w;
-                do {
-                    w = stack.pop();
-                    onStack.remove(w);
-                    component.add(w);
-                } while (!w.equals(node));
+        private void updateTile(int ib, int jb, int kb) {
+            int iEnd = Math.min((ib + 1) * blockSize, n);
+            int jStart = jb * blockSize;
+            int jEnd = Math.min(jStart + blockSize, n);
+            int kEnd = Math.min((kb + 1) * blockSize, n);
 
-                if (component.size() > 1) {
-                    stronglyConnectedComponents.add(component);
+            for (int k = kb * blockSize; k < kEnd; k++) {
+                int kRow = k * n;
+                for (int i = ib * blockSize; i < iEnd; i++) {
+                    int iRow = i * n;
+                    double throughK = distance[iRow + k];
+                    if (throughK == Double.POSITIVE_INFINITY) {
+                        continue;
+                    }
+                    int firstHop = next[iRow + k];
+                    for (int j = jStart; j < jEnd; j++) {
+                        double candidate = throughK + distance[kRow + j];
+                        if (candidate < distance[iRow + j]) {
+                            distance[iRow + j] = candidate;
+                            next[iRow + j] = firstHop;
+                        }
+                    }
                 }
             }
         }
 
+        public double distance(int from, int to) {
+            return distance[from * n + to];
+        }
+
         /**
-         * Get cycles (which are SCCs with size > 1)
+         * Shortest path as node ids from {@code from} to {@code to}, or null if unreachable
+         * or if the successor chain loops (negative or zero-weight cycles on the way)
          */
-        public List<List<String>> getCycles() {
-            return stronglyConnectedComponents.stream()
-                    .filter(scc -> scc.size() > 1)
-                    .collect(Collectors.toList());
+        public int[] getPath(int from, int to) {
+            if (from == to || next[from * n + to] == -1) {
+                return from == to ? new int[]{from} : null;
+            }
+            int[] path = new int[n];
+            int length = 0;
+            int node = from;
+            path[length++] = node;
+            while (node != to) {
+                node = next[node * n + to];
+                if (node == -1 || length == n) {
+                    return null;
+                }
+                path[length++] = node;
+            }
+            return Arrays.copyOf(path, length);
         }
-    }
 
-    /**
-     * Bellman-Ford Algorithm for detecting negative cycles in weighted graphs
-     * Useful for detecting arbitrage or fraud in financial transactions
-     */
-    public static class BellmanFordCycleDetector {
-        private List<String> nodes;
-        private List<Edge> edges;
-        private Map<String, Double> distance;
-
-        public BellmanFordCycleDetector(List<String> nodes, List<Edge> edges) {
-            this.nodes = nodes;
-            this.edges = edges;
-            this.distance = new HashMap<>();
-            nodes.forEach(node -> distance.put(node, Double.POSITIVE_INFINITY));
+        /**
+         * Detect negative cycles (indicates fraud in transaction networks)
+         */
+        public boolean hasNegativeCycle() {
+            for (int i = 0; i < n; i++) {
+                if (distance[i * n + i] < 0) {
+                    return true;
+                }
+            }
+            return false;
         }
 
         /**
-         * Detect negative cycles
+         * Reconstruct distinct negative cycles from the successor matrix, each in traversal order
          */
-        public boolean hasNegativeCycle(String source) {
-            distance.put(source, 0.0);
+        public List<int[]> getNegativeCycles() {
+            List<int[]> cycles = new ArrayList<>();
+            boolean[] covered = new boolean[n];
+            int[] position = new int[n];
+            int[] walk = new int[n + 1];
+            SPFANegativeCycleDetector fallback = null;
+            Arrays.fill(position, -1);
 
-            // Relax edges |V| - 1 times
-            for (int i = 0; i < nodes.size() - 1; i++) {
-                for (Edge edge : edges) {
-                    if (distance.get(edge.from) != Double.POSITIVE_INFINITY &&
-                            distance.get(edge.from) + edge.weight < distance.get(edge.to)) {
-                        distance.put(edge.to, distance.get(edge.from) + edge.weight);
-                    }
+            for (int i = 0; i < n; i++) {
+                if (covered[i] || distance[i * n + i] >= 0) {
+                    continue;
                 }
-            }
 
-            // Check for negative cycles
-            for (Edge edge : edges) {
-                if (distance.get(edge.from) != Double.POSITIVE_INFINITY &&
-                        distance.get(edge.from) + edge.weight < distance.get(edge.to)) {
-                    return true;
+                // Follow first hops towards i until some node repeats; the repeated stretch is the cycle
+                int length = 0;
+                int node = i;
+                while (node != -1 && position[node] == -1) {
+                    position[node] = length;
+                    walk[length++] = node;
+                    node = next[node * n + i];
                 }
-            }
 
-            return false;
+                int[] cycle = node != -1 ? Arrays.copyOfRange(walk, position[node], length) : null;
+                for (int w = 0; w < length; w++) {
+                    position[walk[w]] = -1;
+                }
+
+                // Tiles are closed in a different order than plain Floyd-Warshall, so once a negative cycle has
+                // driven distances down the successor chains need not close into it; fall back to SPFA from i
+                if (cycle == null || cycleWeight(cycle) >= 0) {
+                    if (fallback == null) {
+                        fallback = new SPFANegativeCycleDetector(graph);
+                    }
+                    cycle = fallback.findNegativeCycle(i);
+                }
+                if (cycle != null && !anyCovered(covered, cycle)) {
+                    for (int member : cycle) {
+                        covered[member] = true;
+                    }
+                    cycles.add(cycle);
+                }
+            }
+            return cycles;
         }
 
         /**
-         * Get all affected nodes in negative cycle
+         * Get the first reconstructed negative cycle as node names, or an empty list
          */
-        public List<String> getNegativeCycleNodes(String source) {
-            List<String> affectedNodes = new ArrayList<>();
+        public List<String> getNegativeCycle() {
+            List<int[]> cycles = getNegativeCycles();
+            return cycles.isEmpty() ? new ArrayList<>() : graph.names(cycles.get(0));
+        }
 
-            if (!hasNegativeCycle(source)) {
-                return affectedNodes;
+        private static boolean anyCovered(boolean[] covered, int[] cycle) {
+            for (int member : cycle) {
+                if (covered[member]) {
+                    return true;
+                }
             }
+            return false;
+        }
 
-            for (Edge edge : edges) {
-                if (distance.get(edge.from) != Double.POSITIVE_INFINITY &&
-                        distance.get(edge.from) + edge.weight < distance.get(edge.to)) {
-                    affectedNodes.add(edge.to);
+        private double cycleWeight(int[] cycle) {
+            double total = 0;
+            for (int i = 0; i < cycle.length; i++) {
+                int u = cycle[i];
+                int v = cycle[(i + 1) % cycle.length];
+                double cheapest = Double.POSITIVE_INFINITY;
+                for (int e = graph.firstEdge(u); e < graph.endEdge(u); e++) {
+                    if (graph.target(e) == v) {
+                        cheapest = Math.min(cheapest, graph.weight(e));
+                    }
                 }
+                total += cheapest;
             }
+            return total;
+        }
+    }
+
+    /**
+     * Tarjan's Algorithm for finding Strongly Connected Components (SCCs)
+     * Useful for identifying groups of accounts in circular transactions.
+     * Runs iteratively over primitive arrays, so long transfer chains cannot overflow the stack.
+     */
+    public static class TarjanSCCDetector {
+        private final CompactGraph graph;
+        private List<int[]> components;
 
-            return affectedNodes;
+        public TarjanSCCDetector(Map<String, List<String>> graph) {
+            this(CompactGraph.fromAdjacency(graph));
+        }
+
+        public TarjanSCCDetector(CompactGraph graph) {
+            this.graph = graph;
+        }
+
+        /**
+         * Find all strongly connected components
+         */
+        public List<List<String>> findSCCs() {
+            return findComponents().stream()
+                    .map(graph::names)
+                    .collect(Collectors.toList());
+        }
+
+        /**
+         * Find all non-trivial strongly connected components as node ids of the compact graph
+         */
+        public List<int[]> findComponents() {
+            if (components == null) {
+                int n = graph.nodeCount();
+                int[] allNodes = new int[n];
+                for (int i = 0; i < n; i++) {
+                    allNodes[i] = i;
+                }
+                int[] index = new int[n];
+                Arrays.fill(index, -1);
+
+                List<int[]> found = new ArrayList<>();
+                strongConnect(graph, allNodes, null, 0, index, new int[n], new boolean[n], found::add);
+                components = found;
+            }
+            return components;
+        }
+
+        /**
+         * Get cycles (which are SCCs with size > 1)
+         */
+        public List<List<String>> getCycles() {
+            return findComponents().stream()
+                    .filter(scc -> scc.length > 1)
+                    .map(graph::names)
+                    .collect(Collectors.toList());
+        }
+
+        /**
+         * Iterative Tarjan over {@code members}. When {@code color} is given, only neighbors whose
+         * color equals {@code activeColor} are followed, which lets disjoint partitions share the
+         * index/lowLink/onStack arrays. Members must start with {@code index == -1}.
+         * Only components with more than one node are handed to the sink.
+         */
+        static void strongConnect(CompactGraph graph, int[] members, int[] color, int activeColor,
+                                  int[] index, int[] lowLink, boolean[] onStack, Consumer<int[]> sink) {
+            int[] stack = new int[members.length];
+            int[] callStack = new int[members.length];
+            int[] edgeCursor = new int[members.length];
+            int stackSize = 0;
+            int indexCounter = 0;
+
+            for (int root : members) {
+                if (index[root] != -1) {
+                    continue;
+                }
+
+                int depth = 0;
+                index[root] = lowLink[root] = indexCounter++;
+                stack[stackSize++] = root;
+                onStack[root] = true;
+                callStack[0] = root;
+                edgeCursor[0] = graph.firstEdge(root);
+
+                while (depth >= 0) {
+                    int node = callStack[depth];
+                    if (edgeCursor[depth] < graph.endEdge(node)) {
+                        int neighbor = graph.target(edgeCursor[depth]++);
+                        if (color != null && color[neighbor] != activeColor) {
+                            continue;
+                        }
+                        if (index[neighbor] == -1) {
+                            index[neighbor] = lowLink[neighbor] = indexCounter++;
+                            stack[stackSize++] = neighbor;
+                            onStack[neighbor] = true;
+                            callStack[++depth] = neighbor;
+                            edgeCursor[depth] = graph.firstEdge(neighbor);
+                        } else if (onStack[neighbor]) {
+                            lowLink[node] = Math.min(lowLink[node], index[neighbor]);
+                        }
+                        continue;
+                    }
+
+                    if (lowLink[node] == index[node]) {
+                        int start = stackSize;
+                        int w;
+                        do {
+                            w = stack[--start];
+                            onStack[w] = false;
+                        } while (w != node);
+
+                        if (stackSize - start > 1) {
+                            int[] component = new int[stackSize - start];
+                            // Preserve pop order: most recently pushed node first
+                            for (int i = 0; i < component.length; i++) {
+                                component[i] = stack[stackSize - 1 - i];
+                            }
+                            sink.accept(component);
+                        }
+                        stackSize = start;
+                    }
+
+                    depth--;
+                    if (depth >= 0) {
+                        int parent = callStack[depth];
+                        lowLink[parent] = Math.min(lowLink[parent], lowLink[node]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Multi-core SCC decomposition using forward-backward partitioning on a ForkJoinPool
+     * Nodes that cannot be on a cycle (no in- or out-edges left) are trimmed first. Each task
+     * then picks a pivot, colors its forward and backward reachable sets, emits their
+     * intersection as one SCC and forks the three remaining partitions. Small partitions fall
+     * back to the iterative Tarjan. Like TarjanSCCDetector it only reports components of size > 1.
+     */
+    public static class ParallelSCCDetector {
+        private static final int SEQUENTIAL_THRESHOLD = 1 << 14;
+        private static final int TRIMMED = 0;
+
+        private final CompactGraph graph;
+        private final CompactGraph reverse;
+        private final ForkJoinPool pool;
+        private final int[] color;
+        private final int[] index;
+        private final int[] lowLink;
+        private final boolean[] onStack;
+        private final AtomicInteger nextColor = new AtomicInteger(TRIMMED);
+        private final Queue<int[]> components = new ConcurrentLinkedQueue<>();
+        private List<int[]> result;
+
+        public ParallelSCCDetector(CompactGraph graph) {
+            this(graph, ForkJoinPool.commonPool());
+        }
+
+        public ParallelSCCDetector(CompactGraph graph, ForkJoinPool pool) {
+            int n = graph.nodeCount();
+            this.graph = graph;
+            this.reverse = graph.transpose();
+            this.pool = pool;
+            this.color = new int[n];
+            this.index = new int[n];
+            this.lowLink = new int[n];
+            this.onStack = new boolean[n];
+            Arrays.fill(index, -1);
+        }
+
+        /**
+         * Find all non-trivial strongly connected components as node ids of the compact graph
+         */
+        public List<int[]> findComponents() {
+            if (result == null) {
+                int activeColor = nextColor.incrementAndGet();
+                int[] active = trim(activeColor);
+                if (active.length > 0) {
+                    pool.invoke(new Partition(active, activeColor));
+                }
+                result = new ArrayList<>(components);
+            }
+            return result;
+        }
+
+        /**
+         * Find all non-trivial strongly connected components
+         */
+        public List<List<String>> findSCCs() {
+            return findComponents().stream()
+                    .map(graph::names)
+                    .collect(Collectors.toList());
+        }
+
+        /**
+         * One induced subgraph per non-trivial SCC, for running the other detectors only where cycles can exist
+         */
+        public List<CompactGraph> nonTrivialSubgraphs() {
+            return graph.subgraphs(findComponents());
+        }
+
+        /**
+         * Repeatedly peel nodes with no remaining in- or out-edges; survivors get the active color
+         */
+        private int[] trim(int activeColor) {
+            int n = graph.nodeCount();
+            int[] inDegree = new int[n];
+            int[] outDegree = new int[n];
+            for (int u = 0; u < n; u++) {
+                outDegree[u] = graph.outDegree(u);
+                inDegree[u] = reverse.outDegree(u);
+            }
+
+            int[] queue = new int[n];
+            int head = 0;
+            int tail = 0;
+            Arrays.fill(color, activeColor);
+            for (int u = 0; u < n; u++) {
+                if (inDegree[u] == 0 || outDegree[u] == 0) {
+                    color[u] = TRIMMED;
+                    queue[tail++] = u;
+                }
+            }
+
+            while (head < tail) {
+                int u = queue[head++];
+                for (int e = graph.firstEdge(u); e < graph.endEdge(u); e++) {
+                    int v = graph.target(e);
+                    if (color[v] != TRIMMED && --inDegree[v] == 0) {
+                        color[v] = TRIMMED;
+                        queue[tail++] = v;
+                    }
+                }
+                for (int e = reverse.firstEdge(u); e < reverse.endEdge(u); e++) {
+                    int v = reverse.target(e);
+                    if (color[v] != TRIMMED && --outDegree[v] == 0) {
+                        color[v] = TRIMMED;
+                        queue[tail++] = v;
+                    }
+                }
+            }
+
+            int[] active = new int[n - tail];
+            int count = 0;
+            for (int u = 0; u < n; u++) {
+                if (color[u] != TRIMMED) {
+                    active[count++] = u;
+                }
+            }
+            return active;
+        }
+
+        private class Partition extends RecursiveAction {
+            private static final long serialVersionUID = 1L;
+
+            private final int[] members;
+            private final int partitionColor;
+
+            Partition(int[] members, int partitionColor) {
+                this.members = members;
+                this.partitionColor = partitionColor;
+            }
+
+            @Override
+            protected void compute() {
+                if (members.length <= SEQUENTIAL_THRESHOLD) {
+                    TarjanSCCDetector.strongConnect(graph, members, color, partitionColor,
+                            index, lowLink, onStack, components::add);
+                    return;
+                }
+
+                int pivot = members[members.length / 2];
+                int forwardColor = nextColor.incrementAndGet();
+                int backwardColor = nextColor.incrementAndGet();
+                int sccColor = nextColor.incrementAndGet();
+                int[] queue = new int[members.length];
+
+                // Forward closure of the pivot inside this partition
+                int head = 0;
+                int tail = 0;
+                color[pivot] = forwardColor;
+                queue[tail++] = pivot;
+                while (head < tail) {
+                    int u = queue[head++];
+                    for (int e = graph.firstEdge(u); e < graph.endEdge(u); e++) {
+                        int v = graph.target(e);
+                        if (color[v] == partitionColor) {
+                            color[v] = forwardColor;
+                            queue[tail++] = v;
+                        }
+                    }
+                }
+
+                // Backward closure: forward-reached nodes become the SCC, the rest are backward-only
+                head = 0;
+                tail = 0;
+                color[pivot] = sccColor;
+                queue[tail++] = pivot;
+                while (head < tail) {
+                    int u = queue[head++];
+                    for (int e = reverse.firstEdge(u); e < reverse.endEdge(u); e++) {
+                        int v = reverse.target(e);
+                        if (color[v] == forwardColor) {
+                            color[v] = sccColor;
+                            queue[tail++] = v;
+                        } else if (color[v] == partitionColor) {
+                            color[v] = backwardColor;
+                            queue[tail++] = v;
+                        }
+                    }
+                }
+
+                int forwardCount = 0;
+                int backwardCount = 0;
+                int sccCount = 0;
+                for (int u : members) {
+                    int c = color[u];
+                    if (c == forwardColor) {
+                        forwardCount++;
+                    } else if (c == backwardColor) {
+                        backwardCount++;
+                    } else if (c == sccColor) {
+                        sccCount++;
+                    }
+                }
+
+                int[] forwardOnly = new int[forwardCount];
+                int[] backwardOnly = new int[backwardCount];
+                int[] scc = new int[sccCount];
+                int[] remainder = new int[members.length - forwardCount - backwardCount - sccCount];
+                int f = 0;
+                int b = 0;
+                int s = 0;
+                int r = 0;
+                for (int u : members) {
+                    int c = color[u];
+                    if (c == forwardColor) {
+                        forwardOnly[f++] = u;
+                    } else if (c == backwardColor) {
+                        backwardOnly[b++] = u;
+                    } else if (c == sccColor) {
+                        scc[s++] = u;
+                    } else {
+                        remainder[r++] = u;
+                    }
+                }
+
+                if (scc.length > 1) {
+                    components.add(scc);
+                }
+
+                List<Partition> subtasks = new ArrayList<>(3);
+                if (forwardOnly.length > 1) {
+                    subtasks.add(new Partition(forwardOnly, forwardColor));
+                }
+                if (backwardOnly.length > 1) {
+                    subtasks.add(new Partition(backwardOnly, backwardColor));
+                }
+                if (remainder.length > 1) {
+                    subtasks.add(new Partition(remainder, partitionColor));
+                }
+                invokeAll(subtasks);
+            }
+        }
+    }
+
+    /**
+     * Bellman-Ford Algorithm for detecting negative cycles in weighted graphs
+     * Useful for detecting arbitrage or fraud in financial transactions
+     */
+    public static class BellmanFordCycleDetector {
+        private final CompactGraph graph;
+        private final double[] distance;
+
+        public BellmanFordCycleDetector(List<String> nodes, List<Edge> edges) {
+            this(CompactGraph.fromEdges(nodes, edges));
+        }
+
+        public BellmanFordCycleDetector(CompactGraph graph) {
+            this.graph = graph;
+            this.distance = new double[graph.nodeCount()];
+        }
+
+        /**
+         * Detect negative cycles
+         */
+        public boolean hasNegativeCycle(String source) {
+            int id = graph.id(source);
+            return id >= 0 && hasNegativeCycle(id);
+        }
+
+        /**
+         * Detect negative cycles reachable from a node id of the compact graph
+         */
+        public boolean hasNegativeCycle(int source) {
+            relax(source);
+
+            // Check for negative cycles
+            for (int u = 0; u < graph.nodeCount(); u++) {
+                for (int e = graph.firstEdge(u); e < graph.endEdge(u); e++) {
+                    if (isRelaxable(u, e)) {
+                        return true;
+                    }
+                }
+            }
+
+            return false;
+        }
+
+        /**
+         * Get all affected nodes in negative cycle
+         */
+        public List<String> getNegativeCycleNodes(String source) {
+            int id = graph.id(source);
+            if (id < 0) {
+                return new ArrayList<>();
+            }
+            return graph.names(getNegativeCycleNodeIds(id));
+        }
+
+        /**
+         * Get all affected node ids in negative cycle
+         */
+        public int[] getNegativeCycleNodeIds(int source) {
+            if (!hasNegativeCycle(source)) {
+                return new int[0];
+            }
+
+            int[] affectedNodes = new int[graph.edgeCount()];
+            int count = 0;
+            for (int u = 0; u < graph.nodeCount(); u++) {
+                for (int e = graph.firstEdge(u); e < graph.endEdge(u); e++) {
+                    if (isRelaxable(u, e)) {
+                        affectedNodes[count++] = graph.target(e);
+                    }
+                }
+            }
+
+            return Arrays.copyOf(affectedNodes, count);
+        }
+
+        /**
+         * Get the negative cycle reachable from the source in traversal order, or an empty list
+         */
+        public List<String> getNegativeCycle(String source) {
+            int id = graph.id(source);
+            int[] cycle = id >= 0 ? new SPFANegativeCycleDetector(graph).findNegativeCycle(id) : null;
+            return cycle != null ? graph.names(cycle) : new ArrayList<>();
+        }
+
+        private void relax(int source) {
+            Arrays.fill(distance, Double.POSITIVE_INFINITY);
+            distance[source] = 0.0;
+
+            // Relax edges up to |V| - 1 times, stopping once a full pass changes nothing
+            boolean changed = true;
+            for (int i = 0; i < graph.nodeCount() - 1 && changed; i++) {
+                changed = false;
+                for (int u = 0; u < graph.nodeCount(); u++) {
+                    for (int e = graph.firstEdge(u); e < graph.endEdge(u); e++) {
+                        if (isRelaxable(u, e)) {
+                            distance[graph.target(e)] = distance[u] + graph.weight(e);
+                            changed = true;
+                        }
+                    }
+                }
+            }
+        }
+
+        private boolean isRelaxable(int u, int e) {
+            return distance[u] != Double.POSITIVE_INFINITY &&
+                    distance[u] + graph.weight(e) < distance[graph.target(e)];
+        }
+    }
+
+    /**
+     * Queue-based Bellman-Ford (SPFA) negative cycle detection over primitive arrays
+     * Only nodes whose distance changed are re-scanned, so it stops as soon as distances settle.
+     * Predecessors are tracked so the exact cycle can be reconstructed rather than just the
+     * nodes touching it. Independent SCCs can be checked in parallel with
+     * {@link #findNegativeCyclesPerComponent(CompactGraph, ForkJoinPool)}.
+     */
+    public static class SPFANegativeCycleDetector {
+        private final CompactGraph graph;
+        private final double[] distance;
+        private final int[] predecessor;
+        private final int[] hops;
+        private final boolean[] inQueue;
+        private final int[] queue;
+        private final int[] visitStamp;
+        private int stamp;
+
+        public SPFANegativeCycleDetector(CompactGraph graph) {
+            int n = graph.nodeCount();
+            this.graph = graph;
+            this.distance = new double[n];
+            this.predecessor = new int[n];
+            this.hops = new int[n];
+            this.inQueue = new boolean[n];
+            this.queue = new int[n];
+            this.visitStamp = new int[n];
+        }
+
+        /**
+         * Find any negative cycle in the graph, as if a virtual source had a zero-weight edge to every node
+         * @return cycle node ids in traversal order, or null when there is none
+         */
+        public int[] findNegativeCycle() {
+            return run(-1);
+        }
+
+        /**
+         * Find a negative cycle reachable from the given source
+         * @return cycle node ids in traversal order, or null when there is none
+         */
+        public int[] findNegativeCycle(int source) {
+            return run(source);
+        }
+
+        /**
+         * Run SPFA independently on every non-trivial SCC of the graph using the given pool
+         * @return one negative cycle (node ids of {@code graph}) per SCC that contains one
+         */
+        public static List<int[]> findNegativeCyclesPerComponent(CompactGraph graph, ForkJoinPool pool) {
+            List<int[]> components = new ParallelSCCDetector(graph, pool).findComponents();
+            List<CompactGraph> subgraphs = graph.subgraphs(components);
+            List<int[]> selfLoops = negativeSelfLoops(graph, components);
+
+            List<int[]> cycles = pool.submit(() -> IntStream.range(0, subgraphs.size())
+                    .parallel()
+                    .mapToObj(i -> {
+                        int[] cycle = new SPFANegativeCycleDetector(subgraphs.get(i)).findNegativeCycle();
+                        if (cycle == null) {
+                            return null;
+                        }
+                        int[] members = components.get(i);
+                        for (int j = 0; j < cycle.length; j++) {
+                            cycle[j] = members[cycle[j]];
+                        }
+                        return cycle;
+                    })
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toCollection(ArrayList::new)))
+                    .join();
+            cycles.addAll(selfLoops);
+            return cycles;
+        }
+
+        /**
+         * SCC detectors drop single nodes, so negative self-loops outside any component are checked directly
+         */
+        private static List<int[]> negativeSelfLoops(CompactGraph graph, List<int[]> components) {
+            boolean[] inComponent = new boolean[graph.nodeCount()];
+            components.forEach(component -> {
+                for (int node : component) {
+                    inComponent[node] = true;
+                }
+            });
+
+            List<int[]> loops = new ArrayList<>();
+            for (int u = 0; u < graph.nodeCount(); u++) {
+                if (inComponent[u]) {
+                    continue;
+                }
+                for (int e = graph.firstEdge(u); e < graph.endEdge(u); e++) {
+                    if (graph.target(e) == u && graph.weight(e) < 0) {
+                        loops.add(new int[]{u});
+                        break;
+                    }
+                }
+            }
+            return loops;
+        }
+
+        private int[] run(int source) {
+            int n = graph.nodeCount();
+            int head = 0;
+            int size = 0;
+            Arrays.fill(predecessor, -1);
+            Arrays.fill(hops, 0);
+            Arrays.fill(inQueue, false);
+
+            if (source < 0) {
+                Arrays.fill(distance, 0.0);
+                for (int u = 0; u < n; u++) {
+                    queue[size++] = u;
+                    inQueue[u] = true;
+                }
+            } else {
+                Arrays.fill(distance, Double.POSITIVE_INFINITY);
+                distance[source] = 0.0;
+                queue[size++] = source;
+                inQueue[source] = true;
+            }
+
+            while (size > 0) {
+                int u = queue[head];
+                head = (head + 1) % n;
+                size--;
+                inQueue[u] = false;
+
+                for (int e = graph.firstEdge(u); e < graph.endEdge(u); e++) {
+                    int v = graph.target(e);
+                    double candidate = distance[u] + graph.weight(e);
+                    if (candidate < distance[v]) {
+                        distance[v] = candidate;
+                        predecessor[v] = u;
+                        hops[v] = hops[u] + 1;
+
+                        // A shortest path with |V| edges must repeat a node
+                        if (hops[v] >= n) {
+                            int[] cycle = extractCycle(v);
+                            if (cycle != null) {
+                                return cycle;
+                            }
+                            hops[v] = 0;
+                        }
+                        if (!inQueue[v]) {
+                            queue[(head + size) % n] = v;
+                            size++;
+                            inQueue[v] = true;
+                        }
+                    }
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Walk predecessors from {@code start}; any loop in the predecessor graph is a negative cycle
+         */
+        private int[] extractCycle(int start) {
+            stamp++;
+            int node = start;
+            while (node != -1 && visitStamp[node] != stamp) {
+                visitStamp[node] = stamp;
+                node = predecessor[node];
+            }
+            if (node == -1) {
+                return null;
+            }
+
+            int length = 1;
+            for (int w = predecessor[node]; w != node; w = predecessor[w]) {
+                length++;
+            }
+            int[] cycle = new int[length];
+            int w = node;
+            // Predecessors point backwards, so fill from the end to get traversal order
+            for (int i = length - 1; i >= 0; i--) {
+                cycle[i] = w;
+                w = predecessor[w];
+            }
+            return cycle;
+        }
+    }
+
+    /**
+     * Minimum mean-weight cycle detection (Karp's algorithm and Howard's policy iteration)
+     * Negative-cycle checks only tell that a profitable loop exists; the minimum mean cycle is
+     * the most extreme one. On rates log-transformed with {@link #logTransform(CompactGraph)} a
+     * negative mean means value grows on every trip round the loop. Karp is exact but needs
+     * O(V^2) memory per SCC; Howard is typically near-linear and is the one to use on large graphs.
+     */
+    public static class MinimumMeanCycleDetector {
+        private static final double EPSILON = 1e-10;
+        // Largest SCC Karp runs on (its tables take about 12 * n^2 bytes); larger ones fall back to Howard
+        static final int KARP_MAX_NODES = 2048;
+
+        public enum Mode { KARP, HOWARD }
+
+        /**
+         * A cycle in traversal order with its mean edge weight
+         */
+        public static class MeanCycle {
+            public final double mean;
+            public final int[] nodes;
+
+            public MeanCycle(double mean, int[] nodes) {
+                this.mean = mean;
+                this.nodes = nodes;
+            }
+        }
+
+        private final CompactGraph graph;
+
+        public MinimumMeanCycleDetector(CompactGraph graph) {
+            this.graph = graph;
+        }
+
+        /**
+         * Map positive rates to {@code -ln(rate)}, so a loop whose rates multiply to more than 1 has negative weight
+         */
+        public static CompactGraph logTransform(CompactGraph graph) {
+            return graph.mapWeights(rate -> -Math.log(rate));
+        }
+
+        /**
+         * Minimum mean cycle of the whole graph, or null when the graph is acyclic
+         */
+        public MeanCycle findMinimumMeanCycle(Mode mode) {
+            List<MeanCycle> cycles = findPerComponent(mode);
+            return cycles.isEmpty() ? null : cycles.get(0);
+        }
+
+        /**
+         * Minimum mean cycle of every SCC (self-loops included), ranked from the lowest mean upwards.
+         * In KARP mode, SCCs of more than {@link #KARP_MAX_NODES} nodes are still solved with Howard.
+         */
+        public List<MeanCycle> findPerComponent(Mode mode) {
+            List<int[]> components = new TarjanSCCDetector(graph).findComponents();
+            List<CompactGraph> subgraphs = graph.subgraphs(components);
+            List<MeanCycle> cycles = new ArrayList<>();
+            boolean[] inComponent = new boolean[graph.nodeCount()];
+
+            for (int i = 0; i < subgraphs.size(); i++) {
+                int[] members = components.get(i);
+                CompactGraph scc = subgraphs.get(i);
+                MeanCycle local = mode == Mode.KARP && scc.nodeCount() <= KARP_MAX_NODES ? karp(scc) : howard(scc);
+                int[] nodes = new int[local.nodes.length];
+                for (int j = 0; j < nodes.length; j++) {
+                    nodes[j] = members[local.nodes[j]];
+                }
+                for (int member : members) {
+                    inComponent[member] = true;
+                }
+                cycles.add(new MeanCycle(local.mean, nodes));
+            }
+
+            // Single-node SCCs only contribute when they carry a self-loop
+            for (int u = 0; u < graph.nodeCount(); u++) {
+                if (inComponent[u]) {
+                    continue;
+                }
+                double cheapest = Double.POSITIVE_INFINITY;
+                for (int e = graph.firstEdge(u); e < graph.endEdge(u); e++) {
+                    if (graph.target(e) == u) {
+                        cheapest = Math.min(cheapest, graph.weight(e));
+                    }
+                }
+                if (cheapest != Double.POSITIVE_INFINITY) {
+                    cycles.add(new MeanCycle(cheapest, new int[]{u}));
+                }
+            }
+
+            cycles.sort(Comparator.comparingDouble(cycle -> cycle.mean));
+            return cycles;
+        }
+
+        /**
+         * Karp's algorithm on a strongly connected graph: D[k][v] is the cheapest k-edge walk ending in v
+         */
+        private static MeanCycle karp(CompactGraph scc) {
+            int n = scc.nodeCount();
+            double[] walk = new double[(n + 1) * n];
+            int[] predecessor = new int[(n + 1) * n];
+            Arrays.fill(walk, n, walk.length, Double.POSITIVE_INFINITY);
+
+            for (int k = 1; k <= n; k++) {
+                int previous = (k - 1) * n;
+                int current = k * n;
+                for (int u = 0; u < n; u++) {
+                    double base = walk[previous + u];
+                    if (base == Double.POSITIVE_INFINITY) {
+                        continue;
+                    }
+                    for (int e = scc.firstEdge(u); e < scc.endEdge(u); e++) {
+                        int v = scc.target(e);
+                        if (base + scc.weight(e) < walk[current + v]) {
+                            walk[current + v] = base + scc.weight(e);
+                            predecessor[current + v] = u;
+                        }
+                    }
+                }
+            }
+
+            double best = Double.POSITIVE_INFINITY;
+            int bestNode = -1;
+            for (int v = 0; v < n; v++) {
+                double full = walk[n * n + v];
+                if (full == Double.POSITIVE_INFINITY) {
+                    continue;
+                }
+                double worst = Double.NEGATIVE_INFINITY;
+                for (int k = 0; k < n; k++) {
+                    if (walk[k * n + v] != Double.POSITIVE_INFINITY) {
+                        worst = Math.max(worst, (full - walk[k * n + v]) / (n - k));
+                    }
+                }
+                if (worst < best) {
+                    best = worst;
+                    bestNode = v;
+                }
+            }
+
+            // Any cycle on the n-edge walk ending in the minimising node is a minimum mean cycle
+            int[] levelOf = new int[n];
+            Arrays.fill(levelOf, -1);
+            int[] nodeAt = new int[n + 1];
+            int v = bestNode;
+            for (int k = n; k >= 0; k--) {
+                nodeAt[k] = v;
+                if (levelOf[v] != -1) {
+                    int[] cycle = Arrays.copyOfRange(nodeAt, k, levelOf[v]);
+                    return new MeanCycle(best, cycle);
+                }
+                levelOf[v] = k;
+                if (k > 0) {
+                    v = predecessor[k * n + v];
+                }
+            }
+            throw new IllegalStateException("Karp walk of length n must repeat a node");
+        }
+
+        /**
+         * Howard's policy iteration on a strongly connected graph.
+         * Every node keeps one chosen out-edge (the policy); value determination computes the mean of
+         * the policy cycle each node drains into, improvement switches edges that lower it.
+         */
+        private static MeanCycle howard(CompactGraph scc) {
+            return howard(scc, 10 * scc.nodeCount() + 100);
+        }
+
+        /**
+         * Howard's policy iteration stopped after at most {@code maxIterations} improvements; the cycle
+         * and mean always come from the final policy, so a capped run returns a real cycle, if not the minimum
+         */
+        static MeanCycle howard(CompactGraph scc, int maxIterations) {
+            int n = scc.nodeCount();
+            int[] policy = new int[n];
+            double[] cycleMean = new double[n];
+            double[] potential = new double[n];
+            int[] state = new int[n];
+            int[] position = new int[n];
+            int[] walk = new int[n];
+
+            for (int u = 0; u < n; u++) {
+                policy[u] = scc.firstEdge(u);
+                for (int e = scc.firstEdge(u) + 1; e < scc.endEdge(u); e++) {
+                    if (scc.weight(e) < scc.weight(policy[u])) {
+                        policy[u] = e;
+                    }
+                }
+            }
+
+            int bestStart = determineValues(scc, policy, cycleMean, potential, state, position, walk);
+            for (int iteration = 0; iteration < maxIterations; iteration++) {
+                // Policy improvement: first lower cycle means, then potentials within equal means
+                boolean improved = false;
+                for (int u = 0; u < n; u++) {
+                    for (int e = scc.firstEdge(u); e < scc.endEdge(u); e++) {
+                        if (cycleMean[scc.target(e)] < cycleMean[u] - EPSILON) {
+                            cycleMean[u] = cycleMean[scc.target(e)];
+                            policy[u] = e;
+                            improved = true;
+                        }
+                    }
+                }
+                if (!improved) {
+                    for (int u = 0; u < n; u++) {
+                        for (int e = scc.firstEdge(u); e < scc.endEdge(u); e++) {
+                            int v = scc.target(e);
+                            double candidate = scc.weight(e) - cycleMean[u] + potential[v];
+                            if (Math.abs(cycleMean[v] - cycleMean[u]) <= EPSILON
+                                    && candidate < potential[u] - EPSILON) {
+                                potential[u] = candidate;
+                                policy[u] = e;
+                                improved = true;
+                            }
+                        }
+                    }
+                }
+                if (!improved) {
+                    break;
+                }
+                // Re-evaluated after every change, so the policy and the best cycle never disagree
+                bestStart = determineValues(scc, policy, cycleMean, potential, state, position, walk);
+            }
+
+            double best = cycleMean[bestStart];
+            int length = 1;
+            for (int v = scc.target(policy[bestStart]); v != bestStart; v = scc.target(policy[v])) {
+                length++;
+            }
+            int[] cycle = new int[length];
+            int v = bestStart;
+            for (int i = 0; i < length; i++) {
+                cycle[i] = v;
+                v = scc.target(policy[v]);
+            }
+            return new MeanCycle(best, cycle);
+        }
+
+        /**
+         * Value determination on the functional graph induced by the policy: the mean of the policy cycle
+         * each node drains into, and its potential relative to that cycle
+         * @return a node on the policy cycle with the lowest mean
+         */
+        private static int determineValues(CompactGraph scc, int[] policy, double[] cycleMean, double[] potential,
+                                           int[] state, int[] position, int[] walk) {
+            int n = scc.nodeCount();
+            Arrays.fill(state, 0);
+            double best = Double.POSITIVE_INFINITY;
+            int bestStart = -1;
+            for (int start = 0; start < n; start++) {
+                if (state[start] != 0) {
+                    continue;
+                }
+                int length = 0;
+                int v = start;
+                while (state[v] == 0) {
+                    state[v] = 1;
+                    position[v] = length;
+                    walk[length++] = v;
+                    v = scc.target(policy[v]);
+                }
+
+                if (state[v] == 1) {
+                    int first = position[v];
+                    double total = 0;
+                    for (int i = first; i < length; i++) {
+                        total += scc.weight(policy[walk[i]]);
+                    }
+                    double mean = total / (length - first);
+                    if (mean < best) {
+                        best = mean;
+                        bestStart = v;
+                    }
+                    potential[v] = 0;
+                    cycleMean[v] = mean;
+                    state[v] = 2;
+                    for (int i = length - 1; i > first; i--) {
+                        settle(scc, walk[i], policy, cycleMean, potential, state);
+                    }
+                    length = first;
+                }
+                for (int i = length - 1; i >= 0; i--) {
+                    settle(scc, walk[i], policy, cycleMean, potential, state);
+                }
+            }
+            return bestStart;
+        }
+
+        private static void settle(CompactGraph scc, int u, int[] policy, double[] cycleMean,
+                                   double[] potential, int[] state) {
+            int v = scc.target(policy[u]);
+            cycleMean[u] = cycleMean[v];
+            potential[u] = scc.weight(policy[u]) - cycleMean[u] + potential[v];
+            state[u] = 2;
+        }
+    }
+
+    /**
+     * Space-Saving heavy-hitter counter over int keys (Metwally et al.) with bounded memory.
+     * Keeps at most {@code capacity} counters in a min-heap; an unseen key replaces the smallest
+     * counter and inherits its count as its error. After {@code N} offers:
+     * <ul>
+     *   <li>every reported count over-estimates the true count by at most its {@code error}, and
+     *       {@code error <= N / capacity}</li>
+     *   <li>every key occurring more than {@code N / capacity} times is being tracked</li>
+     * </ul>
+     */
+    public static class SpaceSavingCounter {
+        private final int capacity;
+        private final int[] keys;
+        private final long[] counts;
+        private final long[] errors;
+        // Open-addressing key -> heap slot index, linear probing with backward-shift deletion
+        private final int[] tableKeys;
+        private final int[] tableSlots;
+        private final int tableMask;
+        private int size;
+        private long total;
+
+        public SpaceSavingCounter(int capacity) {
+            if (capacity < 1) {
+                throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+            }
+            this.capacity = capacity;
+            this.keys = new int[capacity];
+            this.counts = new long[capacity];
+            this.errors = new long[capacity];
+            int tableSize = Integer.highestOneBit(capacity * 2 - 1) << 1;
+            this.tableKeys = new int[tableSize];
+            this.tableSlots = new int[tableSize];
+            Arrays.fill(tableSlots, -1);
+            this.tableMask = tableSize - 1;
+        }
+
+        public void offer(int key) {
+            offer(key, 1);
+        }
+
+        public void offer(int key, long weight) {
+            total += weight;
+            int slot = lookup(key);
+            if (slot >= 0) {
+                counts[slot] += weight;
+                siftDown(slot);
+            } else if (size < capacity) {
+                slot = size++;
+                keys[slot] = key;
+                counts[slot] = weight;
+                errors[slot] = 0;
+                insert(key, slot);
+                siftUp(slot);
+            } else {
+                // Evict the smallest counter; its count bounds how often the new key could have been missed
+                remove(keys[0]);
+                long minimum = counts[0];
+                keys[0] = key;
+                counts[0] = minimum + weight;
+                errors[0] = minimum;
+                insert(key, 0);
+                siftDown(0);
+            }
+        }
+
+        /**
+         * Total weight offered so far (N)
+         */
+        public long total() {
+            return total;
+        }
+
+        /**
+         * Upper bound on the over-estimate of any reported count: N / capacity
+         */
+        public long errorBound() {
+            return total / capacity;
+        }
+
+        /**
+         * Estimated count for a key; 0 if it is not tracked (then its true count is at most the smallest counter)
+         */
+        public long estimate(int key) {
+            int slot = lookup(key);
+            return slot < 0 ? 0 : counts[slot];
+        }
+
+        /**
+         * Tracked keys as {@code {key, count, error}} rows, highest count first
+         */
+        public List<long[]> top(int n) {
+            List<long[]> rows = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                rows.add(new long[]{keys[i], counts[i], errors[i]});
+            }
+            rows.sort((a, b) -> Long.compare(b[1], a[1]));
+            return rows.subList(0, Math.min(n, rows.size()));
+        }
+
+        private void siftUp(int slot) {
+            while (slot > 0) {
+                int parent = (slot - 1) >>> 1;
+                if (counts[parent] <= counts[slot]) {
+                    return;
+                }
+                swap(slot, parent);
+                slot = parent;
+            }
+        }
+
+        private void siftDown(int slot) {
+            while (true) {
+                int smallest = slot;
+                int left = 2 * slot + 1;
+                int right = left + 1;
+                if (left < size && counts[left] < counts[smallest]) {
+                    smallest = left;
+                }
+                if (right < size && counts[right] < counts[smallest]) {
+                    smallest = right;
+                }
+                if (smallest == slot) {
+                    return;
+                }
+                swap(slot, smallest);
+                slot = smallest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int key = keys[a];
+            keys[a] = keys[b];
+            keys[b] = key;
+            long count = counts[a];
+            counts[a] = counts[b];
+            counts[b] = count;
+            long error = errors[a];
+            errors[a] = errors[b];
+            errors[b] = error;
+            tableSlots[position(keys[a])] = a;
+            tableSlots[position(keys[b])] = b;
+        }
+
+        private static int hash(int key) {
+            int h = key * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+
+        private int position(int key) {
+            int i = hash(key) & tableMask;
+            while (tableSlots[i] != -1 && tableKeys[i] != key) {
+                i = (i + 1) & tableMask;
+            }
+            return i;
+        }
+
+        private int lookup(int key) {
+            return tableSlots[position(key)];
+        }
+
+        private void insert(int key, int slot) {
+            int i = position(key);
+            tableKeys[i] = key;
+            tableSlots[i] = slot;
+        }
+
+        private void remove(int key) {
+            int hole = position(key);
+            tableSlots[hole] = -1;
+            // Shift back later entries of the probe run so lookups never stop at the hole
+            int i = (hole + 1) & tableMask;
+            while (tableSlots[i] != -1) {
+                int home = hash(tableKeys[i]) & tableMask;
+                if (((i - home) & tableMask) >= ((i - hole) & tableMask)) {
+                    tableKeys[hole] = tableKeys[i];
+                    tableSlots[hole] = tableSlots[i];
+                    tableSlots[i] = -1;
+                    hole = i;
+                }
+                i = (i + 1) & tableMask;
+            }
+        }
+    }
+
+    /**
+     * An account ranked by how many cycles it appears in.
+     * The true count lies in {@code [count - error, count]}.
+     */
+    public static class HeavyHitter {
+        public final String node;
+        public final long count;
+        public final long error;
+
+        public HeavyHitter(String node, long count, long error) {
+            this.node = node;
+            this.count = count;
+            this.error = error;
+        }
+
+        public long guaranteedCount() {
+            return count - error;
+        }
+    }
+
+    /**
+     * Streaming counterpart of {@link CycleAnalyzer}: consumes cycles straight from an enumerator and
+     * ranks suspicious nodes with a {@link SpaceSavingCounter}, so memory is O(k) no matter how many
+     * cycles are enumerated and no cycle is retained. Not thread-safe.
+     */
+    public static class StreamingCycleAnalyzer implements CycleVisitor {
+        private final CompactGraph graph;
+        private final SpaceSavingCounter nodeCounter;
+        private long cycleCount;
+        private long totalLength;
+        private int shortestLength = Integer.MAX_VALUE;
+        private int longestLength;
+
+        /**
+         * @param trackedNodes number of counters (k); node counts are over-estimated by at most
+         *                     (total node occurrences) / k
+         */
+        public StreamingCycleAnalyzer(CompactGraph graph, int trackedNodes) {
+            this.graph = graph;
+            this.nodeCounter = new SpaceSavingCounter(trackedNodes);
+        }
+
+        @Override
+        public void visit(int[] nodes, int[] edges, int length) {
+            cycleCount++;
+            totalLength += length;
+            shortestLength = Math.min(shortestLength, length);
+            longestLength = Math.max(longestLength, length);
+            for (int i = 0; i < length; i++) {
+                nodeCounter.offer(nodes[i]);
+            }
+        }
+
+        public long getCycleCount() {
+            return cycleCount;
+        }
+
+        public double getAverageCycleLength() {
+            return cycleCount == 0 ? 0.0 : (double) totalLength / cycleCount;
+        }
+
+        public int getShortestCycleLength() {
+            return cycleCount == 0 ? 0 : shortestLength;
+        }
+
+        public int getLongestCycleLength() {
+            return longestLength;
+        }
+
+        /**
+         * Upper bound on how far any reported node count exceeds the true count
+         */
+        public long getErrorBound() {
+            return nodeCounter.errorBound();
+        }
+
+        /**
+         * Approximate top nodes by cycle membership, highest estimated count first
+         */
+        public List<HeavyHitter> getHeavyHitters(int topN) {
+            return nodeCounter.top(topN).stream()
+                    .map(row -> new HeavyHitter(graph.name((int) row[0]), row[1], row[2]))
+                    .collect(Collectors.toList());
+        }
+
+        /**
+         * Streaming equivalent of {@link CycleAnalyzer#getMostSuspiciousNodes}
+         */
+        public List<String> getMostSuspiciousNodes(int topN) {
+            return getHeavyHitters(topN).stream()
+                    .map(hitter -> hitter.node)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Canonical cycle fingerprints and a compact open-addressing set of them, so each loop is reported once.
+     * A cycle is rotated to start at its smallest node id (ties broken by the rest of the sequence) and
+     * its node and edge sequence is hashed to 64 bits, so every rotation of a loop gets the same fingerprint.
+     * Two distinct loops collide with probability about 2^-64 per pair.
+     */
+    public static class CycleDeduplicator {
+        private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+        private static final long FNV_PRIME = 0x100000001b3L;
+
+        private long[] table;
+        private int size;
+        private boolean containsZero;
+
+        public CycleDeduplicator() {
+            this(1024);
+        }
+
+        public CycleDeduplicator(int expectedCycles) {
+            this.table = new long[Integer.highestOneBit(Math.max(expectedCycles, 8) * 2 - 1) << 1];
+        }
+
+        /**
+         * @return true if this fingerprint had not been seen before
+         */
+        public boolean add(long fingerprint) {
+            if (fingerprint == 0) {
+                boolean added = !containsZero;
+                containsZero = true;
+                size += added ? 1 : 0;
+                return added;
+            }
+            int mask = table.length - 1;
+            int i = (int) mix(fingerprint) & mask;
+            while (table[i] != 0) {
+                if (table[i] == fingerprint) {
+                    return false;
+                }
+                i = (i + 1) & mask;
+            }
+            table[i] = fingerprint;
+            if (++size * 2 > table.length) {
+                grow();
+            }
+            return true;
+        }
+
+        /**
+         * Fingerprint and add a cycle in one step
+         * @return true if no rotation of this cycle had been seen before
+         */
+        public boolean add(List<String> nodes, long[] edges) {
+            return add(fingerprint(nodes, edges));
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Rotation-invariant 64-bit fingerprint of a cycle.
+         * @param nodes node ids in cycle order, without repeating the first node at the end
+         * @param edges edge ids, {@code edges[i]} leading from {@code nodes[i]} to the next node;
+         *              null when the cycle has no edge ids (parallel edges are then not told apart)
+         */
+        public static long fingerprint(List<String> nodes, long[] edges) {
+            int length = nodes.size();
+            if (edges != null && edges.length != length) {
+                throw new IllegalArgumentException("Expected one edge per node: " + edges.length + " != " + length);
+            }
+            int start = 0;
+            for (int candidate = 1; candidate < length; candidate++) {
+                if (compareRotations(nodes, edges, candidate, start) < 0) {
+                    start = candidate;
+                }
+            }
+
+            long hash = FNV_OFFSET;
+            for (int i = 0; i < length; i++) {
+                int at = (start + i) % length;
+                String node = nodes.get(at);
+                for (int c = 0; c < node.length(); c++) {
+                    hash = (hash ^ node.charAt(c)) * FNV_PRIME;
+                }
+                // Separator, so ("ab", "c") and ("a", "bc") differ
+                hash = (hash ^ 0xff) * FNV_PRIME;
+                if (edges != null) {
+                    hash = mix(hash ^ edges[at]);
+                }
+            }
+            return mix(hash ^ length);
+        }
+
+        /**
+         * Rotation-invariant fingerprint of a cycle that also depends on its pattern, for loops whose
+         * nodes alone would give another pattern's loop over the same accounts the same fingerprint
+         */
+        public static long fingerprint(String pattern, List<String> nodes, long[] edges) {
+            long hash = FNV_OFFSET;
+            for (int c = 0; c < pattern.length(); c++) {
+                hash = (hash ^ pattern.charAt(c)) * FNV_PRIME;
+            }
+            return mix(hash ^ fingerprint(nodes, edges));
+        }
+
+        private static int compareRotations(List<String> nodes, long[] edges, int a, int b) {
+            int length = nodes.size();
+            for (int i = 0; i < length; i++) {
+                int x = (a + i) % length;
+                int y = (b + i) % length;
+                int byNode = nodes.get(x).compareTo(nodes.get(y));
+                if (byNode != 0) {
+                    return byNode;
+                }
+                if (edges != null && edges[x] != edges[y]) {
+                    return Long.compare(edges[x], edges[y]);
+                }
+            }
+            return 0;
+        }
+
+        private void grow() {
+            long[] old = table;
+            table = new long[old.length * 2];
+            int mask = table.length - 1;
+            for (long fingerprint : old) {
+                if (fingerprint != 0) {
+                    int i = (int) mix(fingerprint) & mask;
+                    while (table[i] != 0) {
+                        i = (i + 1) & mask;
+                    }
+                    table[i] = fingerprint;
+                }
+            }
+        }
+
+        /**
+         * SplitMix64 finalizer
+         */
+        private static long mix(long z) {
+            z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+            z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+            return z ^ (z >>> 31);
         }
     }
 
@@ -5,6 +5,8 @@ import org.springframework.stereotype.Component;
 import vishal.mysore.fd.model.CycleDetection;
 import vishal.mysore.fd.model.FraudType;
 import vishal.mysore.fd.service.CycleDetectionService;
+import vishal.mysore.fd.service.CycleDetectionSummary;
+import vishal.mysore.fd.service.CycleMetricsStore;
 import vishal.mysore.fd.service.FraudTypeService;
 
 import java.util.*;
@@ -49,18 +51,15 @@ public class CycleDetectionIntegration {
         workflow.put("step2_high_risk_count", highRiskCycles.size());
         workflow.put("step2_medium_risk_count", mediumRiskCycles.size());
 
-        // Step 3: Update status to INVESTIGATING for high-risk cycles
-        highRiskCycles.forEach(cycle ->
-                cycleDetectionService.updateCycleStatus(cycle.getId(), "INVESTIGATING")
-        );
-        workflow.put("step3_updated_to_investigating", highRiskCycles.size());
+        // Step 3: Update status to INVESTIGATING for high-risk cycles not yet picked up
+        List<Long> highRiskIds = ids(highRiskCycles);
+        int investigating = cycleDetectionService.bulkUpdateStatus(highRiskIds, "DETECTED", "INVESTIGATING");
+        workflow.put("step3_updated_to_investigating", investigating);
 
         // Step 4: Link to Money Laundering fraud type
         FraudType moneyLaundering = fraudTypeService.getFraudTypeByName("Money Laundering");
         if (moneyLaundering != null) {
-            highRiskCycles.forEach(cycle ->
-                    cycle.getFraudTypes().add(moneyLaundering)
-            );
+            cycleDetectionService.bulkLinkFraudType(highRiskIds, moneyLaundering);
             workflow.put("step4_linked_to_fraud_type", true);
         }
 
@@ -84,13 +83,12 @@ public class CycleDetectionIntegration {
         // All credit card fraud is HIGH risk - no need to filter
         detection.put("all_high_risk", true);
 
-        // Update all to CONFIRMED status (credit card fraud is usually conclusive)
-        cardFraudCycles.forEach(cycle -> {
-            cycleDetectionService.updateCycleStatus(cycle.getId(), "CONFIRMED");
-            cycleDetectionService.analyzeCycle(cycle.getId());
-        });
+        // Update all new ones to CONFIRMED status (credit card fraud is usually conclusive)
+        List<Long> cardFraudIds = ids(cardFraudCycles);
+        int confirmed = cycleDetectionService.bulkUpdateStatus(cardFraudIds, "DETECTED", "CONFIRMED");
+        cycleDetectionService.bulkReanalyze(cardFraudIds);
 
-        detection.put("cycles_confirmed", cardFraudCycles.size());
+        detection.put("cycles_confirmed", confirmed);
 
         // Get detailed information
         List<Map<String, Object>> details = cardFraudCycles.stream()
@@ -120,20 +118,17 @@ public class CycleDetectionIntegration {
         detection.put("identity_theft_cycles_detected", identityTheftCycles.size());
 
         // Link to Identity Theft fraud type
+        List<Long> identityTheftIds = ids(identityTheftCycles);
         FraudType identityTheft = fraudTypeService.getFraudTypeByName("Identity Theft");
         if (identityTheft != null) {
-            identityTheftCycles.forEach(cycle ->
-                    cycle.getFraudTypes().add(identityTheft)
-            );
+            cycleDetectionService.bulkLinkFraudType(identityTheftIds, identityTheft);
             detection.put("linked_to_identity_theft_type", true);
         }
 
-        // Update status
-        identityTheftCycles.forEach(cycle ->
-                cycleDetectionService.updateCycleStatus(cycle.getId(), "INVESTIGATING")
-        );
+        // Update status of the ones not yet picked up
+        int investigating = cycleDetectionService.bulkUpdateStatus(identityTheftIds, "DETECTED", "INVESTIGATING");
 
-        detection.put("status_updated_to_investigating", identityTheftCycles.size());
+        detection.put("status_updated_to_investigating", investigating);
         return detection;
     }
 
@@ -143,6 +138,19 @@ public class CycleDetectionIntegration {
     public Map<String, Object> getRecentFraudSummary(Integer hours) {
         Map<String, Object> summary = new LinkedHashMap<>();
 
+        if (hours <= cycleDetectionService.getRecentActivityHours()) {
+            // Served from the hourly metric buckets, without a query
+            CycleMetricsStore.RecentActivity recent = cycleDetectionService.getRecentActivity(hours);
+            summary.put("hours_back", hours);
+            summary.put("total_cycles", recent.getTotalCycles());
+            summary.put("pattern_distribution", recent.getCountsByPattern());
+            summary.put("severity_distribution", recent.getCountsBySeverity());
+            summary.put("total_amount_at_risk", recent.getTotalAmount());
+            summary.put("top_suspect_accounts", recent.getTopAccounts(10));
+            return summary;
+        }
+
+        // Further back than the metrics keep: load the cycles
         List<CycleDetection> recentCycles = cycleDetectionService.getRecentCycles(hours);
         summary.put("hours_back", hours);
         summary.put("total_cycles", recentCycles.size());
@@ -196,51 +204,16 @@ public class CycleDetectionIntegration {
         Map<String, Object> report = new LinkedHashMap<>();
         report.put("report_timestamp", System.currentTimeMillis());
 
-        // Get all cycles
-        List<CycleDetection> allCycles = cycleDetectionService.getAllCycles();
-        report.put("total_cycles_detected", allCycles.size());
-
-        // Breakdown by status
-        Map<String, Long> statusBreakdown = allCycles.stream()
-                .collect(Collectors.groupingBy(
-                        CycleDetection::getStatus,
-                        Collectors.counting()
-                ));
-        report.put("status_breakdown", statusBreakdown);
-
-        // High-risk summary
-        List<CycleDetection> highRisk = cycleDetectionService.getHighRiskCycles();
-        report.put("high_risk_cycles", highRisk.size());
-
-        // Total amount at risk
-        Double totalAmount = allCycles.stream()
-                .mapToDouble(CycleDetection::getTotalAmount)
-                .sum();
-        report.put("total_amount_at_risk", totalAmount);
-
-        // Confirmed fraud cases
-        List<CycleDetection> confirmed = cycleDetectionService.getConfirmedCycles();
-        report.put("confirmed_fraud_cases", confirmed.size());
-
-        Double confirmedAmount = confirmed.stream()
-                .mapToDouble(CycleDetection::getTotalAmount)
-                .sum();
-        report.put("confirmed_fraud_amount", confirmedAmount);
-
-        // Average risk score
-        Double averageRiskScore = allCycles.stream()
-                .mapToDouble(CycleDetection::getRiskScore)
-                .average()
-                .orElse(0.0);
-        report.put("average_risk_score", averageRiskScore);
-
-        // Fraud pattern breakdown
-        Map<String, Long> patternBreakdown = allCycles.stream()
-                .collect(Collectors.groupingBy(
-                        CycleDetection::getFraudPattern,
-                        Collectors.counting()
-                ));
-        report.put("fraud_pattern_breakdown", patternBreakdown);
+        // All figures come from the in-memory metrics
+        CycleDetectionSummary summary = cycleDetectionService.getLiveCycleSummary();
+        report.put("total_cycles_detected", summary.getTotalCycles());
+        report.put("status_breakdown", summary.getCountsByStatus());
+        report.put("high_risk_cycles", summary.getHighRiskCycles());
+        report.put("total_amount_at_risk", summary.getTotalAmount());
+        report.put("confirmed_fraud_cases", summary.getConfirmedCycles());
+        report.put("confirmed_fraud_amount", summary.getConfirmedAmount());
+        report.put("average_risk_score", summary.getAverageRiskScore());
+        report.put("fraud_pattern_breakdown", summary.getCountsByPattern());
 
         return report;
     }
@@ -274,50 +247,26 @@ public class CycleDetectionIntegration {
     public Map<String, Object> analyzeFraudTrends() {
         Map<String, Object> trends = new LinkedHashMap<>();
 
-        // Get all cycles for trend analysis
-        List<CycleDetection> allCycles = cycleDetectionService.getAllCycles();
+        CycleDetectionSummary summary = cycleDetectionService.getLiveCycleSummary();
 
         // Trend 1: Most common fraud pattern
-        Map<String, Long> patternFrequency = allCycles.stream()
-                .collect(Collectors.groupingBy(
-                        CycleDetection::getFraudPattern,
-                        Collectors.counting()
-                ));
-        String mostCommonPattern = patternFrequency.entrySet().stream()
-                .max(Map.Entry.comparingByValue())
-                .map(Map.Entry::getKey)
-                .orElse("NONE");
-        trends.put("most_common_pattern", mostCommonPattern);
+        trends.put("most_common_pattern", summary.getMostCommonPattern());
 
         // Trend 2: Average cycle length
-        Double avgCycleLength = allCycles.stream()
-                .mapToDouble(CycleDetection::getCycleLength)
-                .average()
-                .orElse(0.0);
-        trends.put("average_cycle_length", avgCycleLength);
+        trends.put("average_cycle_length", summary.getAverageCycleLength());
 
         // Trend 3: Average transaction amount
-        Double avgAmount = allCycles.stream()
-                .mapToDouble(CycleDetection::getTotalAmount)
-                .average()
-                .orElse(0.0);
-        trends.put("average_transaction_amount", avgAmount);
+        trends.put("average_transaction_amount", summary.getAverageAmount());
 
         // Trend 4: Risk distribution
-        long highRiskCount = allCycles.stream().filter(CycleDetection::isHighRisk).count();
-        long mediumRiskCount = allCycles.stream().filter(CycleDetection::isMediumRisk).count();
-        long lowRiskCount = allCycles.stream().filter(CycleDetection::isLowRisk).count();
-
         trends.put("risk_distribution", Map.of(
-                "HIGH", highRiskCount,
-                "MEDIUM", mediumRiskCount,
-                "LOW", lowRiskCount
+                "HIGH", summary.getHighRiskCycles(),
+                "MEDIUM", summary.getMediumRiskCycles(),
+                "LOW", summary.getLowRiskCycles()
         ));
 
         // Trend 5: Detection success rate
-        long confirmed = cycleDetectionService.getConfirmedCycles().size();
-        Double successRate = allCycles.isEmpty() ? 0.0 : (double) confirmed / allCycles.size();
-        trends.put("confirmed_fraud_rate", String.format("%.2f%%", successRate * 100));
+        trends.put("confirmed_fraud_rate", String.format("%.2f%%", summary.getConfirmedRate() * 100));
 
         return trends;
     }
@@ -334,15 +283,10 @@ public class CycleDetectionIntegration {
         result.put("total_cycles", cycles.size());
 
         // Update unanalyzed cycles
-        int updated = 0;
-        for (CycleDetection cycle : cycles) {
-            if ("DETECTED".equals(cycle.getStatus())) {
-                CycleDetection analyzed = cycleDetectionService.analyzeCycle(cycle.getId());
-                if ("DETECTED".equals(analyzed.getStatus())) {
-                    updated++;
-                }
-            }
-        }
+        List<Long> unanalyzedIds = ids(cycles.stream()
+                .filter(cycle -> "DETECTED".equals(cycle.getStatus()))
+                .collect(Collectors.toList()));
+        int updated = cycleDetectionService.bulkReanalyze(unanalyzedIds);
 
         result.put("cycles_analyzed", updated);
 
@@ -360,5 +304,10 @@ public class CycleDetectionIntegration {
 
         return result;
     }
-}
 
+    private static List<Long> ids(List<CycleDetection> cycles) {
+        return cycles.stream()
+                .map(CycleDetection::getId)
+                .collect(Collectors.toList());
+    }
+}
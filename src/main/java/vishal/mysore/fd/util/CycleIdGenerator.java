@@ -0,0 +1,93 @@
+package vishal.mysore.fd.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free, time-ordered cycle ids, unique across threads and (with distinct node ids) across JVMs.
+ * <p>
+ * Each id is a Snowflake-style 63-bit number: 41 bits of milliseconds since 2024-01-01 UTC, 10 bits of node id
+ * and 12 bits of sequence. Time and sequence advance together in one AtomicLong, so a burst of more than 4096
+ * ids in a millisecond borrows the next millisecond instead of blocking, and a clock that steps back keeps
+ * counting from the last id issued. Ids are rendered as {@code CYCLE-} plus 13 fixed-width Crockford base32
+ * digits, whose alphabet is in ASCII order, so string order is time order and time ranges are id ranges.
+ */
+public class CycleIdGenerator {
+
+    public static final String PREFIX = "CYCLE-";
+
+    private static final long EPOCH_MILLIS = 1704067200000L; // 2024-01-01T00:00:00Z
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int DIGITS = 13;
+    private static final char[] CROCKFORD = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    /**
+     * Greatest id string any generator can produce
+     */
+    public static final String MAX_CYCLE_ID = PREFIX + encode(Long.MAX_VALUE);
+
+    private static volatile CycleIdGenerator shared = new CycleIdGenerator(0);
+
+    private final long nodeId;
+    // (milliseconds since EPOCH_MILLIS << SEQUENCE_BITS) | sequence of the last id issued
+    private final AtomicLong lastTimeAndSequence = new AtomicLong();
+
+    public CycleIdGenerator(int nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeId = nodeId;
+    }
+
+    /**
+     * The generator used for new cycles in this JVM
+     */
+    public static CycleIdGenerator shared() {
+        return shared;
+    }
+
+    /**
+     * Give this JVM's generator a node id; every JVM writing to the same database needs a different one
+     */
+    public static synchronized void configure(int nodeId) {
+        if (shared.nodeId != nodeId) {
+            shared = new CycleIdGenerator(nodeId);
+        }
+    }
+
+    public long nextId() {
+        long now = (System.currentTimeMillis() - EPOCH_MILLIS) << SEQUENCE_BITS;
+        long previous;
+        long next;
+        do {
+            previous = lastTimeAndSequence.get();
+            next = Math.max(now, previous + 1);
+        } while (!lastTimeAndSequence.compareAndSet(previous, next));
+
+        long millis = next >>> SEQUENCE_BITS;
+        return (millis << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | (next & SEQUENCE_MASK);
+    }
+
+    public String nextCycleId() {
+        return PREFIX + encode(nextId());
+    }
+
+    /**
+     * Smallest id string any generator can produce at or after the given time
+     */
+    public static String lowerBound(long epochMillis) {
+        long millis = Math.max(0, epochMillis - EPOCH_MILLIS);
+        return PREFIX + encode(millis << (NODE_BITS + SEQUENCE_BITS));
+    }
+
+    private static String encode(long id) {
+        char[] digits = new char[DIGITS];
+        for (int i = DIGITS - 1; i >= 0; i--) {
+            digits[i] = CROCKFORD[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(digits);
+    }
+}
@@ -0,0 +1,162 @@
+package vishal.mysore.fd.util;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs the detection workflows of {@link CycleDetectionIntegration} concurrently and merges their results
+ * into one report with per-stage timings, so a full sweep takes about as long as its slowest workflow.
+ * <p>
+ * The workflows mostly wait on Neo4j, so they run on virtual threads when the JVM has them (Java 21+, looked up
+ * reflectively since the project targets 17) and on a cached pool of platform threads otherwise. A semaphore
+ * shared by all sweeps caps how many workflows hold Neo4j connections at once; it defaults to the driver's
+ * connection pool size. A failing workflow is reported in its stage and does not cancel the others.
+ */
+@Component
+public class DetectionWorkflowOrchestrator {
+
+    private static final Method VIRTUAL_THREAD_EXECUTOR = findVirtualThreadExecutor();
+
+    private final Map<String, Supplier<Map<String, Object>>> workflows = new LinkedHashMap<>();
+    private final Semaphore permits;
+    private final int maxConcurrency;
+    private final Method virtualThreadExecutor;
+
+    @Autowired
+    public DetectionWorkflowOrchestrator(CycleDetectionIntegration cycleDetectionIntegration,
+                                         @Value("${fd.workflows.max-concurrency:${spring.neo4j.pool.max-connection-pool-size:100}}")
+                                         int maxConcurrency) {
+        this(cycleDetectionIntegration, maxConcurrency, VIRTUAL_THREAD_EXECUTOR);
+    }
+
+    /**
+     * @param virtualThreadExecutor factory of a virtual-thread executor, or null to run on platform threads
+     */
+    DetectionWorkflowOrchestrator(CycleDetectionIntegration cycleDetectionIntegration, int maxConcurrency,
+                                  Method virtualThreadExecutor) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("Workflow concurrency must be positive: " + maxConcurrency);
+        }
+        this.workflows.put("aml_detection", cycleDetectionIntegration::runAMLDetectionWorkflow);
+        this.workflows.put("credit_card_fraud_detection", cycleDetectionIntegration::runCreditCardFraudDetection);
+        this.workflows.put("identity_theft_detection", cycleDetectionIntegration::runIdentityTheftDetection);
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.maxConcurrency = maxConcurrency;
+        this.virtualThreadExecutor = virtualThreadExecutor;
+    }
+
+    /**
+     * Whether workflows run on virtual threads in this JVM
+     */
+    public static boolean usesVirtualThreads() {
+        return VIRTUAL_THREAD_EXECUTOR != null;
+    }
+
+    /**
+     * Run every detection workflow concurrently and wait for all of them
+     */
+    public Map<String, Object> runAllWorkflows() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("executor", virtualThreadExecutor != null ? "virtual-threads" : "platform-threads");
+        report.put("max_concurrency", maxConcurrency);
+
+        long sweepStart = System.nanoTime();
+        Map<String, CompletableFuture<Map<String, Object>>> stages = new LinkedHashMap<>();
+        ExecutorService executor = newExecutor();
+        try {
+            workflows.forEach((name, workflow) -> stages.put(name,
+                    CompletableFuture.supplyAsync(() -> runStage(workflow, sweepStart), executor)));
+            CompletableFuture.allOf(stages.values().toArray(new CompletableFuture<?>[0])).join();
+        } finally {
+            executor.shutdown();
+        }
+        long wallTime = System.nanoTime() - sweepStart;
+
+        Map<String, Object> stageReports = new LinkedHashMap<>();
+        long totalStageTime = 0;
+        int failed = 0;
+        for (Map.Entry<String, CompletableFuture<Map<String, Object>>> stage : stages.entrySet()) {
+            Map<String, Object> stageReport = stage.getValue().join();
+            totalStageTime += (Long) stageReport.get("duration_ms");
+            if ("FAILED".equals(stageReport.get("status"))) {
+                failed++;
+            }
+            stageReports.put(stage.getKey(), stageReport);
+        }
+
+        report.put("workflows_run", stages.size());
+        report.put("workflows_failed", failed);
+        report.put("wall_time_ms", TimeUnit.NANOSECONDS.toMillis(wallTime));
+        // What the same workflows would have taken back to back
+        report.put("total_stage_time_ms", totalStageTime);
+        report.put("stages", stageReports);
+        return report;
+    }
+
+    private Map<String, Object> runStage(Supplier<Map<String, Object>> workflow, long sweepStart) {
+        Map<String, Object> stage = new LinkedHashMap<>();
+        long queued = System.nanoTime();
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stage.put("status", "FAILED");
+            stage.put("error", "Interrupted while waiting for a Neo4j permit");
+            stage.put("duration_ms", 0L);
+            return stage;
+        }
+
+        long started = System.nanoTime();
+        try {
+            stage.put("result", workflow.get());
+            stage.put("status", "COMPLETED");
+        } catch (RuntimeException e) {
+            stage.put("status", "FAILED");
+            stage.put("error", e.getClass().getSimpleName() + ": " + e.getMessage());
+        } finally {
+            permits.release();
+        }
+        long finished = System.nanoTime();
+
+        stage.put("started_at_ms", TimeUnit.NANOSECONDS.toMillis(started - sweepStart));
+        stage.put("queued_ms", TimeUnit.NANOSECONDS.toMillis(started - queued));
+        stage.put("duration_ms", TimeUnit.NANOSECONDS.toMillis(finished - started));
+        return stage;
+    }
+
+    private ExecutorService newExecutor() {
+        if (virtualThreadExecutor != null) {
+            try {
+                return (ExecutorService) virtualThreadExecutor.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                // Fall through to platform threads
+            }
+        }
+        AtomicInteger threads = new AtomicInteger();
+        return Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "fd-workflow-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static Method findVirtualThreadExecutor() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package vishal.mysore.fd.util;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Account clusters joined by {@code HAS_RELATIONSHIP} links, and the accounts each identity is used in.
+ * An identity is suspicious when two or more of its accounts fall in the same cluster, i.e. the accounts it
+ * opened are connected to each other. Links and identity uses can arrive concurrently and in any order;
+ * clusters are kept in a {@link ConcurrentUnionFind}, so each arrival costs near-constant time and a full
+ * report is near-linear in the number of identity uses.
+ */
+public class IdentityClusterIndex {
+
+    /**
+     * An identity and its accounts that share a cluster with another of its accounts
+     */
+    public static class IdentityCluster {
+        public final String identityId;
+        public final List<String> accountIds;
+
+        IdentityCluster(String identityId, List<String> accountIds) {
+            this.identityId = identityId;
+            this.accountIds = accountIds;
+        }
+    }
+
+    private final ConcurrentUnionFind clusters = new ConcurrentUnionFind();
+    private final Map<String, Integer> accounts = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> accountsByIdentity = new ConcurrentHashMap<>();
+
+    /**
+     * Record a link between two accounts
+     * @return whether it merged two clusters
+     */
+    public boolean link(String accountA, String accountB) {
+        return clusters.union(account(accountA), account(accountB));
+    }
+
+    /**
+     * Record an identity being used in an account, without checking it; for bulk loading
+     */
+    public void addUse(String identityId, String accountId) {
+        account(accountId);
+        identityAccounts(identityId).add(accountId);
+    }
+
+    /**
+     * Record an identity being used in an account
+     * @return the identity's other accounts already in that account's cluster
+     */
+    public List<String> use(String identityId, String accountId) {
+        int account = account(accountId);
+        Set<String> identityAccounts = identityAccounts(identityId);
+        // Added before looking, so of two concurrent uses at least one sees the other
+        identityAccounts.add(accountId);
+        List<String> clustered = new ArrayList<>();
+        for (String other : identityAccounts) {
+            if (!other.equals(accountId) && clusters.sameSet(account, accounts.get(other))) {
+                clustered.add(other);
+            }
+        }
+        return clustered;
+    }
+
+    /**
+     * Every suspicious identity, with account ids in sorted order
+     */
+    public List<IdentityCluster> suspiciousIdentities() {
+        List<IdentityCluster> suspicious = new ArrayList<>();
+        accountsByIdentity.forEach((identityId, identityAccounts) -> {
+            if (identityAccounts.size() < 2) {
+                return;
+            }
+            Map<Integer, List<String>> byCluster = new HashMap<>();
+            for (String accountId : identityAccounts) {
+                byCluster.computeIfAbsent(clusters.find(accounts.get(accountId)), root -> new ArrayList<>()).add(accountId);
+            }
+            List<String> clustered = new ArrayList<>();
+            byCluster.values().stream().filter(group -> group.size() > 1).forEach(clustered::addAll);
+            if (!clustered.isEmpty()) {
+                Collections.sort(clustered);
+                suspicious.add(new IdentityCluster(identityId, clustered));
+            }
+        });
+        suspicious.sort(Comparator.comparing(cluster -> cluster.identityId));
+        return suspicious;
+    }
+
+    /**
+     * Accounts seen so far
+     */
+    public int accountCount() {
+        return accounts.size();
+    }
+
+    /**
+     * Distinct account clusters, including single accounts
+     */
+    public int clusterCount() {
+        return clusters.setCount();
+    }
+
+    private Set<String> identityAccounts(String identityId) {
+        return accountsByIdentity.computeIfAbsent(identityId, id -> ConcurrentHashMap.newKeySet());
+    }
+
+    private int account(String accountId) {
+        return accounts.computeIfAbsent(accountId, id -> clusters.add());
+    }
+}
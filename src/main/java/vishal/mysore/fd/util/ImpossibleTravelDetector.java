@@ -0,0 +1,214 @@
+package vishal.mysore.fd.util;
+
+import java.util.*;
+
+/**
+ * Streaming impossible-travel detection for card uses.
+ * Each card keeps a small time-ordered ring of its uses within the window; a new use is compared with the
+ * retained ones in O(ring size) instead of joining every pair of the card's uses. Two uses conflict when they
+ * are at different locations within the window and either location lacks coordinates or the speed needed to
+ * travel between them exceeds the limit. Cards with no use inside the window are dropped, so memory is
+ * bounded by the cards active within one window. Not thread-safe.
+ */
+public class ImpossibleTravelDetector {
+
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    private static final double MILLIS_PER_HOUR = 3_600_000.0;
+
+    /**
+     * One use of a card at a location; coordinates are NaN when unknown
+     */
+    public static class CardUse {
+        public final long useId;
+        public final String cardId;
+        public final String locationId;
+        public final long timestamp;
+        public final double amount;
+        public final double latitude;
+        public final double longitude;
+
+        public CardUse(long useId, String cardId, String locationId, long timestamp, double amount,
+                       double latitude, double longitude) {
+            this.useId = useId;
+            this.cardId = cardId;
+            this.locationId = locationId;
+            this.timestamp = timestamp;
+            this.amount = amount;
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+
+        boolean hasCoordinates() {
+            return !Double.isNaN(latitude) && !Double.isNaN(longitude);
+        }
+    }
+
+    /**
+     * A use that conflicts with earlier or later uses of the same card
+     */
+    public static class ImpossibleTravel {
+        public final CardUse use;
+        public final List<CardUse> conflicting;
+
+        ImpossibleTravel(CardUse use, List<CardUse> conflicting) {
+            this.use = use;
+            this.conflicting = conflicting;
+        }
+
+        /**
+         * Distinct locations across the use and the uses it conflicts with
+         */
+        public int locationCount() {
+            Set<String> locations = new HashSet<>();
+            locations.add(use.locationId);
+            conflicting.forEach(other -> locations.add(other.locationId));
+            return locations.size();
+        }
+
+        /**
+         * Amount of the use and the uses it conflicts with, each counted once
+         */
+        public double totalAmount() {
+            double total = use.amount;
+            for (CardUse other : conflicting) {
+                total += other.amount;
+            }
+            return total;
+        }
+    }
+
+    private final long windowMillis;
+    private final int usesPerCard;
+    private final double maxSpeedKmh;
+    // Access-ordered, so the card used longest ago is always first
+    private final LinkedHashMap<String, CardWindow> cards = new LinkedHashMap<>(16, 0.75f, true);
+    private long clock = Long.MIN_VALUE;
+
+    public ImpossibleTravelDetector(long windowMillis, int usesPerCard, double maxSpeedKmh) {
+        if (windowMillis <= 0 || usesPerCard < 1 || maxSpeedKmh <= 0) {
+            throw new IllegalArgumentException("Window, uses per card and maximum speed must be positive");
+        }
+        this.windowMillis = windowMillis;
+        this.usesPerCard = usesPerCard;
+        this.maxSpeedKmh = maxSpeedKmh;
+    }
+
+    /**
+     * Process the next card use. Uses may arrive somewhat out of order; one more than a window older than
+     * the card's newest use can no longer conflict with it and is ignored.
+     * @return the conflict this use reveals, or null
+     */
+    public ImpossibleTravel accept(CardUse use) {
+        clock = Math.max(clock, use.timestamp);
+        CardWindow window = cards.get(use.cardId);
+        if (window == null) {
+            window = new CardWindow(usesPerCard);
+            cards.put(use.cardId, window);
+        }
+
+        List<CardUse> conflicting = null;
+        if (window.size == 0 || use.timestamp >= window.newest().timestamp - windowMillis) {
+            window.evictBefore(use.timestamp - windowMillis);
+            for (int i = 0; i < window.size; i++) {
+                CardUse other = window.get(i);
+                if (Math.abs(use.timestamp - other.timestamp) < windowMillis && conflicts(use, other)) {
+                    if (conflicting == null) {
+                        conflicting = new ArrayList<>();
+                    }
+                    conflicting.add(other);
+                }
+            }
+            window.insert(use);
+        }
+
+        evictIdleCards();
+        return conflicting == null ? null : new ImpossibleTravel(use, conflicting);
+    }
+
+    /**
+     * Cards with at least one use inside the window
+     */
+    public int activeCards() {
+        return cards.size();
+    }
+
+    private boolean conflicts(CardUse a, CardUse b) {
+        if (a.locationId.equals(b.locationId)) {
+            return false;
+        }
+        if (!a.hasCoordinates() || !b.hasCoordinates()) {
+            return true;
+        }
+        double distanceKm = distanceKm(a, b);
+        double hours = Math.abs(a.timestamp - b.timestamp) / MILLIS_PER_HOUR;
+        return hours == 0.0 ? distanceKm > 0.0 : distanceKm / hours > maxSpeedKmh;
+    }
+
+    private void evictIdleCards() {
+        Iterator<CardWindow> leastRecent = cards.values().iterator();
+        while (leastRecent.hasNext()) {
+            CardWindow window = leastRecent.next();
+            if (window.size > 0 && window.newest().timestamp >= clock - windowMillis) {
+                break;
+            }
+            leastRecent.remove();
+        }
+    }
+
+    /**
+     * Great-circle distance by the haversine formula
+     */
+    static double distanceKm(CardUse a, CardUse b) {
+        double dLat = Math.toRadians(b.latitude - a.latitude);
+        double dLon = Math.toRadians(b.longitude - a.longitude);
+        double h = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
+                Math.cos(Math.toRadians(a.latitude)) * Math.cos(Math.toRadians(b.latitude)) *
+                        Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.sqrt(Math.min(1.0, h)));
+    }
+
+    /**
+     * Fixed-capacity ring of one card's uses in time order; when full, the oldest use is overwritten
+     */
+    private static final class CardWindow {
+        private final CardUse[] uses;
+        private int head;
+        private int size;
+
+        CardWindow(int capacity) {
+            this.uses = new CardUse[capacity];
+        }
+
+        CardUse get(int i) {
+            return uses[(head + i) % uses.length];
+        }
+
+        CardUse newest() {
+            return get(size - 1);
+        }
+
+        void evictBefore(long windowStart) {
+            while (size > 0 && uses[head].timestamp < windowStart) {
+                uses[head] = null;
+                head = (head + 1) % uses.length;
+                size--;
+            }
+        }
+
+        void insert(CardUse use) {
+            if (size == uses.length) {
+                uses[head] = null;
+                head = (head + 1) % uses.length;
+                size--;
+            }
+            // Shift newer uses up by one so the ring stays in time order; usually there are none
+            int position = size;
+            while (position > 0 && get(position - 1).timestamp > use.timestamp) {
+                uses[(head + position) % uses.length] = get(position - 1);
+                position--;
+            }
+            uses[(head + position) % uses.length] = use;
+            size++;
+        }
+    }
+}
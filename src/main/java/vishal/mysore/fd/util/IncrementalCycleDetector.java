@@ -0,0 +1,412 @@
+package vishal.mysore.fd.util;
+
+import java.util.*;
+
+/**
+ * Online cycle detection for a growing transfer graph.
+ * Keeps a topological order over the strongly connected components of the graph
+ * (Pearce-Kelly dynamic topological sort, with components merged as loops appear).
+ * An edge that agrees with the order is accepted in O(1); otherwise only the components ordered
+ * between the edge's endpoints are searched and reordered. Components keep their own edge lists,
+ * concatenated on merge and stripped of internal edges as they are met, so a large merged
+ * component is crossed through its outside edges only. When an edge closes a loop the components
+ * on it are merged and the shortest cycle through the new edge is returned.
+ * Not thread-safe: callers must serialize insertions.
+ */
+public class IncrementalCycleDetector {
+
+    /**
+     * A loop closed by an inserted edge, starting with the edge's source account
+     */
+    public static class ClosedCycle {
+        public final List<String> accounts;
+        public final double totalAmount;
+
+        public ClosedCycle(List<String> accounts, double totalAmount) {
+            this.accounts = accounts;
+            this.totalAmount = totalAmount;
+        }
+    }
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+
+    // Per node; ord, componentSize and the component lists are only meaningful for representatives
+    private int[] ord = new int[16];
+    private int[] parent = new int[16];
+    private int[] componentSize = new int[16];
+    private int[] outHead = new int[16];
+    private int[] inHead = new int[16];
+    private int[] componentOutHead = new int[16];
+    private int[] componentOutTail = new int[16];
+    private int[] componentInHead = new int[16];
+    private int[] componentInTail = new int[16];
+    private int[] forwardMark = new int[16];
+    private int[] backwardMark = new int[16];
+    private int[] searchMark = new int[16];
+    private int[] searchEdge = new int[16];
+    private int[] searchDepth = new int[16];
+    private int nodeCount;
+    private int nextOrd;
+
+    // Per edge, adjacency kept as singly linked lists threaded through the edge arrays
+    private int[] edgeFrom = new int[16];
+    private int[] edgeTo = new int[16];
+    private int[] nextOut = new int[16];
+    private int[] nextIn = new int[16];
+    private int[] nextComponentOut = new int[16];
+    private int[] nextComponentIn = new int[16];
+    private double[] edgeAmount = new double[16];
+    private int edgeCount;
+
+    private int forwardEpoch;
+    private int backwardEpoch;
+    private int searchEpoch;
+    private int[] stack = new int[16];
+    private int[] forwardQueue = new int[16];
+    private int[] backwardQueue = new int[16];
+
+    /**
+     * Insert a transfer edge
+     * @return the loop closed by this edge, or null if the graph around it is still acyclic
+     */
+    public ClosedCycle addEdge(String fromAccount, String toAccount, double amount) {
+        int x = node(fromAccount);
+        int y = node(toAccount);
+        int edge = appendEdge(x, y, amount);
+        if (x == y) {
+            return null;
+        }
+
+        int cx = find(x);
+        int cy = find(y);
+        if (cx != cy) {
+            if (ord[cx] < ord[cy]) {
+                return null;
+            }
+            if (!reorder(cx, cy)) {
+                return null;
+            }
+        }
+        return shortestCycle(edge, x, y);
+    }
+
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * Pearce-Kelly reorder for an edge cx -> cy between components with ord[cx] > ord[cy].
+     * Forward search from cy and backward search from cx are both confined to the order window
+     * [ord[cy], ord[cx]]. Without a loop the backward set is moved in front of the forward set;
+     * with a loop the components on it are merged and placed between the two.
+     * @return true if the edge closed a loop
+     */
+    private boolean reorder(int cx, int cy) {
+        int lowerBound = ord[cy];
+        int upperBound = ord[cx];
+
+        forwardEpoch++;
+        int[] forward = collect(cy, true, lowerBound, upperBound);
+        boolean closesLoop = forwardMark[cx] == forwardEpoch;
+
+        backwardEpoch++;
+        int[] backward = collect(cx, false, lowerBound, upperBound);
+
+        // Components to re-slot, packed as (ord << 32 | component) so sorting orders them by ord
+        long[] backwardOnly = new long[backward.length];
+        long[] forwardOnly = new long[forward.length];
+        int[] loop = new int[forward.length];
+        int backwardCount = 0;
+        int forwardCount = 0;
+        int loopCount = 0;
+        int[] slots = new int[forward.length + backward.length];
+        int slotCount = 0;
+        for (int component : forward) {
+            slots[slotCount++] = ord[component];
+            if (backwardMark[component] == backwardEpoch) {
+                loop[loopCount++] = component;
+            } else {
+                forwardOnly[forwardCount++] = (long) ord[component] << 32 | component;
+            }
+        }
+        for (int component : backward) {
+            if (forwardMark[component] != forwardEpoch) {
+                slots[slotCount++] = ord[component];
+                backwardOnly[backwardCount++] = (long) ord[component] << 32 | component;
+            }
+        }
+        Arrays.sort(slots, 0, slotCount);
+        Arrays.sort(backwardOnly, 0, backwardCount);
+        Arrays.sort(forwardOnly, 0, forwardCount);
+
+        int slot = 0;
+        for (int i = 0; i < backwardCount; i++) {
+            ord[(int) backwardOnly[i]] = slots[slot++];
+        }
+        if (closesLoop) {
+            int merged = loop[0];
+            for (int i = 1; i < loopCount; i++) {
+                merged = union(merged, loop[i]);
+            }
+            ord[merged] = slots[slot];
+            slot += loopCount;
+        }
+        for (int i = 0; i < forwardCount; i++) {
+            ord[(int) forwardOnly[i]] = slots[slot++];
+        }
+        return closesLoop;
+    }
+
+    /**
+     * Depth-first search over components whose order lies in [lowerBound, upperBound].
+     * Edges found to lead back into their own component are unlinked from its list on the way.
+     */
+    private int[] collect(int start, boolean forwardDirection, int lowerBound, int upperBound) {
+        int[] marks = forwardDirection ? forwardMark : backwardMark;
+        int[] heads = forwardDirection ? componentOutHead : componentInHead;
+        int[] tails = forwardDirection ? componentOutTail : componentInTail;
+        int[] links = forwardDirection ? nextComponentOut : nextComponentIn;
+        int[] ends = forwardDirection ? edgeTo : edgeFrom;
+        int epoch = forwardDirection ? forwardEpoch : backwardEpoch;
+        int[] visited = new int[16];
+        int visitedCount = 0;
+        int top = 0;
+
+        marks[start] = epoch;
+        stack[top++] = start;
+        while (top > 0) {
+            int c = stack[--top];
+            if (visitedCount == visited.length) {
+                visited = Arrays.copyOf(visited, visitedCount * 2);
+            }
+            visited[visitedCount++] = c;
+
+            int previous = -1;
+            int e = heads[c];
+            while (e != -1) {
+                int next = links[e];
+                int w = find(ends[e]);
+                if (w == c) {
+                    if (previous == -1) {
+                        heads[c] = next;
+                    } else {
+                        links[previous] = next;
+                    }
+                    if (tails[c] == e) {
+                        tails[c] = previous;
+                    }
+                } else {
+                    previous = e;
+                    if (marks[w] != epoch && ord[w] >= lowerBound && ord[w] <= upperBound) {
+                        marks[w] = epoch;
+                        if (top == stack.length) {
+                            stack = Arrays.copyOf(stack, top * 2);
+                        }
+                        stack[top++] = w;
+                    }
+                }
+                e = next;
+            }
+        }
+        return Arrays.copyOf(visited, visitedCount);
+    }
+
+    /**
+     * Shortest path y -> x inside their (now shared) component, found with a bidirectional
+     * breadth-first search that always expands the smaller frontier, so one insertion into a
+     * dense component does not flood all of it
+     */
+    private ClosedCycle shortestCycle(int closingEdge, int x, int y) {
+        int component = find(x);
+        int forwardTag = ++searchEpoch;
+        int backwardTag = ++searchEpoch;
+        if (forwardQueue.length < componentSize[component]) {
+            forwardQueue = new int[ord.length];
+            backwardQueue = new int[ord.length];
+        }
+        int forwardHead = 0;
+        int forwardTail = 0;
+        int backwardHead = 0;
+        int backwardTail = 0;
+
+        searchMark[y] = forwardTag;
+        searchDepth[y] = 0;
+        forwardQueue[forwardTail++] = y;
+        searchMark[x] = backwardTag;
+        searchDepth[x] = 0;
+        backwardQueue[backwardTail++] = x;
+
+        // Edge from a node of the forward tree to a node of the backward tree
+        int bridge = -1;
+        while (bridge == -1 && forwardHead < forwardTail && backwardHead < backwardTail) {
+            // Expand a whole level and keep the best bridge in it, so the joined path is minimal
+            if (forwardTail - forwardHead <= backwardTail - backwardHead) {
+                int levelEnd = forwardTail;
+                while (forwardHead < levelEnd) {
+                    int v = forwardQueue[forwardHead++];
+                    for (int e = outHead[v]; e != -1; e = nextOut[e]) {
+                        int w = edgeTo[e];
+                        if (searchMark[w] == backwardTag) {
+                            if (bridge == -1 || searchDepth[w] < searchDepth[edgeTo[bridge]]) {
+                                bridge = e;
+                            }
+                        } else if (searchMark[w] != forwardTag && find(w) == component) {
+                            searchMark[w] = forwardTag;
+                            searchDepth[w] = searchDepth[v] + 1;
+                            searchEdge[w] = e;
+                            forwardQueue[forwardTail++] = w;
+                        }
+                    }
+                }
+            } else {
+                int levelEnd = backwardTail;
+                while (backwardHead < levelEnd) {
+                    int v = backwardQueue[backwardHead++];
+                    for (int e = inHead[v]; e != -1; e = nextIn[e]) {
+                        int w = edgeFrom[e];
+                        if (searchMark[w] == forwardTag) {
+                            if (bridge == -1 || searchDepth[w] < searchDepth[edgeFrom[bridge]]) {
+                                bridge = e;
+                            }
+                        } else if (searchMark[w] != backwardTag && find(w) == component) {
+                            searchMark[w] = backwardTag;
+                            searchDepth[w] = searchDepth[v] + 1;
+                            searchEdge[w] = e;
+                            backwardQueue[backwardTail++] = w;
+                        }
+                    }
+                }
+            }
+        }
+
+        LinkedList<String> accounts = new LinkedList<>();
+        double totalAmount = edgeAmount[closingEdge] + edgeAmount[bridge];
+        for (int v = edgeFrom[bridge]; v != y; v = edgeFrom[searchEdge[v]]) {
+            accounts.addFirst(names.get(v));
+            totalAmount += edgeAmount[searchEdge[v]];
+        }
+        accounts.addFirst(names.get(y));
+        accounts.addFirst(names.get(x));
+        for (int v = edgeTo[bridge]; v != x; v = edgeTo[searchEdge[v]]) {
+            accounts.addLast(names.get(v));
+            totalAmount += edgeAmount[searchEdge[v]];
+        }
+        return new ClosedCycle(new ArrayList<>(accounts), totalAmount);
+    }
+
+    private int node(String name) {
+        Integer id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+        if (nodeCount == ord.length) {
+            int capacity = nodeCount * 2;
+            ord = Arrays.copyOf(ord, capacity);
+            parent = Arrays.copyOf(parent, capacity);
+            componentSize = Arrays.copyOf(componentSize, capacity);
+            outHead = Arrays.copyOf(outHead, capacity);
+            inHead = Arrays.copyOf(inHead, capacity);
+            componentOutHead = Arrays.copyOf(componentOutHead, capacity);
+            componentOutTail = Arrays.copyOf(componentOutTail, capacity);
+            componentInHead = Arrays.copyOf(componentInHead, capacity);
+            componentInTail = Arrays.copyOf(componentInTail, capacity);
+            forwardMark = Arrays.copyOf(forwardMark, capacity);
+            backwardMark = Arrays.copyOf(backwardMark, capacity);
+            searchMark = Arrays.copyOf(searchMark, capacity);
+            searchEdge = Arrays.copyOf(searchEdge, capacity);
+            searchDepth = Arrays.copyOf(searchDepth, capacity);
+        }
+        int v = nodeCount++;
+        // A new node has no edges yet, so appending it to the order keeps the order valid
+        ord[v] = nextOrd++;
+        parent[v] = v;
+        componentSize[v] = 1;
+        outHead[v] = -1;
+        inHead[v] = -1;
+        componentOutHead[v] = -1;
+        componentOutTail[v] = -1;
+        componentInHead[v] = -1;
+        componentInTail[v] = -1;
+        ids.put(name, v);
+        names.add(name);
+        return v;
+    }
+
+    private int appendEdge(int from, int to, double amount) {
+        if (edgeCount == edgeFrom.length) {
+            int capacity = edgeCount * 2;
+            edgeFrom = Arrays.copyOf(edgeFrom, capacity);
+            edgeTo = Arrays.copyOf(edgeTo, capacity);
+            nextOut = Arrays.copyOf(nextOut, capacity);
+            nextIn = Arrays.copyOf(nextIn, capacity);
+            nextComponentOut = Arrays.copyOf(nextComponentOut, capacity);
+            nextComponentIn = Arrays.copyOf(nextComponentIn, capacity);
+            edgeAmount = Arrays.copyOf(edgeAmount, capacity);
+        }
+        int e = edgeCount++;
+        edgeFrom[e] = from;
+        edgeTo[e] = to;
+        edgeAmount[e] = amount;
+        nextOut[e] = outHead[from];
+        outHead[from] = e;
+        nextIn[e] = inHead[to];
+        inHead[to] = e;
+
+        int fromComponent = find(from);
+        int toComponent = find(to);
+        if (fromComponent != toComponent) {
+            nextComponentOut[e] = componentOutHead[fromComponent];
+            componentOutHead[fromComponent] = e;
+            if (componentOutTail[fromComponent] == -1) {
+                componentOutTail[fromComponent] = e;
+            }
+            nextComponentIn[e] = componentInHead[toComponent];
+            componentInHead[toComponent] = e;
+            if (componentInTail[toComponent] == -1) {
+                componentInTail[toComponent] = e;
+            }
+        }
+        return e;
+    }
+
+    /**
+     * Append the edge list of component b to that of component a, in O(1)
+     */
+    private static void concat(int[] heads, int[] tails, int[] links, int a, int b) {
+        if (heads[b] == -1) {
+            return;
+        }
+        if (heads[a] == -1) {
+            heads[a] = heads[b];
+        } else {
+            links[tails[a]] = heads[b];
+        }
+        tails[a] = tails[b];
+    }
+
+    private int find(int v) {
+        while (parent[v] != v) {
+            parent[v] = parent[parent[v]];
+            v = parent[v];
+        }
+        return v;
+    }
+
+    private int union(int a, int b) {
+        if (componentSize[a] < componentSize[b]) {
+            int swap = a;
+            a = b;
+            b = swap;
+        }
+        parent[b] = a;
+        componentSize[a] += componentSize[b];
+        concat(componentOutHead, componentOutTail, nextComponentOut, a, b);
+        concat(componentInHead, componentInTail, nextComponentIn, a, b);
+        return a;
+    }
+}
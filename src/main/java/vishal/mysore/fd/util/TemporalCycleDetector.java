@@ -0,0 +1,138 @@
+package vishal.mysore.fd.util;
+
+import java.util.*;
+
+/**
+ * Streaming temporal cycle detection over timestamped transfers.
+ * A temporal cycle is a loop whose edge timestamps strictly increase and whose last edge
+ * happens within a time window of the first. Edges must arrive in time order; each arrival is
+ * treated as the closing edge of a cycle, so every temporal cycle is reported exactly once,
+ * when its latest transfer is seen. Edges older than the window are evicted, so memory is
+ * bounded by the window instead of the whole history.
+ *
+ * Follows the 2SCENT idea of only searching where a cycle can still close in time, but finds
+ * cycles with a bounded backward search from each new edge, so a single pass is enough.
+ */
+public class TemporalCycleDetector {
+
+    /**
+     * A timestamped transfer between two accounts
+     */
+    public static class TemporalEdge {
+        public final String from;
+        public final String to;
+        public final long timestamp;
+        public final double amount;
+
+        public TemporalEdge(String from, String to, long timestamp, double amount) {
+            this.from = from;
+            this.to = to;
+            this.timestamp = timestamp;
+            this.amount = amount;
+        }
+    }
+
+    /**
+     * Receives each temporal cycle as its edges in time order (first transfer first)
+     */
+    @FunctionalInterface
+    public interface TemporalCycleListener {
+        void onCycle(List<TemporalEdge> edges);
+    }
+
+    private final long windowMillis;
+    private final int maxLength;
+    private final Map<String, ArrayDeque<TemporalEdge>> incoming = new HashMap<>();
+    private final ArrayDeque<TemporalEdge> timeline = new ArrayDeque<>();
+    private final Set<String> onPath = new HashSet<>();
+    private final TemporalEdge[] path;
+    private long lastTimestamp = Long.MIN_VALUE;
+
+    public TemporalCycleDetector(long windowMillis, int maxLength) {
+        if (windowMillis <= 0 || maxLength < 2) {
+            throw new IllegalArgumentException("Window must be positive and maxLength at least 2");
+        }
+        this.windowMillis = windowMillis;
+        this.maxLength = maxLength;
+        this.path = new TemporalEdge[maxLength];
+    }
+
+    /**
+     * Process the next transfer; timestamps must not go backwards
+     * @return number of temporal cycles closed by this transfer
+     */
+    public int addEdge(String from, String to, long timestamp, double amount, TemporalCycleListener listener) {
+        if (timestamp < lastTimestamp) {
+            throw new IllegalArgumentException("Edges must arrive in time order: " + timestamp + " < " + lastTimestamp);
+        }
+        lastTimestamp = timestamp;
+        long windowStart = timestamp - windowMillis;
+        evictBefore(windowStart);
+
+        TemporalEdge edge = new TemporalEdge(from, to, timestamp, amount);
+        int found = 0;
+        if (!from.equals(to)) {
+            path[maxLength - 1] = edge;
+            onPath.add(from);
+            found = searchBackwards(from, to, timestamp, windowStart, 1, listener);
+            onPath.clear();
+        }
+
+        incoming.computeIfAbsent(to, key -> new ArrayDeque<>()).addLast(edge);
+        timeline.addLast(edge);
+        return found;
+    }
+
+    /**
+     * Number of transfers currently retained inside the window
+     */
+    public int retainedEdges() {
+        return timeline.size();
+    }
+
+    /**
+     * Look for strictly earlier transfers leading into {@code node}, walking back until {@code target}
+     * (the closing edge's destination) is reached. {@code path} is filled from the end.
+     */
+    private int searchBackwards(String node, String target, long before, long windowStart,
+                                int length, TemporalCycleListener listener) {
+        ArrayDeque<TemporalEdge> edges = incoming.get(node);
+        if (edges == null) {
+            return 0;
+        }
+
+        int found = 0;
+        Iterator<TemporalEdge> newestFirst = edges.descendingIterator();
+        while (newestFirst.hasNext()) {
+            TemporalEdge edge = newestFirst.next();
+            if (edge.timestamp < windowStart) {
+                break;
+            }
+            if (edge.timestamp >= before) {
+                continue;
+            }
+
+            path[maxLength - 1 - length] = edge;
+            if (edge.from.equals(target)) {
+                listener.onCycle(Arrays.asList(Arrays.copyOfRange(path, maxLength - 1 - length, maxLength)));
+                found++;
+            } else if (length + 1 < maxLength && onPath.add(edge.from)) {
+                found += searchBackwards(edge.from, target, edge.timestamp, windowStart, length + 1, listener);
+                onPath.remove(edge.from);
+            }
+        }
+        return found;
+    }
+
+    private void evictBefore(long windowStart) {
+        while (!timeline.isEmpty() && timeline.peekFirst().timestamp < windowStart) {
+            TemporalEdge expired = timeline.pollFirst();
+            ArrayDeque<TemporalEdge> edges = incoming.get(expired.to);
+            // Per-node deques are in arrival order too, so the expired edge is at the front
+            edges.pollFirst();
+            if (edges.isEmpty()) {
+                incoming.remove(expired.to);
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package vishal.mysore.fd.util;
+
+import vishal.mysore.fd.util.CycleDetectionAlgorithm.CompactGraph;
+
+import java.util.Arrays;
+
+/**
+ * In-memory projection of the transfer graph for running cycle algorithms in the JVM.
+ * Accounts and transfers live in a {@link CompactGraph} whose edge weights are the transfer amounts;
+ * transfer ids and timestamps are kept in parallel arrays indexed by the order transfers were added,
+ * which is what {@link CompactGraph#sourceEdge} returns for the graph and for any subgraph cut from it.
+ */
+public class TransferGraphSnapshot {
+
+    /**
+     * Timestamp recorded for a transfer that has none
+     */
+    public static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    private final CompactGraph graph;
+    private final long[] transferIds;
+    private final long[] timestamps;
+
+    private TransferGraphSnapshot(CompactGraph graph, long[] transferIds, long[] timestamps) {
+        this.graph = graph;
+        this.transferIds = transferIds;
+        this.timestamps = timestamps;
+    }
+
+    public CompactGraph graph() {
+        return graph;
+    }
+
+    public int transferCount() {
+        return transferIds.length;
+    }
+
+    /**
+     * Database id of a transfer, by its {@link CompactGraph#sourceEdge} index
+     */
+    public long transferId(int sourceEdge) {
+        return transferIds[sourceEdge];
+    }
+
+    /**
+     * Epoch milliseconds of a transfer, by its {@link CompactGraph#sourceEdge} index
+     */
+    public long timestamp(int sourceEdge) {
+        return timestamps[sourceEdge];
+    }
+
+    /**
+     * Collects transfers as they are streamed from the database
+     */
+    public static class Builder {
+        private final CompactGraph.Builder graph = new CompactGraph.Builder();
+        private long[] transferIds = new long[16];
+        private long[] timestamps = new long[16];
+        private int count;
+
+        public Builder addTransfer(long transferId, String fromAccount, String toAccount,
+                                   double amount, long timestamp) {
+            if (count == transferIds.length) {
+                transferIds = Arrays.copyOf(transferIds, count * 2);
+                timestamps = Arrays.copyOf(timestamps, count * 2);
+            }
+            graph.addEdge(fromAccount, toAccount, amount);
+            transferIds[count] = transferId;
+            timestamps[count] = timestamp;
+            count++;
+            return this;
+        }
+
+        public TransferGraphSnapshot build() {
+            return new TransferGraphSnapshot(graph.build(),
+                    Arrays.copyOf(transferIds, count), Arrays.copyOf(timestamps, count));
+        }
+    }
+}
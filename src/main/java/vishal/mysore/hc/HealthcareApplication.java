@@ -2,7 +2,9 @@ package vishal.mysore.hc;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.neo4j.repository.config.EnableNeo4jRepositories;
+import vishal.mysore.schema.SchemaIndexInitializer;
 
 @SpringBootApplication(scanBasePackages = {
     "vishal.mysore.hc.config",
@@ -12,6 +14,7 @@ import org.springframework.data.neo4j.repository.config.EnableNeo4jRepositories;
     "vishal.mysore.hc.util"
 })
 @EnableNeo4jRepositories(basePackages = "vishal.mysore.hc.repository")
+@Import(SchemaIndexInitializer.class)
 public class HealthcareApplication {
     public static void main(String[] args) {
         SpringApplication.run(HealthcareApplication.class, args);
@@ -0,0 +1,16 @@
+package vishal.mysore.schema;
+
+import java.util.List;
+
+/**
+ * A bean supplying schema statements the mapping metadata cannot reveal, such as relationship property
+ * indexes or constraints on nodes only written through Cypher. {@link SchemaIndexInitializer} runs them
+ * together with the statements it derives, before waiting for the indexes to come online.
+ */
+public interface SchemaContributor {
+
+    /**
+     * Idempotent ({@code IF NOT EXISTS}) schema statements
+     */
+    List<String> schemaStatements();
+}
@@ -0,0 +1,291 @@
+package vishal.mysore.schema;
+
+import org.neo4j.driver.summary.Plan;
+import org.neo4j.driver.summary.ResultSummary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.data.neo4j.core.mapping.GraphPropertyDescription;
+import org.springframework.data.neo4j.core.mapping.IdDescription;
+import org.springframework.data.neo4j.core.mapping.Neo4jMappingContext;
+import org.springframework.data.neo4j.core.mapping.Neo4jPersistentEntity;
+import org.springframework.data.neo4j.core.mapping.Neo4jPersistentProperty;
+import org.springframework.data.neo4j.core.mapping.NodeDescription;
+import org.springframework.data.neo4j.repository.query.Query;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.query.parser.Part;
+import org.springframework.data.repository.query.parser.PartTree;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Creates the schema indexes and constraints the repositories of an application rely on.
+ * Runs before the data loaders and derives its work from the mapping metadata:
+ * <ul>
+ *   <li>assigned or externally generated {@code @Id} properties, and properties marked {@link Unique},
+ *       get a uniqueness constraint</li>
+ *   <li>properties compared in derived finders ({@code findByName}, ...) get a range index,
+ *       or a text index for CONTAINING/ENDING_WITH/LIKE</li>
+ *   <li>properties compared in {@code @Query} Cypher ({@code c.status = $status}, {@code {name: $name}})
+ *       get the same treatment; this side is a pattern match on the query text</li>
+ *   <li>{@link SchemaContributor} beans add the statements that cannot be derived</li>
+ * </ul>
+ * Every statement is {@code IF NOT EXISTS}, so restarts are idempotent. Once the new indexes are online, each
+ * lookup is EXPLAINed and the ones still planned with a NodeByLabelScan or AllNodesScan are reported.
+ * Import it into an application with {@code @Import(SchemaIndexInitializer.class)}.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class SchemaIndexInitializer implements ApplicationRunner {
+
+    enum IndexKind { UNIQUE, RANGE, TEXT }
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaIndexInitializer.class);
+    private static final long INDEX_POPULATION_TIMEOUT_SECONDS = 300;
+
+    // (var:Label
+    private static final Pattern LABEL_BINDING = Pattern.compile("\\(\\s*(\\w+)\\s*:\\s*`?(\\w+)`?");
+    // var.property <op>
+    private static final Pattern PROPERTY_PREDICATE = Pattern.compile(
+            "\\b(\\w+)\\.(\\w+)\\s*(=|<=|>=|<(?!>)|>|IN\\b|STARTS\\s+WITH|ENDS\\s+WITH|CONTAINS)",
+            Pattern.CASE_INSENSITIVE);
+    // (var:Label {property: ...
+    private static final Pattern INLINE_PROPERTIES = Pattern.compile("\\(\\s*\\w*\\s*:\\s*`?(\\w+)`?\\s*\\{([^}]*)}");
+    private static final Pattern MAP_KEY = Pattern.compile("(\\w+)\\s*:");
+
+    private final Neo4jClient neo4jClient;
+    private final Neo4jMappingContext mappingContext;
+    private final ListableBeanFactory beanFactory;
+
+    @Autowired
+    public SchemaIndexInitializer(Neo4jClient neo4jClient,
+                                  Neo4jMappingContext mappingContext,
+                                  ListableBeanFactory beanFactory) {
+        this.neo4jClient = neo4jClient;
+        this.mappingContext = mappingContext;
+        this.beanFactory = beanFactory;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Map<String, Set<IndexKind>> required = new LinkedHashMap<>();
+        List<String> lookups = new ArrayList<>();
+        collectIdConstraints(required);
+        collectRepositoryLookups(required, lookups);
+
+        createSchema(required);
+        for (SchemaContributor contributor : beanFactory.getBeansOfType(SchemaContributor.class).values()) {
+            contributor.schemaStatements().forEach(this::execute);
+        }
+        // The planner ignores indexes that are still populating, so checking earlier reports false scans
+        execute("CALL db.awaitIndexes(" + INDEX_POPULATION_TIMEOUT_SECONDS + ")");
+
+        List<String> scans = findLabelScans(lookups);
+        log.info("Schema check: {} repository lookups, {} still planned as label or full scans",
+                lookups.size(), scans.size());
+        scans.forEach(query -> log.warn("Label scan: {}", query));
+    }
+
+    /**
+     * Lookups whose plan still starts from a NodeByLabelScan or AllNodesScan
+     */
+    public List<String> findLabelScans(List<String> lookups) {
+        List<String> scans = new ArrayList<>();
+        for (String lookup : lookups) {
+            try {
+                ResultSummary summary = neo4jClient.query("EXPLAIN " + lookup).run();
+                if (summary.hasPlan() && containsScan(summary.plan())) {
+                    scans.add(lookup);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Could not EXPLAIN {}: {}", lookup, e.getMessage());
+            }
+        }
+        return scans;
+    }
+
+    private void collectIdConstraints(Map<String, Set<IndexKind>> required) {
+        for (Neo4jPersistentEntity<?> entity : mappingContext.getPersistentEntities()) {
+            if (entity.isRelationshipPropertiesEntity() || entity.describesInterface()) {
+                continue;
+            }
+            IdDescription id = entity.getIdDescription();
+            if (id != null && !id.isInternallyGeneratedId()) {
+                id.getOptionalGraphPropertyName().ifPresent(property ->
+                        require(required, entity.getPrimaryLabel(), property, IndexKind.UNIQUE));
+            }
+            entity.doWithProperties((Neo4jPersistentProperty property) -> {
+                if (property.isAnnotationPresent(Unique.class)) {
+                    require(required, entity.getPrimaryLabel(), property.getPropertyName(), IndexKind.UNIQUE);
+                }
+            });
+        }
+    }
+
+    private void collectRepositoryLookups(Map<String, Set<IndexKind>> required, List<String> lookups) {
+        Repositories repositories = new Repositories(beanFactory);
+        for (Class<?> domainType : repositories) {
+            RepositoryInformation information = repositories.getRequiredRepositoryInformation(domainType);
+            NodeDescription<?> node = mappingContext.getNodeDescription(domainType);
+            if (node == null) {
+                continue;
+            }
+            for (Method method : information.getQueryMethods()) {
+                Query query = method.getAnnotation(Query.class);
+                if (query != null) {
+                    collectFromCypher(query.value(), required, lookups);
+                } else {
+                    collectFromDerivedQuery(method, domainType, node, required, lookups);
+                }
+            }
+        }
+    }
+
+    private void collectFromDerivedQuery(Method method, Class<?> domainType, NodeDescription<?> node,
+                                         Map<String, Set<IndexKind>> required, List<String> lookups) {
+        PartTree tree;
+        try {
+            tree = new PartTree(method.getName(), domainType);
+        } catch (RuntimeException e) {
+            return;
+        }
+
+        List<String> predicates = new ArrayList<>();
+        for (Part part : tree.getParts()) {
+            // Only properties stored on the node itself; paths through relationships are not index-backed here
+            if (part.getProperty().hasNext()) {
+                continue;
+            }
+            Optional<GraphPropertyDescription> property = node.getGraphPropertiesInHierarchy().stream()
+                    .filter(candidate -> candidate.getFieldName().equals(part.getProperty().getSegment()))
+                    .filter(candidate -> !candidate.isRelationship() && !candidate.isInternalIdProperty())
+                    .findFirst();
+            if (property.isEmpty()) {
+                continue;
+            }
+
+            String name = property.get().getPropertyName();
+            switch (part.getType()) {
+                case CONTAINING:
+                case NOT_CONTAINING:
+                case ENDING_WITH:
+                case LIKE:
+                case NOT_LIKE:
+                    require(required, node.getPrimaryLabel(), name, IndexKind.TEXT);
+                    predicates.add("n.`" + name + "` CONTAINS $" + name);
+                    break;
+                case SIMPLE_PROPERTY:
+                case IN:
+                case STARTING_WITH:
+                case BETWEEN:
+                case GREATER_THAN:
+                case GREATER_THAN_EQUAL:
+                case LESS_THAN:
+                case LESS_THAN_EQUAL:
+                case AFTER:
+                case BEFORE:
+                    require(required, node.getPrimaryLabel(), name, IndexKind.RANGE);
+                    predicates.add("n.`" + name + "` = $" + name);
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (!predicates.isEmpty()) {
+            lookups.add("MATCH (n:`" + node.getPrimaryLabel() + "`) WHERE " +
+                    String.join(" AND ", predicates) + " RETURN n");
+        }
+    }
+
+    private void collectFromCypher(String cypher, Map<String, Set<IndexKind>> required, List<String> lookups) {
+        if (cypher.contains("#{")) {
+            // SpEL queries cannot be EXPLAINed or read reliably without their evaluation context
+            return;
+        }
+        Map<String, String> labels = new HashMap<>();
+        Matcher binding = LABEL_BINDING.matcher(cypher);
+        while (binding.find()) {
+            labels.putIfAbsent(binding.group(1), binding.group(2));
+        }
+
+        boolean indexable = false;
+        Matcher predicate = PROPERTY_PREDICATE.matcher(cypher);
+        while (predicate.find()) {
+            String label = labels.get(predicate.group(1));
+            if (label != null) {
+                String operator = predicate.group(3).toUpperCase(Locale.ROOT);
+                boolean text = operator.startsWith("ENDS") || operator.equals("CONTAINS");
+                require(required, label, predicate.group(2), text ? IndexKind.TEXT : IndexKind.RANGE);
+                indexable = true;
+            }
+        }
+        Matcher inline = INLINE_PROPERTIES.matcher(cypher);
+        while (inline.find()) {
+            Matcher key = MAP_KEY.matcher(inline.group(2));
+            while (key.find()) {
+                require(required, inline.group(1), key.group(1), IndexKind.RANGE);
+                indexable = true;
+            }
+        }
+        if (indexable) {
+            lookups.add(cypher);
+        }
+    }
+
+    private void createSchema(Map<String, Set<IndexKind>> required) {
+        for (Map.Entry<String, Set<IndexKind>> entry : required.entrySet()) {
+            String[] labelAndProperty = entry.getKey().split("\\.", 2);
+            String label = labelAndProperty[0];
+            String property = labelAndProperty[1];
+            Set<IndexKind> kinds = entry.getValue();
+            String suffix = (label + "_" + property).toLowerCase(Locale.ROOT);
+
+            if (kinds.contains(IndexKind.UNIQUE)) {
+                // The constraint's backing range index also serves equality and range lookups; a plain range
+                // index from an earlier run on the same property would block the constraint, so it goes first
+                execute("DROP INDEX idx_" + suffix + " IF EXISTS");
+                execute("CREATE CONSTRAINT uniq_" + suffix + " IF NOT EXISTS FOR (n:`" + label + "`) " +
+                        "REQUIRE n.`" + property + "` IS UNIQUE");
+            } else if (kinds.contains(IndexKind.RANGE)) {
+                execute("CREATE INDEX idx_" + suffix + " IF NOT EXISTS FOR (n:`" + label + "`) " +
+                        "ON (n.`" + property + "`)");
+            }
+            if (kinds.contains(IndexKind.TEXT)) {
+                execute("CREATE TEXT INDEX txt_" + suffix + " IF NOT EXISTS FOR (n:`" + label + "`) " +
+                        "ON (n.`" + property + "`)");
+            }
+        }
+    }
+
+    private void execute(String statement) {
+        try {
+            neo4jClient.query(statement).run();
+        } catch (RuntimeException e) {
+            // e.g. existing duplicates preventing a uniqueness constraint; report and keep starting up
+            log.warn("Schema statement failed: {}: {}", statement, e.getMessage());
+        }
+    }
+
+    private static void require(Map<String, Set<IndexKind>> required, String label, String property, IndexKind kind) {
+        required.computeIfAbsent(label + "." + property, key -> EnumSet.noneOf(IndexKind.class)).add(kind);
+    }
+
+    private static boolean containsScan(Plan plan) {
+        String operator = plan.operatorType();
+        if (operator.startsWith("NodeByLabelScan") || operator.startsWith("AllNodesScan")) {
+            return true;
+        }
+        return plan.children().stream().anyMatch(SchemaIndexInitializer::containsScan);
+    }
+}
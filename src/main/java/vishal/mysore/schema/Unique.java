@@ -0,0 +1,17 @@
+package vishal.mysore.schema;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a node property that must be unique, so {@link SchemaIndexInitializer} creates a uniqueness constraint
+ * for it, as it does for assigned ids. Use it for properties that queries MERGE on.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface Unique {
+}
@@ -2,7 +2,9 @@ package vishal.mysore.supermart;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.neo4j.repository.config.EnableNeo4jRepositories;
+import vishal.mysore.schema.SchemaIndexInitializer;
 
 @SpringBootApplication(scanBasePackages = {
     "vishal.mysore.supermart.config",
@@ -12,6 +14,7 @@ import org.springframework.data.neo4j.repository.config.EnableNeo4jRepositories;
     "vishal.mysore.supermart.util"
 })
 @EnableNeo4jRepositories(basePackages = "vishal.mysore.supermart.repository")
+@Import(SchemaIndexInitializer.class)
 public class SupermartApplication {
     public static void main(String[] args) {
         SpringApplication.run(SupermartApplication.class, args);
@@ -2,10 +2,13 @@ package vishal.mysore.yoga;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.neo4j.repository.config.EnableNeo4jRepositories;
+import vishal.mysore.schema.SchemaIndexInitializer;
 
 @SpringBootApplication
 @EnableNeo4jRepositories
+@Import(SchemaIndexInitializer.class)
 public class YogaApplication {
     public static void main(String[] args) {
         SpringApplication.run(YogaApplication.class, args);
@@ -0,0 +1,223 @@
+package vishal.mysore.fd.ingest;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Fraud Detection - Transfer Ingest Pipeline Tests")
+class TransferIngestPipelineTest {
+
+    /**
+     * Records the sequence numbers it sees, failing the first {@code failures} batches it is handed
+     */
+    private static class RecordingHandler implements TransferEventHandler {
+        private final List<Long> sequences = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicInteger failures;
+        private final AtomicInteger largestBatch = new AtomicInteger();
+
+        RecordingHandler(int failures) {
+            this.failures = new AtomicInteger(failures);
+        }
+
+        @Override
+        public void onBatch(List<TransferEvent> events) {
+            if (failures.getAndDecrement() > 0) {
+                throw new IllegalStateException("Simulated stage failure");
+            }
+            largestBatch.accumulateAndGet(events.size(), Math::max);
+            for (TransferEvent event : events) {
+                sequences.add(event.getSequence());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should hand every event to every stage in order and in bounded batches")
+    void testDeliversEveryEventToEveryStage() {
+        RecordingHandler writer = new RecordingHandler(0);
+        RecordingHandler detector = new RecordingHandler(0);
+        TransferIngestPipeline pipeline = new TransferIngestPipeline(List.of(writer, detector), 256, 32, 1, 3, 1);
+        pipeline.start();
+
+        for (int i = 0; i < 10_000; i++) {
+            pipeline.publish("A" + i, "B" + i, i, i);
+        }
+        pipeline.stop();
+
+        assertInSequence(writer.sequences, 10_000);
+        assertInSequence(detector.sequences, 10_000);
+        assertTrue(writer.largestBatch.get() <= 32);
+        assertEquals(0, pipeline.backlog());
+    }
+
+    @Test
+    @DisplayName("Should retry a failed batch without losing or repeating events")
+    void testRetriesFailedBatch() {
+        RecordingHandler flaky = new RecordingHandler(2);
+        RecordingHandler healthy = new RecordingHandler(0);
+        TransferIngestPipeline pipeline = new TransferIngestPipeline(List.of(flaky, healthy), 64, 16, 1, 3, 1);
+        pipeline.start();
+
+        for (int i = 0; i < 1_000; i++) {
+            pipeline.publish("A", "B", i, i);
+        }
+        pipeline.stop();
+
+        assertFalse(pipeline.isFailed());
+        assertInSequence(flaky.sequences, 1_000);
+        assertInSequence(healthy.sequences, 1_000);
+    }
+
+    @Test
+    @DisplayName("Should stop a stage that keeps failing and reject further events")
+    void testStopsAfterRetriesAreExhausted() throws InterruptedException {
+        RecordingHandler broken = new RecordingHandler(Integer.MAX_VALUE);
+        RecordingHandler healthy = new RecordingHandler(0);
+        TransferIngestPipeline pipeline = new TransferIngestPipeline(List.of(broken, healthy), 16, 4, 1, 3, 1);
+        pipeline.start();
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(pipeline.tryPublish("A", "B", i, i));
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!pipeline.isFailed() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+
+        assertTrue(pipeline.isFailed());
+        assertThrows(IllegalStateException.class, () -> pipeline.publish("A", "B", 4, 4));
+        // The failed batch is never released
+        assertEquals(4, pipeline.backlog());
+        pipeline.stop();
+        assertTrue(broken.sequences.isEmpty());
+        assertInSequence(healthy.sequences, 4);
+    }
+
+    @Test
+    @DisplayName("Should release a producer blocked on a full ring when a stage fails")
+    void testFailureReleasesBlockedProducer() throws InterruptedException {
+        CountDownLatch failNow = new CountDownLatch(1);
+        TransferEventHandler broken = events -> {
+            try {
+                failNow.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new IllegalStateException("Simulated stage failure");
+        };
+        RecordingHandler healthy = new RecordingHandler(0);
+        TransferIngestPipeline pipeline = new TransferIngestPipeline(List.of(broken, healthy), 4, 4, 1, 1, 1);
+        pipeline.start();
+
+        AtomicReference<RuntimeException> rejection = new AtomicReference<>();
+        CountDownLatch returned = new CountDownLatch(1);
+        Thread producer = new Thread(() -> {
+            try {
+                for (int i = 0; i < 5; i++) {
+                    pipeline.publish("A", "B", i, i);
+                }
+            } catch (IllegalStateException e) {
+                rejection.set(e);
+            }
+            returned.countDown();
+        });
+        producer.start();
+
+        // The broken stage holds all four slots, so the fifth event waits for one
+        assertFalse(returned.await(100, TimeUnit.MILLISECONDS));
+        failNow.countDown();
+        assertTrue(returned.await(5, TimeUnit.SECONDS), "Producer should not wait on a failed stage");
+        producer.join();
+
+        assertNotNull(rejection.get());
+        assertTrue(pipeline.isFailed());
+        pipeline.stop();
+        assertFalse(pipeline.isRunning());
+        assertInSequence(healthy.sequences, 4);
+    }
+
+    @Test
+    @DisplayName("Should drain everything published by concurrent producers on stop")
+    void testStopDrainsConcurrentProducers() throws InterruptedException {
+        RecordingHandler stage = new RecordingHandler(0);
+        TransferIngestPipeline pipeline = new TransferIngestPipeline(List.of(stage), 128, 16, 5, 3, 1);
+        pipeline.start();
+
+        AtomicLong accepted = new AtomicLong();
+        Thread[] producers = new Thread[4];
+        for (int p = 0; p < producers.length; p++) {
+            producers[p] = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 100_000; i++) {
+                        pipeline.publish("A", "B", i, i);
+                        accepted.incrementAndGet();
+                    }
+                } catch (IllegalStateException stopped) {
+                    // The pipeline stopped accepting while this producer was still running
+                }
+            });
+            producers[p].start();
+        }
+        Thread.sleep(20);
+        pipeline.stop();
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        assertInSequence(stage.sequences, accepted.get());
+    }
+
+    @Test
+    @DisplayName("Should reject events before the pipeline starts")
+    void testRejectsEventsWhenNotRunning() {
+        TransferIngestPipeline pipeline = new TransferIngestPipeline(List.of(new RecordingHandler(0)), 16, 4, 1, 3, 1);
+
+        assertThrows(IllegalStateException.class, () -> pipeline.publish("A", "B", 1, 1));
+        assertThrows(IllegalStateException.class, () -> pipeline.tryPublish("A", "B", 1, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> new TransferIngestPipeline(List.of(new RecordingHandler(0)), 16, 32, 1, 3, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> new TransferIngestPipeline(List.of(new RecordingHandler(0)), 16, 4, 1, 0, 1));
+    }
+
+    @Test
+    @DisplayName("Should sustain more than 100k events per second through two stages")
+    void testThroughput() {
+        AtomicLong writerEvents = new AtomicLong();
+        AtomicLong detectorEvents = new AtomicLong();
+        TransferEventHandler writer = events -> writerEvents.addAndGet(events.size());
+        TransferEventHandler detector = events -> detectorEvents.addAndGet(events.size());
+        TransferIngestPipeline pipeline = new TransferIngestPipeline(List.of(writer, detector), 65536, 1000, 5, 3, 1);
+        pipeline.start();
+
+        int events = 1_000_000;
+        long start = System.nanoTime();
+        for (int i = 0; i < events; i++) {
+            pipeline.publish("A", "B", i, i);
+        }
+        pipeline.stop();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        assertEquals(events, writerEvents.get());
+        assertEquals(events, detectorEvents.get());
+        double eventsPerSecond = events / seconds;
+        assertTrue(eventsPerSecond > 100_000, "Only " + (long) eventsPerSecond + " events per second");
+    }
+
+    private static void assertInSequence(List<Long> sequences, long expected) {
+        assertEquals(expected, sequences.size());
+        for (int i = 0; i < sequences.size(); i++) {
+            assertEquals(i, sequences.get(i).longValue());
+        }
+    }
+}
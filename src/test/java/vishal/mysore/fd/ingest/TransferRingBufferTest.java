@@ -0,0 +1,163 @@
+package vishal.mysore.fd.ingest;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Fraud Detection - Transfer Ring Buffer Tests")
+class TransferRingBufferTest {
+
+    @Test
+    @DisplayName("Should reject ring sizes that are not a power of two")
+    void testRejectsInvalidSize() {
+        assertThrows(IllegalArgumentException.class, () -> new TransferRingBuffer(6, 1));
+        assertThrows(IllegalArgumentException.class, () -> new TransferRingBuffer(1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new TransferRingBuffer(8, 0));
+    }
+
+    @Test
+    @DisplayName("Should reuse slots across many laps of the ring")
+    void testWraparound() {
+        TransferRingBuffer ring = new TransferRingBuffer(4, 1);
+
+        for (long sequence = 0; sequence < 4 * 25; sequence++) {
+            assertEquals(sequence, ring.publish("A" + sequence, "B" + sequence, sequence, 1000 + sequence));
+            assertEquals(sequence, ring.highestPublished(sequence));
+
+            TransferEvent event = ring.get(sequence);
+            assertEquals(sequence, event.getSequence());
+            assertEquals("A" + sequence, event.getFromAccount());
+            assertEquals("B" + sequence, event.getToAccount());
+            assertEquals((double) sequence, event.getAmount());
+            assertEquals(1000 + sequence, event.getTimestamp());
+            ring.markConsumed(0, sequence);
+        }
+        assertEquals(0, ring.backlog());
+    }
+
+    @Test
+    @DisplayName("Should reject tryPublish while the slowest stage is a full ring behind")
+    void testTryPublishRejectsWhenFull() {
+        TransferRingBuffer ring = new TransferRingBuffer(4, 2);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.tryPublish("A", "B", i, i));
+        }
+        assertFalse(ring.tryPublish("A", "B", 4, 4));
+        assertEquals(4, ring.backlog());
+
+        // One stage catching up is not enough: the slot is still held by the other
+        ring.markConsumed(0, 3);
+        assertFalse(ring.tryPublish("A", "B", 4, 4));
+
+        ring.markConsumed(1, 0);
+        assertTrue(ring.tryPublish("A", "B", 4, 4));
+        assertFalse(ring.tryPublish("A", "B", 5, 5));
+        assertEquals(4, ring.highestPublished(4));
+    }
+
+    @Test
+    @DisplayName("Should block publish until a slot is released")
+    void testPublishBlocksUnderBackpressure() throws InterruptedException {
+        TransferRingBuffer ring = new TransferRingBuffer(4, 1);
+        for (int i = 0; i < 4; i++) {
+            ring.publish("A", "B", i, i);
+        }
+
+        CountDownLatch published = new CountDownLatch(1);
+        Thread producer = new Thread(() -> {
+            ring.publish("A", "B", 4, 4);
+            published.countDown();
+        });
+        producer.start();
+
+        assertFalse(published.await(100, TimeUnit.MILLISECONDS));
+        assertEquals(3, ring.highestPublished(0));
+
+        ring.markConsumed(0, 0);
+        assertTrue(published.await(5, TimeUnit.SECONDS));
+        producer.join();
+        assertEquals(4, ring.highestPublished(4));
+        assertEquals(4.0, ring.get(4).getAmount());
+    }
+
+    @Test
+    @DisplayName("Should release a blocked publish with an exception once the ring is closed")
+    void testCloseReleasesBlockedPublish() throws InterruptedException {
+        TransferRingBuffer ring = new TransferRingBuffer(4, 1);
+        for (int i = 0; i < 4; i++) {
+            ring.publish("A", "B", i, i);
+        }
+
+        CountDownLatch rejected = new CountDownLatch(1);
+        Thread producer = new Thread(() -> {
+            try {
+                ring.publish("A", "B", 4, 4);
+            } catch (IllegalStateException e) {
+                rejected.countDown();
+            }
+        });
+        producer.start();
+
+        assertFalse(rejected.await(100, TimeUnit.MILLISECONDS));
+        ring.close();
+        assertTrue(rejected.await(5, TimeUnit.SECONDS));
+        producer.join();
+        assertTrue(ring.isClosed());
+        assertEquals(3, ring.highestPublished(0));
+    }
+
+    @Test
+    @DisplayName("Should deliver every event of concurrent producers exactly once and in sequence")
+    void testMultipleProducers() throws InterruptedException {
+        int producers = 4;
+        int perProducer = 50_000;
+        TransferRingBuffer ring = new TransferRingBuffer(1024, 1);
+
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            String from = "P" + p;
+            threads[p] = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    ring.publish(from, "B", i, i);
+                }
+            });
+            threads[p].start();
+        }
+
+        long total = (long) producers * perProducer;
+        long[] expectedNext = new long[producers];
+        AtomicLong consumedCount = new AtomicLong();
+        long next = 0;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (next < total && System.nanoTime() < deadline) {
+            long available = ring.highestPublished(next);
+            for (long sequence = next; sequence <= available; sequence++) {
+                TransferEvent event = ring.get(sequence);
+                assertEquals(sequence, event.getSequence());
+                int producer = Integer.parseInt(event.getFromAccount().substring(1));
+                // Each producer's own events keep their order
+                assertEquals((double) expectedNext[producer]++, event.getAmount());
+                consumedCount.incrementAndGet();
+            }
+            if (available >= next) {
+                ring.markConsumed(0, available);
+                next = available + 1;
+            }
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(total, consumedCount.get());
+        for (long count : expectedNext) {
+            assertEquals(perProducer, count);
+        }
+        assertEquals(total - 1, ring.claimed());
+        assertEquals(0, ring.backlog());
+    }
+}
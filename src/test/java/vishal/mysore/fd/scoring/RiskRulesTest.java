@@ -0,0 +1,147 @@
+package vishal.mysore.fd.scoring;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import vishal.mysore.fd.model.CycleDetection;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Fraud Detection - Risk Rules Tests")
+class RiskRulesTest {
+
+    private static final String AMOUNT_AND_LENGTH_RULES =
+            "weights=cycleLength/10*0.4 + totalAmount/500000*0.6; " +
+            "high=cycleLength>=5 | totalAmount>100000; medium=cycleLength>=3 | totalAmount>50000";
+
+    @Test
+    @DisplayName("Should parse every section and keep the features the rules use")
+    void testParse() {
+        RiskRules rules = RiskRules.parse(" base=0.1; weights = totalAmount / 1000 * 0.5 ; medium=cycleLength>4;; ");
+
+        assertEquals("base=0.1; weights = totalAmount / 1000 * 0.5 ; medium=cycleLength>4;;", rules.getSpec());
+        assertEquals(EnumSet.of(CycleFeature.CYCLE_LENGTH, CycleFeature.TOTAL_AMOUNT), rules.getFeatures());
+
+        CycleDetection cycle = cycle(5, 500.0);
+        assertTrue(rules.apply(cycle));
+        assertEquals(0.1 + 0.25, cycle.getRiskScore(), 1e-12);
+        assertEquals("MEDIUM", cycle.getSeverity());
+
+        RiskRules fixed = RiskRules.parse("base=0.9; severity=HIGH");
+        assertTrue(fixed.getFeatures().isEmpty());
+        CycleDetection bare = new CycleDetection();
+        assertTrue(fixed.apply(bare));
+        assertEquals(0.9, bare.getRiskScore(), 0.0);
+        assertEquals("HIGH", bare.getSeverity());
+    }
+
+    @Test
+    @DisplayName("Should reject malformed specs with a message naming the bad part")
+    void testParseErrors() {
+        assertParseError("base", "Expected key=value");
+        assertParseError("base=high", "Expected a number");
+        assertParseError("threshold=3", "Unknown risk rules section");
+        assertParseError("severity=CRITICAL", "Unknown severity");
+        assertParseError("weights=cycleLength*0.4", "Expected feature/scale*weight");
+        assertParseError("weights=cycleLength/0*0.4", "Scale must be positive");
+        assertParseError("weights=hops/10*0.4", "Unknown feature");
+        assertParseError("high=cycleLength<5", "Expected feature>=threshold or feature>threshold");
+        assertParseError("medium=totalAmount>=-1", "Expected feature>=threshold or feature>threshold");
+    }
+
+    @Test
+    @DisplayName("Should reproduce the original length and amount formulas")
+    void testDefaultRulesMatchOriginalFormulas() {
+        RiskRules rules = RiskRules.parse(AMOUNT_AND_LENGTH_RULES);
+        Random random = new Random(111);
+        for (int i = 0; i < 10_000; i++) {
+            int length = random.nextInt(15);
+            double amount = random.nextInt(4) == 0 ? 50000 * random.nextInt(4) : random.nextDouble() * 700000;
+            CycleDetection cycle = cycle(length, amount);
+
+            assertTrue(rules.apply(cycle));
+            assertEquals(Math.min(length / 10.0, 1.0) * 0.4 + Math.min(amount / 500000.0, 1.0) * 0.6,
+                    cycle.getRiskScore(), 1e-12);
+            String severity = length >= 5 || amount > 100000 ? "HIGH"
+                    : length >= 3 || amount > 50000 ? "MEDIUM" : "LOW";
+            assertEquals(severity, cycle.getSeverity());
+        }
+    }
+
+    @Test
+    @DisplayName("Should score a column batch exactly as applying the rules one cycle at a time")
+    void testScoreAgreesWithApply() {
+        Random random = new Random(112);
+        String[] specs = {
+                AMOUNT_AND_LENGTH_RULES,
+                "weights=cycleLength/10*1.0; high=cycleLength>=5; medium=cycleLength>=3",
+                "base=0.85; severity=HIGH",
+                "base=0.2; severity=MEDIUM; weights=totalAmount/1000*0.3 + cycleLength/4*0.2; high=totalAmount>=750",
+        };
+        for (String spec : specs) {
+            RiskRules rules = RiskRules.parse(spec);
+            CycleColumns batch = new CycleColumns(64);
+            List<CycleDetection> cycles = new ArrayList<>();
+            for (int round = 0; round < 50; round++) {
+                int rows = 1 + random.nextInt(batch.capacity());
+                double[] values = new double[CycleFeature.values().length];
+                for (int row = 0; row < rows; row++) {
+                    CycleDetection cycle = cycle(random.nextInt(12), random.nextInt(3) == 0
+                            ? 750.0 * random.nextInt(3) : random.nextDouble() * 200000);
+                    for (CycleFeature feature : CycleFeature.values()) {
+                        values[feature.ordinal()] = feature.valueOf(cycle);
+                    }
+                    batch.add(row, values, Double.NaN, RiskRules.NO_SEVERITY);
+                    cycles.add(cycle);
+                }
+
+                double[] scores = new double[batch.capacity()];
+                byte[] severities = new byte[batch.capacity()];
+                rules.score(batch, scores, severities);
+                for (int row = 0; row < rows; row++) {
+                    CycleDetection cycle = cycles.get((int) batch.id(row));
+                    assertTrue(rules.apply(cycle));
+                    assertEquals(cycle.getRiskScore(), scores[row], 0.0, spec);
+                    assertEquals(cycle.getSeverity(), RiskRules.severityName(severities[row]));
+                }
+                batch.clear();
+                cycles.clear();
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should leave a cycle unscored when it lacks a feature the rules use")
+    void testApplySkipsMissingFeatures() {
+        RiskRules rules = RiskRules.parse(AMOUNT_AND_LENGTH_RULES);
+        CycleDetection cycle = cycle(4, null);
+
+        assertFalse(rules.apply(cycle));
+        assertNull(cycle.getRiskScore());
+        assertNull(cycle.getSeverity());
+    }
+
+    @Test
+    @DisplayName("Should map severities to codes and back")
+    void testSeverityCodes() {
+        for (String severity : new String[]{"LOW", "MEDIUM", "HIGH"}) {
+            assertEquals(severity, RiskRules.severityName(RiskRules.severityCode(severity)));
+        }
+        assertEquals(RiskRules.NO_SEVERITY, RiskRules.severityCode(null));
+        assertEquals(RiskRules.NO_SEVERITY, RiskRules.severityCode("high"));
+        assertNull(RiskRules.severityName(RiskRules.NO_SEVERITY));
+    }
+
+    private static CycleDetection cycle(Integer length, Double amount) {
+        return new CycleDetection("CIRCULAR_MONEY_FLOW", "test", length, amount, null, null);
+    }
+
+    private static void assertParseError(String spec, String message) {
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class, () -> RiskRules.parse(spec));
+        assertTrue(error.getMessage().startsWith(message), error.getMessage());
+    }
+}
@@ -0,0 +1,147 @@
+package vishal.mysore.fd.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Answers;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.neo4j.core.Neo4jClient;
+import vishal.mysore.fd.model.CycleDetection;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Fraud Detection - Cycle Metrics Store Tests")
+class CycleMetricsStoreTest {
+
+    private static final double DELTA = 1e-9;
+
+    @Mock
+    private CycleDetectionStatistics cycleDetectionStatistics;
+
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    private Neo4jClient neo4jClient;
+
+    private CycleMetricsStore store;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        store = new CycleMetricsStore(cycleDetectionStatistics, neo4jClient, 24, 60_000);
+    }
+
+    @Test
+    @DisplayName("Should count created cycles into their group and the current hour")
+    void testRecordCreated() {
+        store.recordCreated(cycle("CIRCULAR_MONEY_FLOW", "HIGH", 1000.0, 0.9, "ACC1,ACC2"));
+        store.recordCreated(cycle("CIRCULAR_MONEY_FLOW", "MEDIUM", 500.0, 0.6, "ACC1,ACC3"));
+        store.recordCreated(cycle("TEMPORAL_CYCLE", "LOW", null, null, null));
+
+        CycleDetectionSummary summary = store.snapshot();
+        assertEquals(3, summary.getTotalCycles());
+        assertEquals(1500.0, summary.getTotalAmount(), DELTA);
+        assertEquals(0.75, summary.getAverageRiskScore(), DELTA);
+        assertEquals(1, summary.getHighRiskCycles());
+        assertEquals(1, summary.getMediumRiskCycles());
+        assertEquals(0, summary.getLowRiskCycles());
+        assertEquals(Map.of("CIRCULAR_MONEY_FLOW", 2L, "TEMPORAL_CYCLE", 1L), summary.getCountsByPattern());
+        assertEquals(Map.of("DETECTED", 3L), summary.getCountsByStatus());
+
+        CycleMetricsStore.RecentActivity recent = store.recent(1);
+        assertEquals(3, recent.getTotalCycles());
+        assertEquals(1500.0, recent.getTotalAmount(), DELTA);
+        assertEquals(Map.of("HIGH", 1L, "MEDIUM", 1L, "LOW", 1L), recent.getCountsBySeverity());
+        assertEquals(List.of("ACC1"), recent.getTopAccounts(1));
+    }
+
+    @Test
+    @DisplayName("Should move a changed cycle's contribution from its old values to its new ones")
+    void testRecordChanged() {
+        CycleDetection cycle = cycle("CIRCULAR_MONEY_FLOW", "MEDIUM", 1000.0, 0.6, "ACC1,ACC2");
+        store.recordCreated(cycle);
+
+        CycleMetricsStore.Contribution before = CycleMetricsStore.Contribution.of(cycle);
+        cycle.setStatus("CONFIRMED");
+        cycle.setSeverity("HIGH");
+        cycle.setRiskScore(0.95);
+        cycle.setTotalAmount(1200.0);
+        store.recordChanged(before, cycle);
+
+        CycleDetectionSummary summary = store.snapshot();
+        assertEquals(1, summary.getTotalCycles());
+        assertEquals(1200.0, summary.getTotalAmount(), DELTA);
+        assertEquals(0.95, summary.getAverageRiskScore(), DELTA);
+        assertEquals(1, summary.getHighRiskCycles());
+        assertEquals(0, summary.getMediumRiskCycles());
+        // The emptied DETECTED group is left out
+        assertEquals(Map.of("CONFIRMED", 1L), summary.getCountsByStatus());
+        assertEquals(1, summary.getConfirmedCycles());
+        assertEquals(1200.0, summary.getConfirmedAmount(), DELTA);
+
+        CycleMetricsStore.RecentActivity recent = store.recent(1);
+        assertEquals(1, recent.getTotalCycles());
+        assertEquals(1200.0, recent.getTotalAmount(), DELTA);
+        assertEquals(Map.of("HIGH", 1L), recent.getCountsBySeverity());
+    }
+
+    @Test
+    @DisplayName("Should replace every figure with the database's on reseed")
+    void testReseed() {
+        store.recordCreated(cycle("TEMPORAL_CYCLE", "LOW", 10.0, 0.1, "ACC9"));
+
+        Map<String, Object> group = new HashMap<>();
+        group.put("pattern", "CIRCULAR_MONEY_FLOW");
+        group.put("status", "INVESTIGATING");
+        group.put("cycles", 4L);
+        group.put("amount", 4000.0);
+        group.put("amountCount", 4L);
+        group.put("riskScoreSum", 2.8);
+        group.put("riskScoreCount", 4L);
+        group.put("cycleLengthSum", 12.0);
+        group.put("cycleLengthCount", 4L);
+        group.put("highRisk", 1L);
+        group.put("mediumRisk", 3L);
+        group.put("lowRisk", 0L);
+        when(cycleDetectionStatistics.fetchGroups()).thenReturn(List.of(group));
+
+        LocalDateTime hour = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+        when(neo4jClient.query(contains("c.severity")).bind(any()).to("since").fetch().all()).thenReturn(List.of(
+                Map.of("hour", hour, "pattern", "CIRCULAR_MONEY_FLOW", "severity", "MEDIUM",
+                        "cycles", 4L, "amount", 4000.0),
+                // Older than the retained window, so not kept
+                Map.of("hour", hour.minusHours(48), "pattern", "CIRCULAR_MONEY_FLOW", "severity", "HIGH",
+                        "cycles", 7L, "amount", 7000.0)));
+        when(neo4jClient.query(contains("UNWIND")).bind(any()).to("since").fetch().all()).thenReturn(List.of(
+                Map.of("hour", hour, "account", "ACC5", "cycles", 3L)));
+
+        store.reseed();
+
+        CycleDetectionSummary summary = store.snapshot();
+        assertEquals(4, summary.getTotalCycles());
+        assertEquals(4000.0, summary.getTotalAmount(), DELTA);
+        assertEquals(0.7, summary.getAverageRiskScore(), DELTA);
+        assertEquals(3.0, summary.getAverageCycleLength(), DELTA);
+        assertEquals(Map.of("CIRCULAR_MONEY_FLOW", 4L), summary.getCountsByPattern());
+
+        CycleMetricsStore.RecentActivity recent = store.recent(24);
+        assertEquals(4, recent.getTotalCycles());
+        assertEquals(4000.0, recent.getTotalAmount(), DELTA);
+        assertEquals(Map.of("CIRCULAR_MONEY_FLOW", 4L), recent.getCountsByPattern());
+        assertEquals(List.of("ACC5"), recent.getTopAccounts(5));
+    }
+
+    private static CycleDetection cycle(String pattern, String severity, Double amount, Double riskScore,
+                                        String accounts) {
+        CycleDetection cycle = new CycleDetection(pattern, "Test cycle", 3, amount, severity, riskScore);
+        cycle.setAffectedAccounts(accounts);
+        return cycle;
+    }
+}
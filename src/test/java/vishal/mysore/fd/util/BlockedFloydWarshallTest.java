@@ -0,0 +1,97 @@
+package vishal.mysore.fd.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import vishal.mysore.fd.util.CycleDetectionAlgorithm.BlockedFloydWarshall;
+import vishal.mysore.fd.util.CycleDetectionAlgorithm.CompactGraph;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Fraud Detection - Blocked Floyd-Warshall Tests")
+class BlockedFloydWarshallTest {
+
+    @Test
+    @DisplayName("Should match plain Floyd-Warshall for every block size")
+    void testMatchesPlainFloydWarshall() {
+        Random random = new Random(33);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int round = 0; round < 200; round++) {
+                int n = 1 + random.nextInt(40);
+                CompactGraph graph = RandomGraphs.graph(random, n, random.nextInt(3 * n + 1), 1, 20);
+                double[][] reference = RandomGraphs.shortestPaths(graph);
+
+                for (int blockSize : new int[]{1, 3, 8, BlockedFloydWarshall.DEFAULT_BLOCK_SIZE}) {
+                    BlockedFloydWarshall blocked = new BlockedFloydWarshall(graph, pool, blockSize);
+                    blocked.computeShortestPaths();
+                    assertFalse(blocked.hasNegativeCycle());
+                    assertTrue(blocked.getNegativeCycles().isEmpty());
+
+                    for (int from = 0; from < n; from++) {
+                        for (int to = 0; to < n; to++) {
+                            assertEquals(reference[from][to], blocked.distance(from, to));
+                            int[] path = blocked.getPath(from, to);
+                            if (reference[from][to] == Double.POSITIVE_INFINITY) {
+                                assertNull(path);
+                            } else {
+                                assertEquals(from, path[0]);
+                                assertEquals(to, path[path.length - 1]);
+                                assertEquals(reference[from][to], pathWeight(graph, path));
+                            }
+                        }
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Should find negative cycles exactly when plain Floyd-Warshall does")
+    void testNegativeCycles() {
+        Random random = new Random(34);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int round = 0; round < 300; round++) {
+                int n = 1 + random.nextInt(12);
+                CompactGraph graph = RandomGraphs.graph(random, n, random.nextInt(3 * n + 1), -4, 10);
+                boolean expected = RandomGraphs.anyNegativeCycle(RandomGraphs.shortestPaths(graph), null, -1);
+
+                BlockedFloydWarshall blocked = new BlockedFloydWarshall(graph, pool, 1 + random.nextInt(4));
+                blocked.computeShortestPaths();
+                assertEquals(expected, blocked.hasNegativeCycle());
+
+                List<int[]> cycles = blocked.getNegativeCycles();
+                assertEquals(expected, !cycles.isEmpty());
+                for (int[] cycle : cycles) {
+                    assertTrue(RandomGraphs.isNegativeCycle(graph, cycle));
+                }
+                assertEquals(expected, !blocked.getNegativeCycle().isEmpty());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject bad block sizes")
+    void testRejectsBadBlockSize() {
+        CompactGraph graph = new CompactGraph.Builder().addEdge("A", "B", 1).build();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new BlockedFloydWarshall(graph, ForkJoinPool.commonPool(), 0));
+    }
+
+    private static double pathWeight(CompactGraph graph, int[] path) {
+        double total = 0;
+        for (int i = 0; i + 1 < path.length; i++) {
+            total += RandomGraphs.cheapestEdge(graph, path[i], path[i + 1]);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,187 @@
+package vishal.mysore.fd.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import vishal.mysore.fd.util.CycleDetectionAlgorithm.CompactGraph;
+import vishal.mysore.fd.util.CycleDetectionAlgorithm.Edge;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Fraud Detection - Compact Graph Tests")
+class CompactGraphTest {
+
+    @Test
+    @DisplayName("Should lay out every edge of an edge list once, in insertion order per node")
+    void testFromEdgesMatchesEdgeList() {
+        Random random = new Random(1);
+        for (int round = 0; round < 50; round++) {
+            int n = 1 + random.nextInt(12);
+            List<String> nodes = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                nodes.add("acct-" + i);
+            }
+            List<Edge> edges = new ArrayList<>();
+            for (int e = random.nextInt(40); e > 0; e--) {
+                edges.add(new Edge(nodes.get(random.nextInt(n)), nodes.get(random.nextInt(n)), random.nextDouble()));
+            }
+
+            CompactGraph graph = CompactGraph.fromEdges(nodes, edges);
+            assertEquals(n, graph.nodeCount());
+            assertEquals(edges.size(), graph.edgeCount());
+
+            boolean[] laidOut = new boolean[edges.size()];
+            for (int u = 0; u < n; u++) {
+                assertEquals(nodes.get(u), graph.name(u));
+                assertEquals(u, graph.id(nodes.get(u)));
+                assertEquals(graph.endEdge(u) - graph.firstEdge(u), graph.outDegree(u));
+                int previous = -1;
+                for (int e = graph.firstEdge(u); e < graph.endEdge(u); e++) {
+                    int source = graph.sourceEdge(e);
+                    assertTrue(source > previous, "Adjacency should keep insertion order");
+                    previous = source;
+                    assertFalse(laidOut[source]);
+                    laidOut[source] = true;
+
+                    Edge edge = edges.get(source);
+                    assertEquals(edge.from, graph.name(u));
+                    assertEquals(edge.to, graph.name(graph.target(e)));
+                    assertEquals(edge.weight, graph.weight(e));
+                }
+            }
+            for (boolean edgeLaidOut : laidOut) {
+                assertTrue(edgeLaidOut);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should intern adjacency map keys first and give every edge weight 1")
+    void testFromAdjacency() {
+        Map<String, List<String>> adjacency = new LinkedHashMap<>();
+        adjacency.put("C", List.of("A", "D"));
+        adjacency.put("A", List.of("C"));
+        adjacency.put("B", List.of());
+
+        CompactGraph graph = CompactGraph.fromAdjacency(adjacency);
+
+        assertEquals(List.of("C", "A", "B", "D"), graph.names(new int[]{0, 1, 2, 3}));
+        assertEquals(3, graph.edgeCount());
+        assertEquals(2, graph.outDegree(graph.id("C")));
+        assertEquals(0, graph.outDegree(graph.id("D")));
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            assertEquals(1.0, graph.weight(e));
+        }
+        assertEquals(-1, graph.id("unknown"));
+    }
+
+    @Test
+    @DisplayName("Should reverse every edge and keep its weight and insertion position")
+    void testTranspose() {
+        Random random = new Random(2);
+        for (int round = 0; round < 50; round++) {
+            CompactGraph graph = RandomGraphs.graph(random, 1 + random.nextInt(10), random.nextInt(40), -5, 5);
+            CompactGraph reverse = graph.transpose();
+            assertEquals(graph.edgeCount(), reverse.edgeCount());
+
+            // Keyed by insertion position, every edge must appear reversed exactly once
+            int[][] forward = describe(graph);
+            int[][] backward = describe(reverse);
+            for (int source = 0; source < graph.edgeCount(); source++) {
+                assertEquals(forward[source][0], backward[source][1]);
+                assertEquals(forward[source][1], backward[source][0]);
+                assertEquals(forward[source][2], backward[source][2]);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep exactly the edges inside each member set and map nodes back to the parent")
+    void testSubgraphs() {
+        Random random = new Random(3);
+        for (int round = 0; round < 50; round++) {
+            int n = 2 + random.nextInt(12);
+            CompactGraph graph = RandomGraphs.graph(random, n, random.nextInt(50), 0, 9);
+
+            // Two disjoint member sets in shuffled order
+            List<Integer> shuffled = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                shuffled.add(i);
+            }
+            Collections.shuffle(shuffled, random);
+            int split = 1 + random.nextInt(n - 1);
+            int[] first = shuffled.subList(0, split).stream().mapToInt(Integer::intValue).toArray();
+            int[] second = shuffled.subList(split, n).stream().mapToInt(Integer::intValue).toArray();
+
+            List<CompactGraph> subgraphs = graph.subgraphs(List.of(first, second));
+            assertInducedSubgraph(graph, first, subgraphs.get(0));
+            assertInducedSubgraph(graph, second, subgraphs.get(1));
+
+            // A subgraph of a subgraph still maps to the root graph's ids
+            CompactGraph nested = subgraphs.get(0).subgraph(new int[]{0});
+            assertEquals(first[0], nested.parentNode(0));
+        }
+    }
+
+    @Test
+    @DisplayName("Should map weights without changing the structure")
+    void testMapWeights() {
+        CompactGraph graph = RandomGraphs.graph(new Random(4), 6, 20, 1, 9);
+        CompactGraph doubled = graph.mapWeights(weight -> weight * 2);
+
+        assertEquals(graph.edgeCount(), doubled.edgeCount());
+        for (int u = 0; u < graph.nodeCount(); u++) {
+            assertEquals(graph.firstEdge(u), doubled.firstEdge(u));
+            for (int e = graph.firstEdge(u); e < graph.endEdge(u); e++) {
+                assertEquals(graph.target(e), doubled.target(e));
+                assertEquals(graph.weight(e) * 2, doubled.weight(e));
+            }
+        }
+    }
+
+    private static void assertInducedSubgraph(CompactGraph graph, int[] members, CompactGraph subgraph) {
+        assertEquals(members.length, subgraph.nodeCount());
+        int[] local = new int[graph.nodeCount()];
+        Arrays.fill(local, -1);
+        for (int i = 0; i < members.length; i++) {
+            local[members[i]] = i;
+            assertEquals(members[i], subgraph.parentNode(i));
+            assertEquals(graph.name(members[i]), subgraph.name(i));
+            assertEquals(i, subgraph.id(graph.name(members[i])));
+        }
+
+        for (int i = 0; i < members.length; i++) {
+            List<String> expected = new ArrayList<>();
+            for (int e = graph.firstEdge(members[i]); e < graph.endEdge(members[i]); e++) {
+                if (local[graph.target(e)] >= 0) {
+                    expected.add(local[graph.target(e)] + "/" + graph.weight(e) + "/" + graph.sourceEdge(e));
+                }
+            }
+            List<String> actual = new ArrayList<>();
+            for (int e = subgraph.firstEdge(i); e < subgraph.endEdge(i); e++) {
+                actual.add(subgraph.target(e) + "/" + subgraph.weight(e) + "/" + subgraph.sourceEdge(e));
+            }
+            assertEquals(expected, actual);
+        }
+    }
+
+    /**
+     * {from, to, weight} of every edge, indexed by insertion position
+     */
+    private static int[][] describe(CompactGraph graph) {
+        int[][] edges = new int[graph.edgeCount()][];
+        for (int u = 0; u < graph.nodeCount(); u++) {
+            for (int e = graph.firstEdge(u); e < graph.endEdge(u); e++) {
+                edges[graph.sourceEdge(e)] = new int[]{u, graph.target(e), (int) graph.weight(e)};
+            }
+        }
+        return edges;
+    }
+}
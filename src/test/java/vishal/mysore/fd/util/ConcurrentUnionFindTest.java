@@ -0,0 +1,191 @@
+package vishal.mysore.fd.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Fraud Detection - Concurrent Union-Find Tests")
+class ConcurrentUnionFindTest {
+
+    @Test
+    @DisplayName("Should merge sets like brute-force relabeling")
+    void testMatchesBruteForce() {
+        Random random = new Random(91);
+        for (int round = 0; round < 100; round++) {
+            int n = 1 + random.nextInt(50);
+            ConcurrentUnionFind unionFind = new ConcurrentUnionFind();
+            int[] label = new int[n];
+            for (int i = 0; i < n; i++) {
+                assertEquals(i, unionFind.add());
+                label[i] = i;
+            }
+            int sets = n;
+
+            for (int op = random.nextInt(3 * n); op >= 0; op--) {
+                int a = random.nextInt(n);
+                int b = random.nextInt(n);
+                if (random.nextBoolean()) {
+                    boolean apart = label[a] != label[b];
+                    assertEquals(apart, unionFind.union(a, b));
+                    if (apart) {
+                        int merged = label[b];
+                        for (int i = 0; i < n; i++) {
+                            label[i] = label[i] == merged ? label[a] : label[i];
+                        }
+                        sets--;
+                    }
+                } else {
+                    assertEquals(label[a] == label[b], unionFind.sameSet(a, b));
+                    assertEquals(label[a] == label[b], unionFind.find(a) == unionFind.find(b));
+                }
+                assertEquals(sets, unionFind.setCount());
+            }
+            assertEquals(n, unionFind.size());
+        }
+    }
+
+    @Test
+    @DisplayName("Should end with the same sets whichever threads apply the unions")
+    void testConcurrentUnions() throws InterruptedException {
+        int n = 200_000;
+        int threads = 8;
+        Random random = new Random(92);
+        int[][] pairs = new int[150_000][];
+        for (int i = 0; i < pairs.length; i++) {
+            pairs[i] = new int[]{random.nextInt(n), random.nextInt(n)};
+        }
+
+        ConcurrentUnionFind expected = new ConcurrentUnionFind();
+        ConcurrentUnionFind actual = new ConcurrentUnionFind();
+        for (int i = 0; i < n; i++) {
+            expected.add();
+            actual.add();
+        }
+        for (int[] pair : pairs) {
+            expected.union(pair[0], pair[1]);
+        }
+
+        AtomicInteger merges = new AtomicInteger();
+        runConcurrently(threads, thread -> {
+            for (int i = thread; i < pairs.length; i += threads) {
+                if (actual.union(pairs[i][0], pairs[i][1])) {
+                    merges.incrementAndGet();
+                }
+            }
+        });
+
+        assertEquals(expected.setCount(), actual.setCount());
+        assertEquals(n - actual.setCount(), merges.get(), "Each merge should be reported by exactly one union");
+        for (int i = 0; i < n; i++) {
+            int representative = expected.find(i);
+            assertTrue(actual.sameSet(i, representative));
+        }
+    }
+
+    @Test
+    @DisplayName("Should see every union completed before a concurrent sameSet call")
+    void testSameSetSeesCompletedUnions() throws InterruptedException {
+        int n = 100_000;
+        ConcurrentUnionFind unionFind = new ConcurrentUnionFind();
+        for (int i = 0; i < n; i++) {
+            unionFind.add();
+        }
+        // Element i joins 0's set once the first i unions of the chain have completed
+        AtomicInteger completed = new AtomicInteger();
+
+        runConcurrently(4, thread -> {
+            if (thread == 0) {
+                for (int i = 1; i < n; i++) {
+                    unionFind.union(i - 1, i);
+                    completed.set(i);
+                }
+                return;
+            }
+            Random random = new Random(thread);
+            while (completed.get() < n - 1) {
+                int joined = completed.get();
+                assertTrue(unionFind.sameSet(0, random.nextInt(joined + 1)));
+                assertTrue(unionFind.sameSet(random.nextInt(joined + 1), joined));
+            }
+        });
+
+        assertEquals(1, unionFind.setCount());
+    }
+
+    @Test
+    @DisplayName("Should hand out distinct elements to concurrent adds across segments")
+    void testConcurrentAdds() throws InterruptedException {
+        ConcurrentUnionFind unionFind = new ConcurrentUnionFind();
+        List<Set<Integer>> added = new ArrayList<>();
+        for (int thread = 0; thread < 4; thread++) {
+            added.add(new HashSet<>());
+        }
+
+        runConcurrently(4, thread -> {
+            for (int i = 0; i < 50_000; i++) {
+                added.get(thread).add(unionFind.add());
+            }
+        });
+
+        Set<Integer> all = new HashSet<>();
+        added.forEach(all::addAll);
+        assertEquals(200_000, all.size());
+        assertEquals(200_000, unionFind.size());
+        assertEquals(200_000, unionFind.setCount());
+        assertTrue(unionFind.union(0, 199_999));
+    }
+
+    @Test
+    @DisplayName("Should reject elements that were never added")
+    void testRejectsUnknownElements() {
+        ConcurrentUnionFind unionFind = new ConcurrentUnionFind();
+        unionFind.add();
+
+        assertThrows(IllegalArgumentException.class, () -> unionFind.find(1));
+        assertThrows(IllegalArgumentException.class, () -> unionFind.union(0, -1));
+        assertThrows(IllegalArgumentException.class, () -> unionFind.sameSet(0, 1));
+    }
+
+    private interface Worker {
+        void run(int thread);
+    }
+
+    /**
+     * Start the workers together and rethrow the first failure, assertion errors included
+     */
+    private static void runConcurrently(int threads, Worker worker) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> started = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            Thread runner = new Thread(() -> {
+                try {
+                    start.await();
+                    worker.run(thread);
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            runner.start();
+            started.add(runner);
+        }
+        start.countDown();
+        for (Thread runner : started) {
+            runner.join();
+        }
+        if (failure.get() != null) {
+            throw new AssertionError("Worker failed", failure.get());
+        }
+    }
+}
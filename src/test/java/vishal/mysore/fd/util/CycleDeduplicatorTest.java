@@ -0,0 +1,139 @@
+package vishal.mysore.fd.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import vishal.mysore.fd.util.CycleDetectionAlgorithm.CycleDeduplicator;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Fraud Detection - Cycle Deduplicator Tests")
+class CycleDeduplicatorTest {
+
+    @Test
+    @DisplayName("Should give every rotation of a cycle the same fingerprint")
+    void testRotationInvariant() {
+        Random random = new Random(81);
+        for (int round = 0; round < 500; round++) {
+            List<String> nodes = randomCycle(random, 1 + random.nextInt(8), 4);
+            long[] edges = random.nextBoolean() ? randomEdges(random, nodes.size()) : null;
+            long fingerprint = CycleDeduplicator.fingerprint(nodes, edges);
+
+            for (int shift = 1; shift < nodes.size(); shift++) {
+                assertEquals(fingerprint, CycleDeduplicator.fingerprint(rotate(nodes, shift), rotate(edges, shift)));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should accept a cycle exactly when no rotation of it was seen, like a set of canonical rotations")
+    void testMatchesCanonicalRotations() {
+        Random random = new Random(82);
+        // Start small so the table has to grow several times
+        CycleDeduplicator deduplicator = new CycleDeduplicator(1);
+        Set<List<String>> canonical = new HashSet<>();
+
+        for (int i = 0; i < 20_000; i++) {
+            List<String> nodes = randomCycle(random, 2 + random.nextInt(4), 5);
+            long[] edges = randomEdges(random, nodes.size());
+            for (int e = 0; e < edges.length; e++) {
+                edges[e] %= 2;
+            }
+            assertEquals(canonical.add(smallestRotation(nodes, edges)), deduplicator.add(nodes, edges));
+        }
+        assertEquals(canonical.size(), deduplicator.size());
+    }
+
+    @Test
+    @DisplayName("Should tell apart direction, parallel edges and node boundaries")
+    void testDistinguishesDifferentCycles() {
+        List<String> forward = List.of("A", "B", "C");
+        List<String> backward = List.of("A", "C", "B");
+
+        assertNotEquals(CycleDeduplicator.fingerprint(forward, null), CycleDeduplicator.fingerprint(backward, null));
+        assertNotEquals(CycleDeduplicator.fingerprint(forward, new long[]{1, 2, 3}),
+                CycleDeduplicator.fingerprint(forward, new long[]{1, 2, 4}));
+        assertNotEquals(CycleDeduplicator.fingerprint(List.of("ab", "c"), null),
+                CycleDeduplicator.fingerprint(List.of("a", "bc"), null));
+        assertThrows(IllegalArgumentException.class, () -> CycleDeduplicator.fingerprint(forward, new long[]{1, 2}));
+    }
+
+    @Test
+    @DisplayName("Should keep a pattern's fingerprint rotation-invariant and apart from other patterns")
+    void testPatternFingerprint() {
+        List<String> nodes = List.of("A", "B", "C");
+        long fingerprint = CycleDeduplicator.fingerprint("MINIMUM_MEAN_CYCLE", nodes, null);
+
+        assertEquals(fingerprint, CycleDeduplicator.fingerprint("MINIMUM_MEAN_CYCLE", List.of("B", "C", "A"), null));
+        assertNotEquals(fingerprint, CycleDeduplicator.fingerprint("CIRCULAR_MONEY_FLOW", nodes, null));
+        assertNotEquals(fingerprint, CycleDeduplicator.fingerprint(nodes, null));
+    }
+
+    @Test
+    @DisplayName("Should treat a zero fingerprint like any other")
+    void testZeroFingerprint() {
+        CycleDeduplicator deduplicator = new CycleDeduplicator();
+
+        assertTrue(deduplicator.add(0L));
+        assertFalse(deduplicator.add(0L));
+        assertTrue(deduplicator.add(42L));
+        assertEquals(2, deduplicator.size());
+    }
+
+    private static List<String> randomCycle(Random random, int length, int alphabet) {
+        List<String> nodes = new ArrayList<>();
+        for (int i = 0; i < length; i++) {
+            nodes.add("acct-" + random.nextInt(alphabet));
+        }
+        return nodes;
+    }
+
+    private static long[] randomEdges(Random random, int length) {
+        long[] edges = new long[length];
+        for (int i = 0; i < length; i++) {
+            edges[i] = random.nextInt(1000);
+        }
+        return edges;
+    }
+
+    private static List<String> rotate(List<String> nodes, int shift) {
+        List<String> rotated = new ArrayList<>(nodes.subList(shift, nodes.size()));
+        rotated.addAll(nodes.subList(0, shift));
+        return rotated;
+    }
+
+    private static long[] rotate(long[] edges, int shift) {
+        if (edges == null) {
+            return null;
+        }
+        long[] rotated = new long[edges.length];
+        for (int i = 0; i < edges.length; i++) {
+            rotated[i] = edges[(i + shift) % edges.length];
+        }
+        return rotated;
+    }
+
+    /**
+     * The lexicographically smallest rotation of the interleaved node/edge sequence, by trying every one
+     */
+    private static List<String> smallestRotation(List<String> nodes, long[] edges) {
+        List<String> smallest = null;
+        for (int shift = 0; shift < nodes.size(); shift++) {
+            List<String> candidate = new ArrayList<>();
+            for (int i = 0; i < nodes.size(); i++) {
+                int at = (shift + i) % nodes.size();
+                candidate.add(nodes.get(at));
+                candidate.add(Long.toString(edges[at]));
+            }
+            if (smallest == null || candidate.toString().compareTo(smallest.toString()) < 0) {
+                smallest = candidate;
+            }
+        }
+        return smallest;
+    }
+}
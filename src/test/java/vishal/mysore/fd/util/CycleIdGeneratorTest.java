@@ -0,0 +1,117 @@
+package vishal.mysore.fd.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Fraud Detection - Cycle Id Generator Tests")
+class CycleIdGeneratorTest {
+
+    @Test
+    @DisplayName("Should issue strictly increasing ids whose strings sort the same way")
+    void testMonotonic() {
+        CycleIdGenerator generator = new CycleIdGenerator(7);
+        long previousId = generator.nextId();
+        String previousString = generator.nextCycleId();
+
+        // Far more than 4096 per millisecond, so bursts borrow later milliseconds
+        for (int i = 0; i < 1_000_000; i++) {
+            long id = generator.nextId();
+            assertTrue(id > previousId, "Ids should strictly increase");
+            previousId = id;
+
+            String cycleId = generator.nextCycleId();
+            assertTrue(cycleId.compareTo(previousString) > 0, "Id strings should strictly increase");
+            assertEquals(CycleIdGenerator.PREFIX.length() + 13, cycleId.length());
+            assertTrue(cycleId.compareTo(CycleIdGenerator.MAX_CYCLE_ID) <= 0);
+            previousString = cycleId;
+        }
+    }
+
+    @Test
+    @DisplayName("Should order ids by the time they were issued")
+    void testIdOrderIsTimeOrder() throws InterruptedException {
+        CycleIdGenerator generator = new CycleIdGenerator(3);
+        String previous = null;
+        for (int i = 0; i < 20; i++) {
+            long before = System.currentTimeMillis();
+            String cycleId = generator.nextCycleId();
+            long after = System.currentTimeMillis();
+
+            // At this rate no burst borrows a later millisecond, so the id falls inside its issue window
+            assertTrue(cycleId.compareTo(CycleIdGenerator.lowerBound(before)) >= 0);
+            assertTrue(cycleId.compareTo(CycleIdGenerator.lowerBound(after + 1)) < 0);
+            if (previous != null) {
+                assertTrue(previous.compareTo(CycleIdGenerator.lowerBound(before)) < 0,
+                        "An earlier id should sort below the time range of a later one");
+            }
+            previous = cycleId;
+            Thread.sleep(2);
+        }
+    }
+
+    @Test
+    @DisplayName("Should issue unique, per-thread increasing ids across threads and node ids")
+    void testConcurrentUnique() throws InterruptedException {
+        int threads = 8;
+        int perThread = 100_000;
+        CycleIdGenerator first = new CycleIdGenerator(1);
+        CycleIdGenerator second = new CycleIdGenerator(2);
+        List<long[]> issued = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            issued.add(new long[perThread]);
+        }
+
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long[] ids = issued.get(t);
+            CycleIdGenerator generator = t % 2 == 0 ? first : second;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        ids[i] = generator.nextId();
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertNull(failure.get());
+        Set<Long> unique = new HashSet<>();
+        for (long[] ids : issued) {
+            for (int i = 0; i < ids.length; i++) {
+                assertTrue(unique.add(ids[i]), "Duplicate id " + ids[i]);
+                if (i > 0) {
+                    assertTrue(ids[i] > ids[i - 1], "Each thread should see increasing ids");
+                }
+            }
+        }
+        assertEquals(threads * perThread, unique.size());
+    }
+
+    @Test
+    @DisplayName("Should reject node ids outside ten bits")
+    void testRejectsInvalidNodeId() {
+        assertThrows(IllegalArgumentException.class, () -> new CycleIdGenerator(-1));
+        assertThrows(IllegalArgumentException.class, () -> new CycleIdGenerator(1024));
+        assertDoesNotThrow(() -> new CycleIdGenerator(1023));
+    }
+}
@@ -0,0 +1,101 @@
+package vishal.mysore.fd.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Fraud Detection - Detection Workflow Orchestrator Tests")
+class DetectionWorkflowOrchestratorTest {
+
+    @Mock
+    private CycleDetectionIntegration cycleDetectionIntegration;
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger peak = new AtomicInteger();
+    private final Set<String> threadNames = ConcurrentHashMap.newKeySet();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(cycleDetectionIntegration.runAMLDetectionWorkflow()).thenAnswer(invocation -> work("aml"));
+        when(cycleDetectionIntegration.runCreditCardFraudDetection()).thenAnswer(invocation -> work("card"));
+        when(cycleDetectionIntegration.runIdentityTheftDetection()).thenAnswer(invocation -> work("identity"));
+    }
+
+    @Test
+    @DisplayName("Should run workflows at the same time, but no more of them than the concurrency limit")
+    void testRunsConcurrentlyWithinLimit() {
+        Map<String, Object> report = new DetectionWorkflowOrchestrator(cycleDetectionIntegration, 2).runAllWorkflows();
+
+        assertEquals(2, peak.get());
+        assertEquals(3, report.get("workflows_run"));
+        assertEquals(0, report.get("workflows_failed"));
+        assertEquals(2, report.get("max_concurrency"));
+        assertTrue((Long) report.get("wall_time_ms") < (Long) report.get("total_stage_time_ms"),
+                "Concurrent workflows should finish sooner than back to back");
+
+        peak.set(0);
+        new DetectionWorkflowOrchestrator(cycleDetectionIntegration, 1).runAllWorkflows();
+        assertEquals(1, peak.get());
+    }
+
+    @Test
+    @DisplayName("Should keep the other workflows' results when one of them fails")
+    @SuppressWarnings("unchecked")
+    void testFailureIsIsolated() {
+        when(cycleDetectionIntegration.runCreditCardFraudDetection())
+                .thenThrow(new IllegalStateException("Neo4j unavailable"));
+
+        Map<String, Object> report = new DetectionWorkflowOrchestrator(cycleDetectionIntegration, 3).runAllWorkflows();
+        Map<String, Map<String, Object>> stages = (Map<String, Map<String, Object>>) report.get("stages");
+
+        assertEquals(3, report.get("workflows_run"));
+        assertEquals(1, report.get("workflows_failed"));
+        assertEquals("FAILED", stages.get("credit_card_fraud_detection").get("status"));
+        assertEquals("IllegalStateException: Neo4j unavailable", stages.get("credit_card_fraud_detection").get("error"));
+        assertEquals("COMPLETED", stages.get("aml_detection").get("status"));
+        assertEquals(Map.of("workflow", "aml"), stages.get("aml_detection").get("result"));
+        assertEquals(Map.of("workflow", "identity"), stages.get("identity_theft_detection").get("result"));
+    }
+
+    @Test
+    @DisplayName("Should fall back to platform threads when virtual threads are unavailable")
+    void testPlatformThreadFallback() {
+        Map<String, Object> report =
+                new DetectionWorkflowOrchestrator(cycleDetectionIntegration, 3, null).runAllWorkflows();
+
+        assertEquals("platform-threads", report.get("executor"));
+        assertEquals(0, report.get("workflows_failed"));
+        assertEquals(3, threadNames.size());
+        threadNames.forEach(name -> assertTrue(name.startsWith("fd-workflow-"), name));
+    }
+
+    @Test
+    @DisplayName("Should reject a non-positive concurrency limit")
+    void testRejectsInvalidConcurrency() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new DetectionWorkflowOrchestrator(cycleDetectionIntegration, 0));
+    }
+
+    private Map<String, Object> work(String workflow) throws InterruptedException {
+        peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+        threadNames.add(Thread.currentThread().getName());
+        try {
+            // Long enough for every workflow allowed to run to have started
+            Thread.sleep(200);
+        } finally {
+            active.decrementAndGet();
+        }
+        return Map.of("workflow", workflow);
+    }
+}
@@ -0,0 +1,98 @@
+package vishal.mysore.fd.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import vishal.mysore.fd.util.CycleDetectionAlgorithm.CompactGraph;
+import vishal.mysore.fd.util.CycleDetectionAlgorithm.ElementaryCycleEnumerator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Fraud Detection - Elementary Cycle Enumerator Tests")
+class ElementaryCycleEnumeratorTest {
+
+    @Test
+    @DisplayName("Should report every elementary cycle within the bounds exactly once, like brute force")
+    void testMatchesBruteForce() {
+        Random random = new Random(11);
+        for (int round = 0; round < 300; round++) {
+            int n = 1 + random.nextInt(8);
+            CompactGraph graph = RandomGraphs.graph(random, n, random.nextInt(4 * n + 1), 1, 1);
+            int minLength = 1 + random.nextInt(3);
+            int maxLength = minLength + random.nextInt(6);
+
+            long[] expected = RandomGraphs.cycleCountsByLength(graph, maxLength);
+            long[] actual = new long[maxLength + 1];
+            Set<String> seen = new HashSet<>();
+            long reported = new ElementaryCycleEnumerator(graph, minLength, maxLength).enumerate((nodes, edges, length) -> {
+                assertTrue(length >= minLength && length <= maxLength);
+                int[] cycle = Arrays.copyOf(nodes, length);
+                assertTrue(RandomGraphs.distinct(cycle));
+                assertEquals(Arrays.stream(cycle).min().getAsInt(), cycle[0], "Cycles should be rooted at their smallest node");
+                for (int i = 0; i < length; i++) {
+                    assertTrue(edges[i] >= graph.firstEdge(cycle[i]) && edges[i] < graph.endEdge(cycle[i]));
+                    assertEquals(cycle[(i + 1) % length], graph.target(edges[i]));
+                }
+                assertTrue(seen.add(Arrays.toString(Arrays.copyOf(edges, length))), "Cycle reported twice");
+                actual[length]++;
+            });
+
+            long total = 0;
+            for (int length = minLength; length <= maxLength; length++) {
+                assertEquals(expected[length], actual[length], "Cycles of length " + length);
+                total += expected[length];
+            }
+            assertEquals(total, reported);
+        }
+    }
+
+    @Test
+    @DisplayName("Should count parallel edges as separate cycles and skip self-loops by default")
+    void testParallelEdgesAndSelfLoops() {
+        CompactGraph graph = new CompactGraph.Builder()
+                .addEdge("A", "B", 1)
+                .addEdge("A", "B", 1)
+                .addEdge("B", "A", 1)
+                .addEdge("B", "C", 1)
+                .addEdge("C", "A", 1)
+                .addEdge("C", "C", 1)
+                .build();
+
+        List<List<String>> cycles = new ArrayList<>();
+        long count = new ElementaryCycleEnumerator(graph).enumerate(nodes -> cycles.add(graph.names(nodes)));
+
+        assertEquals(4, count);
+        assertEquals(List.of(List.of("A", "B"), List.of("A", "B", "C"), List.of("A", "B"), List.of("A", "B", "C")),
+                cycles);
+        assertEquals(5, new ElementaryCycleEnumerator(graph, 1, 3).enumerate(nodes -> { }));
+        assertEquals(2, new ElementaryCycleEnumerator(graph, 3, 3).enumerate(nodes -> { }));
+    }
+
+    @Test
+    @DisplayName("Should stop at the hop limit on a long ring")
+    void testHopLimit() {
+        CompactGraph.Builder builder = new CompactGraph.Builder();
+        for (int i = 0; i < 20; i++) {
+            builder.addEdge("n" + i, "n" + (i + 1) % 20, 1);
+        }
+        CompactGraph ring = builder.build();
+
+        assertEquals(0, new ElementaryCycleEnumerator(ring).enumerate(nodes -> { }));
+        assertEquals(1, new ElementaryCycleEnumerator(ring, 2, 20).enumerate(nodes -> { }));
+    }
+
+    @Test
+    @DisplayName("Should reject invalid length bounds")
+    void testInvalidBounds() {
+        CompactGraph graph = new CompactGraph.Builder().addEdge("A", "B", 1).build();
+
+        assertThrows(IllegalArgumentException.class, () -> new ElementaryCycleEnumerator(graph, 0, 5));
+        assertThrows(IllegalArgumentException.class, () -> new ElementaryCycleEnumerator(graph, 4, 3));
+    }
+}
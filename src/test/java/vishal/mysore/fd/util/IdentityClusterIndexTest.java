@@ -0,0 +1,201 @@
+package vishal.mysore.fd.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import vishal.mysore.fd.util.IdentityClusterIndex.IdentityCluster;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Fraud Detection - Identity Cluster Index Tests")
+class IdentityClusterIndexTest {
+
+    @Test
+    @DisplayName("Should flag identities with linked accounts, like brute-force reachability")
+    void testMatchesBruteForce() {
+        Random random = new Random(101);
+        for (int round = 0; round < 200; round++) {
+            int accounts = 1 + random.nextInt(20);
+            int identities = 1 + random.nextInt(6);
+            List<int[]> links = randomPairs(random, random.nextInt(accounts + 1), accounts, accounts);
+            List<int[]> uses = randomPairs(random, random.nextInt(2 * accounts), identities, accounts);
+
+            IdentityClusterIndex index = new IdentityClusterIndex();
+            // Interleave links and uses in a random order, each use checked against brute force so far
+            List<int[]> events = new ArrayList<>();
+            links.forEach(link -> events.add(new int[]{0, link[0], link[1]}));
+            uses.forEach(use -> events.add(new int[]{1, use[0], use[1]}));
+            Collections.shuffle(events, random);
+
+            boolean[][] linked = new boolean[accounts][accounts];
+            Map<Integer, TreeSet<Integer>> used = new TreeMap<>();
+            for (int[] event : events) {
+                if (event[0] == 0) {
+                    index.link("acct-" + event[1], "acct-" + event[2]);
+                    linked[event[1]][event[2]] = true;
+                    linked[event[2]][event[1]] = true;
+                    continue;
+                }
+                TreeSet<Integer> identityAccounts = used.computeIfAbsent(event[1], id -> new TreeSet<>());
+                List<String> expected = new ArrayList<>();
+                boolean[] cluster = cluster(linked, event[2]);
+                for (int other : identityAccounts) {
+                    if (other != event[2] && cluster[other]) {
+                        expected.add("acct-" + other);
+                    }
+                }
+                identityAccounts.add(event[2]);
+
+                List<String> clustered = index.use("id-" + event[1], "acct-" + event[2]);
+                Collections.sort(clustered);
+                Collections.sort(expected);
+                assertEquals(expected, clustered);
+            }
+
+            assertEquals(bruteForceSuspicious(linked, used), describe(index.suspiciousIdentities()));
+        }
+    }
+
+    @Test
+    @DisplayName("Should report a shared identity once its accounts are linked, whichever arrives first")
+    void testLinkAfterUse() {
+        IdentityClusterIndex index = new IdentityClusterIndex();
+
+        assertTrue(index.use("ssn-1", "A").isEmpty());
+        assertTrue(index.use("ssn-1", "B").isEmpty());
+        index.addUse("ssn-2", "C");
+        assertTrue(index.suspiciousIdentities().isEmpty());
+
+        assertTrue(index.link("A", "C"));
+        assertTrue(index.link("C", "B"));
+        assertFalse(index.link("B", "A"));
+
+        List<IdentityCluster> suspicious = index.suspiciousIdentities();
+        assertEquals(1, suspicious.size());
+        assertEquals("ssn-1", suspicious.get(0).identityId);
+        assertEquals(List.of("A", "B"), suspicious.get(0).accountIds);
+        assertEquals(List.of("A", "B"), sorted(index.use("ssn-1", "C")));
+        assertEquals(3, index.accountCount());
+        assertEquals(1, index.clusterCount());
+    }
+
+    @Test
+    @DisplayName("Should end with the same suspicious identities when links and uses arrive concurrently")
+    void testConcurrentLinksAndUses() throws InterruptedException {
+        int threads = 8;
+        int accounts = 20_000;
+        Random random = new Random(102);
+        List<int[]> links = randomPairs(random, 15_000, accounts, accounts);
+        List<int[]> uses = randomPairs(random, 30_000, 5_000, accounts);
+
+        IdentityClusterIndex sequential = new IdentityClusterIndex();
+        links.forEach(link -> sequential.link("acct-" + link[0], "acct-" + link[1]));
+        uses.forEach(use -> sequential.addUse("id-" + use[0], "acct-" + use[1]));
+
+        IdentityClusterIndex concurrent = new IdentityClusterIndex();
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = thread; i < Math.max(links.size(), uses.size()); i += threads) {
+                        if (i < links.size()) {
+                            concurrent.link("acct-" + links.get(i)[0], "acct-" + links.get(i)[1]);
+                        }
+                        if (i < uses.size()) {
+                            concurrent.use("id-" + uses.get(i)[0], "acct-" + uses.get(i)[1]);
+                        }
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertNull(failure.get());
+        assertEquals(sequential.accountCount(), concurrent.accountCount());
+        assertEquals(sequential.clusterCount(), concurrent.clusterCount());
+        List<String> expected = describe(sequential.suspiciousIdentities());
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, describe(concurrent.suspiciousIdentities()));
+    }
+
+    private static List<int[]> randomPairs(Random random, int count, int firstRange, int secondRange) {
+        List<int[]> pairs = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            pairs.add(new int[]{random.nextInt(firstRange), random.nextInt(secondRange)});
+        }
+        return pairs;
+    }
+
+    /**
+     * Accounts reachable from one account over links, by repeated relaxation
+     */
+    private static boolean[] cluster(boolean[][] linked, int account) {
+        boolean[] reached = new boolean[linked.length];
+        reached[account] = true;
+        for (boolean grew = true; grew; ) {
+            grew = false;
+            for (int u = 0; u < linked.length; u++) {
+                for (int v = 0; reached[u] && v < linked.length; v++) {
+                    if (linked[u][v] && !reached[v]) {
+                        reached[v] = true;
+                        grew = true;
+                    }
+                }
+            }
+        }
+        return reached;
+    }
+
+    private static List<String> bruteForceSuspicious(boolean[][] linked, Map<Integer, TreeSet<Integer>> used) {
+        List<String> suspicious = new ArrayList<>();
+        used.forEach((identity, identityAccounts) -> {
+            List<String> clustered = new ArrayList<>();
+            for (int account : identityAccounts) {
+                boolean[] cluster = cluster(linked, account);
+                for (int other : identityAccounts) {
+                    if (other != account && cluster[other]) {
+                        clustered.add("acct-" + account);
+                        break;
+                    }
+                }
+            }
+            if (!clustered.isEmpty()) {
+                suspicious.add("id-" + identity + "=" + sorted(clustered));
+            }
+        });
+        Collections.sort(suspicious);
+        return suspicious;
+    }
+
+    private static List<String> describe(List<IdentityCluster> clusters) {
+        List<String> described = new ArrayList<>();
+        clusters.forEach(cluster -> described.add(cluster.identityId + "=" + cluster.accountIds));
+        return described;
+    }
+
+    private static List<String> sorted(List<String> values) {
+        List<String> copy = new ArrayList<>(values);
+        Collections.sort(copy);
+        return copy;
+    }
+}
@@ -0,0 +1,141 @@
+package vishal.mysore.fd.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import vishal.mysore.fd.util.ImpossibleTravelDetector.CardUse;
+import vishal.mysore.fd.util.ImpossibleTravelDetector.ImpossibleTravel;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Fraud Detection - Impossible Travel Detector Tests")
+class ImpossibleTravelDetectorTest {
+
+    private static final long MINUTE = 60_000;
+    private static final long HOUR = 60 * MINUTE;
+
+    @Test
+    @DisplayName("Should measure great-circle distances with the haversine formula")
+    void testDistance() {
+        CardUse newYork = use(1, "card", "NYC", 0, 40.7128, -74.0060);
+        CardUse london = use(2, "card", "LON", 0, 51.5074, -0.1278);
+
+        assertEquals(5570, ImpossibleTravelDetector.distanceKm(newYork, london), 10);
+        assertEquals(ImpossibleTravelDetector.distanceKm(newYork, london),
+                ImpossibleTravelDetector.distanceKm(london, newYork), 1e-9);
+        // One degree of longitude on the equator
+        assertEquals(111.19, ImpossibleTravelDetector.distanceKm(
+                use(3, "card", "A", 0, 0, 0), use(4, "card", "B", 0, 0, 1)), 0.01);
+    }
+
+    @Test
+    @DisplayName("Should flag two locations only when reaching one from the other needs more than the speed limit")
+    void testSpeedLimit() {
+        ImpossibleTravelDetector detector = new ImpossibleTravelDetector(2 * HOUR, 8, 900);
+
+        assertNull(detector.accept(use(1, "card", "A", 0, 0, 0)));
+        // About 778 km in an hour
+        assertNull(detector.accept(use(2, "card", "B", HOUR, 0, 7)));
+        // About 1001 km from A in 61 minutes, and 223 km from B in one
+        ImpossibleTravel travel = detector.accept(use(3, "card", "C", HOUR + MINUTE, 0, 9));
+
+        assertNotNull(travel);
+        assertEquals(List.of(1L, 2L), useIds(travel.conflicting));
+        assertEquals(3, travel.locationCount());
+        // Uses at the same place never conflict, however close in time
+        ImpossibleTravel again = detector.accept(use(4, "card", "C", HOUR + 2 * MINUTE, 0, 9));
+        assertEquals(List.of(1L, 2L), useIds(again.conflicting));
+    }
+
+    @Test
+    @DisplayName("Should treat a use at another location without coordinates as a conflict")
+    void testMissingCoordinates() {
+        ImpossibleTravelDetector detector = new ImpossibleTravelDetector(HOUR, 8, 900);
+
+        assertNull(detector.accept(use(1, "card", "A", 0, 0, 0)));
+        ImpossibleTravel travel = detector.accept(use(2, "card", "B", 50 * MINUTE, Double.NaN, Double.NaN));
+
+        assertNotNull(travel);
+        assertEquals(List.of(1L), useIds(travel.conflicting));
+        ImpossibleTravel again = detector.accept(use(3, "card", "B", 55 * MINUTE, Double.NaN, 0));
+        // Not with use 2: without coordinates only a different location conflicts
+        assertEquals(List.of(1L), useIds(again.conflicting));
+    }
+
+    @Test
+    @DisplayName("Should compare late uses with the retained ones but ignore those more than a window late")
+    void testOutOfOrderUses() {
+        ImpossibleTravelDetector detector = new ImpossibleTravelDetector(HOUR, 8, 900);
+
+        assertNull(detector.accept(use(1, "card", "A", 10 * HOUR, 0, 0)));
+        ImpossibleTravel late = detector.accept(use(2, "card", "B", 10 * HOUR - 30 * MINUTE, Double.NaN, Double.NaN));
+        assertNotNull(late);
+        assertEquals(List.of(1L), useIds(late.conflicting));
+
+        // Within a window of use 2, but more than a window before the card's newest use
+        assertNull(detector.accept(use(3, "card", "C", 10 * HOUR - 61 * MINUTE, Double.NaN, Double.NaN)));
+
+        // The late use was kept in time order and the ignored one was not kept at all
+        ImpossibleTravel next = detector.accept(use(4, "card", "D", 10 * HOUR + MINUTE, Double.NaN, Double.NaN));
+        assertEquals(List.of(2L, 1L), useIds(next.conflicting));
+    }
+
+    @Test
+    @DisplayName("Should overwrite a card's oldest use once its ring is full")
+    void testRingOverwritesOldestUse() {
+        ImpossibleTravelDetector detector = new ImpossibleTravelDetector(HOUR, 2, 900);
+
+        for (int i = 0; i < 3; i++) {
+            assertNull(detector.accept(use(i, "card", "A", i * MINUTE, 0, 0, 10 * (i + 1))));
+        }
+        ImpossibleTravel travel = detector.accept(use(3, "card", "B", 3 * MINUTE, Double.NaN, Double.NaN, 5));
+
+        assertEquals(List.of(1L, 2L), useIds(travel.conflicting));
+        assertEquals(2, travel.locationCount());
+        assertEquals(55.0, travel.totalAmount(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Should drop cards without a use inside the window")
+    void testEvictsIdleCards() {
+        ImpossibleTravelDetector detector = new ImpossibleTravelDetector(HOUR, 8, 900);
+
+        detector.accept(use(1, "card-1", "A", 0, 0, 0));
+        detector.accept(use(2, "card-2", "A", 40 * MINUTE, 0, 0));
+        detector.accept(use(3, "card-3", "A", HOUR, 0, 0));
+        assertEquals(3, detector.activeCards());
+
+        detector.accept(use(4, "card-3", "A", HOUR + 31 * MINUTE, 0, 0));
+        assertEquals(2, detector.activeCards());
+
+        detector.accept(use(5, "card-4", "A", 5 * HOUR, 0, 0));
+        assertEquals(1, detector.activeCards());
+
+        // A returning card starts from an empty ring
+        assertNull(detector.accept(use(6, "card-1", "B", 5 * HOUR + MINUTE, Double.NaN, Double.NaN)));
+    }
+
+    @Test
+    @DisplayName("Should reject non-positive bounds")
+    void testRejectsInvalidBounds() {
+        assertThrows(IllegalArgumentException.class, () -> new ImpossibleTravelDetector(0, 8, 900));
+        assertThrows(IllegalArgumentException.class, () -> new ImpossibleTravelDetector(HOUR, 0, 900));
+        assertThrows(IllegalArgumentException.class, () -> new ImpossibleTravelDetector(HOUR, 8, 0));
+    }
+
+    private static CardUse use(long useId, String cardId, String locationId, long timestamp,
+                               double latitude, double longitude) {
+        return use(useId, cardId, locationId, timestamp, latitude, longitude, 0);
+    }
+
+    private static CardUse use(long useId, String cardId, String locationId, long timestamp,
+                               double latitude, double longitude, double amount) {
+        return new CardUse(useId, cardId, locationId, timestamp, amount, latitude, longitude);
+    }
+
+    private static List<Long> useIds(List<CardUse> uses) {
+        return uses.stream().map(use -> use.useId).collect(Collectors.toList());
+    }
+}
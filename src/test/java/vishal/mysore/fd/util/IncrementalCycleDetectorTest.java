@@ -0,0 +1,129 @@
+package vishal.mysore.fd.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import vishal.mysore.fd.util.IncrementalCycleDetector.ClosedCycle;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Fraud Detection - Incremental Cycle Detector Tests")
+class IncrementalCycleDetectorTest {
+
+    private static final double DELTA = 1e-9;
+
+    @Test
+    @DisplayName("Should close a loop exactly when the target already reaches the source, via the shortest one")
+    void testMatchesBruteForce() {
+        Random random = new Random(61);
+        for (int round = 0; round < 300; round++) {
+            int n = 2 + random.nextInt(30);
+            IncrementalCycleDetector detector = new IncrementalCycleDetector();
+            double[][] amounts = new double[n][n];
+            Set<Integer> nodes = new HashSet<>();
+            int edges = 0;
+
+            for (int i = random.nextInt(4 * n); i >= 0; i--) {
+                int from = random.nextInt(n);
+                int to = random.nextInt(n);
+                // One edge per ordered pair, so the loop's amounts can be checked
+                if (amounts[from][to] != 0) {
+                    continue;
+                }
+                int expectedLength = from == to ? -1 : distance(amounts, to, from);
+                double amount = 1 + edges;
+                amounts[from][to] = amount;
+                nodes.add(from);
+                nodes.add(to);
+                edges++;
+
+                ClosedCycle cycle = detector.addEdge("a" + from, "a" + to, amount);
+                if (expectedLength < 0) {
+                    assertNull(cycle);
+                    continue;
+                }
+                assertNotNull(cycle);
+                assertEquals(expectedLength + 1, cycle.accounts.size());
+                assertEquals("a" + from, cycle.accounts.get(0));
+                assertEquals("a" + to, cycle.accounts.get(1));
+                assertEquals(cycle.accounts.size(), new HashSet<>(cycle.accounts).size());
+
+                double total = 0;
+                for (int j = 0; j < cycle.accounts.size(); j++) {
+                    int u = Integer.parseInt(cycle.accounts.get(j).substring(1));
+                    int v = Integer.parseInt(cycle.accounts.get((j + 1) % cycle.accounts.size()).substring(1));
+                    assertTrue(amounts[u][v] != 0, "Loop should follow inserted edges");
+                    total += amounts[u][v];
+                }
+                assertEquals(total, cycle.totalAmount, DELTA);
+            }
+            assertEquals(nodes.size(), detector.nodeCount());
+            assertEquals(edges, detector.edgeCount());
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep accepting edges once a loop has merged components")
+    void testMergedComponents() {
+        IncrementalCycleDetector detector = new IncrementalCycleDetector();
+
+        assertNull(detector.addEdge("A", "B", 10));
+        assertNull(detector.addEdge("B", "C", 20));
+        ClosedCycle triangle = detector.addEdge("C", "A", 30);
+        assertEquals(List.of("C", "A", "B"), triangle.accounts);
+        assertEquals(60, triangle.totalAmount, DELTA);
+
+        // Inside the merged component the shortest loop through the new edge wins
+        ClosedCycle shortcut = detector.addEdge("B", "A", 5);
+        assertEquals(List.of("B", "A"), shortcut.accounts);
+        assertEquals(15, shortcut.totalAmount, DELTA);
+
+        assertNull(detector.addEdge("C", "D", 1));
+        assertNull(detector.addEdge("D", "D", 1));
+        assertEquals(4, detector.nodeCount());
+        assertEquals(6, detector.edgeCount());
+    }
+
+    @Test
+    @DisplayName("Should stay fast on a long chain closed back to its head")
+    void testLongChain() {
+        int n = 200_000;
+        IncrementalCycleDetector detector = new IncrementalCycleDetector();
+        for (int i = 0; i + 1 < n; i++) {
+            assertNull(detector.addEdge("a" + i, "a" + (i + 1), 1));
+        }
+        ClosedCycle loop = detector.addEdge("a" + (n - 1), "a0", 1);
+
+        assertEquals(n, loop.accounts.size());
+        assertEquals(n, loop.totalAmount, DELTA);
+    }
+
+    /**
+     * Hops on the shortest path from one node to another by BFS, -1 if unreachable
+     */
+    private static int distance(double[][] amounts, int from, int to) {
+        int[] hops = new int[amounts.length];
+        Arrays.fill(hops, -1);
+        hops[from] = 0;
+        ArrayDeque<Integer> queue = new ArrayDeque<>(List.of(from));
+        while (!queue.isEmpty()) {
+            int u = queue.poll();
+            if (u == to) {
+                return hops[u];
+            }
+            for (int v = 0; v < amounts.length; v++) {
+                if (amounts[u][v] != 0 && hops[v] < 0) {
+                    hops[v] = hops[u] + 1;
+                    queue.add(v);
+                }
+            }
+        }
+        return -1;
+    }
+}
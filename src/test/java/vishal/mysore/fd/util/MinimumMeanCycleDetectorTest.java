@@ -0,0 +1,155 @@
+package vishal.mysore.fd.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import vishal.mysore.fd.util.CycleDetectionAlgorithm.CompactGraph;
+import vishal.mysore.fd.util.CycleDetectionAlgorithm.MinimumMeanCycleDetector;
+import vishal.mysore.fd.util.CycleDetectionAlgorithm.MinimumMeanCycleDetector.MeanCycle;
+import vishal.mysore.fd.util.CycleDetectionAlgorithm.MinimumMeanCycleDetector.Mode;
+import vishal.mysore.fd.util.CycleDetectionAlgorithm.TarjanSCCDetector;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Fraud Detection - Minimum Mean Cycle Detector Tests")
+class MinimumMeanCycleDetectorTest {
+
+    private static final double DELTA = 1e-9;
+
+    @Test
+    @DisplayName("Karp and Howard should both find the minimum mean over all enumerated cycles")
+    void testMatchesBruteForce() {
+        Random random = new Random(41);
+        for (int round = 0; round < 400; round++) {
+            int n = 1 + random.nextInt(8);
+            CompactGraph graph = RandomGraphs.graph(random, n, random.nextInt(3 * n + 1), -5, 5);
+
+            // The minimum mean is always reached on an elementary cycle
+            double expected = Double.POSITIVE_INFINITY;
+            for (int[] cycle : RandomGraphs.nodeCycles(graph, n)) {
+                expected = Math.min(expected, RandomGraphs.cycleWeight(graph, cycle) / cycle.length);
+            }
+
+            for (Mode mode : Mode.values()) {
+                MeanCycle found = new MinimumMeanCycleDetector(graph).findMinimumMeanCycle(mode);
+                if (expected == Double.POSITIVE_INFINITY) {
+                    assertNull(found, mode + " on an acyclic graph");
+                    continue;
+                }
+                assertNotNull(found, mode.name());
+                assertEquals(expected, found.mean, DELTA, mode.name());
+                assertMeanCycle(graph, found);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should rank one cycle per component, self-loops included, by the brute-force minimum")
+    void testPerComponent() {
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            int n = 1 + random.nextInt(9);
+            CompactGraph graph = RandomGraphs.graph(random, n, random.nextInt(2 * n + 1), -5, 5);
+            boolean[][] reach = RandomGraphs.reachability(graph);
+
+            // Brute-force minimum mean per component, keyed by the component's smallest node
+            double[] expected = new double[n];
+            Arrays.fill(expected, Double.POSITIVE_INFINITY);
+            for (int[] cycle : RandomGraphs.nodeCycles(graph, n)) {
+                int component = RandomGraphs.componentOf(reach, cycle[0]);
+                expected[component] = Math.min(expected[component], RandomGraphs.cycleWeight(graph, cycle) / cycle.length);
+            }
+            int components = 0;
+            for (double mean : expected) {
+                components += mean != Double.POSITIVE_INFINITY ? 1 : 0;
+            }
+
+            for (Mode mode : Mode.values()) {
+                List<MeanCycle> ranked = new MinimumMeanCycleDetector(graph).findPerComponent(mode);
+                assertEquals(components, ranked.size(), mode.name());
+                for (int i = 0; i < ranked.size(); i++) {
+                    MeanCycle cycle = ranked.get(i);
+                    assertMeanCycle(graph, cycle);
+                    assertEquals(expected[RandomGraphs.componentOf(reach, cycle.nodes[0])], cycle.mean, DELTA, mode.name());
+                    if (i > 0) {
+                        assertTrue(ranked.get(i - 1).mean <= cycle.mean, "Components should rank from the lowest mean");
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should turn a loop whose rates multiply above 1 into a negative mean")
+    void testLogTransform() {
+        CompactGraph rates = new CompactGraph.Builder()
+                .addEdge("USD", "EUR", 0.9)
+                .addEdge("EUR", "GBP", 0.9)
+                .addEdge("GBP", "USD", 1.3)
+                .addEdge("USD", "JPY", 150)
+                .addEdge("JPY", "USD", 1.0 / 151)
+                .build();
+
+        CompactGraph weights = MinimumMeanCycleDetector.logTransform(rates);
+        for (Mode mode : Mode.values()) {
+            MeanCycle cycle = new MinimumMeanCycleDetector(weights).findMinimumMeanCycle(mode);
+            assertEquals(3, cycle.nodes.length, mode.name());
+            assertEquals(-Math.log(0.9 * 0.9 * 1.3) / 3, cycle.mean, DELTA, mode.name());
+            assertTrue(cycle.mean < 0);
+        }
+    }
+
+    @Test
+    @DisplayName("Should return a real cycle with its own mean when Howard runs out of iterations")
+    void testHowardIterationCap() {
+        Random random = new Random(43);
+        for (int round = 0; round < 300; round++) {
+            int n = 2 + random.nextInt(30);
+            CompactGraph graph = RandomGraphs.graph(random, n, n + random.nextInt(3 * n), -20, 20);
+            List<int[]> components = new TarjanSCCDetector(graph).findComponents();
+
+            for (CompactGraph scc : graph.subgraphs(components)) {
+                double minimum = MinimumMeanCycleDetector.howard(scc, Integer.MAX_VALUE).mean;
+                for (int cap = 0; cap < 3; cap++) {
+                    MeanCycle capped = MinimumMeanCycleDetector.howard(scc, cap);
+                    assertTrue(RandomGraphs.distinct(capped.nodes));
+                    // The policy may use a dearer parallel edge than the cheapest one between two nodes
+                    double cheapestMean = RandomGraphs.cycleWeight(scc, capped.nodes) / capped.nodes.length;
+                    assertTrue(cheapestMean <= capped.mean + DELTA, "Reported mean should belong to the cycle");
+                    assertTrue(capped.mean >= minimum - DELTA, "A capped run cannot beat the minimum");
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should solve an SCC too large for Karp's tables with Howard")
+    void testKarpFallsBackOnLargeComponents() {
+        int n = MinimumMeanCycleDetector.KARP_MAX_NODES + 1;
+        CompactGraph.Builder builder = new CompactGraph.Builder();
+        for (int i = 0; i < n; i++) {
+            builder.addNode("n" + i);
+        }
+        for (int i = 0; i < n; i++) {
+            builder.addEdge(i, (i + 1) % n, 1);
+        }
+        // A shortcut back that closes a cheaper two-node loop
+        builder.addEdge(1, 0, -4);
+        CompactGraph graph = builder.build();
+
+        MeanCycle cycle = new MinimumMeanCycleDetector(graph).findMinimumMeanCycle(Mode.KARP);
+
+        assertEquals(-1.5, cycle.mean, DELTA);
+        assertMeanCycle(graph, cycle);
+    }
+
+    private static void assertMeanCycle(CompactGraph graph, MeanCycle cycle) {
+        assertTrue(cycle.nodes.length > 0);
+        assertTrue(RandomGraphs.distinct(cycle.nodes));
+        assertEquals(cycle.mean, RandomGraphs.cycleWeight(graph, cycle.nodes) / cycle.nodes.length, DELTA,
+                "Reported mean should be the mean of the reported cycle");
+    }
+}
@@ -0,0 +1,257 @@
+package vishal.mysore.fd.util;
+
+import vishal.mysore.fd.util.CycleDetectionAlgorithm.CompactGraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Seeded random graphs and brute-force reference answers for the cycle detector tests
+ */
+final class RandomGraphs {
+
+    private RandomGraphs() {
+    }
+
+    /**
+     * Graph over nodes {@code n0..n<nodes-1>} with integer weights in [minWeight, maxWeight];
+     * self-loops and parallel edges are allowed
+     */
+    static CompactGraph graph(Random random, int nodes, int edges, int minWeight, int maxWeight) {
+        CompactGraph.Builder builder = new CompactGraph.Builder();
+        for (int i = 0; i < nodes; i++) {
+            builder.addNode("n" + i);
+        }
+        for (int e = 0; e < edges; e++) {
+            builder.addEdge(random.nextInt(nodes), random.nextInt(nodes),
+                    minWeight + random.nextInt(maxWeight - minWeight + 1));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Reflexive transitive closure
+     */
+    static boolean[][] reachability(CompactGraph graph) {
+        int n = graph.nodeCount();
+        boolean[][] reach = new boolean[n][n];
+        for (int u = 0; u < n; u++) {
+            reach[u][u] = true;
+            for (int e = graph.firstEdge(u); e < graph.endEdge(u); e++) {
+                reach[u][graph.target(e)] = true;
+            }
+        }
+        for (int k = 0; k < n; k++) {
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    reach[i][j] |= reach[i][k] && reach[k][j];
+                }
+            }
+        }
+        return reach;
+    }
+
+    /**
+     * Components of mutual reachability with more than one node, each sorted, in order of their smallest node
+     */
+    static List<List<Integer>> nonTrivialComponents(CompactGraph graph) {
+        boolean[][] reach = reachability(graph);
+        int n = graph.nodeCount();
+        boolean[] assigned = new boolean[n];
+        List<List<Integer>> components = new ArrayList<>();
+        for (int u = 0; u < n; u++) {
+            if (assigned[u]) {
+                continue;
+            }
+            List<Integer> component = new ArrayList<>();
+            for (int v = u; v < n; v++) {
+                if (reach[u][v] && reach[v][u]) {
+                    component.add(v);
+                    assigned[v] = true;
+                }
+            }
+            if (component.size() > 1) {
+                components.add(component);
+            }
+        }
+        return components;
+    }
+
+    /**
+     * Smallest node mutually reachable with u, naming its component
+     */
+    static int componentOf(boolean[][] reach, int u) {
+        for (int v = 0; ; v++) {
+            if (reach[u][v] && reach[v][u]) {
+                return v;
+            }
+        }
+    }
+
+    /**
+     * The same components normalized like {@link #nonTrivialComponents}
+     */
+    static List<List<Integer>> normalize(List<int[]> components) {
+        List<List<Integer>> normalized = new ArrayList<>();
+        for (int[] component : components) {
+            int[] sorted = component.clone();
+            Arrays.sort(sorted);
+            List<Integer> members = new ArrayList<>();
+            for (int member : sorted) {
+                members.add(member);
+            }
+            normalized.add(members);
+        }
+        normalized.sort((a, b) -> Integer.compare(a.get(0), b.get(0)));
+        return normalized;
+    }
+
+    /**
+     * Plain all-pairs Floyd-Warshall over the cheapest parallel edges
+     */
+    static double[][] shortestPaths(CompactGraph graph) {
+        int n = graph.nodeCount();
+        double[][] distance = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            Arrays.fill(distance[i], Double.POSITIVE_INFINITY);
+            distance[i][i] = 0;
+        }
+        for (int u = 0; u < n; u++) {
+            for (int e = graph.firstEdge(u); e < graph.endEdge(u); e++) {
+                distance[u][graph.target(e)] = Math.min(distance[u][graph.target(e)], graph.weight(e));
+            }
+        }
+        for (int k = 0; k < n; k++) {
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    if (distance[i][k] + distance[k][j] < distance[i][j]) {
+                        distance[i][j] = distance[i][k] + distance[k][j];
+                    }
+                }
+            }
+        }
+        return distance;
+    }
+
+    /**
+     * Cheapest edge weight from u to v, infinity if there is none
+     */
+    static double cheapestEdge(CompactGraph graph, int u, int v) {
+        double cheapest = Double.POSITIVE_INFINITY;
+        for (int e = graph.firstEdge(u); e < graph.endEdge(u); e++) {
+            if (graph.target(e) == v) {
+                cheapest = Math.min(cheapest, graph.weight(e));
+            }
+        }
+        return cheapest;
+    }
+
+    /**
+     * Weight of a cycle given as distinct nodes in traversal order, over the cheapest edges;
+     * infinity if some step is not an edge
+     */
+    static double cycleWeight(CompactGraph graph, int[] cycle) {
+        double total = 0;
+        for (int i = 0; i < cycle.length; i++) {
+            total += cheapestEdge(graph, cycle[i], cycle[(i + 1) % cycle.length]);
+        }
+        return total;
+    }
+
+    static boolean distinct(int[] nodes) {
+        return Arrays.stream(nodes).distinct().count() == nodes.length;
+    }
+
+    /**
+     * Whether some node, reachable from the source unless it is negative, lies on a negative cycle according to
+     * {@link #shortestPaths}
+     */
+    static boolean anyNegativeCycle(double[][] shortestPaths, boolean[][] reach, int source) {
+        for (int u = 0; u < shortestPaths.length; u++) {
+            if (shortestPaths[u][u] < 0 && (source < 0 || reach[source][u])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether distinct nodes in traversal order form a cycle of negative weight
+     */
+    static boolean isNegativeCycle(CompactGraph graph, int[] cycle) {
+        return cycle.length > 0 && distinct(cycle) && cycleWeight(graph, cycle) < 0;
+    }
+
+    /**
+     * Elementary cycles per length, counting parallel edges separately: every closed walk over distinct
+     * nodes is counted from each of its rotations, then divided by its length
+     */
+    static long[] cycleCountsByLength(CompactGraph graph, int maxLength) {
+        long[] closedWalks = new long[maxLength + 1];
+        boolean[] onPath = new boolean[graph.nodeCount()];
+        for (int start = 0; start < graph.nodeCount(); start++) {
+            onPath[start] = true;
+            countClosedWalks(graph, start, start, 1, maxLength, onPath, closedWalks);
+            onPath[start] = false;
+        }
+        long[] cycles = new long[maxLength + 1];
+        for (int length = 1; length <= maxLength; length++) {
+            cycles[length] = closedWalks[length] / length;
+        }
+        return cycles;
+    }
+
+    private static void countClosedWalks(CompactGraph graph, int start, int node, int length, int maxLength,
+                                         boolean[] onPath, long[] closedWalks) {
+        for (int e = graph.firstEdge(node); e < graph.endEdge(node); e++) {
+            int next = graph.target(e);
+            if (next == start) {
+                closedWalks[length]++;
+            } else if (!onPath[next] && length < maxLength) {
+                onPath[next] = true;
+                countClosedWalks(graph, start, next, length + 1, maxLength, onPath, closedWalks);
+                onPath[next] = false;
+            }
+        }
+    }
+
+    /**
+     * Every elementary cycle up to maxLength as its nodes, once per rotation class, ignoring parallel edges
+     */
+    static List<int[]> nodeCycles(CompactGraph graph, int maxLength) {
+        List<int[]> cycles = new ArrayList<>();
+        int n = graph.nodeCount();
+        int[] path = new int[maxLength];
+        boolean[] onPath = new boolean[n];
+        for (int root = 0; root < n; root++) {
+            path[0] = root;
+            onPath[root] = true;
+            collectNodeCycles(graph, root, 1, maxLength, path, onPath, cycles);
+            onPath[root] = false;
+        }
+        return cycles;
+    }
+
+    private static void collectNodeCycles(CompactGraph graph, int root, int length, int maxLength, int[] path,
+                                          boolean[] onPath, List<int[]> cycles) {
+        int node = path[length - 1];
+        boolean[] seen = new boolean[graph.nodeCount()];
+        for (int e = graph.firstEdge(node); e < graph.endEdge(node); e++) {
+            int next = graph.target(e);
+            if (seen[next]) {
+                continue;
+            }
+            seen[next] = true;
+            if (next == root) {
+                cycles.add(Arrays.copyOf(path, length));
+            } else if (next > root && !onPath[next] && length < maxLength) {
+                path[length] = next;
+                onPath[next] = true;
+                collectNodeCycles(graph, root, length + 1, maxLength, path, onPath, cycles);
+                onPath[next] = false;
+            }
+        }
+    }
+}
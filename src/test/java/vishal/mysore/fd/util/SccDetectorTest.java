@@ -0,0 +1,101 @@
+package vishal.mysore.fd.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import vishal.mysore.fd.util.CycleDetectionAlgorithm.CompactGraph;
+import vishal.mysore.fd.util.CycleDetectionAlgorithm.ParallelSCCDetector;
+import vishal.mysore.fd.util.CycleDetectionAlgorithm.TarjanSCCDetector;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Fraud Detection - SCC Detector Tests")
+class SccDetectorTest {
+
+    @Test
+    @DisplayName("Should find the same non-trivial components as brute-force mutual reachability")
+    void testMatchesBruteForce() {
+        Random random = new Random(21);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int round = 0; round < 300; round++) {
+                int n = 1 + random.nextInt(30);
+                CompactGraph graph = RandomGraphs.graph(random, n, random.nextInt(2 * n + 1), 1, 1);
+                List<List<Integer>> expected = RandomGraphs.nonTrivialComponents(graph);
+
+                assertEquals(expected, RandomGraphs.normalize(new TarjanSCCDetector(graph).findComponents()));
+                assertEquals(expected, RandomGraphs.normalize(new ParallelSCCDetector(graph, pool).findComponents()));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Should agree with Tarjan on graphs large enough to partition in parallel")
+    void testParallelMatchesTarjanOnLargeGraphs() {
+        Random random = new Random(22);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int round = 0; round < 5; round++) {
+                int n = 50_000 + random.nextInt(50_000);
+                CompactGraph graph = RandomGraphs.graph(random, n, n + random.nextInt(n), 1, 1);
+
+                List<List<Integer>> expected = RandomGraphs.normalize(new TarjanSCCDetector(graph).findComponents());
+                assertFalse(expected.isEmpty());
+                assertEquals(expected, RandomGraphs.normalize(new ParallelSCCDetector(graph, pool).findComponents()));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Should handle a ring far deeper than the call stack")
+    void testLongRing() {
+        int n = 1_000_000;
+        CompactGraph.Builder builder = new CompactGraph.Builder();
+        for (int i = 0; i < n; i++) {
+            builder.addNode("n" + i);
+        }
+        for (int i = 0; i < n; i++) {
+            builder.addEdge(i, (i + 1) % n, 1);
+        }
+        CompactGraph ring = builder.build();
+
+        List<int[]> tarjan = new TarjanSCCDetector(ring).findComponents();
+        assertEquals(1, tarjan.size());
+        assertEquals(n, tarjan.get(0).length);
+
+        List<int[]> parallel = new ParallelSCCDetector(ring).findComponents();
+        assertEquals(1, parallel.size());
+        assertEquals(n, parallel.get(0).length);
+    }
+
+    @Test
+    @DisplayName("Should cut one induced subgraph per non-trivial component")
+    void testNonTrivialSubgraphs() {
+        CompactGraph graph = new CompactGraph.Builder()
+                .addEdge("A", "B", 1)
+                .addEdge("B", "A", 2)
+                .addEdge("B", "C", 3)
+                .addEdge("C", "D", 4)
+                .addEdge("D", "C", 5)
+                .addEdge("E", "E", 6)
+                .build();
+
+        List<CompactGraph> subgraphs = new ParallelSCCDetector(graph).nonTrivialSubgraphs();
+
+        assertEquals(2, subgraphs.size());
+        int edges = 0;
+        for (CompactGraph subgraph : subgraphs) {
+            assertEquals(2, subgraph.nodeCount());
+            edges += subgraph.edgeCount();
+        }
+        // B -> C crosses components and the E self-loop is a trivial component
+        assertEquals(4, edges);
+    }
+}
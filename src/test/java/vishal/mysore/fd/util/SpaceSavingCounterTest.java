@@ -0,0 +1,85 @@
+package vishal.mysore.fd.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import vishal.mysore.fd.util.CycleDetectionAlgorithm.SpaceSavingCounter;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Fraud Detection - Space-Saving Counter Tests")
+class SpaceSavingCounterTest {
+
+    @Test
+    @DisplayName("Should keep its error guarantees against exact counts on skewed streams")
+    void testGuaranteesAgainstExactCounts() {
+        Random random = new Random(71);
+        for (int round = 0; round < 100; round++) {
+            int capacity = 1 + random.nextInt(40);
+            int keys = 1 + random.nextInt(500);
+            SpaceSavingCounter counter = new SpaceSavingCounter(capacity);
+            Map<Integer, Long> exact = new HashMap<>();
+
+            long total = 0;
+            for (int i = random.nextInt(5000); i >= 0; i--) {
+                // Squaring a uniform draw skews the stream towards small keys
+                double draw = random.nextDouble();
+                int key = (int) (draw * draw * keys);
+                long weight = random.nextInt(4) == 0 ? 1 + random.nextInt(5) : 1;
+                counter.offer(key, weight);
+                exact.merge(key, weight, Long::sum);
+                total += weight;
+            }
+
+            assertEquals(total, counter.total());
+            assertEquals(total / capacity, counter.errorBound());
+
+            List<long[]> top = counter.top(Integer.MAX_VALUE);
+            assertTrue(top.size() <= capacity);
+            for (int i = 0; i < top.size(); i++) {
+                long[] row = top.get(i);
+                long actual = exact.getOrDefault((int) row[0], 0L);
+                assertTrue(row[1] >= actual, "Counts should never under-estimate");
+                assertTrue(row[1] - row[2] <= actual, "Count minus error should be a lower bound");
+                assertTrue(row[2] <= counter.errorBound());
+                assertEquals(row[1], counter.estimate((int) row[0]));
+                if (i > 0) {
+                    assertTrue(top.get(i - 1)[1] >= row[1], "Rows should come highest count first");
+                }
+            }
+
+            exact.forEach((key, count) -> {
+                if (count > counter.total() / capacity) {
+                    assertTrue(counter.estimate(key) >= count, "Frequent key " + key + " should be tracked");
+                }
+            });
+        }
+    }
+
+    @Test
+    @DisplayName("Should count exactly while there is room for every key")
+    void testExactWithinCapacity() {
+        SpaceSavingCounter counter = new SpaceSavingCounter(4);
+        for (int i = 0; i < 10; i++) {
+            counter.offer(i % 3);
+        }
+
+        assertEquals(4, counter.estimate(0));
+        assertEquals(3, counter.estimate(1));
+        assertEquals(3, counter.estimate(2));
+        assertEquals(0, counter.estimate(7));
+        assertEquals(2, counter.top(2).size());
+        assertEquals(0, counter.top(2).get(0)[0]);
+        assertEquals(0, counter.top(2).get(0)[2]);
+    }
+
+    @Test
+    @DisplayName("Should reject a non-positive capacity")
+    void testRejectsInvalidCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new SpaceSavingCounter(0));
+    }
+}
@@ -0,0 +1,84 @@
+package vishal.mysore.fd.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import vishal.mysore.fd.util.CycleDetectionAlgorithm.CompactGraph;
+import vishal.mysore.fd.util.CycleDetectionAlgorithm.SPFANegativeCycleDetector;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Fraud Detection - SPFA Negative Cycle Detector Tests")
+class SpfaNegativeCycleDetectorTest {
+
+    @Test
+    @DisplayName("Should find a negative cycle exactly when Floyd-Warshall does")
+    void testMatchesFloydWarshall() {
+        Random random = new Random(31);
+        for (int round = 0; round < 500; round++) {
+            int n = 1 + random.nextInt(10);
+            CompactGraph graph = RandomGraphs.graph(random, n, random.nextInt(3 * n + 1), -4, 10);
+            double[][] reference = RandomGraphs.shortestPaths(graph);
+            boolean[][] reach = RandomGraphs.reachability(graph);
+
+            SPFANegativeCycleDetector detector = new SPFANegativeCycleDetector(graph);
+            assertNegativeCycle(graph, RandomGraphs.anyNegativeCycle(reference, null, -1), detector.findNegativeCycle());
+            for (int source = 0; source < n; source++) {
+                // The same detector is reused across sources, as callers may
+                assertNegativeCycle(graph, RandomGraphs.anyNegativeCycle(reference, reach, source),
+                        detector.findNegativeCycle(source));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should find one negative cycle per component that has one")
+    void testPerComponent() {
+        Random random = new Random(32);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int round = 0; round < 300; round++) {
+                int n = 1 + random.nextInt(16);
+                CompactGraph graph = RandomGraphs.graph(random, n, random.nextInt(2 * n + 1), -3, 10);
+                double[][] reference = RandomGraphs.shortestPaths(graph);
+                boolean[][] reach = RandomGraphs.reachability(graph);
+
+                // Each component, singletons with a negative self-loop included, counts once
+                Set<Integer> expected = new HashSet<>();
+                for (int u = 0; u < n; u++) {
+                    if (reference[u][u] < 0) {
+                        expected.add(RandomGraphs.componentOf(reach, u));
+                    }
+                }
+
+                List<int[]> cycles = SPFANegativeCycleDetector.findNegativeCyclesPerComponent(graph, pool);
+                Set<Integer> found = new HashSet<>();
+                for (int[] cycle : cycles) {
+                    assertNegativeCycle(graph, true, cycle);
+                    int component = RandomGraphs.componentOf(reach, cycle[0]);
+                    for (int node : cycle) {
+                        assertEquals(component, RandomGraphs.componentOf(reach, node));
+                    }
+                    assertTrue(found.add(component), "Component reported twice");
+                }
+                assertEquals(expected, found);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void assertNegativeCycle(CompactGraph graph, boolean expected, int[] cycle) {
+        if (!expected) {
+            assertNull(cycle);
+            return;
+        }
+        assertNotNull(cycle);
+        assertTrue(RandomGraphs.isNegativeCycle(graph, cycle), "Reported cycle should have negative weight");
+    }
+}
@@ -0,0 +1,164 @@
+package vishal.mysore.fd.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import vishal.mysore.fd.util.TemporalCycleDetector.TemporalEdge;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Fraud Detection - Temporal Cycle Detector Tests")
+class TemporalCycleDetectorTest {
+
+    @Test
+    @DisplayName("Should report every time-respecting cycle once, like brute force over the whole stream")
+    void testMatchesBruteForce() {
+        Random random = new Random(51);
+        for (int round = 0; round < 300; round++) {
+            int nodes = 2 + random.nextInt(4);
+            long window = 1 + random.nextInt(10);
+            int maxLength = 2 + random.nextInt(4);
+
+            // Equal timestamps are allowed in the stream but never inside one cycle
+            List<TemporalEdge> stream = new ArrayList<>();
+            long time = 0;
+            for (int i = random.nextInt(40); i > 0; i--) {
+                time += random.nextInt(3);
+                stream.add(new TemporalEdge("a" + random.nextInt(nodes), "a" + random.nextInt(nodes), time, i));
+            }
+
+            TemporalCycleDetector detector = new TemporalCycleDetector(window, maxLength);
+            List<List<TemporalEdge>> reported = new ArrayList<>();
+            long closed = 0;
+            for (TemporalEdge edge : stream) {
+                closed += detector.addEdge(edge.from, edge.to, edge.timestamp, edge.amount, reported::add);
+            }
+
+            assertEquals(reported.size(), closed);
+            Set<String> seen = new HashSet<>();
+            for (List<TemporalEdge> cycle : reported) {
+                assertTemporalCycle(cycle, window, maxLength);
+                assertTrue(seen.add(describe(cycle)), "Cycle reported twice");
+            }
+            assertEquals(bruteForceCount(stream, window, maxLength), closed);
+        }
+    }
+
+    @Test
+    @DisplayName("Should report a cycle in time order when its latest transfer arrives")
+    void testReportsOnClosingEdge() {
+        TemporalCycleDetector detector = new TemporalCycleDetector(1000, 5);
+        List<List<TemporalEdge>> cycles = new ArrayList<>();
+
+        assertEquals(0, detector.addEdge("A", "B", 100, 10, cycles::add));
+        assertEquals(0, detector.addEdge("B", "C", 200, 20, cycles::add));
+        assertEquals(1, detector.addEdge("C", "A", 300, 30, cycles::add));
+
+        List<TemporalEdge> cycle = cycles.get(0);
+        assertEquals(3, cycle.size());
+        assertEquals("A", cycle.get(0).from);
+        assertEquals(300, cycle.get(2).timestamp);
+
+        // A loop whose hops share a timestamp is not a temporal cycle
+        assertEquals(0, detector.addEdge("A", "C", 300, 5, cycles::add));
+    }
+
+    @Test
+    @DisplayName("Should evict transfers that fall out of the window")
+    void testEvictsOutsideWindow() {
+        TemporalCycleDetector detector = new TemporalCycleDetector(100, 5);
+        List<List<TemporalEdge>> cycles = new ArrayList<>();
+
+        detector.addEdge("A", "B", 0, 1, cycles::add);
+        detector.addEdge("B", "C", 50, 1, cycles::add);
+        assertEquals(2, detector.retainedEdges());
+
+        assertEquals(0, detector.addEdge("C", "A", 101, 1, cycles::add));
+        assertEquals(2, detector.retainedEdges());
+        assertEquals(1, detector.addEdge("C", "B", 150, 1, cycles::add));
+        for (long t = 1000; t < 1010; t++) {
+            detector.addEdge("X", "Y", t, 1, cycles::add);
+        }
+        assertEquals(10, detector.retainedEdges());
+    }
+
+    @Test
+    @DisplayName("Should reject out-of-order transfers and invalid bounds")
+    void testRejectsInvalidInput() {
+        TemporalCycleDetector detector = new TemporalCycleDetector(100, 3);
+        detector.addEdge("A", "B", 50, 1, cycle -> { });
+
+        assertThrows(IllegalArgumentException.class, () -> detector.addEdge("B", "A", 49, 1, cycle -> { }));
+        assertThrows(IllegalArgumentException.class, () -> new TemporalCycleDetector(0, 3));
+        assertThrows(IllegalArgumentException.class, () -> new TemporalCycleDetector(100, 1));
+    }
+
+    private static void assertTemporalCycle(List<TemporalEdge> cycle, long window, int maxLength) {
+        assertTrue(cycle.size() >= 2 && cycle.size() <= maxLength);
+        Set<String> accounts = new HashSet<>();
+        for (int i = 0; i < cycle.size(); i++) {
+            TemporalEdge edge = cycle.get(i);
+            TemporalEdge following = cycle.get((i + 1) % cycle.size());
+            assertEquals(edge.to, following.from);
+            assertTrue(accounts.add(edge.from), "Accounts on a cycle should be distinct");
+            if (i > 0) {
+                assertTrue(cycle.get(i - 1).timestamp < edge.timestamp, "Timestamps should strictly increase");
+            }
+        }
+        assertTrue(cycle.get(cycle.size() - 1).timestamp - cycle.get(0).timestamp <= window);
+    }
+
+    /**
+     * Every sequence of stream positions forming a cycle with strictly increasing timestamps inside the window
+     */
+    private static long bruteForceCount(List<TemporalEdge> stream, long window, int maxLength) {
+        long count = 0;
+        for (int first = 0; first < stream.size(); first++) {
+            List<Integer> path = new ArrayList<>();
+            path.add(first);
+            count += extend(stream, path, window, maxLength);
+        }
+        return count;
+    }
+
+    private static long extend(List<TemporalEdge> stream, List<Integer> path, long window, int maxLength) {
+        TemporalEdge first = stream.get(path.get(0));
+        TemporalEdge last = stream.get(path.get(path.size() - 1));
+        long count = 0;
+        if (path.size() >= 2 && last.to.equals(first.from)) {
+            Set<String> accounts = new HashSet<>();
+            boolean distinct = true;
+            for (int position : path) {
+                distinct &= accounts.add(stream.get(position).from);
+            }
+            count += distinct ? 1 : 0;
+        }
+        if (path.size() == maxLength) {
+            return count;
+        }
+        for (int next = path.get(path.size() - 1) + 1; next < stream.size(); next++) {
+            TemporalEdge edge = stream.get(next);
+            if (edge.from.equals(last.to) && edge.timestamp > last.timestamp
+                    && edge.timestamp - first.timestamp <= window) {
+                path.add(next);
+                count += extend(stream, path, window, maxLength);
+                path.remove(path.size() - 1);
+            }
+        }
+        return count;
+    }
+
+    private static String describe(List<TemporalEdge> cycle) {
+        StringBuilder description = new StringBuilder();
+        for (TemporalEdge edge : cycle) {
+            description.append(edge.from).append('>').append(edge.to).append('@').append(edge.timestamp)
+                    .append('/').append(edge.amount).append(' ');
+        }
+        return description.toString();
+    }
+}